@@ -0,0 +1,127 @@
+package edu.usun.planning;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic on long values in thousandths (e.g. 1500 is 1.5 man-days or 1.5 story points),
+ * used by capacity and planning computations instead of BigDecimal. Entities keep BigDecimal values,
+ * the conversion happens when reading or writing them.
+ *
+ * Rounding: conversion from BigDecimal, multiplication and division round the exact result to the nearest
+ * thousandth, ties to the even neighbour ({@link RoundingMode#HALF_EVEN}). Addition and subtraction are exact.
+ * Overflow throws ArithmeticException.
+ *
+ * @author usun
+ */
+public final class FixedPoint {
+
+	/** Number of units in one. */
+	public static final long SCALE = 1000;
+
+	/** Number of decimal places. */
+	public static final int DECIMALS = 3;
+
+	/** One. */
+	public static final long ONE = SCALE;
+
+	/**
+	 * Private constructor.
+	 */
+	private FixedPoint() {
+		super();
+	}
+
+	/**
+	 * @param value The value to convert, can be null.
+	 * @param defaultValue Fixed-point value to return if the value is null.
+	 * @return fixed-point value.
+	 */
+	public static long of(BigDecimal value, long defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		return value.setScale(DECIMALS, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+	}
+
+	/**
+	 * @param value Whole number to convert.
+	 * @return fixed-point value.
+	 */
+	public static long of(long value) {
+		return Math.multiplyExact(value, SCALE);
+	}
+
+	/**
+	 * @param value Fixed-point value.
+	 * @return the value as BigDecimal with 3 decimal places.
+	 */
+	public static BigDecimal toBigDecimal(long value) {
+		return BigDecimal.valueOf(value, DECIMALS);
+	}
+
+	/**
+	 * @param value Fixed-point value.
+	 * @return the value as double (for reporting only).
+	 */
+	public static double toDouble(long value) {
+		return (double) value / SCALE;
+	}
+
+	/**
+	 * @param a Fixed-point value.
+	 * @param b Fixed-point value.
+	 * @return a * b, rounded half-even.
+	 */
+	public static long multiply(long a, long b) {
+		return divideRounded(Math.multiplyExact(a, b), SCALE);
+	}
+
+	/**
+	 * @param a Fixed-point value.
+	 * @param b Fixed-point value, non-zero.
+	 * @return a / b, rounded half-even.
+	 */
+	public static long divide(long a, long b) {
+		return divideRounded(Math.multiplyExact(a, SCALE), b);
+	}
+
+	/**
+	 * Integer division rounded half-even, e.g. to rescale a product of fixed-point values.
+	 * @param numerator The numerator.
+	 * @param denominator The denominator, non-zero.
+	 * @return numerator / denominator, rounded half-even.
+	 */
+	public static long divideRounded(long numerator, long denominator) {
+		long quotient = numerator / denominator;
+		long remainder = numerator % denominator;
+		if (remainder == 0) {
+			return quotient;
+		}
+		// Compare 2 * |remainder| with |denominator| without overflow
+		long absRemainder = Math.abs(remainder);
+		long absDenominator = Math.abs(denominator);
+		long halfDiff = absRemainder - (absDenominator - absRemainder);
+		boolean negative = (numerator < 0) != (denominator < 0);
+		if (halfDiff > 0 || (halfDiff == 0 && (quotient & 1) != 0)) {
+			return negative ? quotient - 1 : quotient + 1;
+		}
+		return quotient;
+	}
+
+	/**
+	 * @param value Fixed-point value.
+	 * @return the smallest whole number not less than the value.
+	 */
+	public static long ceil(long value) {
+		return Math.floorDiv(value + SCALE - 1, SCALE);
+	}
+
+	/**
+	 * @param value Fixed-point value.
+	 * @return the largest whole number not greater than the value.
+	 */
+	public static long floor(long value) {
+		return Math.floorDiv(value, SCALE);
+	}
+}
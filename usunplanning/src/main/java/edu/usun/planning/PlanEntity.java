@@ -39,6 +39,7 @@ public abstract class PlanEntity implements Serializable, Cloneable {
 	}
 
 	/**
+	 * Shallow copy, see {@link PlanEntityCopier} for deep copies of the entity graph.
 	 * @return the cloned object.
 	 */
 	public Object clone() throws CloneNotSupportedException {
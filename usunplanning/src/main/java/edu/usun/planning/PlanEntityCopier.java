@@ -0,0 +1,320 @@
+package edu.usun.planning;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.usun.planning.calendar.WorkCalendar;
+
+/**
+ * Deep copier of {@link PlanEntity} graphs preserving identity: an object referenced from several places
+ * (e.g. the stream of activities, the team of team members, the sprint of capacity plans) is copied once
+ * and the copies reference the same copy, cycles included.
+ *
+ * An entity is copied with {@link PlanEntity#clone()}, which copies primitives and immutable values in one go,
+ * then only its reference fields are replaced by their copies through method handles resolved once per class.
+ * Transient fields (derived indexes and caches) are reset, they are rebuilt lazily on the copy.
+ * Lists, sets, maps, arrays, calendars and dates are copied (unmodifiable collections become modifiable ones),
+ * interned work calendars are immutable and stay shared, other objects are shared.
+ * The graph is walked with an explicit work list, so deep graphs do not overflow the stack.
+ *
+ * Copies made by the same copier share identity, so several roots can be copied into one consistent graph.
+ * The copier is not thread-safe.
+ *
+ * @author usun
+ */
+public class PlanEntityCopier {
+
+	/** Types of values copied by reference. */
+	private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.<Class<?>> asList(
+		String.class, BigDecimal.class, BigInteger.class, Boolean.class, Character.class,
+		Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class));
+
+	/** Field copiers per entity class. */
+	private static final ClassValue<FieldCopier[]> FIELD_COPIERS = new ClassValue<FieldCopier[]>() {
+
+		@Override
+		protected FieldCopier[] computeValue(Class<?> type) {
+			return fieldCopiers(type);
+		}
+	};
+
+	/** Copies by original. */
+	private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+	/** Originals whose copies still reference the originals, followed by the copy. */
+	private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+	/**
+	 * Default constructor.
+	 */
+	public PlanEntityCopier() {
+		super();
+	}
+
+	/**
+	 * @param <T> Type of the root.
+	 * @param root Entity, collection or array to copy.
+	 * @return deep copy of the root.
+	 */
+	public static <T> T deepCopy(T root) {
+		return new PlanEntityCopier().copy(root);
+	}
+
+	/**
+	 * @param <T> Type of the root.
+	 * @param root Entity, collection or array to copy.
+	 * @return deep copy of the root, sharing the copies already made by this copier.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T copy(T root) {
+		T copy = (T) copyOf(root);
+		while (!pending.isEmpty()) {
+			Object original = pending.poll();
+			fill(original, pending.poll());
+		}
+		return copy;
+	}
+
+	/**
+	 * @param <T> Type of the original.
+	 * @param original The original.
+	 * @return the copy made by this copier, null if not copied.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getCopy(T original) {
+		return (T) copies.get(original);
+	}
+
+	/**
+	 * Creates or looks up the copy of a value, leaving the references of a new copy to {@link #fill(Object, Object)}.
+	 * @param value The value.
+	 * @return the copy, or the value itself if shared.
+	 */
+	private Object copyOf(Object value) {
+		if (value == null || IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum) {
+			return value;
+		}
+		Object copy = copies.get(value);
+		if (copy != null) {
+			return copy;
+		}
+		boolean filled = true;
+		if (value instanceof PlanEntity) {
+			if (value instanceof WorkCalendar && ((WorkCalendar) value).isShared()) {
+				return value;
+			}
+			try {
+				copy = ((PlanEntity) value).clone();
+			} catch (CloneNotSupportedException e) {
+				throw new IllegalStateException("Entity " + value.getClass().getName() + " cannot be copied", e);
+			}
+			filled = false;
+		} else if (value instanceof Calendar) {
+			copy = ((Calendar) value).clone();
+		} else if (value instanceof Date) {
+			copy = ((Date) value).clone();
+		} else if (value instanceof Collection) {
+			copy = newCollection((Collection<?>) value);
+			filled = false;
+		} else if (value instanceof Map) {
+			copy = newMap((Map<?, ?>) value);
+			filled = false;
+		} else if (value.getClass().isArray()) {
+			if (value.getClass().getComponentType().isPrimitive()) {
+				int length = Array.getLength(value);
+				copy = Array.newInstance(value.getClass().getComponentType(), length);
+				System.arraycopy(value, 0, copy, 0, length);
+			} else {
+				copy = ((Object[]) value).clone();
+				filled = false;
+			}
+		} else {
+			return value;
+		}
+		copies.put(value, copy);
+		if (!filled) {
+			pending.add(value);
+			pending.add(copy);
+		}
+		return copy;
+	}
+
+	/**
+	 * Replaces the references of a new copy by their copies.
+	 * @param original The original.
+	 * @param copy The copy.
+	 */
+	@SuppressWarnings("unchecked")
+	private void fill(Object original, Object copy) {
+		if (copy instanceof PlanEntity) {
+			for (FieldCopier field : FIELD_COPIERS.get(copy.getClass())) {
+				field.copy(this, copy);
+			}
+		} else if (copy instanceof Collection) {
+			Collection<Object> target = (Collection<Object>) copy;
+			for (Object element : (Collection<?>) original) {
+				target.add(copyOf(element));
+			}
+		} else if (copy instanceof Map) {
+			Map<Object, Object> target = (Map<Object, Object>) copy;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) original).entrySet()) {
+				target.put(copyOf(entry.getKey()), copyOf(entry.getValue()));
+			}
+		} else {
+			Object[] target = (Object[]) copy;
+			for (int i = 0; i < target.length; i++) {
+				target[i] = copyOf(target[i]);
+			}
+		}
+	}
+
+	/**
+	 * @param collection The collection.
+	 * @return new empty collection of the same kind.
+	 */
+	private static Collection<Object> newCollection(Collection<?> collection) {
+		if (collection instanceof LinkedList) {
+			return new LinkedList<>();
+		}
+		if (collection instanceof List) {
+			return new ArrayList<>(collection.size());
+		}
+		if (collection instanceof SortedSet) {
+			@SuppressWarnings("unchecked")
+			SortedSet<Object> sorted = (SortedSet<Object>) collection;
+			return new TreeSet<>(sorted.comparator());
+		}
+		if (collection instanceof LinkedHashSet) {
+			return new LinkedHashSet<>();
+		}
+		if (collection instanceof Set) {
+			return new HashSet<>();
+		}
+		return new ArrayList<>(collection.size());
+	}
+
+	/**
+	 * @param map The map.
+	 * @return new empty map of the same kind.
+	 */
+	private static Map<Object, Object> newMap(Map<?, ?> map) {
+		if (map instanceof IdentityHashMap) {
+			return new IdentityHashMap<>();
+		}
+		if (map instanceof SortedMap) {
+			@SuppressWarnings("unchecked")
+			SortedMap<Object, Object> sorted = (SortedMap<Object, Object>) map;
+			return new TreeMap<>(sorted.comparator());
+		}
+		if (map instanceof ConcurrentMap) {
+			return new ConcurrentHashMap<>();
+		}
+		if (map instanceof LinkedHashMap) {
+			return new LinkedHashMap<>();
+		}
+		return new HashMap<>();
+	}
+
+	/**
+	 * @param type Entity class.
+	 * @return copiers of the fields of the class and its superclasses which are not copied by clone().
+	 */
+	private static FieldCopier[] fieldCopiers(Class<?> type) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodType getterType = MethodType.methodType(Object.class, Object.class);
+		MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+		List<FieldCopier> copiers = new ArrayList<>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				Class<?> fieldType = field.getType();
+				boolean reset = Modifier.isTransient(modifiers);
+				if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)
+					|| !reset && (fieldType.isPrimitive() || fieldType.isEnum() || IMMUTABLE_TYPES.contains(fieldType))) {
+					continue;
+				}
+				try {
+					field.setAccessible(true);
+					MethodHandle setter = lookup.unreflectSetter(field).asType(setterType);
+					if (reset) {
+						Object defaultValue = fieldType.isPrimitive() ? Array.get(Array.newInstance(fieldType, 1), 0) : null;
+						copiers.add(new FieldCopier(null, setter, defaultValue));
+					} else {
+						copiers.add(new FieldCopier(lookup.unreflectGetter(field).asType(getterType), setter, null));
+					}
+				} catch (IllegalAccessException | RuntimeException e) {
+					throw new IllegalStateException("Field " + field + " cannot be copied", e);
+				}
+			}
+		}
+		return copiers.toArray(new FieldCopier[copiers.size()]);
+	}
+
+	/**
+	 * Copies or resets one field of an entity copy.
+	 */
+	private static final class FieldCopier {
+
+		/** Getter, null to reset the field. */
+		private final MethodHandle getter;
+
+		/** Setter. */
+		private final MethodHandle setter;
+
+		/** Value of a reset field. */
+		private final Object defaultValue;
+
+		/**
+		 * @param getter Getter, null to reset the field.
+		 * @param setter Setter.
+		 * @param defaultValue Value of a reset field.
+		 */
+		FieldCopier(MethodHandle getter, MethodHandle setter, Object defaultValue) {
+			this.getter = getter;
+			this.setter = setter;
+			this.defaultValue = defaultValue;
+		}
+
+		/**
+		 * @param copier The copier.
+		 * @param copy Entity copy still referencing the originals.
+		 */
+		void copy(PlanEntityCopier copier, Object copy) {
+			try {
+				Object value = getter == null ? defaultValue : copier.copyOf((Object) getter.invokeExact(copy));
+				setter.invokeExact(copy, value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException("Field of " + copy.getClass().getName() + " cannot be copied", e);
+			}
+		}
+	}
+}
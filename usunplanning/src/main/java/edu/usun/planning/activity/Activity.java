@@ -1,6 +1,7 @@
 package edu.usun.planning.activity;
 
 import edu.usun.planning.PlanEntity;
+import edu.usun.planning.release.Release;
 import edu.usun.planning.stream.Stream;
 
 /**
@@ -28,6 +29,11 @@ public abstract class Activity extends PlanEntity {
 	 */
 	protected Stream stream;
 	
+	/**
+	 * Release which should deliver this activity (to integration/customer). Optional.
+	 */
+	protected Release release;
+	
 	/**
 	 * Default constructor.
 	 */
@@ -62,6 +68,20 @@ public abstract class Activity extends PlanEntity {
 	public void setStream(Stream stream) {
 		this.stream = stream;
 	}
+
+	/**
+	 * @return the release
+	 */
+	public Release getRelease() {
+		return release;
+	}
+
+	/**
+	 * @param release the release to set
+	 */
+	public void setRelease(Release release) {
+		this.release = release;
+	}
 	
 	/**
 	 * @see java.lang.Object#toString()
@@ -30,6 +30,11 @@ public class CapacityOverride extends PlanEntity {
 	 */
 	protected BigDecimal capacityFactor = new BigDecimal(1);
 	
+	/**
+	 * Public holiday of a shared work calendar: cannot be changed, see {@link WorkCalendar#isShared()}.
+	 */
+	protected transient boolean shared;
+	
 	/**
 	 * Default constructor.
 	 */
@@ -38,19 +43,36 @@ public class CapacityOverride extends PlanEntity {
 	}
 
 	/**
-	 * @return the date
+	 * @see edu.usun.planning.PlanEntity#setName(java.lang.String)
+	 */
+	@Override
+	public void setName(String name) {
+		checkNotShared();
+		super.setName(name);
+	}
+
+	/**
+	 * @return the date, a copy for a public holiday of a shared work calendar
 	 */
 	public Calendar getDate() {
-		return date;
+		return this.shared && this.date != null ? (Calendar) this.date.clone() : date;
 	}
 
 	/**
 	 * @param date the date to set
 	 */
 	public void setDate(Calendar date) {
+		checkNotShared();
 		this.date = date;
 	}
 
+	/**
+	 * @return the date as epoch-day, {@link EpochDays#MIN_DAY} if not set
+	 */
+	public long getEpochDay() {
+		return EpochDays.toEpochDay(this.date, EpochDays.MIN_DAY);
+	}
+
 	/**
 	 * @return the capacityFactor
 	 */
@@ -62,9 +84,37 @@ public class CapacityOverride extends PlanEntity {
 	 * @param capacityFactor the capacityFactor to set
 	 */
 	public void setCapacityFactor(BigDecimal capacityFactor) {
+		checkNotShared();
 		this.capacityFactor = capacityFactor;
 	}
 
+	/**
+	 * Marks the record as a public holiday of a shared work calendar.
+	 */
+	void markShared() {
+		this.shared = true;
+	}
+
+	/**
+	 * @throws IllegalStateException if the record is a public holiday of a shared work calendar.
+	 */
+	private void checkNotShared() {
+		if (this.shared) {
+			throw new IllegalStateException("Public holiday of a shared work calendar cannot be changed, fork the calendar first");
+		}
+	}
+
+	/**
+	 * @return copy of this record with its own date instance, never shared.
+	 */
+	public CapacityOverride copy() {
+		CapacityOverride copy = new CapacityOverride();
+		copy.setName(this.getName());
+		copy.setDate(this.date == null ? null : (Calendar) this.date.clone());
+		copy.setCapacityFactor(this.capacityFactor);
+		return copy;
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -0,0 +1,134 @@
+package edu.usun.planning.calendar;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Read-only lookup index over a list of capacity override records
+ * (public holidays of a work calendar or personal days off).
+ * Records are keyed by epoch-day and kept in a sorted primitive array,
+ * so a lookup is a binary search instead of a scan with Calendar field recomputation.
+ *
+ * The index is a snapshot of the source list at the time it was built:
+ * it should be rebuilt when the list is changed.
+ *
+ * @author usun
+ */
+public final class CapacityOverrideIndex {
+
+	/** Index without any records. */
+	public static final CapacityOverrideIndex EMPTY = new CapacityOverrideIndex(new long[0], new CapacityOverride[0]);
+
+	/** Sorted epoch-days of the indexed records. */
+	private final long[] epochDays;
+
+	/** Indexed records, aligned with epochDays. */
+	private final CapacityOverride[] capacityOverrides;
+
+	/**
+	 * @param epochDays Sorted epoch-days.
+	 * @param capacityOverrides Records aligned with epochDays.
+	 */
+	private CapacityOverrideIndex(long[] epochDays, CapacityOverride[] capacityOverrides) {
+		super();
+		this.epochDays = epochDays;
+		this.capacityOverrides = capacityOverrides;
+	}
+
+	/**
+	 * Builds the index. Records without a date are skipped.
+	 * If there are several records for the same day, the first one in the list wins
+	 * (the same way as a linear search would find it).
+	 * @param capacityOverrides List of capacity overrides records to index.
+	 * @return the index, never null.
+	 */
+	public static CapacityOverrideIndex of(List<CapacityOverride> capacityOverrides) {
+		if (capacityOverrides == null || capacityOverrides.isEmpty()) {
+			return EMPTY;
+		}
+		int size = capacityOverrides.size();
+		// Sort composite keys (epoch-day, position in the list) to keep the first record for duplicates
+		long[] keys = new long[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			CapacityOverride capacityOverride = capacityOverrides.get(i);
+			if (capacityOverride == null || capacityOverride.getDate() == null) {
+				continue;
+			}
+			keys[count++] = (capacityOverride.getEpochDay() << 32) | i;
+		}
+		Arrays.sort(keys, 0, count);
+
+		long[] epochDays = new long[count];
+		CapacityOverride[] records = new CapacityOverride[count];
+		int unique = 0;
+		for (int i = 0; i < count; i++) {
+			long epochDay = keys[i] >> 32;
+			if (unique > 0 && epochDays[unique - 1] == epochDay) {
+				continue;
+			}
+			epochDays[unique] = epochDay;
+			records[unique] = capacityOverrides.get((int) keys[i]);
+			unique++;
+		}
+		if (unique < count) {
+			epochDays = Arrays.copyOf(epochDays, unique);
+			records = Arrays.copyOf(records, unique);
+		}
+		return new CapacityOverrideIndex(epochDays, records);
+	}
+
+	/**
+	 * @param dateToCheck The date to check for. Time of the day is ignored.
+	 * @return the capacity override record for the provided date. Null if not found.
+	 */
+	public CapacityOverride find(Calendar dateToCheck) {
+		if (dateToCheck == null) {
+			return null;
+		}
+		return find(EpochDays.toEpochDay(dateToCheck));
+	}
+
+	/**
+	 * @param epochDay The day to check for (days since 1970-01-01).
+	 * @return the capacity override record for the provided day. Null if not found.
+	 */
+	public CapacityOverride find(long epochDay) {
+		int pos = Arrays.binarySearch(this.epochDays, epochDay);
+		return pos < 0 ? null : this.capacityOverrides[pos];
+	}
+
+	/**
+	 * @param epochDay The day to search from (days since 1970-01-01).
+	 * @return position of the first indexed record on or after the provided day, 
+	 * {@link #size()} if there is no such record.
+	 */
+	public int ceilingPosition(long epochDay) {
+		int pos = Arrays.binarySearch(this.epochDays, epochDay);
+		return pos < 0 ? -pos - 1 : pos;
+	}
+
+	/**
+	 * @param pos Position within the index, 0 to {@link #size()} - 1.
+	 * @return epoch-day of the record at the position.
+	 */
+	public long epochDayAt(int pos) {
+		return this.epochDays[pos];
+	}
+
+	/**
+	 * @param pos Position within the index, 0 to {@link #size()} - 1.
+	 * @return the record at the position.
+	 */
+	public CapacityOverride capacityOverrideAt(int pos) {
+		return this.capacityOverrides[pos];
+	}
+
+	/**
+	 * @return number of distinct days in the index.
+	 */
+	public int size() {
+		return this.epochDays.length;
+	}
+}
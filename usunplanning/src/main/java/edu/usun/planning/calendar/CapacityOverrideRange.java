@@ -0,0 +1,127 @@
+package edu.usun.planning.calendar;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+
+import edu.usun.planning.PlanEntity;
+
+/**
+ * Capacity change over a range of days, e.g. vacation (factor 0) or part-time period (factor 0.5).
+ * Unlike a single day {@link CapacityOverride} it scales the work calendar capacity of every day in the range,
+ * so weekends and public holidays within the range stay days-off.
+ * 
+ * @author usun
+ */
+public class CapacityOverrideRange extends PlanEntity {
+
+	/**
+	 * For serialization format.
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * First affected day.
+	 */
+	protected Calendar startDate;
+	
+	/**
+	 * Last affected day (inclusive).
+	 */
+	protected Calendar endDate;
+	
+	/**
+	 * 1 - means no change (default value); 0 - means days-off (vacation); 
+	 * between 0 and 1 - part-time.
+	 */
+	protected BigDecimal capacityFactor = new BigDecimal(1);
+	
+	/**
+	 * Default constructor.
+	 */
+	public CapacityOverrideRange() {
+		super();
+	}
+
+	/**
+	 * @param startDate The first affected day.
+	 * @param endDate The last affected day (inclusive).
+	 * @param capacityFactor The capacity factor.
+	 */
+	public CapacityOverrideRange(Calendar startDate, Calendar endDate, BigDecimal capacityFactor) {
+		super();
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.capacityFactor = capacityFactor;
+	}
+
+	/**
+	 * @return the startDate
+	 */
+	public Calendar getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * @param startDate the startDate to set
+	 */
+	public void setStartDate(Calendar startDate) {
+		this.startDate = startDate;
+	}
+
+	/**
+	 * @return the endDate
+	 */
+	public Calendar getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * @param endDate the endDate to set
+	 */
+	public void setEndDate(Calendar endDate) {
+		this.endDate = endDate;
+	}
+
+	/**
+	 * @return the startDate as epoch-day, {@link EpochDays#MIN_DAY} if not set
+	 */
+	public long getStartEpochDay() {
+		return EpochDays.toEpochDay(this.startDate, EpochDays.MIN_DAY);
+	}
+
+	/**
+	 * @return the endDate as epoch-day, {@link EpochDays#MAX_DAY} if not set
+	 */
+	public long getEndEpochDay() {
+		return EpochDays.toEpochDay(this.endDate, EpochDays.MAX_DAY);
+	}
+
+	/**
+	 * @return the capacityFactor
+	 */
+	public BigDecimal getCapacityFactor() {
+		return capacityFactor;
+	}
+
+	/**
+	 * @param capacityFactor the capacityFactor to set
+	 */
+	public void setCapacityFactor(BigDecimal capacityFactor) {
+		this.capacityFactor = capacityFactor;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+		return new StringBuffer()
+			.append("CapacityOverrideRange{")
+			.append("startDate=").append(this.getStartDate() == null ? "N/A" : sdf.format(this.getStartDate().getTime())).append(',')
+			.append("endDate=").append(this.getEndDate() == null ? "N/A" : sdf.format(this.getEndDate().getTime())).append(',')
+			.append("capacityFactor=").append(this.getCapacityFactor() == null ? "N/A" : this.getCapacityFactor().toPlainString())
+			.append('}').toString();
+	}
+}
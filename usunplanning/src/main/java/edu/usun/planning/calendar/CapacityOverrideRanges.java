@@ -0,0 +1,168 @@
+package edu.usun.planning.calendar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.usun.planning.FixedPoint;
+
+/**
+ * Read-only index over capacity override ranges: sorted list of non-overlapping runs of days with the same factor.
+ * Where ranges overlap, the later one in the source list wins. Supports stabbing (factor of a day) 
+ * and overlap (runs within a range of days) queries in O(log n) and O(log n + k).
+ *
+ * The index is a snapshot of the source list at the time it was built:
+ * it should be rebuilt when the list is changed.
+ *
+ * @author usun
+ */
+public final class CapacityOverrideRanges {
+
+	/** Index without any runs. */
+	public static final CapacityOverrideRanges EMPTY = new CapacityOverrideRanges(new long[0], new long[0], new long[0]);
+
+	/** Sorted first days of the runs. */
+	private final long[] starts;
+
+	/** Last days of the runs (inclusive), aligned with starts. */
+	private final long[] ends;
+
+	/** Fixed-point capacity factors of the runs, aligned with starts. */
+	private final long[] factors;
+
+	/**
+	 * @param starts First days of the runs.
+	 * @param ends Last days of the runs.
+	 * @param factors Capacity factors of the runs.
+	 */
+	private CapacityOverrideRanges(long[] starts, long[] ends, long[] factors) {
+		super();
+		this.starts = starts;
+		this.ends = ends;
+		this.factors = factors;
+	}
+
+	/**
+	 * Builds the index. Ranges without dates are open-ended, ranges with end before start are skipped.
+	 * @param ranges List of capacity override ranges to index.
+	 * @return the index, never null.
+	 */
+	public static CapacityOverrideRanges of(List<CapacityOverrideRange> ranges) {
+		if (ranges == null || ranges.isEmpty()) {
+			return EMPTY;
+		}
+		// Paint ranges in the list order over the runs keyed by their first day
+		TreeMap<Long, long[]> runs = new TreeMap<>();
+		for (CapacityOverrideRange range : ranges) {
+			if (range == null) {
+				continue;
+			}
+			long start = range.getStartEpochDay();
+			long end = range.getEndEpochDay();
+			if (end < start) {
+				continue;
+			}
+			long factor = FixedPoint.of(range.getCapacityFactor(), FixedPoint.ONE);
+
+			// Cut the run overlapping the start of the new range
+			Map.Entry<Long, long[]> before = runs.lowerEntry(start);
+			if (before != null && before.getValue()[0] >= start) {
+				long[] run = before.getValue();
+				if (run[0] > end) {
+					runs.put(end + 1, new long[] {run[0], run[1]});
+				}
+				run[0] = start - 1;
+			}
+			// Drop or cut the runs starting within the new range
+			Map.Entry<Long, long[]> within = runs.ceilingEntry(start);
+			while (within != null && within.getKey() <= end) {
+				runs.remove(within.getKey());
+				if (within.getValue()[0] > end) {
+					runs.put(end + 1, within.getValue());
+					break;
+				}
+				within = runs.ceilingEntry(start);
+			}
+			runs.put(start, new long[] {end, factor});
+		}
+
+		long[] starts = new long[runs.size()];
+		long[] ends = new long[runs.size()];
+		long[] factors = new long[runs.size()];
+		int count = 0;
+		for (Map.Entry<Long, long[]> run : runs.entrySet()) {
+			long factor = run.getValue()[1];
+			// Merge adjacent runs with the same factor
+			if (count > 0 && ends[count - 1] + 1 == run.getKey() && factors[count - 1] == factor) {
+				ends[count - 1] = run.getValue()[0];
+				continue;
+			}
+			starts[count] = run.getKey();
+			ends[count] = run.getValue()[0];
+			factors[count] = factor;
+			count++;
+		}
+		return new CapacityOverrideRanges(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+			Arrays.copyOf(factors, count));
+	}
+
+	/**
+	 * Stabbing query.
+	 * @param epochDay The day (days since 1970-01-01).
+	 * @return fixed-point capacity factor of the day, 1 if there is no range covering it.
+	 */
+	public long factorAt(long epochDay) {
+		int pos = Arrays.binarySearch(this.starts, epochDay);
+		if (pos < 0) {
+			pos = -pos - 2;
+		}
+		return pos >= 0 && this.ends[pos] >= epochDay ? this.factors[pos] : FixedPoint.ONE;
+	}
+
+	/**
+	 * Overlap query: runs overlapping a range of days are the ones from this position 
+	 * while their start is not after the end of the range.
+	 * @param epochDay First day of the range (days since 1970-01-01).
+	 * @return position of the first run ending on or after the provided day, {@link #size()} if there is no such run.
+	 */
+	public int firstOverlapping(long epochDay) {
+		int pos = Arrays.binarySearch(this.starts, epochDay);
+		if (pos >= 0) {
+			return pos;
+		}
+		pos = -pos - 2;
+		return pos >= 0 && this.ends[pos] >= epochDay ? pos : pos + 1;
+	}
+
+	/**
+	 * @param pos Position of the run, 0 to {@link #size()} - 1.
+	 * @return first day of the run.
+	 */
+	public long startAt(int pos) {
+		return this.starts[pos];
+	}
+
+	/**
+	 * @param pos Position of the run, 0 to {@link #size()} - 1.
+	 * @return last day of the run (inclusive).
+	 */
+	public long endAt(int pos) {
+		return this.ends[pos];
+	}
+
+	/**
+	 * @param pos Position of the run, 0 to {@link #size()} - 1.
+	 * @return fixed-point capacity factor of the run.
+	 */
+	public long factorAtPosition(int pos) {
+		return this.factors[pos];
+	}
+
+	/**
+	 * @return number of runs.
+	 */
+	public int size() {
+		return this.starts.length;
+	}
+}
@@ -1,8 +1,13 @@
 package edu.usun.planning.calendar;
 
+import java.math.BigDecimal;
 import java.util.Calendar;
 import java.util.List;
 
+import edu.usun.planning.FixedPoint;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.TeamMember;
+
 /**
  * Some utilities to handle capacity related information.
  * 
@@ -19,24 +24,128 @@ public final class CapacityUtils {
 	
 	/**
 	 * Searches for the first capacity override record to match the provided date.
+	 * Scans the list on every call.
 	 * @param dateToCheck The date to check for. Time of the day is ignored.
 	 * @param capacityOverrides List of capacity overrides records to search within.
 	 * @return the first capacity override record to match the provided date. Null if not found.
+	 * @deprecated use the indexed lookups {@link #findCapacityOverride(Calendar, WorkCalendar)},
+	 * {@link #findCapacityOverride(Calendar, Person)} or {@link CapacityOverrideIndex#find(Calendar)}.
 	 */
+	@Deprecated
 	public static CapacityOverride findCapacityOverride(Calendar dateToCheck, List<CapacityOverride> capacityOverrides) {
 		if (dateToCheck == null || capacityOverrides == null || capacityOverrides.isEmpty()) {
 			return null;
 		}
+		long epochDay = EpochDays.toEpochDay(dateToCheck);
 		for (CapacityOverride capacityOverride : capacityOverrides) {
-			if (capacityOverride == null || capacityOverride.getDate() == null) {
-				continue;
-			}
-			Calendar capacityOverrideCal = capacityOverride.getDate();
-			if (capacityOverrideCal.get(Calendar.DAY_OF_YEAR) == dateToCheck.get(Calendar.DAY_OF_YEAR) &&
-					capacityOverrideCal.get(Calendar.YEAR) == dateToCheck.get(Calendar.YEAR)) {
+			if (capacityOverride != null && capacityOverride.getDate() != null && capacityOverride.getEpochDay() == epochDay) {
 				return capacityOverride;
 			}
 		}
 		return null;
 	}
+
+	/**
+	 * Searches for the public holiday record of the work calendar to match the provided date.
+	 * @param dateToCheck The date to check for. Time of the day is ignored.
+	 * @param workCalendar The work calendar to search within.
+	 * @return the first capacity override record to match the provided date. Null if not found.
+	 */
+	public static CapacityOverride findCapacityOverride(Calendar dateToCheck, WorkCalendar workCalendar) {
+		if (dateToCheck == null || workCalendar == null) {
+			return null;
+		}
+		return workCalendar.getPublicHolidaysIndex().find(dateToCheck);
+	}
+
+	/**
+	 * Searches for the personal capacity override record of the person to match the provided date.
+	 * @param dateToCheck The date to check for. Time of the day is ignored.
+	 * @param person The person to search within.
+	 * @return the first capacity override record to match the provided date. Null if not found.
+	 */
+	public static CapacityOverride findCapacityOverride(Calendar dateToCheck, Person person) {
+		if (dateToCheck == null || person == null) {
+			return null;
+		}
+		return person.getPersonalCapacityOverridesIndex().find(dateToCheck);
+	}
+
+	/**
+	 * Capacity of a team member between two dates, the same as the total of the {@link DailyCapacityVector} 
+	 * over the range, computed from the work calendar range query and the overlapping personal overrides only:
+	 * O(log n + k) for n personal overrides of which k fall into the range.
+	 * Intermediate products are kept exact (in millionths), the result is rounded once.
+	 * @param member The team member.
+	 * @param fromEpochDay First day of the range (days since 1970-01-01).
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return fixed-point capacity in man-days, 0 if the range is empty.
+	 */
+	public static long getCapacity(TeamMember member, long fromEpochDay, long toEpochDay) {
+		long from = Math.max(fromEpochDay, member.getStartEpochDay());
+		long to = Math.min(toEpochDay, member.getEndEpochDay());
+		if (from > to) {
+			return 0;
+		}
+		WorkCalendar workCalendar = member.getWorkCalendar() == null ? WorkCalendar.WEEKENDS_ONLY : member.getWorkCalendar();
+		long capacity = workCalendar.getCapacity(from, to) * FixedPoint.ONE;
+		Person person = member.getPerson();
+		if (person != null) {
+			CapacityOverrideRanges ranges = person.getPersonalCapacityOverrideRangesIndex();
+			for (int pos = ranges.firstOverlapping(from); pos < ranges.size() && ranges.startAt(pos) <= to; pos++) {
+				long factor = ranges.factorAtPosition(pos);
+				if (factor != FixedPoint.ONE) {
+					capacity += (factor - FixedPoint.ONE) * workCalendar.getCapacity(Math.max(from, ranges.startAt(pos)), 
+						Math.min(to, ranges.endAt(pos)));
+				}
+			}
+			CapacityOverrideIndex overrides = person.getPersonalCapacityOverridesIndex();
+			for (int pos = overrides.ceilingPosition(from); pos < overrides.size() && overrides.epochDayAt(pos) <= to; pos++) {
+				long day = overrides.epochDayAt(pos);
+				capacity += capacityFactor(overrides.capacityOverrideAt(pos)) * FixedPoint.ONE
+					- workCalendar.getDayCapacity(day) * ranges.factorAt(day);
+			}
+		}
+		return FixedPoint.divideRounded(capacity * memberFactor(member), FixedPoint.ONE * FixedPoint.ONE);
+	}
+
+	/**
+	 * Capacity of a team member in a full range of days: the week days of the member work calendar
+	 * at the member capacity factor, ignoring holidays, personal overrides and the member start and end dates.
+	 * @param member The team member.
+	 * @param fromEpochDay First day of the range (days since 1970-01-01).
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return fixed-point capacity in man-days, 0 if the range is empty.
+	 */
+	public static long getFullCapacity(TeamMember member, long fromEpochDay, long toEpochDay) {
+		WorkCalendar workCalendar = member.getWorkCalendar() == null ? WorkCalendar.WEEKENDS_ONLY : member.getWorkCalendar();
+		return FixedPoint.multiply(workCalendar.getWeekCapacity(fromEpochDay, toEpochDay), memberFactor(member));
+	}
+
+	/**
+	 * Capacity of a team member between two dates.
+	 * @param member The team member.
+	 * @param from First day of the range. Time of the day is ignored.
+	 * @param to Last day of the range (inclusive). Time of the day is ignored.
+	 * @return capacity in man-days, 0 if the range is empty.
+	 */
+	public static BigDecimal getCapacity(TeamMember member, Calendar from, Calendar to) {
+		return FixedPoint.toBigDecimal(getCapacity(member, EpochDays.toEpochDay(from), EpochDays.toEpochDay(to)));
+	}
+
+	/**
+	 * @param capacityOverride The capacity override record.
+	 * @return fixed-point capacity factor of the record, 1 (normal working day) if not set.
+	 */
+	public static long capacityFactor(CapacityOverride capacityOverride) {
+		return FixedPoint.of(capacityOverride.getCapacityFactor(), FixedPoint.ONE);
+	}
+
+	/**
+	 * @param member The team member.
+	 * @return fixed-point capacity factor of the team member, 1 (full time) if not set.
+	 */
+	public static long memberFactor(TeamMember member) {
+		return FixedPoint.of(member.getCapacityFactor(), FixedPoint.ONE);
+	}
 }
@@ -0,0 +1,209 @@
+package edu.usun.planning.calendar;
+
+import java.util.Calendar;
+
+import edu.usun.planning.FixedPoint;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Daily capacity of a team member over a planning horizon, flattened into a primitive array indexed by epoch-day.
+ * Folds in (in the order of precedence):
+ * <ul>
+ * <li>team member start/end dates - no capacity outside of them;</li>
+ * <li>personal capacity overrides of the person;</li>
+ * <li>personal capacity override ranges of the person, scaling the work calendar capacity;</li>
+ * <li>public holidays and holiday rules of the team member work calendar (weekends are days-off by default);</li>
+ * <li>team member capacity factor, applied on top of the above.</li>
+ * </ul>
+ * The vector is a snapshot: it has to be rebuilt if any of the inputs change.
+ * Daily values are kept exact in millionths (range factor times calendar capacity), the team member factor
+ * is applied and the result rounded to a fixed-point value (see {@link FixedPoint}) once per query.
+ *
+ * @author usun
+ */
+public final class DailyCapacityVector {
+
+	/** First day of the horizon (days since 1970-01-01). */
+	private final long fromEpochDay;
+
+	/** Number of units in one man-day of the daily values. */
+	private static final long MICRO = FixedPoint.ONE * FixedPoint.ONE;
+
+	/** Capacity in millionths of man-days for each day of the horizon, before the team member factor. */
+	private final long[] capacity;
+
+	/** Fixed-point team member capacity factor. */
+	private final long memberFactor;
+
+	/**
+	 * @param fromEpochDay First day of the horizon.
+	 * @param capacity Capacity for each day of the horizon.
+	 * @param memberFactor Team member capacity factor.
+	 */
+	private DailyCapacityVector(long fromEpochDay, long[] capacity, long memberFactor) {
+		super();
+		this.fromEpochDay = fromEpochDay;
+		this.capacity = capacity;
+		this.memberFactor = memberFactor;
+	}
+
+	/**
+	 * Builds daily capacity vector for a team member.
+	 * @param member The team member.
+	 * @param from First day of the horizon. Time of the day is ignored.
+	 * @param to Last day of the horizon (inclusive). Time of the day is ignored.
+	 * @return the vector.
+	 */
+	public static DailyCapacityVector of(TeamMember member, Calendar from, Calendar to) {
+		return of(member, EpochDays.toEpochDay(from), EpochDays.toEpochDay(to));
+	}
+
+	/**
+	 * Builds daily capacity vector for a team member.
+	 * @param member The team member.
+	 * @param fromEpochDay First day of the horizon (days since 1970-01-01).
+	 * @param toEpochDay Last day of the horizon (inclusive).
+	 * @return the vector.
+	 */
+	public static DailyCapacityVector of(TeamMember member, long fromEpochDay, long toEpochDay) {
+		if (member == null) {
+			throw new IllegalArgumentException("Team member is required");
+		}
+		if (toEpochDay < fromEpochDay) {
+			throw new IllegalArgumentException("Horizon end is before its start");
+		}
+		long[] capacity = new long[Math.toIntExact(toEpochDay - fromEpochDay + 1)];
+		long memberFactor = CapacityUtils.memberFactor(member);
+
+		// Active window of the team member within the horizon
+		long activeFrom = Math.max(fromEpochDay, member.getStartEpochDay());
+		long activeTo = Math.min(toEpochDay, member.getEndEpochDay());
+		if (activeFrom > activeTo) {
+			return new DailyCapacityVector(fromEpochDay, capacity, memberFactor);
+		}
+		int lo = (int) (activeFrom - fromEpochDay);
+		int hi = (int) (activeTo - fromEpochDay);
+
+		// Work calendar (weekends, holiday rules and public holidays), then personal overrides taking precedence
+		WorkCalendar workCalendar = member.getWorkCalendar() == null ? WorkCalendar.WEEKENDS_ONLY : member.getWorkCalendar();
+		workCalendar.copyDayCapacities(activeFrom, activeTo, capacity, lo);
+		for (int i = lo; i <= hi; i++) {
+			capacity[i] *= FixedPoint.ONE;
+		}
+		Person person = member.getPerson();
+		if (person != null) {
+			scale(capacity, fromEpochDay, activeFrom, activeTo, person.getPersonalCapacityOverrideRangesIndex());
+			overlay(capacity, fromEpochDay, activeFrom, activeTo, person.getPersonalCapacityOverridesIndex());
+		}
+		return new DailyCapacityVector(fromEpochDay, capacity, memberFactor);
+	}
+
+	/**
+	 * Scales capacity of the days within the active window with capacity factors of the overlapping ranges.
+	 * @param capacity Capacity vector to update.
+	 * @param fromEpochDay First day of the vector.
+	 * @param activeFrom First day of the window to update.
+	 * @param activeTo Last day of the window to update (inclusive).
+	 * @param ranges Capacity override ranges.
+	 */
+	private static void scale(long[] capacity, long fromEpochDay, long activeFrom, long activeTo,
+		CapacityOverrideRanges ranges) {
+		for (int pos = ranges.firstOverlapping(activeFrom); pos < ranges.size() && ranges.startAt(pos) <= activeTo; pos++) {
+			int lo = (int) (Math.max(activeFrom, ranges.startAt(pos)) - fromEpochDay);
+			int hi = (int) (Math.min(activeTo, ranges.endAt(pos)) - fromEpochDay);
+			long factor = ranges.factorAtPosition(pos);
+			if (factor == FixedPoint.ONE) {
+				continue;
+			}
+			for (int i = lo; i <= hi; i++) {
+				capacity[i] = capacity[i] / FixedPoint.ONE * factor;
+			}
+		}
+	}
+
+	/**
+	 * Replaces capacity of the days within the active window with capacity factors of the indexed records.
+	 * @param capacity Capacity vector to update.
+	 * @param fromEpochDay First day of the vector.
+	 * @param activeFrom First day of the window to update.
+	 * @param activeTo Last day of the window to update (inclusive).
+	 * @param index Capacity overrides.
+	 */
+	private static void overlay(long[] capacity, long fromEpochDay, long activeFrom, long activeTo,
+		CapacityOverrideIndex index) {
+		for (int pos = index.ceilingPosition(activeFrom); pos < index.size(); pos++) {
+			long epochDay = index.epochDayAt(pos);
+			if (epochDay > activeTo) {
+				break;
+			}
+			capacity[(int) (epochDay - fromEpochDay)] = CapacityUtils.capacityFactor(index.capacityOverrideAt(pos)) * FixedPoint.ONE;
+		}
+	}
+
+	/**
+	 * @return the first day of the horizon (days since 1970-01-01)
+	 */
+	public long getFromEpochDay() {
+		return fromEpochDay;
+	}
+
+	/**
+	 * @return the last day of the horizon (inclusive)
+	 */
+	public long getToEpochDay() {
+		return fromEpochDay + capacity.length - 1;
+	}
+
+	/**
+	 * @return number of days in the horizon.
+	 */
+	public int length() {
+		return capacity.length;
+	}
+
+	/**
+	 * @param epochDay The day (days since 1970-01-01).
+	 * @return fixed-point capacity of the day in man-days, 0 outside of the horizon.
+	 */
+	public long get(long epochDay) {
+		long pos = epochDay - fromEpochDay;
+		return pos < 0 || pos >= capacity.length ? 0 : FixedPoint.divideRounded(capacity[(int) pos] * memberFactor, MICRO);
+	}
+
+	/**
+	 * Total capacity within the range of days, the part of the range outside of the horizon is ignored.
+	 * Rounded once, so it is the same as {@link CapacityUtils#getCapacity(edu.usun.planning.team.TeamMember, long, long)}
+	 * and can differ from the total of rounded {@link #get(long)} values in the last digit.
+	 * @param fromDay First day of the range (days since 1970-01-01).
+	 * @param toDay Last day of the range (inclusive).
+	 * @return fixed-point capacity in man-days.
+	 */
+	public long sum(long fromDay, long toDay) {
+		int lo = (int) Math.min(capacity.length, Math.max(0L, fromDay - fromEpochDay));
+		int hi = (int) Math.max(-1L, Math.min(capacity.length - 1L, toDay - fromEpochDay));
+		long total = 0;
+		for (int i = lo; i <= hi; i++) {
+			total += capacity[i];
+		}
+		return FixedPoint.divideRounded(total * memberFactor, MICRO);
+	}
+
+	/**
+	 * @return fixed-point total capacity over the whole horizon in man-days.
+	 */
+	public long total() {
+		return sum(fromEpochDay, getToEpochDay());
+	}
+
+	/**
+	 * @return copy of the fixed-point daily capacities, index 0 corresponds to the first day of the horizon.
+	 */
+	public long[] toArray() {
+		long[] days = new long[capacity.length];
+		for (int i = 0; i < days.length; i++) {
+			days[i] = FixedPoint.divideRounded(capacity[i] * memberFactor, MICRO);
+		}
+		return days;
+	}
+}
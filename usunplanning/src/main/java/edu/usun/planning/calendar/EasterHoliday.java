@@ -0,0 +1,121 @@
+package edu.usun.planning.calendar;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Holiday relative to Western (Gregorian) Easter Sunday, e.g. Good Friday is -2, Easter Monday is 1.
+ * 
+ * @author usun
+ */
+public class EasterHoliday extends HolidayRule {
+
+	/**
+	 * For serialization format.
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Number of days from Easter Sunday.
+	 */
+	protected int offsetDays;
+	
+	/**
+	 * Default constructor.
+	 */
+	public EasterHoliday() {
+		super();
+	}
+
+	/**
+	 * @param name The holiday name.
+	 * @param offsetDays The number of days from Easter Sunday.
+	 */
+	public EasterHoliday(String name, int offsetDays) {
+		super();
+		this.name = name;
+		this.offsetDays = offsetDays;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#collectEpochDays(int, java.util.function.LongConsumer)
+	 */
+	@Override
+	public void collectEpochDays(int year, LongConsumer days) {
+		long day = easterSunday(year) + this.offsetDays;
+		if (EpochDays.yearOf(day) == year) {
+			days.accept(day);
+		}
+	}
+
+	/**
+	 * Anonymous Gregorian algorithm (Meeus/Jones/Butcher).
+	 * @param year The year.
+	 * @return epoch-day of Easter Sunday.
+	 */
+	public static long easterSunday(int year) {
+		int a = year % 19;
+		int b = year / 100;
+		int c = year % 100;
+		int d = b / 4;
+		int e = b % 4;
+		int f = (b + 8) / 25;
+		int g = (b - f + 1) / 3;
+		int h = (19 * a + b - d - g + 15) % 30;
+		int i = c / 4;
+		int k = c % 4;
+		int l = (32 + 2 * e + 2 * i - h - k) % 7;
+		int m = (a + 11 * h + 22 * l) / 451;
+		int month = (h + l - 7 * m + 114) / 31;
+		int day = (h + l - 7 * m + 114) % 31 + 1;
+		return EpochDays.toEpochDay(year, month, day);
+	}
+
+	/**
+	 * @return the offsetDays
+	 */
+	public int getOffsetDays() {
+		return offsetDays;
+	}
+
+	/**
+	 * @param offsetDays the offsetDays to set
+	 */
+	public void setOffsetDays(int offsetDays) {
+		checkNotShared();
+		this.offsetDays = offsetDays;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!super.equals(obj)) {
+			return false;
+		}
+		EasterHoliday other = (EasterHoliday) obj;
+		return this.offsetDays == other.offsetDays;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * super.hashCode() + this.offsetDays;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("EasterHoliday{")
+			.append("name=").append(this.getName()).append(',')
+			.append("capacityFactor=").append(this.getCapacityFactor() == null ? "N/A" : 
+				this.getCapacityFactor().toPlainString()).append(',')
+			.append("offsetDays=").append(this.getOffsetDays())
+			.append('}').toString();
+	}
+}
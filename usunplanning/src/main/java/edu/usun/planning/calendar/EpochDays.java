@@ -0,0 +1,209 @@
+package edu.usun.planning.calendar;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Date arithmetic on epoch-days (number of days since 1970-01-01 in proleptic Gregorian calendar).
+ * Planning entities keep their dates as {@link Calendar}, whereas calendar, capacity and sprint computations
+ * run on primitive epoch-days: conversion happens once at the entity boundary and
+ * none of the methods here allocate, apart from {@link #toCalendar(long)}.
+ *
+ * @author usun
+ */
+public final class EpochDays {
+
+	/**
+	 * Open start of a date range (e.g. team member without start date), the first day of {@link LocalDate#MIN}:
+	 * far enough from the long range that day arithmetic (lengths, day after, extrapolation) does not overflow.
+	 */
+	public static final long MIN_DAY = LocalDate.MIN.toEpochDay();
+
+	/**
+	 * Open end of a date range (e.g. team member without end date, release without due date),
+	 * the last day of {@link LocalDate#MAX}.
+	 */
+	public static final long MAX_DAY = LocalDate.MAX.toEpochDay();
+
+	/** Day shift from 0000-03-01 to 1970-01-01. */
+	private static final long DAYS_0000_TO_1970 = 719468;
+
+	/** Days in 400 years cycle. */
+	private static final long DAYS_PER_ERA = 146097;
+
+	/** Field code for decoding: year. */
+	private static final int YEAR = 0;
+
+	/** Field code for decoding: month. */
+	private static final int MONTH = 1;
+
+	/** Field code for decoding: day of the month. */
+	private static final int DAY_OF_MONTH = 2;
+
+	/**
+	 * Private constructor.
+	 */
+	private EpochDays() {
+		super();
+	}
+
+	/**
+	 * Converts the date to epoch-day.
+	 * @param date The date to convert. Time of the day is ignored, the date is taken in the calendar's own time zone.
+	 * @return the epoch-day.
+	 */
+	public static long toEpochDay(Calendar date) {
+		return toEpochDay(date.get(Calendar.YEAR), date.get(Calendar.MONTH) + 1, date.get(Calendar.DAY_OF_MONTH));
+	}
+
+	/**
+	 * Converts the date to epoch-day.
+	 * @param date The date to convert, can be null. Time of the day is ignored.
+	 * @param defaultEpochDay Value to return if the date is not set.
+	 * @return the epoch-day.
+	 */
+	public static long toEpochDay(Calendar date, long defaultEpochDay) {
+		return date == null ? defaultEpochDay : toEpochDay(date);
+	}
+
+	/**
+	 * Converts the date to epoch-day.
+	 * @param year The year.
+	 * @param month The month, 1 to 12.
+	 * @param dayOfMonth The day of the month, 1 to 31.
+	 * @return the epoch-day.
+	 */
+	public static long toEpochDay(int year, int month, int dayOfMonth) {
+		// Days from civil algorithm: years start on March 1st so that leap day is the last day of the year
+		long y = month <= 2 ? year - 1L : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		int shiftedMonth = month > 2 ? month - 3 : month + 9;
+		long dayOfYear = (153 * shiftedMonth + 2) / 5 + dayOfMonth - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+	}
+
+	/**
+	 * Converts epoch-day to a calendar set to midnight in the default time zone.
+	 * @param epochDay The day.
+	 * @return new calendar instance.
+	 */
+	public static Calendar toCalendar(long epochDay) {
+		return toCalendar(epochDay, TimeZone.getDefault());
+	}
+
+	/**
+	 * Converts epoch-day to a calendar set to midnight in the given time zone.
+	 * @param epochDay The day.
+	 * @param timeZone The time zone.
+	 * @return new calendar instance.
+	 */
+	public static Calendar toCalendar(long epochDay, TimeZone timeZone) {
+		Calendar calendar = new GregorianCalendar(timeZone);
+		calendar.clear();
+		calendar.set(yearOf(epochDay), monthOf(epochDay) - 1, dayOfMonth(epochDay));
+		return calendar;
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return the year the day belongs to.
+	 */
+	public static int yearOf(long epochDay) {
+		return (int) decode(epochDay, YEAR);
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return the month, 1 to 12.
+	 */
+	public static int monthOf(long epochDay) {
+		return (int) decode(epochDay, MONTH);
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return the day of the month, 1 to 31.
+	 */
+	public static int dayOfMonth(long epochDay) {
+		return (int) decode(epochDay, DAY_OF_MONTH);
+	}
+
+	/**
+	 * @param year The year.
+	 * @return epoch-day of January 1st of the year.
+	 */
+	public static long firstDayOfYear(int year) {
+		return toEpochDay(year, 1, 1);
+	}
+
+	/**
+	 * @param year The year.
+	 * @return number of days in the year.
+	 */
+	public static int lengthOfYear(int year) {
+		return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 366 : 365;
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return day of the week, 1 (Monday) to 7 (Sunday) as in ISO-8601.
+	 */
+	public static int dayOfWeek(long epochDay) {
+		// 1970-01-01 was Thursday
+		return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return true for Saturdays and Sundays.
+	 */
+	public static boolean isWeekend(long epochDay) {
+		return dayOfWeek(epochDay) >= 6;
+	}
+
+	/**
+	 * @param fromEpochDay First day of the range.
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return number of Mondays to Fridays in the range, 0 if the range is empty.
+	 */
+	public static long countWeekdays(long fromEpochDay, long toEpochDay) {
+		if (fromEpochDay > toEpochDay) {
+			return 0;
+		}
+		long days = toEpochDay - fromEpochDay + 1;
+		long weekdays = days / 7 * 5;
+		for (long day = fromEpochDay + days / 7 * 7; day <= toEpochDay; day++) {
+			weekdays += isWeekend(day) ? 0 : 1;
+		}
+		return weekdays;
+	}
+
+	/**
+	 * Inverse of the days from civil algorithm, see {@link #toEpochDay(int, int, int)}.
+	 * @param epochDay The day.
+	 * @param field Field to return: YEAR, MONTH or DAY_OF_MONTH.
+	 * @return value of the field.
+	 */
+	private static long decode(long epochDay, int field) {
+		long z = epochDay + DAYS_0000_TO_1970;
+		long era = Math.floorDiv(z, DAYS_PER_ERA);
+		long dayOfEra = z - era * DAYS_PER_ERA;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		switch (field) {
+			case DAY_OF_MONTH:
+				return dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+			case MONTH:
+				return shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+			default:
+				// January and February belong to the next year
+				long year = yearOfEra + era * 400;
+				return shiftedMonth >= 10 ? year + 1 : year;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package edu.usun.planning.calendar;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Holiday on the same date every year (e.g. December 25th).
+ * Skipped in the years without such a date (February 29th).
+ * 
+ * @author usun
+ */
+public class FixedDateHoliday extends HolidayRule {
+
+	/**
+	 * For serialization format.
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Month, 1 to 12.
+	 */
+	protected int month;
+	
+	/**
+	 * Day of the month, 1 to 31.
+	 */
+	protected int dayOfMonth;
+	
+	/**
+	 * Default constructor.
+	 */
+	public FixedDateHoliday() {
+		super();
+	}
+
+	/**
+	 * @param name The holiday name.
+	 * @param month The month, 1 to 12.
+	 * @param dayOfMonth The day of the month.
+	 */
+	public FixedDateHoliday(String name, int month, int dayOfMonth) {
+		super();
+		this.name = name;
+		this.month = month;
+		this.dayOfMonth = dayOfMonth;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#collectEpochDays(int, java.util.function.LongConsumer)
+	 */
+	@Override
+	public void collectEpochDays(int year, LongConsumer days) {
+		long day = EpochDays.toEpochDay(year, this.month, this.dayOfMonth);
+		if (EpochDays.monthOf(day) == this.month) {
+			days.accept(day);
+		}
+	}
+
+	/**
+	 * @return the month
+	 */
+	public int getMonth() {
+		return month;
+	}
+
+	/**
+	 * @param month the month to set
+	 */
+	public void setMonth(int month) {
+		checkNotShared();
+		this.month = month;
+	}
+
+	/**
+	 * @return the dayOfMonth
+	 */
+	public int getDayOfMonth() {
+		return dayOfMonth;
+	}
+
+	/**
+	 * @param dayOfMonth the dayOfMonth to set
+	 */
+	public void setDayOfMonth(int dayOfMonth) {
+		checkNotShared();
+		this.dayOfMonth = dayOfMonth;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!super.equals(obj)) {
+			return false;
+		}
+		FixedDateHoliday other = (FixedDateHoliday) obj;
+		return this.month == other.month && this.dayOfMonth == other.dayOfMonth;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * (31 * super.hashCode() + this.month) + this.dayOfMonth;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("FixedDateHoliday{")
+			.append("name=").append(this.getName()).append(',')
+			.append("capacityFactor=").append(this.getCapacityFactor() == null ? "N/A" : 
+				this.getCapacityFactor().toPlainString()).append(',')
+			.append("month=").append(this.getMonth()).append(',')
+			.append("dayOfMonth=").append(this.getDayOfMonth())
+			.append('}').toString();
+	}
+}
@@ -0,0 +1,126 @@
+package edu.usun.planning.calendar;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+import edu.usun.planning.PlanEntity;
+
+/**
+ * Recurring capacity rule of a work calendar (weekends, yearly public holidays), 
+ * expanded into concrete days one year at a time.
+ * 
+ * @author usun
+ */
+public abstract class HolidayRule extends PlanEntity {
+
+	/**
+	 * For serialization format.
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Capacity factor of the matching days: 0 (default) - day-off, 0.5 - short work-day.
+	 */
+	protected BigDecimal capacityFactor = BigDecimal.ZERO;
+	
+	/**
+	 * Rule of a shared work calendar: cannot be changed, see {@link WorkCalendar#isShared()}.
+	 */
+	protected transient boolean shared;
+	
+	/**
+	 * Default constructor.
+	 */
+	public HolidayRule() {
+		super();
+	}
+
+	/**
+	 * Reports the days of the year this rule applies to.
+	 * @param year The year.
+	 * @param days Consumer of the matching epoch-days.
+	 */
+	public abstract void collectEpochDays(int year, LongConsumer days);
+
+	/**
+	 * @see edu.usun.planning.PlanEntity#setName(java.lang.String)
+	 */
+	@Override
+	public void setName(String name) {
+		checkNotShared();
+		super.setName(name);
+	}
+
+	/**
+	 * @return the capacityFactor
+	 */
+	public BigDecimal getCapacityFactor() {
+		return capacityFactor;
+	}
+
+	/**
+	 * @param capacityFactor the capacityFactor to set
+	 */
+	public void setCapacityFactor(BigDecimal capacityFactor) {
+		checkNotShared();
+		this.capacityFactor = capacityFactor;
+	}
+
+	/**
+	 * Rules are equal by content: the same type, name, capacity factor (regardless of its scale)
+	 * and the fields of the type, so that calendars with equal rules can be interned together.
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || obj.getClass() != this.getClass()) {
+			return false;
+		}
+		HolidayRule other = (HolidayRule) obj;
+		return Objects.equals(this.getName(), other.getName())
+			&& (this.capacityFactor == null ? other.capacityFactor == null
+				: other.capacityFactor != null && this.capacityFactor.compareTo(other.capacityFactor) == 0);
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * Objects.hashCode(this.getName())
+			+ (this.capacityFactor == null ? 0 : this.capacityFactor.stripTrailingZeros().hashCode());
+	}
+
+	/**
+	 * @return copy of this rule, never shared.
+	 */
+	public HolidayRule copy() {
+		try {
+			HolidayRule copy = (HolidayRule) this.clone();
+			copy.shared = false;
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Marks the rule as a rule of a shared work calendar.
+	 */
+	void markShared() {
+		this.shared = true;
+	}
+
+	/**
+	 * @throws IllegalStateException if the rule belongs to a shared work calendar.
+	 */
+	protected void checkNotShared() {
+		if (this.shared) {
+			throw new IllegalStateException("Holiday rule " + this.getName() + " of a shared work calendar cannot be changed, fork the calendar first");
+		}
+	}
+}
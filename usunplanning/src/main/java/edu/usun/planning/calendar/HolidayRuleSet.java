@@ -0,0 +1,138 @@
+package edu.usun.planning.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.usun.planning.FixedPoint;
+
+/**
+ * Holiday rules of a work calendar compiled for per year expansion: 
+ * weekend rules first (the default one if there are none), then the dated holiday rules in their original order.
+ *
+ * @author usun
+ */
+final class HolidayRuleSet {
+
+	/** Rule set with the default weekend only. */
+	static final HolidayRuleSet DEFAULT = compile(null);
+
+	/** Weekend rules. */
+	private final WeekendRule[] weekendRules;
+
+	/** Capacity factors of the weekend rules. */
+	private final long[] weekendFactors;
+
+	/** Dated holiday rules. */
+	private final HolidayRule[] holidayRules;
+
+	/** Capacity factors of the dated holiday rules. */
+	private final long[] holidayFactors;
+
+	/** Fixed-point capacity factors by day of the week with the weekend rules applied, 1 (Monday) to 7 (Sunday). */
+	private final long[] dayOfWeekFactors = new long[8];
+
+	/** Fixed-point capacity of a whole week with the weekend rules applied. */
+	private final long weekFactor;
+
+	/**
+	 * @param weekendRules Weekend rules.
+	 * @param holidayRules Dated holiday rules.
+	 */
+	private HolidayRuleSet(List<WeekendRule> weekendRules, List<HolidayRule> holidayRules) {
+		super();
+		this.weekendRules = weekendRules.toArray(new WeekendRule[weekendRules.size()]);
+		this.weekendFactors = factors(this.weekendRules);
+		this.holidayRules = holidayRules.toArray(new HolidayRule[holidayRules.size()]);
+		this.holidayFactors = factors(this.holidayRules);
+		Arrays.fill(this.dayOfWeekFactors, 1, 8, FixedPoint.ONE);
+		for (int r = 0; r < this.weekendRules.length; r++) {
+			int mask = this.weekendRules[r].getDaysOfWeekMask();
+			for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+				if ((mask & (1 << dayOfWeek)) != 0) {
+					this.dayOfWeekFactors[dayOfWeek] = this.weekendFactors[r];
+				}
+			}
+		}
+		this.weekFactor = Arrays.stream(this.dayOfWeekFactors).sum();
+	}
+
+	/**
+	 * @param rules Holiday rules of a calendar, can be null.
+	 * @return compiled rule set.
+	 */
+	static HolidayRuleSet compile(List<HolidayRule> rules) {
+		List<WeekendRule> weekendRules = new ArrayList<>();
+		List<HolidayRule> holidayRules = new ArrayList<>();
+		if (rules != null) {
+			for (HolidayRule rule : rules) {
+				if (rule instanceof WeekendRule) {
+					weekendRules.add((WeekendRule) rule);
+				} else if (rule != null) {
+					holidayRules.add(rule);
+				}
+			}
+		}
+		if (weekendRules.isEmpty()) {
+			weekendRules.add(new WeekendRule());
+		}
+		return new HolidayRuleSet(weekendRules, holidayRules);
+	}
+
+	/**
+	 * Expands the rules for a year.
+	 * @param year The year.
+	 * @param firstEpochDay Epoch-day of January 1st of the year.
+	 * @param daily Daily fixed-point capacities of the year to update, initialized with 1.
+	 */
+	void apply(int year, long firstEpochDay, long[] daily) {
+		long[] weekend = new long[(daily.length + 63) >>> 6];
+		for (int r = 0; r < this.weekendRules.length; r++) {
+			long factor = this.weekendFactors[r];
+			this.weekendRules[r].collectEpochDays(year, day -> {
+				int i = (int) (day - firstEpochDay);
+				weekend[i >>> 6] |= 1L << i;
+				daily[i] = factor;
+			});
+		}
+		for (int r = 0; r < this.holidayRules.length; r++) {
+			long factor = this.holidayFactors[r];
+			this.holidayRules[r].collectEpochDays(year, day -> {
+				int i = (int) (day - firstEpochDay);
+				if (i >= 0 && i < daily.length && (weekend[i >>> 6] & (1L << i)) == 0) {
+					daily[i] = factor;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Capacity of a range of days with the weekend rules applied, the dated holiday rules ignored.
+	 * @param fromEpochDay First day of the range.
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return fixed-point capacity in man-days, 0 if the range is empty.
+	 */
+	long weekCapacity(long fromEpochDay, long toEpochDay) {
+		if (fromEpochDay > toEpochDay) {
+			return 0;
+		}
+		long days = toEpochDay - fromEpochDay + 1;
+		long capacity = days / 7 * this.weekFactor;
+		for (long day = fromEpochDay + days / 7 * 7; day <= toEpochDay; day++) {
+			capacity += this.dayOfWeekFactors[EpochDays.dayOfWeek(day)];
+		}
+		return capacity;
+	}
+
+	/**
+	 * @param rules The rules.
+	 * @return fixed-point capacity factors of the rules, 0 if not set.
+	 */
+	private static long[] factors(HolidayRule[] rules) {
+		long[] factors = new long[rules.length];
+		for (int r = 0; r < rules.length; r++) {
+			factors[r] = FixedPoint.of(rules[r].getCapacityFactor(), 0);
+		}
+		return factors;
+	}
+}
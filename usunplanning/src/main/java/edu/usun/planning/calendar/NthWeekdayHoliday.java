@@ -0,0 +1,161 @@
+package edu.usun.planning.calendar;
+
+import java.time.DayOfWeek;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * Holiday on the n-th day of the week of a month (e.g. first Monday of May, last Monday of August).
+ * 
+ * @author usun
+ */
+public class NthWeekdayHoliday extends HolidayRule {
+
+	/**
+	 * For serialization format.
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Month, 1 to 12.
+	 */
+	protected int month;
+	
+	/**
+	 * Day of the week.
+	 */
+	protected DayOfWeek dayOfWeek;
+	
+	/**
+	 * Occurrence of the day of the week within the month: 1 to 5 counting from the start of the month, 
+	 * -1 to -5 counting from the end of the month (-1 is the last one).
+	 */
+	protected int ordinal;
+	
+	/**
+	 * Default constructor.
+	 */
+	public NthWeekdayHoliday() {
+		super();
+	}
+
+	/**
+	 * @param name The holiday name.
+	 * @param month The month, 1 to 12.
+	 * @param dayOfWeek The day of the week.
+	 * @param ordinal The occurrence within the month, negative to count from the end of the month.
+	 */
+	public NthWeekdayHoliday(String name, int month, DayOfWeek dayOfWeek, int ordinal) {
+		super();
+		this.name = name;
+		this.month = month;
+		this.dayOfWeek = dayOfWeek;
+		this.ordinal = ordinal;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#collectEpochDays(int, java.util.function.LongConsumer)
+	 */
+	@Override
+	public void collectEpochDays(int year, LongConsumer days) {
+		if (this.dayOfWeek == null || this.ordinal == 0) {
+			return;
+		}
+		long firstOfMonth = EpochDays.toEpochDay(year, this.month, 1);
+		long firstOfNextMonth = this.month == 12 ? EpochDays.firstDayOfYear(year + 1) : 
+			EpochDays.toEpochDay(year, this.month + 1, 1);
+		long day;
+		if (this.ordinal > 0) {
+			long first = firstOfMonth + Math.floorMod(this.dayOfWeek.getValue() - EpochDays.dayOfWeek(firstOfMonth), 7);
+			day = first + 7L * (this.ordinal - 1);
+		} else {
+			long lastOfMonth = firstOfNextMonth - 1;
+			long last = lastOfMonth - Math.floorMod(EpochDays.dayOfWeek(lastOfMonth) - this.dayOfWeek.getValue(), 7);
+			day = last + 7L * (this.ordinal + 1);
+		}
+		if (day >= firstOfMonth && day < firstOfNextMonth) {
+			days.accept(day);
+		}
+	}
+
+	/**
+	 * @return the month
+	 */
+	public int getMonth() {
+		return month;
+	}
+
+	/**
+	 * @param month the month to set
+	 */
+	public void setMonth(int month) {
+		checkNotShared();
+		this.month = month;
+	}
+
+	/**
+	 * @return the dayOfWeek
+	 */
+	public DayOfWeek getDayOfWeek() {
+		return dayOfWeek;
+	}
+
+	/**
+	 * @param dayOfWeek the dayOfWeek to set
+	 */
+	public void setDayOfWeek(DayOfWeek dayOfWeek) {
+		checkNotShared();
+		this.dayOfWeek = dayOfWeek;
+	}
+
+	/**
+	 * @return the ordinal
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	/**
+	 * @param ordinal the ordinal to set
+	 */
+	public void setOrdinal(int ordinal) {
+		checkNotShared();
+		this.ordinal = ordinal;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!super.equals(obj)) {
+			return false;
+		}
+		NthWeekdayHoliday other = (NthWeekdayHoliday) obj;
+		return this.month == other.month && this.dayOfWeek == other.dayOfWeek && this.ordinal == other.ordinal;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * super.hashCode() + this.month) + Objects.hashCode(this.dayOfWeek)) + this.ordinal;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("NthWeekdayHoliday{")
+			.append("name=").append(this.getName()).append(',')
+			.append("capacityFactor=").append(this.getCapacityFactor() == null ? "N/A" : 
+				this.getCapacityFactor().toPlainString()).append(',')
+			.append("month=").append(this.getMonth()).append(',')
+			.append("dayOfWeek=").append(this.getDayOfWeek()).append(',')
+			.append("ordinal=").append(this.getOrdinal())
+			.append('}').toString();
+	}
+}
@@ -0,0 +1,145 @@
+package edu.usun.planning.calendar;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Days of the week off (Saturday and Sunday by default).
+ * Work calendars without a weekend rule use the default one.
+ * Other holiday rules do not apply to weekend days.
+ * 
+ * @author usun
+ */
+public class WeekendRule extends HolidayRule {
+
+	/**
+	 * For serialization format.
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Days of the week off.
+	 */
+	protected List<DayOfWeek> daysOfWeek = new ArrayList<>(Arrays.asList(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+	
+	/**
+	 * Default constructor.
+	 */
+	public WeekendRule() {
+		super();
+	}
+
+	/**
+	 * @param daysOfWeek The days of the week off.
+	 */
+	public WeekendRule(DayOfWeek... daysOfWeek) {
+		super();
+		this.daysOfWeek = new ArrayList<>(Arrays.asList(daysOfWeek));
+	}
+
+	/**
+	 * @return bit mask of the days of the week off, bit 1 for Monday to bit 7 for Sunday
+	 */
+	int getDaysOfWeekMask() {
+		int mask = 0;
+		if (this.daysOfWeek != null) {
+			for (DayOfWeek dayOfWeek : this.daysOfWeek) {
+				mask |= 1 << dayOfWeek.getValue();
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#collectEpochDays(int, java.util.function.LongConsumer)
+	 */
+	@Override
+	public void collectEpochDays(int year, LongConsumer days) {
+		int mask = getDaysOfWeekMask();
+		long first = EpochDays.firstDayOfYear(year);
+		long last = first + EpochDays.lengthOfYear(year);
+		for (long day = first; day < last; day++) {
+			if ((mask & (1 << EpochDays.dayOfWeek(day))) != 0) {
+				days.accept(day);
+			}
+		}
+	}
+
+	/**
+	 * @return the daysOfWeek
+	 */
+	public List<DayOfWeek> getDaysOfWeek() {
+		return daysOfWeek;
+	}
+
+	/**
+	 * @param daysOfWeek the daysOfWeek to set
+	 */
+	public void setDaysOfWeek(List<DayOfWeek> daysOfWeek) {
+		checkNotShared();
+		this.daysOfWeek = daysOfWeek;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#copy()
+	 */
+	@Override
+	public HolidayRule copy() {
+		WeekendRule copy = (WeekendRule) super.copy();
+		copy.setDaysOfWeek(this.daysOfWeek == null ? null : new ArrayList<>(this.daysOfWeek));
+		return copy;
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!super.equals(obj)) {
+			return false;
+		}
+		WeekendRule other = (WeekendRule) obj;
+		return getDaysOfWeekMask() == other.getDaysOfWeekMask();
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * super.hashCode() + getDaysOfWeekMask();
+	}
+
+	/**
+	 * @see edu.usun.planning.calendar.HolidayRule#markShared()
+	 */
+	@Override
+	void markShared() {
+		if (this.daysOfWeek != null) {
+			this.daysOfWeek = Collections.unmodifiableList(this.daysOfWeek);
+		}
+		super.markShared();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer()
+			.append("WeekendRule{")
+			.append("name=").append(this.getName()).append(',')
+			.append("capacityFactor=").append(this.getCapacityFactor() == null ? "N/A" : 
+				this.getCapacityFactor().toPlainString()).append(',')
+			.append("daysOfWeek=[");
+		if (this.getDaysOfWeek() != null) {
+			sb.append(this.getDaysOfWeek().stream().map(DayOfWeek::toString).collect(Collectors.joining(",")));
+		}
+		return sb.append("]}").toString();
+	}
+}
@@ -1,8 +1,15 @@
 package edu.usun.planning.calendar;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
+import edu.usun.planning.FixedPoint;
 import edu.usun.planning.PlanEntity;
 
 /**
@@ -17,11 +24,48 @@ public class WorkCalendar extends PlanEntity {
 	 */
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * Calendar with default weekends and no public holidays, used for team members without a calendar.
+	 */
+	static final WorkCalendar WEEKENDS_ONLY = new WorkCalendar();
+	
+	static {
+		WEEKENDS_ONLY.setName("Weekends only");
+		WEEKENDS_ONLY.markShared();
+	}
+	
 	/**
 	 * Overriding capacity due to public holidays.
 	 */
 	protected List<CapacityOverride> publicHolidays;
 	
+	/**
+	 * Recurring weekends and holidays, expanded lazily one year at a time. 
+	 * Public holidays take precedence over the rules for the same day.
+	 */
+	protected List<HolidayRule> holidayRules;
+	
+	/**
+	 * Holiday rules compiled for expansion, built on demand.
+	 */
+	protected transient volatile HolidayRuleSet compiledHolidayRules;
+	
+	/**
+	 * Lookup index over public holidays, built on demand.
+	 */
+	protected transient volatile CapacityOverrideIndex publicHolidaysIndex;
+	
+	/**
+	 * Per year compact capacity tables (working day bit sets) for range queries, built on demand.
+	 */
+	protected transient volatile ConcurrentMap<Integer, WorkCalendarYear> years;
+	
+	/**
+	 * Calendar is interned in {@link WorkCalendarRegistry} and shared among team members: 
+	 * its name and holidays cannot be changed, {@link #fork()} should be used to get a private copy for changes.
+	 */
+	protected transient boolean shared;
+	
 	/**
 	 * Default constructor.
 	 */
@@ -29,6 +73,15 @@ public class WorkCalendar extends PlanEntity {
 		super();
 	}
 
+	/**
+	 * @see edu.usun.planning.PlanEntity#setName(java.lang.String)
+	 */
+	@Override
+	public void setName(String name) {
+		checkNotShared();
+		super.setName(name);
+	}
+
 	/**
 	 * @return the publicHolidays
 	 */
@@ -40,7 +93,264 @@ public class WorkCalendar extends PlanEntity {
 	 * @param publicHolidays the publicHolidays to set
 	 */
 	public void setPublicHolidays(List<CapacityOverride> publicHolidays) {
+		checkNotShared();
 		this.publicHolidays = publicHolidays;
+		this.publicHolidaysIndex = null;
+		this.years = null;
+	}
+
+	/**
+	 * @return the holidayRules
+	 */
+	public List<HolidayRule> getHolidayRules() {
+		return holidayRules;
+	}
+
+	/**
+	 * In-place changes of the list or the rules require {@link #holidaysChanged()} to be called.
+	 * @param holidayRules the holidayRules to set
+	 */
+	public void setHolidayRules(List<HolidayRule> holidayRules) {
+		checkNotShared();
+		this.holidayRules = holidayRules;
+		this.compiledHolidayRules = null;
+		this.years = null;
+	}
+
+	/**
+	 * @return holiday rules compiled for expansion.
+	 */
+	HolidayRuleSet getCompiledHolidayRules() {
+		HolidayRuleSet compiled = this.compiledHolidayRules;
+		if (compiled == null) {
+			compiled = this.holidayRules == null ? HolidayRuleSet.DEFAULT : HolidayRuleSet.compile(this.holidayRules);
+			this.compiledHolidayRules = compiled;
+		}
+		return compiled;
+	}
+
+	/**
+	 * Returns lookup index over public holidays. The index is rebuilt when the list is replaced, 
+	 * in-place changes of the list or its records require {@link #holidaysChanged()} to be called.
+	 * @return the publicHolidays index, never null.
+	 */
+	public CapacityOverrideIndex getPublicHolidaysIndex() {
+		CapacityOverrideIndex index = this.publicHolidaysIndex;
+		if (index == null) {
+			index = CapacityOverrideIndex.of(this.publicHolidays);
+			this.publicHolidaysIndex = index;
+			this.years = null;
+		}
+		return index;
+	}
+
+	/**
+	 * Drops the lookup index, the compiled rules and the cached years after in-place changes of the public holiday
+	 * or holiday rule lists or their elements, they are rebuilt on the next lookup.
+	 * @throws IllegalStateException if the calendar is shared.
+	 */
+	public void holidaysChanged() {
+		checkNotShared();
+		this.publicHolidaysIndex = null;
+		this.compiledHolidayRules = null;
+		this.years = null;
+	}
+
+	/**
+	 * @return true if the calendar is interned and shared, i.e. cannot be changed
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Marks the calendar as shared. Public holiday records and rules are replaced with unmodifiable lists of
+	 * read-only copies, so that neither the instances still held by the caller nor the elements of the lists
+	 * can change the shared calendar.
+	 */
+	void markShared() {
+		List<CapacityOverride> holidays = this.publicHolidays;
+		if (holidays != null) {
+			List<CapacityOverride> copiedHolidays = new ArrayList<>(holidays.size());
+			for (CapacityOverride holiday : holidays) {
+				CapacityOverride copy = holiday == null ? null : holiday.copy();
+				if (copy != null) {
+					copy.markShared();
+				}
+				copiedHolidays.add(copy);
+			}
+			setPublicHolidays(Collections.unmodifiableList(copiedHolidays));
+		}
+		List<HolidayRule> rules = this.holidayRules;
+		if (rules != null) {
+			List<HolidayRule> copiedRules = new ArrayList<>(rules.size());
+			for (HolidayRule rule : rules) {
+				HolidayRule copy = rule == null ? null : rule.copy();
+				if (copy != null) {
+					copy.markShared();
+				}
+				copiedRules.add(copy);
+			}
+			setHolidayRules(Collections.unmodifiableList(copiedRules));
+		}
+		this.shared = true;
+	}
+
+	/**
+	 * @throws IllegalStateException if the calendar is shared.
+	 */
+	private void checkNotShared() {
+		if (this.shared) {
+			throw new IllegalStateException("Shared work calendar " + this.getName() + " cannot be changed, fork it first");
+		}
+	}
+
+	/**
+	 * Creates a private changeable copy of this calendar (copy-on-write of a shared calendar). 
+	 * Public holiday records and rules are copied as well, so that the changes do not leak into the shared instance.
+	 * @return the copy, never shared.
+	 */
+	public WorkCalendar fork() {
+		WorkCalendar copy = new WorkCalendar();
+		copy.setName(this.getName());
+		List<CapacityOverride> holidays = this.publicHolidays;
+		if (holidays != null) {
+			List<CapacityOverride> copiedHolidays = new ArrayList<>(holidays.size());
+			for (CapacityOverride holiday : holidays) {
+				copiedHolidays.add(holiday == null ? null : holiday.copy());
+			}
+			copy.setPublicHolidays(copiedHolidays);
+		}
+		List<HolidayRule> rules = this.holidayRules;
+		if (rules != null) {
+			List<HolidayRule> copiedRules = new ArrayList<>(rules.size());
+			for (HolidayRule rule : rules) {
+				copiedRules.add(rule == null ? null : rule.copy());
+			}
+			copy.setHolidayRules(copiedRules);
+		}
+		return copy;
+	}
+
+	/**
+	 * Capacity of the given day according to this calendar: 
+	 * public holiday capacity factor if there is a record for the day, 
+	 * otherwise capacity factor of the matching holiday rule (the last one in the list), 
+	 * otherwise 1 for week days and 0 for weekends.
+	 * @param epochDay The day (days since 1970-01-01).
+	 * @return fixed-point capacity factor of the day.
+	 */
+	public long getDayCapacity(long epochDay) {
+		return getYear(EpochDays.yearOf(epochDay)).dayCapacity(epochDay);
+	}
+
+	/**
+	 * Available capacity between two dates according to this calendar 
+	 * (the same as the sum of {@link #getDayCapacity(long)} for every day in the range).
+	 * Served from per year working day bit sets, so it takes a masked popcount per calendar year in the range.
+	 * @param fromEpochDay First day of the range (days since 1970-01-01).
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return fixed-point capacity in man-days, 0 if the range is empty.
+	 */
+	public long getCapacity(long fromEpochDay, long toEpochDay) {
+		long capacity = 0;
+		long day = fromEpochDay;
+		while (day <= toEpochDay) {
+			WorkCalendarYear year = getYear(EpochDays.yearOf(day));
+			long to = Math.min(toEpochDay, year.getFirstEpochDay() + year.length() - 1);
+			capacity += year.capacity(day, to);
+			day = to + 1;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Available capacity between two dates according to this calendar.
+	 * @param from First day of the range. Time of the day is ignored.
+	 * @param to Last day of the range (inclusive). Time of the day is ignored.
+	 * @return capacity in man-days, 0 if the range is empty.
+	 */
+	public BigDecimal getCapacity(Calendar from, Calendar to) {
+		return FixedPoint.toBigDecimal(getCapacity(EpochDays.toEpochDay(from), EpochDays.toEpochDay(to)));
+	}
+
+	/**
+	 * Capacity between two dates with the weekends of this calendar only (see {@link WeekendRule}),
+	 * i.e. ignoring public holidays and dated holiday rules.
+	 * @param fromEpochDay First day of the range (days since 1970-01-01).
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return fixed-point capacity in man-days, 0 if the range is empty.
+	 */
+	public long getWeekCapacity(long fromEpochDay, long toEpochDay) {
+		return getCompiledHolidayRules().weekCapacity(fromEpochDay, toEpochDay);
+	}
+
+	/**
+	 * Number of working days between two dates according to this calendar, 
+	 * i.e. days with non-zero capacity (short work-days are counted as working days).
+	 * @param fromEpochDay First day of the range (days since 1970-01-01).
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @return number of working days, 0 if the range is empty.
+	 */
+	public int getWorkingDays(long fromEpochDay, long toEpochDay) {
+		int workingDays = 0;
+		long day = fromEpochDay;
+		while (day <= toEpochDay) {
+			WorkCalendarYear year = getYear(EpochDays.yearOf(day));
+			long to = Math.min(toEpochDay, year.getFirstEpochDay() + year.length() - 1);
+			workingDays += year.workingDays(day, to);
+			day = to + 1;
+		}
+		return workingDays;
+	}
+
+	/**
+	 * Number of working days between two dates according to this calendar.
+	 * @param from First day of the range. Time of the day is ignored.
+	 * @param to Last day of the range (inclusive). Time of the day is ignored.
+	 * @return number of working days, 0 if the range is empty.
+	 */
+	public int getWorkingDays(Calendar from, Calendar to) {
+		return getWorkingDays(EpochDays.toEpochDay(from), EpochDays.toEpochDay(to));
+	}
+
+	/**
+	 * Copies fixed-point daily capacities of a range of days into the target array.
+	 * @param fromEpochDay First day of the range (days since 1970-01-01).
+	 * @param toEpochDay Last day of the range (inclusive).
+	 * @param target The target array.
+	 * @param offset Position in the target array for the first day of the range.
+	 */
+	void copyDayCapacities(long fromEpochDay, long toEpochDay, long[] target, int offset) {
+		long day = fromEpochDay;
+		while (day <= toEpochDay) {
+			WorkCalendarYear year = getYear(EpochDays.yearOf(day));
+			long to = Math.min(toEpochDay, year.getFirstEpochDay() + year.length() - 1);
+			year.copyDayCapacities(day, to, target, offset + (int) (day - fromEpochDay));
+			day = to + 1;
+		}
+	}
+
+	/**
+	 * @param year The year.
+	 * @return capacity table of the year.
+	 */
+	WorkCalendarYear getYear(int year) {
+		CapacityOverrideIndex index = getPublicHolidaysIndex();
+		ConcurrentMap<Integer, WorkCalendarYear> cache = this.years;
+		if (cache == null) {
+			cache = new ConcurrentHashMap<>();
+			this.years = cache;
+		}
+		WorkCalendarYear calendarYear = cache.get(year);
+		if (calendarYear == null) {
+			calendarYear = WorkCalendarYear.of(year, getCompiledHolidayRules(), index);
+			WorkCalendarYear existing = cache.putIfAbsent(year, calendarYear);
+			if (existing != null) {
+				calendarYear = existing;
+			}
+		}
+		return calendarYear;
 	}
 
 	/**
@@ -60,6 +370,14 @@ public class WorkCalendar extends PlanEntity {
 				.collect(Collectors.joining(",")).toString());
 		}
 		
+		sb.append("],holidayRules=[");
+		if (this.getHolidayRules() != null && !this.getHolidayRules().isEmpty()) {
+			sb.append(this.getHolidayRules()
+				.stream()
+				.map(String::valueOf)
+				.collect(Collectors.joining(",")).toString());
+		}
+		
 		sb.append(']');
 		return sb.append('}').toString();
 	}
@@ -0,0 +1,182 @@
+package edu.usun.planning.calendar;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Registry of shared work calendars, interned by content (name, holiday rules and effective public holidays).
+ * Importers typically create a copy of the same regional calendar per team member,
+ * interning makes all of them share a single immutable instance, together with its derived
+ * lookup index and capacity tables which are then computed once per calendar instead of once per person.
+ * Shared calendars are changed by forking them, see {@link TeamMember#getWorkCalendarForUpdate()}.
+ *
+ * @author usun
+ */
+public final class WorkCalendarRegistry {
+
+	/** Singleton instance. */
+	private static final WorkCalendarRegistry INSTANCE = new WorkCalendarRegistry();
+
+	/** Shared calendars by content. */
+	private final ConcurrentMap<Key, WorkCalendar> calendars = new ConcurrentHashMap<>();
+
+	/**
+	 * Private constructor.
+	 */
+	private WorkCalendarRegistry() {
+		super();
+	}
+
+	/**
+	 * @return the registry instance.
+	 */
+	public static WorkCalendarRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns shared calendar with the same content as the provided one.
+	 * The provided calendar itself is not changed and not registered,
+	 * the shared instance holds its own unmodifiable copy of public holidays.
+	 * @param workCalendar The calendar to intern.
+	 * @return the shared calendar, null if the provided calendar is null.
+	 */
+	public WorkCalendar intern(WorkCalendar workCalendar) {
+		if (workCalendar == null || workCalendar.isShared()) {
+			return workCalendar;
+		}
+		Key key = new Key(workCalendar);
+		WorkCalendar shared = this.calendars.get(key);
+		if (shared == null) {
+			shared = share(workCalendar);
+			WorkCalendar existing = this.calendars.putIfAbsent(key, shared);
+			if (existing != null) {
+				shared = existing;
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Replaces work calendars of the team members with shared ones.
+	 * @param members The team members.
+	 */
+	public void internAll(Collection<TeamMember> members) {
+		for (TeamMember member : members) {
+			if (member != null) {
+				member.setWorkCalendar(intern(member.getWorkCalendar()));
+			}
+		}
+	}
+
+	/**
+	 * @return shared calendars, in no particular order.
+	 */
+	public List<WorkCalendar> getCalendars() {
+		return new ArrayList<>(this.calendars.values());
+	}
+
+	/**
+	 * @return number of shared calendars.
+	 */
+	public int size() {
+		return this.calendars.size();
+	}
+
+	/**
+	 * Forgets all shared calendars (the calendars themselves stay shared for the team members using them).
+	 */
+	public void clear() {
+		this.calendars.clear();
+	}
+
+	/**
+	 * @param workCalendar The calendar to copy.
+	 * @return immutable shared copy of the calendar, see {@link WorkCalendar#markShared()}.
+	 */
+	private static WorkCalendar share(WorkCalendar workCalendar) {
+		WorkCalendar shared = new WorkCalendar();
+		shared.setName(workCalendar.getName());
+		shared.setPublicHolidays(workCalendar.getPublicHolidays());
+		shared.setHolidayRules(workCalendar.getHolidayRules());
+		shared.markShared();
+		return shared;
+	}
+
+	/**
+	 * Content key of a calendar: name, effective (deduplicated, sorted) public holidays and holiday rules.
+	 */
+	private static final class Key {
+
+		/** Calendar name. */
+		private final String name;
+
+		/** Holiday days. */
+		private final long[] epochDays;
+
+		/** Holiday capacity factors, aligned with epochDays, normalized for comparison. */
+		private final BigDecimal[] capacityFactors;
+
+		/** Copies of the holiday rules, compared by content. */
+		private final List<HolidayRule> holidayRules;
+
+		/** Cached hash code. */
+		private final int hash;
+
+		/**
+		 * @param workCalendar The calendar.
+		 */
+		Key(WorkCalendar workCalendar) {
+			CapacityOverrideIndex index = CapacityOverrideIndex.of(workCalendar.getPublicHolidays());
+			this.name = workCalendar.getName();
+			this.epochDays = new long[index.size()];
+			this.capacityFactors = new BigDecimal[index.size()];
+			for (int pos = 0; pos < index.size(); pos++) {
+				this.epochDays[pos] = index.epochDayAt(pos);
+				BigDecimal capacityFactor = index.capacityOverrideAt(pos).getCapacityFactor();
+				this.capacityFactors[pos] = (capacityFactor == null ? BigDecimal.ONE : capacityFactor).stripTrailingZeros();
+			}
+			this.holidayRules = new ArrayList<>();
+			if (workCalendar.getHolidayRules() != null) {
+				for (HolidayRule rule : workCalendar.getHolidayRules()) {
+					this.holidayRules.add(rule == null ? null : rule.copy());
+				}
+			}
+			this.hash = 31 * (31 * (31 * Objects.hashCode(this.name) + Arrays.hashCode(this.epochDays))
+				+ Arrays.hashCode(this.capacityFactors)) + this.holidayRules.hashCode();
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && Objects.equals(name, other.name)
+				&& Arrays.equals(epochDays, other.epochDays) && Arrays.equals(capacityFactors, other.capacityFactors)
+				&& holidayRules.equals(other.holidayRules);
+		}
+	}
+}
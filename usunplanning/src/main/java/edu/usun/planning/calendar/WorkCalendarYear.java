@@ -0,0 +1,226 @@
+package edu.usun.planning.calendar;
+
+import java.util.Arrays;
+
+import edu.usun.planning.FixedPoint;
+
+/**
+ * Capacity of a single year of a work calendar in a compact form prepared for range queries:
+ * <ul>
+ * <li>a 366-bit set of full working days (capacity factor 1);</li>
+ * <li>a sparse sorted list of days with fractional (or overtime) capacity factors, with prefix sums of the factors.</li>
+ * </ul>
+ * Days in neither of them are days-off (weekends, public holidays).
+ * Both are materialized from the calendar holiday rules and explicit public holidays.
+ * Capacity of a range of days is a masked popcount over at most 6 words plus two binary searches
+ * in the (usually empty) sparse list. Capacities are fixed-point values, see {@link FixedPoint}.
+ *
+ * @author usun
+ */
+final class WorkCalendarYear {
+
+	/** Number of 64-bit words to hold a leap year. */
+	private static final int WORDS = 6;
+
+	/** The year. */
+	private final int year;
+
+	/** Epoch-day of January 1st. */
+	private final long firstEpochDay;
+
+	/** Number of days in the year. */
+	private final int length;
+
+	/** Bit i is set if day i of the year (0-based) is a full working day. */
+	private final long[] workingDays;
+
+	/** Sorted days of the year (0-based) with capacity factor other than 0 or 1. */
+	private final short[] fractionalDays;
+
+	/** fractionalPrefix[i] is the total capacity of the first i fractional days. */
+	private final long[] fractionalPrefix;
+
+	/**
+	 * @param year The year.
+	 * @param workingDays Full working days bit set.
+	 * @param fractionalDays Days with fractional capacity.
+	 * @param fractionalPrefix Prefix sums of fractional capacities.
+	 */
+	private WorkCalendarYear(int year, long[] workingDays, short[] fractionalDays, long[] fractionalPrefix) {
+		super();
+		this.year = year;
+		this.firstEpochDay = EpochDays.firstDayOfYear(year);
+		this.length = EpochDays.lengthOfYear(year);
+		this.workingDays = workingDays;
+		this.fractionalDays = fractionalDays;
+		this.fractionalPrefix = fractionalPrefix;
+	}
+
+	/**
+	 * Builds capacity table for a year.
+	 * @param year The year.
+	 * @param holidayRules Compiled holiday rules of the calendar.
+	 * @param publicHolidays Public holidays of the calendar, they take precedence over the rules.
+	 * @return the table.
+	 */
+	static WorkCalendarYear of(int year, HolidayRuleSet holidayRules, CapacityOverrideIndex publicHolidays) {
+		long firstEpochDay = EpochDays.firstDayOfYear(year);
+		int days = EpochDays.lengthOfYear(year);
+		long[] daily = new long[days];
+		Arrays.fill(daily, FixedPoint.ONE);
+		holidayRules.apply(year, firstEpochDay, daily);
+		for (int pos = publicHolidays.ceilingPosition(firstEpochDay); pos < publicHolidays.size(); pos++) {
+			long epochDay = publicHolidays.epochDayAt(pos);
+			if (epochDay >= firstEpochDay + days) {
+				break;
+			}
+			daily[(int) (epochDay - firstEpochDay)] = CapacityUtils.capacityFactor(publicHolidays.capacityOverrideAt(pos));
+		}
+
+		long[] workingDays = new long[WORDS];
+		int fractionalCount = 0;
+		for (int i = 0; i < days; i++) {
+			if (daily[i] == FixedPoint.ONE) {
+				workingDays[i >>> 6] |= 1L << i;
+			} else if (daily[i] != 0) {
+				fractionalCount++;
+			}
+		}
+		short[] fractionalDays = new short[fractionalCount];
+		long[] fractionalPrefix = new long[fractionalCount + 1];
+		for (int i = 0, pos = 0; pos < fractionalCount; i++) {
+			if (daily[i] != FixedPoint.ONE && daily[i] != 0) {
+				fractionalDays[pos] = (short) i;
+				fractionalPrefix[pos + 1] = fractionalPrefix[pos] + daily[i];
+				pos++;
+			}
+		}
+		return new WorkCalendarYear(year, workingDays, fractionalDays, fractionalPrefix);
+	}
+
+	/**
+	 * Copies daily capacities of a range of days into the target array.
+	 * @param fromEpochDay First day of the range, must be within the year.
+	 * @param toEpochDay Last day of the range (inclusive), must be within the year.
+	 * @param target The target array.
+	 * @param offset Position in the target array for the first day of the range.
+	 */
+	void copyDayCapacities(long fromEpochDay, long toEpochDay, long[] target, int offset) {
+		int from = (int) (fromEpochDay - firstEpochDay);
+		int to = (int) (toEpochDay - firstEpochDay);
+		int pos = fractionalUpperBound(from - 1);
+		for (int i = from; i <= to; i++) {
+			if ((workingDays[i >>> 6] & (1L << i)) != 0) {
+				target[offset + i - from] = FixedPoint.ONE;
+			} else if (pos < fractionalDays.length && fractionalDays[pos] == i) {
+				target[offset + i - from] = fractionalPrefix[pos + 1] - fractionalPrefix[pos];
+				pos++;
+			} else {
+				target[offset + i - from] = 0;
+			}
+		}
+	}
+
+	/**
+	 * @return the year
+	 */
+	int getYear() {
+		return year;
+	}
+
+	/**
+	 * @return the epoch-day of January 1st
+	 */
+	long getFirstEpochDay() {
+		return firstEpochDay;
+	}
+
+	/**
+	 * @return number of days in the year.
+	 */
+	int length() {
+		return length;
+	}
+
+	/**
+	 * @param epochDay The day, must be within the year.
+	 * @return capacity of the day.
+	 */
+	long dayCapacity(long epochDay) {
+		int i = (int) (epochDay - firstEpochDay);
+		if ((workingDays[i >>> 6] & (1L << i)) != 0) {
+			return FixedPoint.ONE;
+		}
+		int pos = Arrays.binarySearch(fractionalDays, (short) i);
+		return pos < 0 ? 0 : fractionalPrefix[pos + 1] - fractionalPrefix[pos];
+	}
+
+	/**
+	 * @param fromEpochDay First day of the range, must be within the year.
+	 * @param toEpochDay Last day of the range (inclusive), must be within the year.
+	 * @return capacity of the range in man-days.
+	 */
+	long capacity(long fromEpochDay, long toEpochDay) {
+		int from = (int) (fromEpochDay - firstEpochDay);
+		int to = (int) (toEpochDay - firstEpochDay);
+		if (from > to) {
+			return 0;
+		}
+		return countWorkingDays(from, to) * FixedPoint.ONE + fractionalPrefix[fractionalUpperBound(to)]
+			- fractionalPrefix[fractionalUpperBound(from - 1)];
+	}
+
+	/**
+	 * @param fromEpochDay First day of the range, must be within the year.
+	 * @param toEpochDay Last day of the range (inclusive), must be within the year.
+	 * @return number of days with non-zero capacity in the range.
+	 */
+	int workingDays(long fromEpochDay, long toEpochDay) {
+		int from = (int) (fromEpochDay - firstEpochDay);
+		int to = (int) (toEpochDay - firstEpochDay);
+		if (from > to) {
+			return 0;
+		}
+		return countWorkingDays(from, to) + fractionalUpperBound(to) - fractionalUpperBound(from - 1);
+	}
+
+	/**
+	 * @return capacity of the whole year in man-days.
+	 */
+	long total() {
+		return capacity(firstEpochDay, firstEpochDay + length - 1);
+	}
+
+	/**
+	 * Masked popcount of full working days.
+	 * @param from First day of the year (0-based).
+	 * @param to Last day of the year (0-based, inclusive).
+	 * @return number of full working days within the range.
+	 */
+	private int countWorkingDays(int from, int to) {
+		int fromWord = from >>> 6;
+		int toWord = to >>> 6;
+		long fromMask = -1L << from;
+		long toMask = -1L >>> (63 - (to & 63));
+		if (fromWord == toWord) {
+			return Long.bitCount(workingDays[fromWord] & fromMask & toMask);
+		}
+		int count = Long.bitCount(workingDays[fromWord] & fromMask);
+		for (int word = fromWord + 1; word < toWord; word++) {
+			count += Long.bitCount(workingDays[word]);
+		}
+		return count + Long.bitCount(workingDays[toWord] & toMask);
+	}
+
+	/**
+	 * @param day Day of the year (0-based), can be -1.
+	 * @return number of fractional days on or before the day.
+	 */
+	private int fractionalUpperBound(int day) {
+		if (fractionalDays.length == 0) {
+			return 0;
+		}
+		int pos = Arrays.binarySearch(fractionalDays, (short) day);
+		return pos < 0 ? -pos - 1 : pos + 1;
+	}
+}
@@ -0,0 +1,377 @@
+package edu.usun.planning.forecast;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+
+/**
+ * Monte Carlo forecast of release completion dates.
+ *
+ * Each trial simulates one future: every team velocity of every sprint is sampled around
+ * {@link SprintTeamAvailability#getVelocity()} (normal, relative deviation {@link #getVelocitySigma()}, not below 0)
+ * and every feature estimate around {@link Feature#getRemaningEstimate()} (log-normal with mean 1, deviation
+ * {@link #getEstimateSigma()} of the logarithm). Features are then poured in backlog order into the cumulative
+ * velocity of the sprints and a release completes in the sprint completing its last feature. Beyond the horizon,
+ * sprints of the length of the last sprint follow at the average sampled velocity of the trial, for as many sprints
+ * again as the horizon; later completions are reported as {@link EpochDays#MAX_DAY}.
+ *
+ * The sprints and the backlog are flattened up-front into primitive arrays, the trials only read them.
+ * Trials run in chunks in parallel on a fork/join pool, each chunk with its own random stream split from the seed
+ * and its own histogram of the completion sprint per release, so that the result depends on the seed only.
+ *
+ * @author usun
+ */
+public class MonteCarloForecaster {
+
+	/** Number of trials run by one task. */
+	static final int CHUNK = 4096;
+
+	/** Number of trials. */
+	private int trials = 100000;
+
+	/** Seed of the random streams. */
+	private long seed = 0x5EEDL;
+
+	/** Standard deviation of the velocities relative to the velocity. */
+	private double velocitySigma = 0.15;
+
+	/** Standard deviation of the logarithm of the estimate error. */
+	private double estimateSigma = 0.25;
+
+	/** Pool running the trials. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Forecaster using the common pool.
+	 */
+	public MonteCarloForecaster() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param pool Pool running the trials.
+	 */
+	public MonteCarloForecaster(ForkJoinPool pool) {
+		super();
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the number of trials
+	 */
+	public int getTrials() {
+		return trials;
+	}
+
+	/**
+	 * @param trials the number of trials to set
+	 */
+	public void setTrials(int trials) {
+		if (trials <= 0) {
+			throw new IllegalArgumentException("Number of trials must be positive");
+		}
+		this.trials = trials;
+	}
+
+	/**
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param seed the seed to set
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the standard deviation of the velocities relative to the velocity
+	 */
+	public double getVelocitySigma() {
+		return velocitySigma;
+	}
+
+	/**
+	 * @param velocitySigma the standard deviation of the velocities relative to the velocity to set, e.g. 0.15
+	 */
+	public void setVelocitySigma(double velocitySigma) {
+		if (velocitySigma < 0) {
+			throw new IllegalArgumentException("Velocity deviation cannot be negative");
+		}
+		this.velocitySigma = velocitySigma;
+	}
+
+	/**
+	 * @return the standard deviation of the logarithm of the estimate error
+	 */
+	public double getEstimateSigma() {
+		return estimateSigma;
+	}
+
+	/**
+	 * @param estimateSigma the standard deviation of the logarithm of the estimate error to set, e.g. 0.25
+	 */
+	public void setEstimateSigma(double estimateSigma) {
+		if (estimateSigma < 0) {
+			throw new IllegalArgumentException("Estimate deviation cannot be negative");
+		}
+		this.estimateSigma = estimateSigma;
+	}
+
+	/**
+	 * @param sprints The sprints of the horizon, in chronological order, with their available velocities.
+	 * @param backlog Features to deliver, in priority order.
+	 * @return forecast of each release of the backlog, in order of the first feature of the release.
+	 */
+	public List<ReleaseForecast> forecast(List<Sprint> sprints, List<Feature> backlog) {
+		if (sprints == null || sprints.isEmpty()) {
+			throw new IllegalArgumentException("Forecast needs at least one sprint");
+		}
+		Model model = new Model(sprints, backlog);
+		int chunks = (trials + CHUNK - 1) / CHUNK;
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] streams = new SplittableRandom[chunks];
+		for (int c = 0; c < chunks; c++) {
+			streams[c] = root.split();
+		}
+		long[] histogram = pool.submit(() -> IntStream.range(0, chunks).parallel()
+			.mapToObj(c -> model.simulate(streams[c], Math.min(CHUNK, trials - c * CHUNK), velocitySigma, estimateSigma))
+			.reduce(MonteCarloForecaster::merge)
+			.get()).join();
+		return model.forecasts(histogram, trials);
+	}
+
+	/**
+	 * @param left Histogram to add to.
+	 * @param right Histogram to add.
+	 * @return the left histogram.
+	 */
+	private static long[] merge(long[] left, long[] right) {
+		for (int i = 0; i < left.length; i++) {
+			left[i] += right[i];
+		}
+		return left;
+	}
+
+	/**
+	 * Fills the array with standard normal samples, two per draw of the polar method.
+	 * @param random The random stream.
+	 * @param samples Array to fill.
+	 */
+	static void gaussians(SplittableRandom random, double[] samples) {
+		for (int i = 0; i < samples.length; i += 2) {
+			double u;
+			double v;
+			double s;
+			do {
+				u = 2 * random.nextDouble() - 1;
+				v = 2 * random.nextDouble() - 1;
+				s = u * u + v * v;
+			} while (s >= 1 || s == 0);
+			double factor = Math.sqrt(-2 * Math.log(s) / s);
+			samples[i] = u * factor;
+			if (i + 1 < samples.length) {
+				samples[i + 1] = v * factor;
+			}
+		}
+	}
+
+	/**
+	 * Sprints and backlog flattened into primitive arrays. Completion is tracked as a bin:
+	 * the sprint of the horizon, then the extrapolated sprints, the last bin is beyond.
+	 */
+	static final class Model {
+
+		/** Number of sprints of the horizon. */
+		final int sprintCount;
+
+		/** Number of bins. */
+		final int bins;
+
+		/** Team velocities of all sprints. */
+		final double[] velocities;
+
+		/** Position of the first velocity of each sprint in {@link #velocities}, and the end. */
+		final int[] sprintOffsets;
+
+		/** Last day of each bin. */
+		final long[] binEnds;
+
+		/** Remaining estimate of each feature. */
+		final double[] estimates;
+
+		/** Position of the release of each feature in {@link #releases}, -1 if none. */
+		final int[] releaseOf;
+
+		/** Releases of the backlog. */
+		final List<Release> releases = new ArrayList<>();
+
+		/**
+		 * @param sprints The sprints.
+		 * @param backlog The features.
+		 */
+		Model(List<Sprint> sprints, List<Feature> backlog) {
+			sprintCount = sprints.size();
+			bins = 2 * sprintCount + 1;
+			sprintOffsets = new int[sprintCount + 1];
+			for (int s = 0; s < sprintCount; s++) {
+				List<SprintTeamAvailability> availabilities = sprints.get(s).getAvailableVelocities();
+				sprintOffsets[s + 1] = sprintOffsets[s] + (availabilities == null ? 0 : availabilities.size());
+			}
+			velocities = new double[sprintOffsets[sprintCount]];
+			binEnds = new long[bins];
+			for (int s = 0; s < sprintCount; s++) {
+				Sprint sprint = sprints.get(s);
+				for (int t = sprintOffsets[s]; t < sprintOffsets[s + 1]; t++) {
+					BigDecimal velocity = sprint.getAvailableVelocities().get(t - sprintOffsets[s]).getVelocity();
+					velocities[t] = velocity == null ? 0 : Math.max(0, velocity.doubleValue());
+				}
+				binEnds[s] = sprint.getEndEpochDay();
+			}
+			Sprint last = sprints.get(sprintCount - 1);
+			long length = Math.max(1, last.getEndEpochDay() - last.getStartEpochDay() + 1);
+			for (int b = sprintCount; b < bins - 1; b++) {
+				binEnds[b] = Math.min(binEnds[b - 1] + length, EpochDays.MAX_DAY);
+			}
+			binEnds[bins - 1] = EpochDays.MAX_DAY;
+
+			int n = backlog == null ? 0 : backlog.size();
+			estimates = new double[n];
+			releaseOf = new int[n];
+			Map<Release, Integer> positions = new IdentityHashMap<>();
+			for (int f = 0; f < n; f++) {
+				Feature feature = backlog.get(f);
+				BigDecimal estimate = feature.getRemaningEstimate();
+				estimates[f] = estimate == null ? 0 : Math.max(0, estimate.doubleValue());
+				Release release = feature.getRelease();
+				if (release == null) {
+					releaseOf[f] = -1;
+				} else {
+					Integer position = positions.get(release);
+					if (position == null) {
+						position = releases.size();
+						positions.put(release, position);
+						releases.add(release);
+					}
+					releaseOf[f] = position;
+				}
+			}
+		}
+
+		/**
+		 * Runs trials.
+		 * @param random Random stream of the trials.
+		 * @param count Number of trials.
+		 * @param velocitySigma Standard deviation of the velocities relative to the velocity.
+		 * @param estimateSigma Standard deviation of the logarithm of the estimate error.
+		 * @return histogram of the completion bins, cell release * bins + bin.
+		 */
+		long[] simulate(SplittableRandom random, int count, double velocitySigma, double estimateSigma) {
+			long[] histogram = new long[releases.size() * bins];
+			double[] cumulative = new double[sprintCount];
+			int[] completion = new int[releases.size()];
+			double[] normals = new double[velocities.length + estimates.length];
+			double drift = -estimateSigma * estimateSigma / 2;
+			for (int trial = 0; trial < count; trial++) {
+				gaussians(random, normals);
+				double total = 0;
+				for (int s = 0; s < sprintCount; s++) {
+					for (int t = sprintOffsets[s]; t < sprintOffsets[s + 1]; t++) {
+						total += velocities[t] * Math.max(0, 1 + velocitySigma * normals[t]);
+					}
+					cumulative[s] = total;
+				}
+				double average = total / sprintCount;
+
+				double done = 0;
+				int s = 0;
+				for (int f = 0; f < estimates.length; f++) {
+					if (estimates[f] > 0) {
+						done += estimates[f] * Math.exp(drift + estimateSigma * normals[velocities.length + f]);
+					}
+					while (s < sprintCount && cumulative[s] < done) {
+						s++;
+					}
+					if (releaseOf[f] >= 0) {
+						completion[releaseOf[f]] = s < sprintCount ? s : extrapolate(done - total, average);
+					}
+				}
+				for (int r = 0; r < completion.length; r++) {
+					histogram[r * bins + completion[r]]++;
+				}
+			}
+			return histogram;
+		}
+
+		/**
+		 * @param beyond Work left after the horizon.
+		 * @param average Average velocity of a sprint.
+		 * @return bin of the extrapolated sprint completing the work.
+		 */
+		private int extrapolate(double beyond, double average) {
+			if (average <= 0) {
+				return bins - 1;
+			}
+			double sprints = Math.ceil(beyond / average);
+			return sprints >= bins - sprintCount ? bins - 1 : sprintCount + (int) sprints - 1;
+		}
+
+		/**
+		 * @param histogram Histogram of the completion bins.
+		 * @param trials Number of trials.
+		 * @return forecast of each release.
+		 */
+		List<ReleaseForecast> forecasts(long[] histogram, int trials) {
+			List<ReleaseForecast> forecasts = new ArrayList<>(releases.size());
+			for (int r = 0; r < releases.size(); r++) {
+				Release release = releases.get(r);
+				long due = release.getDeliveryToCustomerEpochDay();
+				long onTime = 0;
+				for (int b = 0; b < bins; b++) {
+					if (binEnds[b] <= due) {
+						onTime += histogram[r * bins + b];
+					}
+				}
+				forecasts.add(new ReleaseForecast(release,
+					percentile(histogram, r, trials, 50),
+					percentile(histogram, r, trials, 85),
+					percentile(histogram, r, trials, 95),
+					(double) onTime / trials));
+			}
+			return forecasts;
+		}
+
+		/**
+		 * @param histogram Histogram of the completion bins.
+		 * @param release Position of the release.
+		 * @param trials Number of trials.
+		 * @param percent The percentile.
+		 * @return last day of the first bin reached by the percentile of the trials.
+		 */
+		private long percentile(long[] histogram, int release, int trials, int percent) {
+			long target = ((long) trials * percent + 99) / 100;
+			long seen = 0;
+			for (int b = 0; b < bins; b++) {
+				seen += histogram[release * bins + b];
+				if (seen >= target) {
+					return binEnds[b];
+				}
+			}
+			return EpochDays.MAX_DAY;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package edu.usun.planning.forecast;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+
+/**
+ * Forecast of a release completion: percentiles of the completion day over the simulated futures
+ * (end day of the sprint completing the last feature of the release) and the probability
+ * to complete by the delivery to customer.
+ * 
+ * @author usun
+ */
+public class ReleaseForecast {
+
+	/** The release. */
+	private final Release release;
+
+	/** Median completion day, {@link EpochDays#MAX_DAY} if beyond the forecast horizon. */
+	private final long p50EpochDay;
+
+	/** 85th percentile of the completion day, {@link EpochDays#MAX_DAY} if beyond the forecast horizon. */
+	private final long p85EpochDay;
+
+	/** 95th percentile of the completion day, {@link EpochDays#MAX_DAY} if beyond the forecast horizon. */
+	private final long p95EpochDay;
+
+	/** Share of the futures completing the release by the delivery to customer. */
+	private final double onTimeProbability;
+
+	/**
+	 * @param release The release.
+	 * @param p50EpochDay Median completion day.
+	 * @param p85EpochDay 85th percentile of the completion day.
+	 * @param p95EpochDay 95th percentile of the completion day.
+	 * @param onTimeProbability Share of the futures completing the release by the delivery to customer.
+	 */
+	public ReleaseForecast(Release release, long p50EpochDay, long p85EpochDay, long p95EpochDay, double onTimeProbability) {
+		super();
+		this.release = release;
+		this.p50EpochDay = p50EpochDay;
+		this.p85EpochDay = p85EpochDay;
+		this.p95EpochDay = p95EpochDay;
+		this.onTimeProbability = onTimeProbability;
+	}
+
+	/**
+	 * @return the release
+	 */
+	public Release getRelease() {
+		return release;
+	}
+
+	/**
+	 * @return the median completion day, {@link EpochDays#MAX_DAY} if beyond the forecast horizon
+	 */
+	public long getP50EpochDay() {
+		return p50EpochDay;
+	}
+
+	/**
+	 * @return the 85th percentile of the completion day, {@link EpochDays#MAX_DAY} if beyond the forecast horizon
+	 */
+	public long getP85EpochDay() {
+		return p85EpochDay;
+	}
+
+	/**
+	 * @return the 95th percentile of the completion day, {@link EpochDays#MAX_DAY} if beyond the forecast horizon
+	 */
+	public long getP95EpochDay() {
+		return p95EpochDay;
+	}
+
+	/**
+	 * @return the median completion date, null if beyond the forecast horizon
+	 */
+	public Calendar getP50() {
+		return toCalendar(p50EpochDay);
+	}
+
+	/**
+	 * @return the 85th percentile of the completion date, null if beyond the forecast horizon
+	 */
+	public Calendar getP85() {
+		return toCalendar(p85EpochDay);
+	}
+
+	/**
+	 * @return the 95th percentile of the completion date, null if beyond the forecast horizon
+	 */
+	public Calendar getP95() {
+		return toCalendar(p95EpochDay);
+	}
+
+	/**
+	 * @return the share of the futures completing the release by the delivery to customer
+	 */
+	public double getOnTimeProbability() {
+		return onTimeProbability;
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return the date, null for {@link EpochDays#MAX_DAY}.
+	 */
+	private static Calendar toCalendar(long epochDay) {
+		return epochDay == EpochDays.MAX_DAY ? null : EpochDays.toCalendar(epochDay);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+		return new StringBuffer()
+			.append("ReleaseForecast{")
+			.append("release=").append(this.getRelease() == null ? "N/A" : this.getRelease().getName()).append(',')
+			.append("p50=").append(this.getP50() == null ? "N/A" : sdf.format(this.getP50().getTime())).append(',')
+			.append("p85=").append(this.getP85() == null ? "N/A" : sdf.format(this.getP85().getTime())).append(',')
+			.append("p95=").append(this.getP95() == null ? "N/A" : sdf.format(this.getP95().getTime())).append(',')
+			.append("onTimeProbability=").append(this.getOnTimeProbability())
+			.append('}').toString();
+	}
+}
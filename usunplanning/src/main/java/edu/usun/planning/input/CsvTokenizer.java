@@ -0,0 +1,189 @@
+package edu.usun.planning.input;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming tokenizer of CSV (RFC 4180): comma separated fields, optionally quoted with double quotes
+ * (doubled inside quotes), records ended by LF or CRLF, line breaks allowed inside quoted fields.
+ *
+ * The fields of the current record are kept as ranges of one character buffer, reused for each record,
+ * so reading a record creates no strings.
+ *
+ * @author usun
+ */
+final class CsvTokenizer {
+
+	/** Size of the read buffer. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Source. */
+	private final Reader in;
+
+	/** Read buffer. */
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	/** Position in the read buffer. */
+	private int position;
+
+	/** End of the data in the read buffer. */
+	private int limit;
+
+	/** Characters of the fields of the current record. */
+	private char[] chars = new char[256];
+
+	/** Length of the characters of the current record. */
+	private int length;
+
+	/** Start of each field of the current record. */
+	private int[] starts = new int[16];
+
+	/** End of each field of the current record. */
+	private int[] ends = new int[16];
+
+	/** Number of fields of the current record. */
+	private int size;
+
+	/** Line of the start of the current record, 1-based. */
+	private int line;
+
+	/** Line of the next character. */
+	private int nextLine = 1;
+
+	/**
+	 * @param in Source.
+	 */
+	CsvTokenizer(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the next record.
+	 * @return false at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	boolean next() throws IOException {
+		length = 0;
+		size = 0;
+		line = nextLine;
+		int c = read();
+		if (c < 0) {
+			return false;
+		}
+		while (true) {
+			int start = length;
+			boolean quoted = c == '"';
+			if (quoted) {
+				c = read();
+				while (true) {
+					if (c < 0) {
+						throw new IllegalArgumentException("Line " + line + ": unterminated quoted field");
+					}
+					if (c == '"') {
+						c = read();
+						if (c != '"') {
+							break;
+						}
+					}
+					append((char) c);
+					c = read();
+				}
+			}
+			while (c >= 0 && c != ',' && c != '\n') {
+				append((char) c);
+				c = read();
+			}
+			int end = length;
+			if (c != ',' && end > start && chars[end - 1] == '\r') {
+				end--;
+			}
+			field(start, end);
+			if (c != ',') {
+				return true;
+			}
+			c = read();
+		}
+	}
+
+	/**
+	 * @return the number of fields of the current record
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the characters of the fields of the current record
+	 */
+	char[] chars() {
+		return chars;
+	}
+
+	/**
+	 * @param field Position of the field.
+	 * @return start of the field in {@link #chars()}.
+	 */
+	int start(int field) {
+		return starts[field];
+	}
+
+	/**
+	 * @param field Position of the field.
+	 * @return length of the field.
+	 */
+	int length(int field) {
+		return ends[field] - starts[field];
+	}
+
+	/**
+	 * @return the line of the start of the current record, 1-based
+	 */
+	int getLine() {
+		return line;
+	}
+
+	/**
+	 * @param start Start of the field.
+	 * @param end End of the field.
+	 */
+	private void field(int start, int end) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+
+	/**
+	 * @param c Character of the current field.
+	 */
+	private void append(char c) {
+		if (length == chars.length) {
+			chars = Arrays.copyOf(chars, length * 2);
+		}
+		chars[length++] = c;
+	}
+
+	/**
+	 * @return the next character, -1 at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		char c = buffer[position++];
+		if (c == '\n') {
+			nextLine++;
+		}
+		return c;
+	}
+}
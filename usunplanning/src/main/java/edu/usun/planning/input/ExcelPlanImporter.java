@@ -0,0 +1,229 @@
+package edu.usun.planning.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import edu.usun.planning.calendar.EpochDays;
+
+/**
+ * Import of persons, team members, holidays, features and tasks from an Excel (xlsx) workbook,
+ * one sheet per entity type (see {@link ImportSheet}).
+ *
+ * Sheets are read with the event (SAX) model: cells are mapped into entities as they are parsed,
+ * only the current row is held besides the entities and the shared strings, never a model of the workbook.
+ * The sheets are parsed in parallel, one task per sheet, and the references by name are resolved
+ * afterwards in a sequential linking pass ({@link PlanImport}).
+ * Dates are read as ISO dates whatever their cell format, numbers as plain decimals.
+ *
+ * @author usun
+ */
+public class ExcelPlanImporter {
+
+	/**
+	 * Default constructor.
+	 */
+	public ExcelPlanImporter() {
+		super();
+	}
+
+	/**
+	 * @param file The workbook.
+	 * @return the linked entities.
+	 */
+	public PlanImport importWorkbook(File file) {
+		try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+			StylesTable styles = reader.getStylesTable();
+
+			List<RowMapper> mappers = new ArrayList<>();
+			List<InputStream> streams = new ArrayList<>();
+			try {
+				XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+				while (sheets.hasNext()) {
+					InputStream stream = sheets.next();
+					streams.add(stream);
+					ImportSheet sheet = ImportSheet.of(sheets.getSheetName());
+					if (sheet != null) {
+						mappers.add(new RowMapper(sheet));
+					} else {
+						mappers.add(null);
+					}
+				}
+				return PlanImport.link(parse(mappers, streams, strings, styles));
+			} finally {
+				for (InputStream stream : streams) {
+					stream.close();
+				}
+			}
+		} catch (IOException | OpenXML4JException | SAXException e) {
+			throw new IllegalStateException("Workbook " + file + " cannot be imported", e);
+		}
+	}
+
+	/**
+	 * Parses the known sheets in parallel.
+	 * @param mappers Row mappers by sheet position, null for unknown sheets.
+	 * @param streams Sheet streams by sheet position.
+	 * @param strings Shared strings.
+	 * @param styles Styles.
+	 * @return the mapped rows by sheet.
+	 */
+	private static Map<ImportSheet, RowMapper> parse(List<RowMapper> mappers, List<InputStream> streams,
+		ReadOnlySharedStringsTable strings, StylesTable styles) {
+		Map<ImportSheet, RowMapper> result = new EnumMap<>(ImportSheet.class);
+		List<Future<?>> tasks = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, mappers.size()));
+		try {
+			for (int i = 0; i < mappers.size(); i++) {
+				RowMapper mapper = mappers.get(i);
+				if (mapper == null || result.containsKey(mapper.getSheet())) {
+					continue;
+				}
+				result.put(mapper.getSheet(), mapper);
+				InputStream stream = streams.get(i);
+				tasks.add(executor.submit(() -> {
+					parse(mapper, stream, strings, styles);
+					return null;
+				}));
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Import interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Sheet cannot be imported", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return result;
+	}
+
+	/**
+	 * @param mapper Row mapper of the sheet.
+	 * @param stream The sheet stream.
+	 * @param strings Shared strings.
+	 * @param styles Styles.
+	 * @throws IOException if the sheet cannot be read.
+	 * @throws SAXException if the sheet cannot be parsed.
+	 * @throws ParserConfigurationException if no parser is available.
+	 */
+	private static void parse(RowMapper mapper, InputStream stream, ReadOnlySharedStringsTable strings, StylesTable styles)
+		throws IOException, SAXException, ParserConfigurationException {
+		XMLReader parser = XMLHelper.newXMLReader();
+		parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new Rows(mapper), new RawValueFormatter(), false));
+		parser.parse(new InputSource(stream));
+	}
+
+	/**
+	 * Feeds the cells of a sheet to its row mapper.
+	 */
+	private static final class Rows implements SheetContentsHandler {
+
+		/** The row mapper. */
+		private final RowMapper mapper;
+
+		/** Position of the next cell without a reference. */
+		private int nextColumn;
+
+		/**
+		 * @param mapper The row mapper.
+		 */
+		Rows(RowMapper mapper) {
+			this.mapper = mapper;
+		}
+
+		/**
+		 * @see org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler#startRow(int)
+		 */
+		@Override
+		public void startRow(int rowNum) {
+			nextColumn = 0;
+		}
+
+		/**
+		 * @see org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler#endRow(int)
+		 */
+		@Override
+		public void endRow(int rowNum) {
+			mapper.endRow(rowNum + 1);
+		}
+
+		/**
+		 * @see org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler#cell(java.lang.String, java.lang.String, org.apache.poi.xssf.usermodel.XSSFComment)
+		 */
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			int column = cellReference == null ? nextColumn : column(cellReference);
+			nextColumn = column + 1;
+			mapper.cell(column, formattedValue);
+		}
+
+		/**
+		 * @param cellReference Cell reference, e.g. "AB12".
+		 * @return position of the column, 0-based.
+		 */
+		private static int column(String cellReference) {
+			int column = 0;
+			for (int i = 0; i < cellReference.length(); i++) {
+				char c = cellReference.charAt(i);
+				if (c < 'A' || c > 'Z') {
+					break;
+				}
+				column = column * 26 + (c - 'A' + 1);
+			}
+			return column - 1;
+		}
+	}
+
+	/**
+	 * Formats numeric cells as raw values: dates as ISO dates, other numbers as plain decimals.
+	 */
+	private static final class RawValueFormatter extends DataFormatter {
+
+		/**
+		 * @see org.apache.poi.ss.usermodel.DataFormatter#formatRawCellContents(double, int, java.lang.String)
+		 */
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString) {
+			if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+				return LocalDate.ofEpochDay(EpochDays.toEpochDay(DateUtil.getJavaCalendar(value, false))).toString();
+			}
+			return NumberToTextConverter.toText(value);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package edu.usun.planning.input;
+
+/**
+ * Sheets (tables) of an import, one per entity type, with their columns.
+ * The first row of a sheet holds the column titles, matched ignoring case and surrounding blanks;
+ * columns can be in any order, unknown columns are ignored.
+ * 
+ * @author usun
+ */
+public enum ImportSheet {
+
+	/** {@link edu.usun.planning.team.Person}: Name. */
+	PERSONS("Persons", "Name"),
+
+	/** {@link edu.usun.planning.team.TeamMember}: Person, Team, Role, Base velocity, Capacity factor, Start date, End date, Notes. */
+	TEAM_MEMBERS("TeamMembers", "Person", "Team", "Role", "Base velocity", "Capacity factor", "Start date", "End date", "Notes"),
+
+	/** {@link edu.usun.planning.calendar.CapacityOverride}: Person (blank for a public holiday), Date, Capacity factor, Name. */
+	HOLIDAYS("Holidays", "Person", "Date", "Capacity factor", "Name"),
+
+	/** {@link edu.usun.planning.activity.Feature}: Name, Tracking reference, Feature reference, Stream, Release, Remaining estimate. */
+	FEATURES("Features", "Name", "Tracking reference", "Feature reference", "Stream", "Release", "Remaining estimate"),
+
+	/** {@link edu.usun.planning.activity.Task}: Name, Tracking reference, Stream, Release. */
+	TASKS("Tasks", "Name", "Tracking reference", "Stream", "Release");
+
+	/** Name of the sheet. */
+	private final String sheetName;
+
+	/** Column titles. */
+	private final String[] columns;
+
+	/**
+	 * @param sheetName Name of the sheet.
+	 * @param columns Column titles.
+	 */
+	ImportSheet(String sheetName, String... columns) {
+		this.sheetName = sheetName;
+		this.columns = columns;
+	}
+
+	/**
+	 * @return the name of the sheet
+	 */
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	/**
+	 * @return number of columns.
+	 */
+	int columnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @param title Column title.
+	 * @return position of the column, -1 if unknown.
+	 */
+	int column(String title) {
+		String key = title == null ? "" : title.trim();
+		for (int c = 0; c < columns.length; c++) {
+			if (columns[c].equalsIgnoreCase(key)) {
+				return c;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param sheetName Name of a sheet.
+	 * @return the sheet type, null if unknown.
+	 */
+	public static ImportSheet of(String sheetName) {
+		for (ImportSheet sheet : values()) {
+			if (sheet.sheetName.equalsIgnoreCase(sheetName == null ? "" : sheetName.trim())) {
+				return sheet;
+			}
+		}
+		return null;
+	}
+}
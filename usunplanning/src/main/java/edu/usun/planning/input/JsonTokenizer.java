@@ -0,0 +1,251 @@
+package edu.usun.planning.input;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming pull tokenizer of JSON (RFC 8259).
+ *
+ * The text of the current name, string, number or literal is decoded into one character buffer,
+ * reused for each token, so reading a token creates no strings. Nesting is not validated beyond
+ * what the tokens need: the reader of the tokens tracks the structure.
+ *
+ * @author usun
+ */
+final class JsonTokenizer {
+
+	/** End of the source. */
+	static final int END = 0;
+
+	/** Start of an object. */
+	static final int BEGIN_OBJECT = 1;
+
+	/** End of an object. */
+	static final int END_OBJECT = 2;
+
+	/** Start of an array. */
+	static final int BEGIN_ARRAY = 3;
+
+	/** End of an array. */
+	static final int END_ARRAY = 4;
+
+	/** Member name. */
+	static final int NAME = 5;
+
+	/** String, number or true/false value. */
+	static final int VALUE = 6;
+
+	/** The null value. */
+	static final int NULL = 7;
+
+	/** Size of the read buffer. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Source. */
+	private final Reader in;
+
+	/** Read buffer. */
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	/** Position in the read buffer. */
+	private int position;
+
+	/** End of the data in the read buffer. */
+	private int limit;
+
+	/** Characters of the current token. */
+	private char[] chars = new char[256];
+
+	/** Length of the current token. */
+	private int length;
+
+	/** Current line, 1-based. */
+	private int line = 1;
+
+	/** Character read ahead, -2 if none. */
+	private int peeked = -2;
+
+	/**
+	 * @param in Source.
+	 */
+	JsonTokenizer(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the next token, separators (commas and colons) are skipped.
+	 * @return the type of the token.
+	 * @throws IOException if the source cannot be read.
+	 */
+	int next() throws IOException {
+		length = 0;
+		int c = skipSeparators();
+		switch (c) {
+		case -1:
+			return END;
+		case '{':
+			return BEGIN_OBJECT;
+		case '}':
+			return END_OBJECT;
+		case '[':
+			return BEGIN_ARRAY;
+		case ']':
+			return END_ARRAY;
+		case '"':
+			string();
+			int next = skipWhitespace();
+			if (next == ':') {
+				return NAME;
+			}
+			peeked = next;
+			return VALUE;
+		default:
+			while (c >= 0 && c != ',' && c != '}' && c != ']' && c > ' ') {
+				append((char) c);
+				c = read();
+			}
+			peeked = c;
+			if (length == 4 && chars[0] == 'n' && chars[1] == 'u' && chars[2] == 'l' && chars[3] == 'l') {
+				return NULL;
+			}
+			if (length == 0) {
+				throw new IllegalArgumentException("Line " + line + ": unexpected '" + (char) c + "'");
+			}
+			return VALUE;
+		}
+	}
+
+	/**
+	 * @return the characters of the current token
+	 */
+	char[] chars() {
+		return chars;
+	}
+
+	/**
+	 * @return the length of the current token
+	 */
+	int length() {
+		return length;
+	}
+
+	/**
+	 * @return the current line, 1-based
+	 */
+	int getLine() {
+		return line;
+	}
+
+	/**
+	 * Decodes a string, the opening quote read.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private void string() throws IOException {
+		while (true) {
+			int c = read();
+			if (c < 0) {
+				throw new IllegalArgumentException("Line " + line + ": unterminated string");
+			}
+			if (c == '"') {
+				return;
+			}
+			if (c == '\\') {
+				c = read();
+				switch (c) {
+				case 'b':
+					c = '\b';
+					break;
+				case 'f':
+					c = '\f';
+					break;
+				case 'n':
+					c = '\n';
+					break;
+				case 'r':
+					c = '\r';
+					break;
+				case 't':
+					c = '\t';
+					break;
+				case 'u':
+					c = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(read(), 16);
+						if (digit < 0) {
+							throw new IllegalArgumentException("Line " + line + ": invalid unicode escape");
+						}
+						c = c * 16 + digit;
+					}
+					break;
+				case '"':
+				case '\\':
+				case '/':
+					break;
+				default:
+					throw new IllegalArgumentException("Line " + line + ": invalid escape");
+				}
+			}
+			append((char) c);
+		}
+	}
+
+	/**
+	 * @return the next character that is not whitespace, a comma or a colon, -1 at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private int skipSeparators() throws IOException {
+		int c = skipWhitespace();
+		while (c == ',' || c == ':') {
+			c = skipWhitespace();
+		}
+		return c;
+	}
+
+	/**
+	 * @return the next character that is not whitespace, -1 at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private int skipWhitespace() throws IOException {
+		int c = read();
+		while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+			c = read();
+		}
+		return c;
+	}
+
+	/**
+	 * @param c Character of the current token.
+	 */
+	private void append(char c) {
+		if (length == chars.length) {
+			chars = Arrays.copyOf(chars, length * 2);
+		}
+		chars[length++] = c;
+	}
+
+	/**
+	 * @return the next character, -1 at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private int read() throws IOException {
+		if (peeked != -2) {
+			int c = peeked;
+			peeked = -2;
+			return c;
+		}
+		if (position == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		char c = buffer[position++];
+		if (c == '\n') {
+			line++;
+		}
+		return c;
+	}
+}
@@ -0,0 +1,239 @@
+package edu.usun.planning.input;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.usun.planning.PlanEntity;
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.stream.Stream;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Entities of an import, linked to each other.
+ *
+ * Persons, teams, streams and releases are identified by name: a name referenced but not listed
+ * (e.g. a team, which has no sheet) creates the entity. Holidays with a person become personal capacity overrides
+ * of the person, the others are public holidays.
+ * 
+ * @author usun
+ */
+public class PlanImport {
+
+	/** Persons by name. */
+	private final Map<String, Person> persons = new LinkedHashMap<>();
+
+	/** Teams by name. */
+	private final Map<String, Team> teams = new LinkedHashMap<>();
+
+	/** Streams by name. */
+	private final Map<String, Stream> streams = new LinkedHashMap<>();
+
+	/** Releases by name. */
+	private final Map<String, Release> releases = new LinkedHashMap<>();
+
+	/** Team members. */
+	private final List<TeamMember> teamMembers = new ArrayList<>();
+
+	/** Public holidays. */
+	private final List<CapacityOverride> publicHolidays = new ArrayList<>();
+
+	/** Features. */
+	private final List<Feature> features = new ArrayList<>();
+
+	/** Tasks. */
+	private final List<Task> tasks = new ArrayList<>();
+
+	/**
+	 * Default constructor.
+	 */
+	public PlanImport() {
+		super();
+	}
+
+	/**
+	 * Linking pass: resolves the references of the mapped rows by name.
+	 * @param sheets Mapped rows by sheet.
+	 * @return the linked entities.
+	 */
+	static PlanImport link(Map<ImportSheet, RowMapper> sheets) {
+		PlanImport result = new PlanImport();
+		RowMapper rows = sheets.get(ImportSheet.PERSONS);
+		if (rows != null) {
+			for (PlanEntity entity : rows.entities) {
+				result.persons.putIfAbsent(entity.getName(), (Person) entity);
+			}
+		}
+		rows = sheets.get(ImportSheet.TEAM_MEMBERS);
+		if (rows != null) {
+			for (int i = 0; i < rows.entities.size(); i++) {
+				TeamMember member = (TeamMember) rows.entities.get(i);
+				String[] names = rows.references.get(i);
+				member.setPerson(result.person(names[0]));
+				member.setTeam(names[1] == null ? null : result.teams.computeIfAbsent(names[1], PlanImport::newTeam));
+				result.teamMembers.add(member);
+			}
+		}
+		rows = sheets.get(ImportSheet.HOLIDAYS);
+		if (rows != null) {
+			Map<Person, List<CapacityOverride>> personal = new LinkedHashMap<>();
+			for (int i = 0; i < rows.entities.size(); i++) {
+				CapacityOverride holiday = (CapacityOverride) rows.entities.get(i);
+				String person = rows.references.get(i)[0];
+				if (person == null) {
+					result.publicHolidays.add(holiday);
+				} else {
+					personal.computeIfAbsent(result.person(person), key -> new ArrayList<>()).add(holiday);
+				}
+			}
+			for (Map.Entry<Person, List<CapacityOverride>> entry : personal.entrySet()) {
+				List<CapacityOverride> overrides = new ArrayList<>();
+				if (entry.getKey().getPersonalCapacityOverrides() != null) {
+					overrides.addAll(entry.getKey().getPersonalCapacityOverrides());
+				}
+				overrides.addAll(entry.getValue());
+				entry.getKey().setPersonalCapacityOverrides(overrides);
+			}
+		}
+		rows = sheets.get(ImportSheet.FEATURES);
+		if (rows != null) {
+			for (int i = 0; i < rows.entities.size(); i++) {
+				result.features.add((Feature) result.activity(rows.entities.get(i), rows.references.get(i)));
+			}
+		}
+		rows = sheets.get(ImportSheet.TASKS);
+		if (rows != null) {
+			for (int i = 0; i < rows.entities.size(); i++) {
+				result.tasks.add((Task) result.activity(rows.entities.get(i), rows.references.get(i)));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param name Name of the person.
+	 * @return the person, created if not listed.
+	 */
+	private Person person(String name) {
+		return persons.computeIfAbsent(name, key -> {
+			Person person = new Person();
+			person.setName(key);
+			return person;
+		});
+	}
+
+	/**
+	 * @param entity The activity.
+	 * @param names Stream and release names.
+	 * @return the activity linked to its stream and release.
+	 */
+	private Activity activity(PlanEntity entity, String[] names) {
+		Activity activity = (Activity) entity;
+		if (names[0] != null) {
+			Stream stream = streams.computeIfAbsent(names[0], key -> {
+				Stream newStream = new Stream();
+				newStream.setName(key);
+				return newStream;
+			});
+			activity.setStream(stream);
+			stream.addActivity(activity);
+		}
+		if (names[1] != null) {
+			activity.setRelease(releases.computeIfAbsent(names[1], key -> {
+				Release release = new Release();
+				release.setName(key);
+				return release;
+			}));
+		}
+		return activity;
+	}
+
+	/**
+	 * @param name Name of the team.
+	 * @return new team.
+	 */
+	private static Team newTeam(String name) {
+		Team team = new Team();
+		team.setName(name);
+		return team;
+	}
+
+	/**
+	 * @return the persons, listed or referenced
+	 */
+	public Collection<Person> getPersons() {
+		return persons.values();
+	}
+
+	/**
+	 * @return the teams referenced by team members
+	 */
+	public Collection<Team> getTeams() {
+		return teams.values();
+	}
+
+	/**
+	 * @return the streams referenced by activities
+	 */
+	public Collection<Stream> getStreams() {
+		return streams.values();
+	}
+
+	/**
+	 * @return the releases referenced by activities
+	 */
+	public Collection<Release> getReleases() {
+		return releases.values();
+	}
+
+	/**
+	 * @return the team members
+	 */
+	public List<TeamMember> getTeamMembers() {
+		return teamMembers;
+	}
+
+	/**
+	 * @return the public holidays
+	 */
+	public List<CapacityOverride> getPublicHolidays() {
+		return publicHolidays;
+	}
+
+	/**
+	 * @return the features
+	 */
+	public List<Feature> getFeatures() {
+		return features;
+	}
+
+	/**
+	 * @return the tasks
+	 */
+	public List<Task> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("PlanImport{")
+			.append("persons=").append(persons.size()).append(',')
+			.append("teamMembers=").append(teamMembers.size()).append(',')
+			.append("publicHolidays=").append(publicHolidays.size()).append(',')
+			.append("features=").append(features.size()).append(',')
+			.append("tasks=").append(tasks.size())
+			.append('}').toString();
+	}
+}
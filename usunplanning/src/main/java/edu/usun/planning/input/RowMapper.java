@@ -0,0 +1,232 @@
+package edu.usun.planning.input;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import edu.usun.planning.PlanEntity;
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Role;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Maps the rows of one sheet straight into entities as the cells are read, keeping only the current row.
+ * The first row holds the column titles. References to other entities (person, team, stream, release)
+ * are kept as names next to the entity and resolved by {@link PlanImport#link(java.util.Map)}.
+ *
+ * Dates are ISO (yyyy-MM-dd), numbers are plain decimals, roles are {@link Role} names (blanks for underscores).
+ * 
+ * @author usun
+ */
+final class RowMapper {
+
+	/** The sheet. */
+	private final ImportSheet sheet;
+
+	/** Column of each source column, -1 if ignored; null until the title row is read. */
+	private int[] columns;
+
+	/** Titles of the title row, by source column. */
+	private final List<String> titles = new ArrayList<>();
+
+	/** Values of the current row, by column. */
+	private final String[] values;
+
+	/** Whether the current row has a value. */
+	private boolean blank = true;
+
+	/** Mapped entities. */
+	final List<PlanEntity> entities = new ArrayList<>();
+
+	/** Reference names of the mapped entities: person and team, or stream and release. */
+	final List<String[]> references = new ArrayList<>();
+
+	/**
+	 * @param sheet The sheet.
+	 */
+	RowMapper(ImportSheet sheet) {
+		this.sheet = sheet;
+		this.values = new String[sheet.columnCount()];
+	}
+
+	/**
+	 * @return the sheet
+	 */
+	ImportSheet getSheet() {
+		return sheet;
+	}
+
+	/**
+	 * @param sourceColumn Position of the cell in the row, 0-based.
+	 * @param value Value of the cell.
+	 */
+	void cell(int sourceColumn, String value) {
+		String trimmed = value == null ? null : value.trim();
+		if (trimmed == null || trimmed.isEmpty()) {
+			return;
+		}
+		if (columns == null) {
+			while (titles.size() <= sourceColumn) {
+				titles.add(null);
+			}
+			titles.set(sourceColumn, trimmed);
+			return;
+		}
+		if (sourceColumn < columns.length && columns[sourceColumn] >= 0) {
+			values[columns[sourceColumn]] = trimmed;
+			blank = false;
+		}
+	}
+
+	/**
+	 * Maps the current row, blank rows are skipped.
+	 * @param rowNumber Number of the row, 1-based, for error messages.
+	 */
+	void endRow(int rowNumber) {
+		if (columns == null) {
+			columns = new int[titles.size()];
+			for (int c = 0; c < columns.length; c++) {
+				columns[c] = sheet.column(titles.get(c));
+			}
+			return;
+		}
+		if (!blank) {
+			try {
+				map();
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Sheet " + sheet.getSheetName() + " row " + rowNumber + ": " + e.getMessage(), e);
+			}
+		}
+		Arrays.fill(values, null);
+		blank = true;
+	}
+
+	/**
+	 * Maps the values of the current row.
+	 */
+	private void map() {
+		switch (sheet) {
+		case PERSONS:
+			Person person = new Person();
+			person.setName(required(0, "Name"));
+			add(person);
+			break;
+		case TEAM_MEMBERS:
+			TeamMember member = new TeamMember();
+			member.setName(required(0, "Person"));
+			member.setRole(role(values[2]));
+			member.setBaseVelocityPerSprint(decimal(values[3]));
+			member.setCapacityFactor(decimal(values[4]));
+			member.setStartDate(date(values[5]));
+			member.setEndDate(date(values[6]));
+			member.setNotes(values[7]);
+			add(member, values[0], values[1]);
+			break;
+		case HOLIDAYS:
+			CapacityOverride holiday = new CapacityOverride();
+			holiday.setDate(date(required(1, "Date")));
+			holiday.setCapacityFactor(values[2] == null ? BigDecimal.ZERO : decimal(values[2]));
+			holiday.setName(values[3]);
+			add(holiday, values[0]);
+			break;
+		case FEATURES:
+			Feature feature = new Feature();
+			activity(feature);
+			feature.setFeatureReference(values[2]);
+			feature.setRemaningEstimate(decimal(values[5]));
+			add(feature, values[3], values[4]);
+			break;
+		case TASKS:
+			Task task = new Task();
+			activity(task);
+			add(task, values[2], values[3]);
+			break;
+		default:
+			throw new IllegalStateException("Unknown sheet " + sheet);
+		}
+	}
+
+	/**
+	 * @param activity Activity to fill with the common columns: name and tracking reference.
+	 */
+	private void activity(Activity activity) {
+		activity.setName(required(0, "Name"));
+		activity.setTrackingReference(values[1]);
+	}
+
+	/**
+	 * @param entity The entity.
+	 * @param names Names of its references.
+	 */
+	private void add(PlanEntity entity, String... names) {
+		entities.add(entity);
+		references.add(names);
+	}
+
+	/**
+	 * @param column Position of the column.
+	 * @param title Title of the column.
+	 * @return the value.
+	 */
+	private String required(int column, String title) {
+		if (values[column] == null) {
+			throw new IllegalArgumentException(title + " is missing");
+		}
+		return values[column];
+	}
+
+	/**
+	 * @param value The value.
+	 * @return the number, null if blank.
+	 */
+	static BigDecimal decimal(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return new BigDecimal(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number " + value, e);
+		}
+	}
+
+	/**
+	 * @param value The value.
+	 * @return the date, null if blank.
+	 */
+	static Calendar date(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return EpochDays.toCalendar(LocalDate.parse(value).toEpochDay());
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid date " + value, e);
+		}
+	}
+
+	/**
+	 * @param value The value.
+	 * @return the role, null if blank.
+	 */
+	static Role role(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Role.valueOf(value.toUpperCase(Locale.ROOT).replace(' ', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid role " + value, e);
+		}
+	}
+}
@@ -0,0 +1,555 @@
+package edu.usun.planning.input;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.stream.Stream;
+
+/**
+ * Import of issue-tracker exports (CSV or JSON) into activities, upserted by tracking reference.
+ *
+ * The columns (CSV) or members (JSON) are recognised by their titles (see {@link TrackerField}).
+ * A CSV export has a header record. In a JSON export the issues are the objects of the top-level array
+ * or of the top-level "issues" array; their members are searched, and those of their "fields" object
+ * (the layout of Jira exports). An object value gives its "name", "key" or "value", an array its first element.
+ *
+ * The export is parsed by a tokenizer into issue records on a parser thread, and the records are linked
+ * in batches on the calling thread while the parser reads ahead: activities are looked up by tracking reference,
+ * releases and streams by name, all in hash indexes. An issue not indexed yet creates a {@link Task}
+ * if its type is a (sub-)task, a {@link Feature} otherwise; without a type, a feature if it has an estimate
+ * or a feature reference. Issues without a tracking reference are skipped. Activities moved to another stream
+ * are removed from the list of their former stream at the end of the import, in one pass per stream.
+ *
+ * @author usun
+ */
+public class TrackerExportImporter {
+
+	/** Number of issue records handed over from the parser at once. */
+	private static final int BATCH_SIZE = 1024;
+
+	/** Number of batches the parser can read ahead. */
+	private static final int READ_AHEAD = 16;
+
+	/** Marker of the end of the parsed records. */
+	private static final List<TrackerRecord> END = Collections.emptyList();
+
+	/** Code of the members to search for fields. */
+	private static final int SEARCH = -1;
+
+	/** Code of the members to ignore. */
+	private static final int IGNORE = -2;
+
+	/** All fields. */
+	private static final TrackerField[] FIELDS = TrackerField.values();
+
+	/** Activities by tracking reference. */
+	private final Map<String, Activity> activities = new LinkedHashMap<>();
+
+	/** Releases by name. */
+	private final Map<String, Release> releases = new LinkedHashMap<>();
+
+	/** Streams by name. */
+	private final Map<String, Stream> streams = new LinkedHashMap<>();
+
+	/** Activities moved out of a stream during the current import, removed from its list at the end. */
+	private final Map<Stream, Set<Activity>> movedOut = new IdentityHashMap<>();
+
+	/** Number of activities created. */
+	private int created;
+
+	/** Number of activities updated. */
+	private int updated;
+
+	/** Number of issues skipped, without a tracking reference. */
+	private int skipped;
+
+	/**
+	 * Default constructor.
+	 */
+	public TrackerExportImporter() {
+		super();
+	}
+
+	/**
+	 * @param activities Activities of the plan, updated by the imports.
+	 * @param releases Releases of the plan.
+	 * @param streams Streams of the plan.
+	 */
+	public TrackerExportImporter(Collection<? extends Activity> activities, Collection<Release> releases,
+		Collection<Stream> streams) {
+		super();
+		for (Activity activity : activities) {
+			if (activity.getTrackingReference() != null) {
+				this.activities.putIfAbsent(activity.getTrackingReference(), activity);
+			}
+		}
+		for (Release release : releases) {
+			this.releases.putIfAbsent(release.getName(), release);
+		}
+		for (Stream stream : streams) {
+			this.streams.putIfAbsent(stream.getName(), stream);
+		}
+	}
+
+	/**
+	 * @param file The export, JSON if its name ends with ".json", CSV otherwise, in UTF-8.
+	 * @return the number of issues imported.
+	 */
+	public int importFile(File file) {
+		try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			return file.getName().toLowerCase(Locale.ROOT).endsWith(".json") ? importJson(in) : importCsv(in);
+		} catch (IOException e) {
+			throw new IllegalStateException("Export " + file + " cannot be imported", e);
+		}
+	}
+
+	/**
+	 * @param in The CSV export.
+	 * @return the number of issues imported.
+	 */
+	public int importCsv(Reader in) {
+		CsvTokenizer tokenizer = new CsvTokenizer(in);
+		return load(records -> parseCsv(tokenizer, records));
+	}
+
+	/**
+	 * @param in The JSON export.
+	 * @return the number of issues imported.
+	 */
+	public int importJson(Reader in) {
+		JsonTokenizer tokenizer = new JsonTokenizer(in);
+		return load(records -> parseJson(tokenizer, records));
+	}
+
+	/**
+	 * Runs the parser on a parser thread and links its records on the calling thread.
+	 * @param parser The parser.
+	 * @return the number of issues imported.
+	 */
+	private int load(Parser parser) {
+		BlockingQueue<List<TrackerRecord>> queue = new ArrayBlockingQueue<>(READ_AHEAD);
+		ExecutorService executor = Executors.newFixedThreadPool(1, runnable -> {
+			Thread thread = new Thread(runnable, "tracker-export-parser");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Future<?> parsing = executor.submit(() -> {
+				try {
+					Batches batches = new Batches(queue);
+					parser.parse(batches);
+					batches.flush();
+					queue.put(END);
+				} catch (Throwable e) {
+					// failed or cancelled: the pending batches are dropped, so that the end always fits
+					queue.clear();
+					queue.offer(END);
+					throw e;
+				}
+				return null;
+			});
+			int count = 0;
+			for (List<TrackerRecord> batch = queue.take(); batch != END; batch = queue.take()) {
+				for (TrackerRecord record : batch) {
+					if (upsert(record)) {
+						count++;
+					}
+				}
+			}
+			parsing.get();
+			return count;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Import interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Export cannot be imported", e.getCause());
+		} finally {
+			executor.shutdownNow();
+			removeMovedOut();
+		}
+	}
+
+	/**
+	 * Linking stage: creates or updates the activity of an issue.
+	 * @param record The issue.
+	 * @return false if skipped, without a tracking reference.
+	 */
+	private boolean upsert(TrackerRecord record) {
+		String key = record.get(TrackerField.TRACKING_REFERENCE);
+		if (key == null) {
+			skipped++;
+			return false;
+		}
+		Activity activity = activities.get(key);
+		if (activity == null) {
+			activity = newActivity(record);
+			activity.setTrackingReference(key);
+			activities.put(key, activity);
+			created++;
+		} else {
+			updated++;
+		}
+		if (record.get(TrackerField.NAME) != null) {
+			activity.setName(record.get(TrackerField.NAME));
+		}
+		if (activity instanceof Feature) {
+			Feature feature = (Feature) activity;
+			if (record.get(TrackerField.FEATURE_REFERENCE) != null) {
+				feature.setFeatureReference(record.get(TrackerField.FEATURE_REFERENCE));
+			}
+			if (record.remainingEstimate != null) {
+				feature.setRemaningEstimate(record.remainingEstimate);
+			}
+		}
+		String name = record.get(TrackerField.RELEASE);
+		if (name != null) {
+			Release release = releases.computeIfAbsent(name, TrackerExportImporter::newRelease);
+			if (record.get(TrackerField.JIRA_PROJECT) != null) {
+				release.setJiraProject(record.get(TrackerField.JIRA_PROJECT));
+			}
+			activity.setRelease(release);
+		}
+		name = record.get(TrackerField.STREAM);
+		if (name != null) {
+			Stream stream = streams.computeIfAbsent(name, TrackerExportImporter::newStream);
+			Stream previous = activity.getStream();
+			if (previous != stream) {
+				if (previous != null) {
+					movedOut.computeIfAbsent(previous, moved -> Collections.newSetFromMap(new IdentityHashMap<>())).add(activity);
+				}
+				activity.setStream(stream);
+				Set<Activity> leaving = movedOut.get(stream);
+				if (leaving == null || !leaving.remove(activity)) {
+					stream.addActivity(activity);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the activities moved to another stream from the lists of their former streams, one pass per stream.
+	 */
+	private void removeMovedOut() {
+		for (Map.Entry<Stream, Set<Activity>> entry : movedOut.entrySet()) {
+			List<Activity> list = entry.getKey().getActivities();
+			if (list != null && !entry.getValue().isEmpty()) {
+				list.removeIf(entry.getValue()::contains);
+			}
+		}
+		movedOut.clear();
+	}
+
+	/**
+	 * @param record The issue.
+	 * @return new task or feature, depending on the issue.
+	 */
+	private static Activity newActivity(TrackerRecord record) {
+		String type = record.get(TrackerField.TYPE);
+		boolean task;
+		if (type != null) {
+			task = type.toLowerCase(Locale.ROOT).contains("task");
+		} else {
+			task = record.remainingEstimate == null && record.get(TrackerField.FEATURE_REFERENCE) == null;
+		}
+		return task ? new Task() : new Feature();
+	}
+
+	/**
+	 * @param name Name of the release.
+	 * @return new release.
+	 */
+	private static Release newRelease(String name) {
+		Release release = new Release();
+		release.setName(name);
+		return release;
+	}
+
+	/**
+	 * @param name Name of the stream.
+	 * @return new stream.
+	 */
+	private static Stream newStream(String name) {
+		Stream stream = new Stream();
+		stream.setName(name);
+		return stream;
+	}
+
+	/**
+	 * Parsing stage of a CSV export.
+	 * @param tokenizer Tokenizer of the export.
+	 * @param records Receiver of the issues.
+	 * @throws IOException if the export cannot be read.
+	 * @throws InterruptedException if the import is cancelled.
+	 */
+	private static void parseCsv(CsvTokenizer tokenizer, Batches records) throws IOException, InterruptedException {
+		if (!tokenizer.next()) {
+			return;
+		}
+		TrackerField[] columns = new TrackerField[tokenizer.size()];
+		boolean keyed = false;
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = TrackerField.of(tokenizer.chars(), tokenizer.start(i), tokenizer.length(i));
+			keyed |= columns[i] == TrackerField.TRACKING_REFERENCE;
+		}
+		if (!keyed) {
+			throw new IllegalArgumentException("Line 1: no tracking reference column");
+		}
+		while (tokenizer.next()) {
+			if (tokenizer.size() == 1 && tokenizer.length(0) == 0) {
+				continue;
+			}
+			TrackerRecord record = new TrackerRecord(tokenizer.getLine());
+			for (int i = 0; i < Math.min(columns.length, tokenizer.size()); i++) {
+				if (columns[i] != null) {
+					record.set(columns[i], tokenizer.chars(), tokenizer.start(i), tokenizer.length(i));
+				}
+			}
+			records.add(record);
+		}
+	}
+
+	/**
+	 * Parsing stage of a JSON export.
+	 *
+	 * Each open container has a code: the ordinal of the field its values are read into,
+	 * {@link #SEARCH} if its members are searched for fields or {@link #IGNORE}.
+	 * @param tokenizer Tokenizer of the export.
+	 * @param records Receiver of the issues.
+	 * @throws IOException if the export cannot be read.
+	 * @throws InterruptedException if the import is cancelled.
+	 */
+	private static void parseJson(JsonTokenizer tokenizer, Batches records) throws IOException, InterruptedException {
+		int[] codes = new int[16];
+		boolean[] arrays = new boolean[16];
+		int top = -1;
+		int issues = -1;
+		boolean issuesMember = false;
+		int member = IGNORE;
+		TrackerRecord record = null;
+		for (int token = tokenizer.next(); token != JsonTokenizer.END; token = tokenizer.next()) {
+			switch (token) {
+			case JsonTokenizer.NAME:
+				if (top == 0) {
+					issuesMember = is("issues", tokenizer);
+				}
+				member = record == null ? IGNORE : memberCode(codes[top], tokenizer);
+				break;
+			case JsonTokenizer.BEGIN_OBJECT:
+			case JsonTokenizer.BEGIN_ARRAY:
+				int code = top >= 0 && arrays[top] ? codes[top] : member;
+				if (++top == codes.length) {
+					codes = Arrays.copyOf(codes, top * 2);
+					arrays = Arrays.copyOf(arrays, top * 2);
+				}
+				arrays[top] = token == JsonTokenizer.BEGIN_ARRAY;
+				codes[top] = code;
+				if (arrays[top] && issues == -1 && (top == 0 || top == 1 && issuesMember)) {
+					issues = top;
+				} else if (!arrays[top] && top == issues + 1 && issues >= 0) {
+					record = new TrackerRecord(tokenizer.getLine());
+					codes[top] = SEARCH;
+				}
+				member = IGNORE;
+				break;
+			case JsonTokenizer.END_OBJECT:
+			case JsonTokenizer.END_ARRAY:
+				if (top < 0) {
+					throw new IllegalArgumentException("Line " + tokenizer.getLine() + ": unbalanced brackets");
+				}
+				if (record != null && top == issues + 1) {
+					records.add(record);
+					record = null;
+				} else if (top == issues) {
+					issues = -2;
+				}
+				top--;
+				member = IGNORE;
+				break;
+			case JsonTokenizer.VALUE:
+				code = top >= 0 && arrays[top] ? codes[top] : member;
+				if (record != null && code >= 0) {
+					record.set(FIELDS[code], tokenizer.chars(), 0, tokenizer.length());
+				}
+				member = IGNORE;
+				break;
+			default:
+				member = IGNORE;
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @param container Code of the object of the member.
+	 * @param tokenizer Tokenizer on the name of the member.
+	 * @return code of the value of the member.
+	 */
+	private static int memberCode(int container, JsonTokenizer tokenizer) {
+		if (container >= 0) {
+			return is("name", tokenizer) || is("key", tokenizer) || is("value", tokenizer) ? container : IGNORE;
+		}
+		if (container == IGNORE) {
+			return IGNORE;
+		}
+		TrackerField field = TrackerField.of(tokenizer.chars(), 0, tokenizer.length());
+		if (field != null) {
+			return field.ordinal();
+		}
+		return is("fields", tokenizer) ? SEARCH : IGNORE;
+	}
+
+	/**
+	 * @param word The word.
+	 * @param tokenizer Tokenizer on a name.
+	 * @return true if the name is the word.
+	 */
+	private static boolean is(String word, JsonTokenizer tokenizer) {
+		if (tokenizer.length() != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (tokenizer.chars()[i] != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the activities by tracking reference, those of the plan and those created
+	 */
+	public Map<String, Activity> getActivities() {
+		return activities;
+	}
+
+	/**
+	 * @return the releases by name, those of the plan and those created
+	 */
+	public Collection<Release> getReleases() {
+		return releases.values();
+	}
+
+	/**
+	 * @return the streams by name, those of the plan and those created
+	 */
+	public Collection<Stream> getStreams() {
+		return streams.values();
+	}
+
+	/**
+	 * @return the number of activities created
+	 */
+	public int getCreated() {
+		return created;
+	}
+
+	/**
+	 * @return the number of activities updated
+	 */
+	public int getUpdated() {
+		return updated;
+	}
+
+	/**
+	 * @return the number of issues skipped, without a tracking reference
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("TrackerExportImporter{")
+			.append("activities=").append(activities.size()).append(',')
+			.append("created=").append(created).append(',')
+			.append("updated=").append(updated).append(',')
+			.append("skipped=").append(skipped)
+			.append('}').toString();
+	}
+
+	/**
+	 * Parsing stage of an export.
+	 */
+	private interface Parser {
+
+		/**
+		 * @param records Receiver of the issues.
+		 * @throws IOException if the export cannot be read.
+		 * @throws InterruptedException if the import is cancelled.
+		 */
+		void parse(Batches records) throws IOException, InterruptedException;
+	}
+
+	/**
+	 * Hands the parsed issues over to the linking stage in batches.
+	 */
+	private static final class Batches {
+
+		/** Queue of the linking stage. */
+		private final BlockingQueue<List<TrackerRecord>> queue;
+
+		/** Current batch. */
+		private List<TrackerRecord> batch = new ArrayList<>(BATCH_SIZE);
+
+		/**
+		 * @param queue Queue of the linking stage.
+		 */
+		Batches(BlockingQueue<List<TrackerRecord>> queue) {
+			this.queue = queue;
+		}
+
+		/**
+		 * @param record Parsed issue.
+		 * @throws InterruptedException if the import is cancelled.
+		 */
+		void add(TrackerRecord record) throws InterruptedException {
+			batch.add(record);
+			if (batch.size() == BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		/**
+		 * Hands the current batch over.
+		 * @throws InterruptedException if the import is cancelled.
+		 */
+		void flush() throws InterruptedException {
+			if (!batch.isEmpty()) {
+				queue.put(batch);
+				batch = new ArrayList<>(BATCH_SIZE);
+			}
+		}
+	}
+}
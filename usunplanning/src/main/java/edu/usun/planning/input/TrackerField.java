@@ -0,0 +1,98 @@
+package edu.usun.planning.input;
+
+/**
+ * Fields of an issue-tracker export, with the column titles (CSV) or member names (JSON) they are read from,
+ * matched ignoring case: the titles of the import sheets and those of common tracker exports.
+ *
+ * @author usun
+ */
+enum TrackerField {
+
+	/** {@link edu.usun.planning.activity.Activity#getTrackingReference()}, the key of the issue. */
+	TRACKING_REFERENCE("Tracking reference", "Issue key", "key"),
+
+	/** Name of the activity. */
+	NAME("Name", "Summary"),
+
+	/** Type of the issue, tasks become {@link edu.usun.planning.activity.Task}s, others features. */
+	TYPE("Issue Type", "issuetype", "type"),
+
+	/** {@link edu.usun.planning.activity.Feature#getFeatureReference()}. */
+	FEATURE_REFERENCE("Feature reference", "Epic Link", "Parent"),
+
+	/**
+	 * {@link edu.usun.planning.activity.Feature#getRemaningEstimate()}, in story points;
+	 * time estimates (e.g. Jira's "timeestimate", in seconds) are not read.
+	 */
+	REMAINING_ESTIMATE("Remaining estimate", "Story Points"),
+
+	/** Name of the release. */
+	RELEASE("Release", "Fix Version/s", "Fix versions", "fixVersions"),
+
+	/** {@link edu.usun.planning.release.Release#getJiraProject()}. */
+	JIRA_PROJECT("Jira project", "Project key", "project"),
+
+	/** Name of the stream. */
+	STREAM("Stream", "Component/s", "Components");
+
+	/** All fields. */
+	private static final TrackerField[] FIELDS = values();
+
+	/** Titles and names the field is read from. */
+	private final char[][] titles;
+
+	/**
+	 * @param titles Titles and names the field is read from.
+	 */
+	TrackerField(String... titles) {
+		this.titles = new char[titles.length][];
+		for (int i = 0; i < titles.length; i++) {
+			this.titles[i] = titles[i].toCharArray();
+		}
+	}
+
+	/**
+	 * @param chars Characters of a title.
+	 * @param start Start of the title.
+	 * @param length Length of the title.
+	 * @return the field, null if unknown.
+	 */
+	static TrackerField of(char[] chars, int start, int length) {
+		while (length > 0 && chars[start] <= ' ') {
+			start++;
+			length--;
+		}
+		while (length > 0 && chars[start + length - 1] <= ' ') {
+			length--;
+		}
+		for (TrackerField field : FIELDS) {
+			for (char[] title : field.titles) {
+				if (matches(title, chars, start, length)) {
+					return field;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param title The title.
+	 * @param chars Characters of a title.
+	 * @param start Start of the title.
+	 * @param length Length of the title.
+	 * @return true if the characters match the title ignoring case.
+	 */
+	private static boolean matches(char[] title, char[] chars, int start, int length) {
+		if (title.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char a = title[i];
+			char b = chars[start + i];
+			if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,70 @@
+package edu.usun.planning.input;
+
+import java.math.BigDecimal;
+
+/**
+ * Issue read from a tracker export, before it is linked to the plan.
+ *
+ * The values are trimmed, blank values are ignored and the first value of a field wins
+ * (e.g. the first of several fix versions).
+ *
+ * @author usun
+ */
+final class TrackerRecord {
+
+	/** Line of the issue in the export, 1-based. */
+	final int line;
+
+	/** Values by field ordinal, but for the remaining estimate. */
+	final String[] values = new String[TrackerField.values().length];
+
+	/** Remaining estimate. */
+	BigDecimal remainingEstimate;
+
+	/**
+	 * @param line Line of the issue in the export, 1-based.
+	 */
+	TrackerRecord(int line) {
+		this.line = line;
+	}
+
+	/**
+	 * @param field The field.
+	 * @return the value, null if not set.
+	 */
+	String get(TrackerField field) {
+		return values[field.ordinal()];
+	}
+
+	/**
+	 * Sets a field unless already set.
+	 * @param field The field.
+	 * @param chars Characters of the value.
+	 * @param start Start of the value.
+	 * @param length Length of the value.
+	 */
+	void set(TrackerField field, char[] chars, int start, int length) {
+		while (length > 0 && chars[start] <= ' ') {
+			start++;
+			length--;
+		}
+		while (length > 0 && chars[start + length - 1] <= ' ') {
+			length--;
+		}
+		if (length == 0) {
+			return;
+		}
+		if (field == TrackerField.REMAINING_ESTIMATE) {
+			if (remainingEstimate == null) {
+				try {
+					remainingEstimate = new BigDecimal(chars, start, length);
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Line " + line + ": " + new String(chars, start, length)
+						+ " is not a number", e);
+				}
+			}
+		} else if (values[field.ordinal()] == null) {
+			values[field.ordinal()] = new String(chars, start, length);
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package edu.usun.planning.output;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import edu.usun.planning.sprint.CapacityBreakdownElement;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Sprints plan written as an Excel (xlsx) workbook with bounded memory.
+ *
+ * Each sprint gets a sheet with its team velocities and the capacity breakdown of each person,
+ * followed by a sheet per team of the sprint with its assigned activities.
+ * Sheets are written as the sprints are consumed (see {@link #writeSprintsPlan(Iterator)} for lazy sprints)
+ * through a streaming workbook, which keeps only a sliding window of rows per sheet in memory
+ * and flushes older rows to compressed temporary files.
+ * Cell styles and number formats are created once per workbook and reused by all cells.
+ *
+ * @author usun
+ */
+public class ExcelPlanningOutput implements IPlanningOutput {
+
+	/** Default number of rows kept in memory per sheet. */
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+
+	/** Maximum length of a sheet name. */
+	private static final int SHEET_NAME_LENGTH = 31;
+
+	/** Target file. */
+	private final File file;
+
+	/** Number of rows kept in memory per sheet. */
+	private final int windowSize;
+
+	/**
+	 * @param file Target file.
+	 */
+	public ExcelPlanningOutput(File file) {
+		this(file, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param file Target file.
+	 * @param windowSize Number of rows kept in memory per sheet.
+	 */
+	public ExcelPlanningOutput(File file, int windowSize) {
+		super();
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("Row window size must be positive");
+		}
+		this.file = file;
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of rows kept in memory per sheet
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * @see edu.usun.planning.output.IPlanningOutput#writeSprintsPlan(java.util.List)
+	 */
+	@Override
+	public void writeSprintsPlan(List<Sprint> sprints) {
+		writeSprintsPlan(sprints.iterator());
+	}
+
+	/**
+	 * Writes the plan of sprints produced one by one, e.g. by a {@link edu.usun.planning.sprint.SprintSequence}.
+	 * @param sprints The planned sprints.
+	 */
+	public void writeSprintsPlan(Iterator<? extends Sprint> sprints) {
+		try (OutputStream out = new FileOutputStream(file)) {
+			write(sprints, out);
+		} catch (IOException e) {
+			throw new IllegalStateException("Sprints plan cannot be written to " + file, e);
+		}
+	}
+
+	/**
+	 * @param sprints The planned sprints.
+	 * @param out Stream to write the workbook to.
+	 * @throws IOException if the workbook cannot be written.
+	 */
+	void write(Iterator<? extends Sprint> sprints, OutputStream out) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(windowSize);
+		workbook.setCompressTempFiles(true);
+		try {
+			Writer writer = new Writer(workbook);
+			while (sprints.hasNext()) {
+				writer.writeSprint(sprints.next());
+			}
+			workbook.write(out);
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * Writer of the sheets of one workbook, holding the shared styles.
+	 */
+	static final class Writer {
+
+		/** The workbook. */
+		private final SXSSFWorkbook workbook;
+
+		/** Style of header cells. */
+		private final CellStyle headerStyle;
+
+		/** Styles by number format. */
+		private final Map<String, CellStyle> formatStyles = new HashMap<>();
+
+		/** Sheet names in use. */
+		private final Set<String> sheetNames = new HashSet<>();
+
+		/**
+		 * @param workbook The workbook.
+		 */
+		Writer(SXSSFWorkbook workbook) {
+			this.workbook = workbook;
+			Font bold = workbook.createFont();
+			bold.setBold(true);
+			this.headerStyle = workbook.createCellStyle();
+			this.headerStyle.setFont(bold);
+		}
+
+		/**
+		 * Writes the sheets of the sprint.
+		 * @param sprint The sprint.
+		 */
+		void writeSprint(Sprint sprint) {
+			SXSSFSheet sheet = sheet(sprint.getName());
+			int r = 0;
+			r = header(sheet, r, "Sprint", "Start", "End");
+			SXSSFRow row = sheet.createRow(r++);
+			text(row, 0, sprint.getName());
+			date(row, 1, sprint.getStartDate());
+			date(row, 2, sprint.getEndDate());
+			r++;
+
+			r = header(sheet, r, "Team", "Velocity");
+			Map<Team, List<SprintTeamActivityPlan>> plans = new LinkedHashMap<>();
+			Map<Team, BigDecimal> velocities = new IdentityHashMap<>();
+			if (sprint.getAvailableVelocities() != null) {
+				for (SprintTeamAvailability availability : sprint.getAvailableVelocities()) {
+					row = sheet.createRow(r++);
+					text(row, 0, teamName(availability.getTeam()));
+					number(row, 1, availability.getVelocity(), "0.00");
+					plans.computeIfAbsent(availability.getTeam(), team -> new ArrayList<>());
+					velocities.put(availability.getTeam(), availability.getVelocity());
+				}
+			}
+			r++;
+
+			r = header(sheet, r, "Person", "Capacity element", "Percentage", "Man-days", "Velocity");
+			if (sprint.getSprintPersonCapacities() != null) {
+				for (SprintPersonCapacity capacity : sprint.getSprintPersonCapacities()) {
+					String person = capacity.getPerson() == null ? null : capacity.getPerson().getName();
+					if (capacity.getBreakdown() == null) {
+						continue;
+					}
+					for (CapacityBreakdownElement element : capacity.getBreakdown()) {
+						row = sheet.createRow(r++);
+						text(row, 0, person);
+						text(row, 1, element.getName());
+						number(row, 2, element.getPercentage(), "0.0");
+						number(row, 3, element.getCapacityManDays(), "0.000");
+						number(row, 4, element.getVelocity(), "0.00");
+					}
+				}
+			}
+			sheet.setColumnWidth(0, 24 * 256);
+			sheet.setColumnWidth(1, 20 * 256);
+
+			if (sprint.getAssignedVelocities() != null) {
+				for (SprintTeamActivityPlan plan : sprint.getAssignedVelocities()) {
+					plans.computeIfAbsent(plan.getTeam(), team -> new ArrayList<>()).add(plan);
+				}
+			}
+			for (Map.Entry<Team, List<SprintTeamActivityPlan>> entry : plans.entrySet()) {
+				writeTeam(sprint, entry.getKey(), velocities.get(entry.getKey()), entry.getValue());
+			}
+		}
+
+		/**
+		 * Writes the sheet of the activities of a team in a sprint.
+		 * @param sprint The sprint.
+		 * @param team The team.
+		 * @param velocity Available velocity of the team, can be null.
+		 * @param plans Plan rows of the team.
+		 */
+		private void writeTeam(Sprint sprint, Team team, BigDecimal velocity, List<SprintTeamActivityPlan> plans) {
+			SXSSFSheet sheet = sheet(sprint.getName() + " " + teamName(team));
+			int r = 0;
+			r = header(sheet, r, "Sprint", "Team", "Velocity", "Assigned");
+			SXSSFRow row = sheet.createRow(r++);
+			text(row, 0, sprint.getName());
+			text(row, 1, teamName(team));
+			number(row, 2, velocity, "0.00");
+			long assigned = 0;
+			for (SprintTeamActivityPlan plan : plans) {
+				assigned += plan.getStoryPoints();
+			}
+			number(row, 3, assigned);
+			r++;
+
+			r = header(sheet, r, "Activity", "Release", "Story points");
+			for (SprintTeamActivityPlan plan : plans) {
+				row = sheet.createRow(r++);
+				text(row, 0, plan.getActivity() == null ? plan.getName() : plan.getActivity().getName());
+				text(row, 1, plan.getActivity() == null || plan.getActivity().getRelease() == null ? null
+					: plan.getActivity().getRelease().getName());
+				number(row, 2, plan.getStoryPoints());
+			}
+			sheet.setColumnWidth(0, 40 * 256);
+			sheet.setColumnWidth(1, 16 * 256);
+		}
+
+		/**
+		 * @param name Requested sheet name.
+		 * @return new sheet with a valid name, unique in the workbook.
+		 */
+		private SXSSFSheet sheet(String name) {
+			String base = WorkbookUtil.createSafeSheetName(name == null || name.trim().isEmpty() ? "Sprint" : name);
+			String unique = base;
+			for (int n = 2; !sheetNames.add(unique.toLowerCase()); n++) {
+				String suffix = " (" + n + ")";
+				unique = base.substring(0, Math.min(base.length(), SHEET_NAME_LENGTH - suffix.length())) + suffix;
+			}
+			return workbook.createSheet(unique);
+		}
+
+		/**
+		 * @param sheet The sheet.
+		 * @param r Position of the row.
+		 * @param titles Column titles.
+		 * @return position of the next row.
+		 */
+		private int header(SXSSFSheet sheet, int r, String... titles) {
+			SXSSFRow row = sheet.createRow(r);
+			for (int c = 0; c < titles.length; c++) {
+				SXSSFCell cell = row.createCell(c);
+				cell.setCellValue(titles[c]);
+				cell.setCellStyle(headerStyle);
+			}
+			return r + 1;
+		}
+
+		/**
+		 * @param row The row.
+		 * @param c Position of the cell.
+		 * @param value The text, no cell if null.
+		 */
+		private static void text(SXSSFRow row, int c, String value) {
+			if (value != null) {
+				row.createCell(c).setCellValue(value);
+			}
+		}
+
+		/**
+		 * @param row The row.
+		 * @param c Position of the cell.
+		 * @param value The date, no cell if null.
+		 */
+		private void date(SXSSFRow row, int c, Calendar value) {
+			if (value != null) {
+				SXSSFCell cell = row.createCell(c);
+				cell.setCellValue(value);
+				cell.setCellStyle(style("yyyy-mm-dd"));
+			}
+		}
+
+		/**
+		 * @param row The row.
+		 * @param c Position of the cell.
+		 * @param value The number, no cell if null.
+		 * @param format Number format.
+		 */
+		private void number(SXSSFRow row, int c, BigDecimal value, String format) {
+			if (value != null) {
+				SXSSFCell cell = row.createCell(c);
+				cell.setCellValue(value.doubleValue());
+				cell.setCellStyle(style(format));
+			}
+		}
+
+		/**
+		 * @param row The row.
+		 * @param c Position of the cell.
+		 * @param value The number.
+		 */
+		private void number(SXSSFRow row, int c, long value) {
+			SXSSFCell cell = row.createCell(c);
+			cell.setCellValue(value);
+			cell.setCellStyle(style("0"));
+		}
+
+		/**
+		 * @param format Number format.
+		 * @return cached style of the format.
+		 */
+		private CellStyle style(String format) {
+			CellStyle style = formatStyles.get(format);
+			if (style == null) {
+				style = workbook.createCellStyle();
+				style.setDataFormat(workbook.createDataFormat().getFormat(format));
+				formatStyles.put(format, style);
+			}
+			return style;
+		}
+
+		/**
+		 * @param team The team.
+		 * @return name of the team, "N/A" if none.
+		 */
+		private static String teamName(Team team) {
+			return team == null || team.getName() == null ? "N/A" : team.getName();
+		}
+	}
+}
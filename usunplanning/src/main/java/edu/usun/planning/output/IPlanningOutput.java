@@ -0,0 +1,19 @@
+package edu.usun.planning.output;
+
+import java.util.List;
+
+import edu.usun.planning.sprint.Sprint;
+
+/**
+ * Output (report) of the sprints plan.
+ * 
+ * @author usun
+ */
+public interface IPlanningOutput {
+
+	/**
+	 * Writes the plan of the sprints: available velocities, capacity plans and assigned activities.
+	 * @param sprints The planned sprints.
+	 */
+	void writeSprintsPlan(List<Sprint> sprints);
+}
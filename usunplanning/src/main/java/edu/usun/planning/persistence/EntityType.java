@@ -0,0 +1,793 @@
+package edu.usun.planning.persistence;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.usun.planning.PlanEntity;
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.CapacityOverrideRange;
+import edu.usun.planning.calendar.EasterHoliday;
+import edu.usun.planning.calendar.FixedDateHoliday;
+import edu.usun.planning.calendar.HolidayRule;
+import edu.usun.planning.calendar.NthWeekdayHoliday;
+import edu.usun.planning.calendar.WeekendRule;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.calendar.WorkCalendarRegistry;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.CapacityBreakdownElement;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.sprint.SprintTeamMemberAvailability;
+import edu.usun.planning.stream.Stream;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Role;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Schema of the entities in binary snapshots: type tag and numbered fields of each entity class.
+ *
+ * Field 1 is the name of every entity. Tags and field numbers are part of the format: new fields get new numbers,
+ * removed fields leave their numbers unused, and the wire type of a field never changes.
+ * Derived (transient) state is not written, it is rebuilt on demand from the decoded fields.
+ *
+ * @author usun
+ */
+enum EntityType {
+
+	/** {@link Sprint}. */
+	SPRINT(1, Sprint.class, Sprint::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			Sprint sprint = (Sprint) entity;
+			out.date(2, sprint.getStartDate());
+			out.date(3, sprint.getEndDate());
+			out.list(4, sprint.getReleasesToIntegration());
+			out.list(5, sprint.getAvailableVelocities());
+			out.list(6, sprint.getAssignedVelocities());
+			out.list(7, sprint.getSprintPersonCapacities());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			Sprint sprint = (Sprint) entity;
+			switch (field) {
+			case 2:
+				sprint.setStartDate(in.date(wire));
+				return true;
+			case 3:
+				sprint.setEndDate(in.date(wire));
+				return true;
+			case 4:
+				sprint.setReleasesToIntegration(in.list(wire, Release.class));
+				return true;
+			case 5:
+				sprint.setAvailableVelocities(in.list(wire, SprintTeamAvailability.class));
+				return true;
+			case 6:
+				sprint.setAssignedVelocities(in.list(wire, SprintTeamActivityPlan.class));
+				return true;
+			case 7:
+				sprint.setSprintPersonCapacities(in.list(wire, SprintPersonCapacity.class));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link SprintTeamAvailability}. */
+	SPRINT_TEAM_AVAILABILITY(2, SprintTeamAvailability.class, SprintTeamAvailability::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			SprintTeamAvailability availability = (SprintTeamAvailability) entity;
+			out.reference(2, availability.getSprint());
+			out.reference(3, availability.getTeam());
+			out.decimal(4, availability.getVelocity());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			SprintTeamAvailability availability = (SprintTeamAvailability) entity;
+			switch (field) {
+			case 2:
+				availability.setSprint(in.reference(wire, Sprint.class));
+				return true;
+			case 3:
+				availability.setTeam(in.reference(wire, Team.class));
+				return true;
+			case 4:
+				availability.setVelocity(in.decimal(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link SprintTeamActivityPlan}. */
+	SPRINT_TEAM_ACTIVITY_PLAN(3, SprintTeamActivityPlan.class, SprintTeamActivityPlan::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			SprintTeamActivityPlan plan = (SprintTeamActivityPlan) entity;
+			out.reference(2, plan.getSprint());
+			out.reference(3, plan.getTeam());
+			out.reference(4, plan.getActivity());
+			out.integer(5, plan.getStoryPoints());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			SprintTeamActivityPlan plan = (SprintTeamActivityPlan) entity;
+			switch (field) {
+			case 2:
+				plan.setSprint(in.reference(wire, Sprint.class));
+				return true;
+			case 3:
+				plan.setTeam(in.reference(wire, Team.class));
+				return true;
+			case 4:
+				plan.setActivity(in.reference(wire, Activity.class));
+				return true;
+			case 5:
+				plan.setStoryPoints(in.integer(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link SprintPersonCapacity}. */
+	SPRINT_PERSON_CAPACITY(4, SprintPersonCapacity.class, SprintPersonCapacity::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			SprintPersonCapacity capacity = (SprintPersonCapacity) entity;
+			out.reference(2, capacity.getSprint());
+			out.reference(3, capacity.getPerson());
+			out.list(4, capacity.getBreakdown());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			SprintPersonCapacity capacity = (SprintPersonCapacity) entity;
+			switch (field) {
+			case 2:
+				capacity.setSprint(in.reference(wire, Sprint.class));
+				return true;
+			case 3:
+				capacity.setPerson(in.reference(wire, Person.class));
+				return true;
+			case 4:
+				capacity.setBreakdown(in.list(wire, CapacityBreakdownElement.class));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link CapacityBreakdownElement}. */
+	CAPACITY_BREAKDOWN_ELEMENT(5, CapacityBreakdownElement.class, CapacityBreakdownElement::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			CapacityBreakdownElement element = (CapacityBreakdownElement) entity;
+			out.decimal(2, element.getPercentage());
+			out.decimal(3, element.getCapacityManDays());
+			out.decimal(4, element.getVelocity());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			CapacityBreakdownElement element = (CapacityBreakdownElement) entity;
+			switch (field) {
+			case 2:
+				element.setPercentage(in.decimal(wire));
+				return true;
+			case 3:
+				element.setCapacityManDays(in.decimal(wire));
+				return true;
+			case 4:
+				element.setVelocity(in.decimal(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link SprintTeamMemberAvailability}. */
+	SPRINT_TEAM_MEMBER_AVAILABILITY(6, SprintTeamMemberAvailability.class, SprintTeamMemberAvailability::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			SprintTeamMemberAvailability availability = (SprintTeamMemberAvailability) entity;
+			out.reference(2, availability.getSprint());
+			out.reference(3, availability.getMember());
+			out.integer(4, availability.getVelocity());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			SprintTeamMemberAvailability availability = (SprintTeamMemberAvailability) entity;
+			switch (field) {
+			case 2:
+				availability.setSprint(in.reference(wire, Sprint.class));
+				return true;
+			case 3:
+				availability.setMember(in.reference(wire, TeamMember.class));
+				return true;
+			case 4:
+				availability.setVelocity(in.integer(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link Team}. */
+	TEAM(7, Team.class, Team::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) {
+			// name only
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			return false;
+		}
+	},
+
+	/** {@link Person}. */
+	PERSON(8, Person.class, Person::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			Person person = (Person) entity;
+			out.list(2, person.getPersonalCapacityOverrides());
+			out.list(3, person.getPersonalCapacityOverrideRanges());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			Person person = (Person) entity;
+			switch (field) {
+			case 2:
+				person.setPersonalCapacityOverrides(in.list(wire, CapacityOverride.class));
+				return true;
+			case 3:
+				person.setPersonalCapacityOverrideRanges(in.list(wire, CapacityOverrideRange.class));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link TeamMember}. */
+	TEAM_MEMBER(9, TeamMember.class, TeamMember::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			TeamMember member = (TeamMember) entity;
+			out.reference(2, member.getPerson());
+			out.enumeration(3, member.getRole());
+			out.reference(4, member.getTeam());
+			out.decimal(5, member.getBaseVelocityPerSprint());
+			out.decimal(6, member.getCapacityFactor());
+			out.reference(7, member.getWorkCalendar());
+			out.date(8, member.getStartDate());
+			out.date(9, member.getEndDate());
+			out.string(10, member.getNotes());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			TeamMember member = (TeamMember) entity;
+			switch (field) {
+			case 2:
+				member.setPerson(in.reference(wire, Person.class));
+				return true;
+			case 3:
+				member.setRole(in.enumeration(wire, Role.class));
+				return true;
+			case 4:
+				member.setTeam(in.reference(wire, Team.class));
+				return true;
+			case 5:
+				member.setBaseVelocityPerSprint(in.decimal(wire));
+				return true;
+			case 6:
+				member.setCapacityFactor(in.decimal(wire));
+				return true;
+			case 7:
+				member.setWorkCalendar(in.reference(wire, WorkCalendar.class));
+				return true;
+			case 8:
+				member.setStartDate(in.date(wire));
+				return true;
+			case 9:
+				member.setEndDate(in.date(wire));
+				return true;
+			case 10:
+				member.setNotes(in.string(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link Feature}. */
+	FEATURE(10, Feature.class, Feature::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			Feature feature = (Feature) entity;
+			writeActivity(out, feature);
+			out.decimal(5, feature.getRemaningEstimate());
+			out.string(6, feature.getFeatureReference());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			Feature feature = (Feature) entity;
+			switch (field) {
+			case 5:
+				feature.setRemaningEstimate(in.decimal(wire));
+				return true;
+			case 6:
+				feature.setFeatureReference(in.string(wire));
+				return true;
+			default:
+				return readActivity(in, feature, field, wire);
+			}
+		}
+	},
+
+	/** {@link Task}. */
+	TASK(11, Task.class, Task::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			writeActivity(out, (Activity) entity);
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			return readActivity(in, (Activity) entity, field, wire);
+		}
+	},
+
+	/** {@link Stream}. */
+	STREAM(12, Stream.class, Stream::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			out.list(2, ((Stream) entity).getActivities());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			if (field == 2) {
+				((Stream) entity).setActivities(in.list(wire, Activity.class));
+				return true;
+			}
+			return false;
+		}
+	},
+
+	/** {@link Release}. */
+	RELEASE(13, Release.class, Release::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			Release release = (Release) entity;
+			out.string(2, release.getProjectPrefix());
+			out.string(3, release.getDescription());
+			out.string(4, release.getJiraProject());
+			out.date(5, release.getDeliveryToIntegration());
+			out.date(6, release.getDeliveryToCustomer());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			Release release = (Release) entity;
+			switch (field) {
+			case 2:
+				release.setProjectPrefix(in.string(wire));
+				return true;
+			case 3:
+				release.setDescription(in.string(wire));
+				return true;
+			case 4:
+				release.setJiraProject(in.string(wire));
+				return true;
+			case 5:
+				release.setDeliveryToIntegration(in.date(wire));
+				return true;
+			case 6:
+				release.setDeliveryToCustomer(in.date(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link CapacityOverride}. */
+	CAPACITY_OVERRIDE(14, CapacityOverride.class, CapacityOverride::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			CapacityOverride override = (CapacityOverride) entity;
+			out.date(2, override.getDate());
+			out.decimal(3, override.getCapacityFactor());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			CapacityOverride override = (CapacityOverride) entity;
+			switch (field) {
+			case 2:
+				override.setDate(in.date(wire));
+				return true;
+			case 3:
+				override.setCapacityFactor(in.decimal(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link CapacityOverrideRange}. */
+	CAPACITY_OVERRIDE_RANGE(15, CapacityOverrideRange.class, CapacityOverrideRange::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			CapacityOverrideRange range = (CapacityOverrideRange) entity;
+			out.date(2, range.getStartDate());
+			out.date(3, range.getEndDate());
+			out.decimal(4, range.getCapacityFactor());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			CapacityOverrideRange range = (CapacityOverrideRange) entity;
+			switch (field) {
+			case 2:
+				range.setStartDate(in.date(wire));
+				return true;
+			case 3:
+				range.setEndDate(in.date(wire));
+				return true;
+			case 4:
+				range.setCapacityFactor(in.decimal(wire));
+				return true;
+			default:
+				return false;
+			}
+		}
+	},
+
+	/** {@link WorkCalendar}, calendars written as shared (field 4) are interned again by {@link #share(PlanEntity)}, others decode private. */
+	WORK_CALENDAR(16, WorkCalendar.class, WorkCalendar::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			WorkCalendar calendar = (WorkCalendar) entity;
+			out.list(2, calendar.getPublicHolidays());
+			out.list(3, calendar.getHolidayRules());
+			if (calendar.isShared()) {
+				out.integer(4, 1);
+			}
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			WorkCalendar calendar = (WorkCalendar) entity;
+			switch (field) {
+			case 2:
+				calendar.setPublicHolidays(in.list(wire, CapacityOverride.class));
+				return true;
+			case 3:
+				calendar.setHolidayRules(in.list(wire, HolidayRule.class));
+				return true;
+			case 4:
+				if (in.integer(wire) != 0) {
+					in.markShared();
+				}
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		@Override
+		PlanEntity share(PlanEntity entity) {
+			return WorkCalendarRegistry.getInstance().intern((WorkCalendar) entity);
+		}
+	},
+
+	/** {@link FixedDateHoliday}. */
+	FIXED_DATE_HOLIDAY(17, FixedDateHoliday.class, FixedDateHoliday::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			FixedDateHoliday holiday = (FixedDateHoliday) entity;
+			writeHolidayRule(out, holiday);
+			out.integer(3, holiday.getMonth());
+			out.integer(4, holiday.getDayOfMonth());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			FixedDateHoliday holiday = (FixedDateHoliday) entity;
+			switch (field) {
+			case 3:
+				holiday.setMonth(in.integer(wire));
+				return true;
+			case 4:
+				holiday.setDayOfMonth(in.integer(wire));
+				return true;
+			default:
+				return readHolidayRule(in, holiday, field, wire);
+			}
+		}
+	},
+
+	/** {@link EasterHoliday}. */
+	EASTER_HOLIDAY(18, EasterHoliday.class, EasterHoliday::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			EasterHoliday holiday = (EasterHoliday) entity;
+			writeHolidayRule(out, holiday);
+			out.integer(3, holiday.getOffsetDays());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			EasterHoliday holiday = (EasterHoliday) entity;
+			if (field == 3) {
+				holiday.setOffsetDays(in.integer(wire));
+				return true;
+			}
+			return readHolidayRule(in, holiday, field, wire);
+		}
+	},
+
+	/** {@link NthWeekdayHoliday}. */
+	NTH_WEEKDAY_HOLIDAY(19, NthWeekdayHoliday.class, NthWeekdayHoliday::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			NthWeekdayHoliday holiday = (NthWeekdayHoliday) entity;
+			writeHolidayRule(out, holiday);
+			out.integer(3, holiday.getMonth());
+			out.enumeration(4, holiday.getDayOfWeek());
+			out.integer(5, holiday.getOrdinal());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			NthWeekdayHoliday holiday = (NthWeekdayHoliday) entity;
+			switch (field) {
+			case 3:
+				holiday.setMonth(in.integer(wire));
+				return true;
+			case 4:
+				holiday.setDayOfWeek(in.enumeration(wire, DayOfWeek.class));
+				return true;
+			case 5:
+				holiday.setOrdinal(in.integer(wire));
+				return true;
+			default:
+				return readHolidayRule(in, holiday, field, wire);
+			}
+		}
+	},
+
+	/** {@link WeekendRule}. */
+	WEEKEND_RULE(20, WeekendRule.class, WeekendRule::new) {
+
+		@Override
+		void write(SnapshotWriter out, PlanEntity entity) throws IOException {
+			WeekendRule rule = (WeekendRule) entity;
+			writeHolidayRule(out, rule);
+			out.list(3, rule.getDaysOfWeek());
+		}
+
+		@Override
+		boolean read(SnapshotReader in, PlanEntity entity, int field, int wire) {
+			WeekendRule rule = (WeekendRule) entity;
+			if (field == 3) {
+				rule.setDaysOfWeek(in.list(wire, DayOfWeek.class));
+				return true;
+			}
+			return readHolidayRule(in, rule, field, wire);
+		}
+	};
+
+	/** Field number of the name of all entities. */
+	static final int NAME = 1;
+
+	/** Types by tag. */
+	private static final EntityType[] BY_TAG;
+
+	/** Types by entity class. */
+	private static final Map<Class<?>, EntityType> BY_CLASS = new HashMap<>();
+
+	static {
+		int maxTag = 0;
+		for (EntityType type : values()) {
+			maxTag = Math.max(maxTag, type.tag);
+			BY_CLASS.put(type.type, type);
+		}
+		BY_TAG = new EntityType[maxTag + 1];
+		for (EntityType type : values()) {
+			BY_TAG[type.tag] = type;
+		}
+	}
+
+	/** Tag of the type in snapshots. */
+	private final int tag;
+
+	/** Entity class. */
+	private final Class<? extends PlanEntity> type;
+
+	/** Factory of empty entities. */
+	private final Supplier<? extends PlanEntity> factory;
+
+	/**
+	 * @param tag Tag of the type in snapshots.
+	 * @param type Entity class.
+	 * @param factory Factory of empty entities.
+	 */
+	EntityType(int tag, Class<? extends PlanEntity> type, Supplier<? extends PlanEntity> factory) {
+		this.tag = tag;
+		this.type = type;
+		this.factory = factory;
+	}
+
+	/**
+	 * @return the tag of the type in snapshots
+	 */
+	int getTag() {
+		return tag;
+	}
+
+	/**
+	 * @return new empty entity.
+	 */
+	PlanEntity newInstance() {
+		return factory.get();
+	}
+
+	/**
+	 * Writes the fields of the entity except its name.
+	 * @param out The writer.
+	 * @param entity The entity.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	abstract void write(SnapshotWriter out, PlanEntity entity) throws IOException;
+
+	/**
+	 * Reads one field of the entity except its name.
+	 * @param in The reader.
+	 * @param entity The entity.
+	 * @param field Field number.
+	 * @param wire Wire type of the value.
+	 * @return false if the field is unknown, its value is not read.
+	 */
+	abstract boolean read(SnapshotReader in, PlanEntity entity, int field, int wire);
+
+	/**
+	 * Returns the instance to use for a decoded entity that was shared when written
+	 * (see {@link SnapshotReader#markShared()}), e.g. an interned one.
+	 * @param entity The decoded entity.
+	 * @return the shared instance, the entity itself by default.
+	 */
+	PlanEntity share(PlanEntity entity) {
+		return entity;
+	}
+
+	/**
+	 * @param tag Tag of the type in snapshots.
+	 * @return the type, null if unknown (written by a newer version).
+	 */
+	static EntityType of(int tag) {
+		return tag >= 0 && tag < BY_TAG.length ? BY_TAG[tag] : null;
+	}
+
+	/**
+	 * @param type Entity class.
+	 * @return the type of the class.
+	 * @throws IllegalArgumentException if the class has no schema.
+	 */
+	static EntityType of(Class<?> type) {
+		EntityType entityType = BY_CLASS.get(type);
+		if (entityType == null) {
+			throw new IllegalArgumentException("Entity " + type.getName() + " has no snapshot schema");
+		}
+		return entityType;
+	}
+
+	/**
+	 * Writes the fields 2 to 4 of activities.
+	 * @param out The writer.
+	 * @param activity The activity.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private static void writeActivity(SnapshotWriter out, Activity activity) throws IOException {
+		out.string(2, activity.getTrackingReference());
+		out.reference(3, activity.getStream());
+		out.reference(4, activity.getRelease());
+	}
+
+	/**
+	 * Reads the fields 2 to 4 of activities.
+	 * @param in The reader.
+	 * @param activity The activity.
+	 * @param field Field number.
+	 * @param wire Wire type of the value.
+	 * @return false if the field is unknown.
+	 */
+	private static boolean readActivity(SnapshotReader in, Activity activity, int field, int wire) {
+		switch (field) {
+		case 2:
+			activity.setTrackingReference(in.string(wire));
+			return true;
+		case 3:
+			activity.setStream(in.reference(wire, Stream.class));
+			return true;
+		case 4:
+			activity.setRelease(in.reference(wire, Release.class));
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the field 2 of holiday rules.
+	 * @param out The writer.
+	 * @param rule The rule.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private static void writeHolidayRule(SnapshotWriter out, HolidayRule rule) throws IOException {
+		out.decimal(2, rule.getCapacityFactor());
+	}
+
+	/**
+	 * Reads the field 2 of holiday rules.
+	 * @param in The reader.
+	 * @param rule The rule.
+	 * @param field Field number.
+	 * @param wire Wire type of the value.
+	 * @return false if the field is unknown.
+	 */
+	private static boolean readHolidayRule(SnapshotReader in, HolidayRule rule, int field, int wire) {
+		if (field == 2) {
+			rule.setCapacityFactor(in.decimal(wire));
+			return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,195 @@
+package edu.usun.planning.persistence;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Plan mutations recorded in the {@link PlanJournal}, with their tag in journal records and the number of their arguments.
+ *
+ * A record is the tag followed by the arguments, each a snapshot value (see {@link SnapshotWriter}).
+ * Tags are part of the format and never reused. A mutation whose target has been dropped from the plan
+ * (read back as null) is ignored.
+ *
+ * @author usun
+ */
+enum JournalMutation {
+
+	/** Personal capacity override added: person, override. */
+	CAPACITY_OVERRIDE_ADDED(1, 2) {
+
+		@Override
+		void apply(List<TeamMember> members, Object[] args) {
+			Person person = argument(args, 0, Person.class);
+			if (person != null) {
+				person.setPersonalCapacityOverrides(added(person.getPersonalCapacityOverrides(),
+					argument(args, 1, CapacityOverride.class)));
+			}
+		}
+	},
+
+	/** Public holiday added to a work calendar: calendar, holiday. */
+	PUBLIC_HOLIDAY_ADDED(2, 2) {
+
+		@Override
+		void apply(List<TeamMember> members, Object[] args) {
+			WorkCalendar calendar = argument(args, 0, WorkCalendar.class);
+			if (calendar != null) {
+				calendar.setPublicHolidays(added(calendar.getPublicHolidays(), argument(args, 1, CapacityOverride.class)));
+			}
+		}
+	},
+
+	/** Story points of an activity plan changed: plan, story points. */
+	STORY_POINTS_CHANGED(3, 2) {
+
+		@Override
+		void apply(List<TeamMember> members, Object[] args) {
+			SprintTeamActivityPlan plan = argument(args, 0, SprintTeamActivityPlan.class);
+			if (plan != null) {
+				plan.setStoryPoints(argument(args, 1, Long.class).intValue());
+			}
+		}
+	},
+
+	/** Activity plan moved to another sprint or team: plan, sprint, team. */
+	ACTIVITY_REASSIGNED(4, 3) {
+
+		@Override
+		void apply(List<TeamMember> members, Object[] args) {
+			SprintTeamActivityPlan plan = argument(args, 0, SprintTeamActivityPlan.class);
+			Sprint sprint = argument(args, 1, Sprint.class);
+			if (plan == null || sprint == null) {
+				return;
+			}
+			Sprint previous = plan.getSprint();
+			if (previous != null && previous.getAssignedVelocities() != null) {
+				previous.getAssignedVelocities().remove(plan);
+			}
+			plan.setSprint(sprint);
+			plan.setTeam(argument(args, 2, Team.class));
+			sprint.setAssignedVelocities(added(sprint.getAssignedVelocities(), plan));
+		}
+	},
+
+	/** Team member joined: member. */
+	MEMBER_JOINED(5, 1) {
+
+		@Override
+		void apply(List<TeamMember> members, Object[] args) {
+			TeamMember member = argument(args, 0, TeamMember.class);
+			if (member != null) {
+				members.add(member);
+			}
+		}
+	},
+
+	/** Team member leaving: member, end date. */
+	MEMBER_LEFT(6, 2) {
+
+		@Override
+		void apply(List<TeamMember> members, Object[] args) {
+			TeamMember member = argument(args, 0, TeamMember.class);
+			if (member != null) {
+				member.setEndDate(argument(args, 1, Calendar.class));
+			}
+		}
+	};
+
+	/** Tag of the mutation in journal records. */
+	private final int tag;
+
+	/** Number of arguments. */
+	private final int arity;
+
+	/**
+	 * @param tag Tag of the mutation in journal records.
+	 * @param arity Number of arguments.
+	 */
+	JournalMutation(int tag, int arity) {
+		this.tag = tag;
+		this.arity = arity;
+	}
+
+	/**
+	 * @return the tag of the mutation in journal records
+	 */
+	int getTag() {
+		return tag;
+	}
+
+	/**
+	 * @return the number of arguments
+	 */
+	int getArity() {
+		return arity;
+	}
+
+	/**
+	 * Applies the mutation to the plan.
+	 * @param members Team members of the plan.
+	 * @param args Arguments.
+	 */
+	abstract void apply(List<TeamMember> members, Object[] args);
+
+	/**
+	 * Reads a record and applies its mutation, records of unknown mutations are skipped.
+	 * @param in Reader positioned on the record.
+	 * @param members Team members of the plan.
+	 */
+	static void replay(SnapshotReader in, List<TeamMember> members) {
+		Object tag = in.read();
+		JournalMutation mutation = null;
+		for (JournalMutation candidate : values()) {
+			if (tag instanceof Long && candidate.tag == (Long) tag) {
+				mutation = candidate;
+			}
+		}
+		if (mutation == null) {
+			while (in.hasNext()) {
+				in.read();
+			}
+			return;
+		}
+		Object[] args = new Object[mutation.arity];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = in.read();
+		}
+		mutation.apply(members, args);
+	}
+
+	/**
+	 * @param <T> Type of the argument.
+	 * @param args Arguments.
+	 * @param position Position of the argument.
+	 * @param type Type of the argument.
+	 * @return the argument, can be null.
+	 */
+	private static <T> T argument(Object[] args, int position, Class<T> type) {
+		Object value = args[position];
+		if (value != null && !type.isInstance(value)) {
+			throw new IllegalStateException("Journal is corrupt: " + value.getClass().getName() + " found instead of " + type.getName());
+		}
+		return type.cast(value);
+	}
+
+	/**
+	 * @param <T> Type of the elements.
+	 * @param list The list, can be null.
+	 * @param element The element to add.
+	 * @return the list with the element added, a new list if null.
+	 */
+	private static <T> List<T> added(List<T> list, T element) {
+		List<T> result = list == null ? new ArrayList<>() : list;
+		result.add(element);
+		return result;
+	}
+}
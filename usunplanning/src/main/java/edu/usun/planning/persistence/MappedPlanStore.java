@@ -0,0 +1,400 @@
+package edu.usun.planning.persistence;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import edu.usun.planning.PlanEntity;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+
+/**
+ * Store of a sprints plan in a memory-mapped file, decoding each sprint only when it is read.
+ *
+ * The file holds a fixed header, a block of the entities shared by the sprints (teams, persons, activities with their
+ * streams, releases), one block per sprint with the sprint and its team availabilities, activity plans and person capacities,
+ * and a directory with the position, length and dates of each sprint block. The blocks are snapshots
+ * (see {@link SnapshotWriter}) whose references to shared entities are back-references into the shared block.
+ *
+ * Opening a store maps the header and the directory only. The shared block is decoded on the first read of a sprint,
+ * a sprint block is mapped and decoded on the first read of that sprint and then kept, so a report over a range
+ * of sprints (see {@link #getSprints(long, long)}) decodes only those sprints. Sprints read from the same store
+ * share the decoded shared entities. The store can be read from several threads.
+ *
+ * @author usun
+ */
+public class MappedPlanStore implements Closeable {
+
+	/** Leading bytes of a store. */
+	private static final byte[] MAGIC = { 'U', 'S', 'P', 'M' };
+
+	/** Current version of the store layout. */
+	private static final int VERSION = 1;
+
+	/** Size of the header: magic, version, number of sprints, position and length of the shared block, position of the directory. */
+	private static final int HEADER_SIZE = 32;
+
+	/** Size of a directory entry: position and length of the block, start and end epoch days of the sprint. */
+	private static final int ENTRY_SIZE = 28;
+
+	/** The file channel. */
+	private final FileChannel channel;
+
+	/** Number of sprints. */
+	private final int sprintCount;
+
+	/** Position of the shared block. */
+	private final long sharedPosition;
+
+	/** Length of the shared block. */
+	private final int sharedLength;
+
+	/** The directory. */
+	private final ByteBuffer directory;
+
+	/** Decoded shared entities by position in the object table of the shared block, decoded on demand. */
+	private volatile List<Object> shared;
+
+	/** Decoded sprints by position. */
+	private final ConcurrentMap<Integer, Sprint> sprints = new ConcurrentHashMap<>();
+
+	/**
+	 * @param channel The file channel.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private MappedPlanStore(FileChannel channel) throws IOException {
+		super();
+		this.channel = channel;
+		if (channel.size() < HEADER_SIZE) {
+			throw new IllegalStateException("Not a plan store");
+		}
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		for (byte b : MAGIC) {
+			if (header.get() != b) {
+				throw new IllegalStateException("Not a plan store");
+			}
+		}
+		int version = header.getInt();
+		if (version > VERSION) {
+			throw new IllegalStateException("Plan store version " + version + " is newer than the supported version " + VERSION);
+		}
+		this.sprintCount = header.getInt();
+		this.sharedPosition = header.getLong();
+		this.sharedLength = header.getInt();
+		long directoryPosition = header.getLong();
+		if (sprintCount < 0 || directoryPosition + (long) sprintCount * ENTRY_SIZE > channel.size()) {
+			throw new IllegalStateException("Plan store is corrupt: directory out of the file");
+		}
+		this.directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryPosition, (long) sprintCount * ENTRY_SIZE);
+	}
+
+	/**
+	 * Opens a store written by {@link #write(File, List)}.
+	 * @param file The store file.
+	 * @return the store, to be closed.
+	 */
+	public static MappedPlanStore open(File file) {
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			return new MappedPlanStore(channel);
+		} catch (IOException | RuntimeException e) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+			}
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			throw new IllegalStateException("Plan store " + file + " cannot be opened", e);
+		}
+	}
+
+	/**
+	 * Writes the sprints to a new store, replacing the file atomically: the store is written to a temporary file
+	 * next to it and moved over it once forced to disk, so a failed write leaves the previous store intact
+	 * and stores already open keep reading the previous file.
+	 * @param file The store file.
+	 * @param plan The planned sprints.
+	 */
+	public static void write(File file, List<Sprint> plan) {
+		Path target = file.toPath();
+		Path temporary = target.resolveSibling(file.getName() + ".tmp");
+		boolean moved = false;
+		try {
+			write(temporary, plan);
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			moved = true;
+		} catch (IOException e) {
+			throw new IllegalStateException("Plan store " + file + " cannot be written", e);
+		} finally {
+			if (!moved) {
+				temporary.toFile().delete();
+			}
+		}
+	}
+
+	/**
+	 * @param file The file to write the store to, replaced.
+	 * @param plan The planned sprints.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static void write(Path file, List<Sprint> plan) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream out = Channels.newOutputStream(channel);
+			channel.position(HEADER_SIZE);
+
+			SnapshotWriter sharedWriter = new SnapshotWriter(out);
+			sharedWriter.write(sharedEntities(plan));
+			List<Object> references = sharedWriter.getObjects();
+			long sharedLength = channel.position() - HEADER_SIZE;
+
+			ByteBuffer directory = ByteBuffer.allocate(plan.size() * ENTRY_SIZE);
+			for (Sprint sprint : plan) {
+				long position = channel.position();
+				new SnapshotWriter(out, references).write(sprint);
+				long length = channel.position() - position;
+				if (length > Integer.MAX_VALUE || sharedLength > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("Block of sprint " + sprint.getName() + " is too large");
+				}
+				directory.putLong(position).putInt((int) length)
+					.putLong(EpochDays.toEpochDay(sprint.getStartDate(), EpochDays.MIN_DAY))
+					.putLong(EpochDays.toEpochDay(sprint.getEndDate(), EpochDays.MAX_DAY));
+			}
+			long directoryPosition = channel.position();
+			directory.flip();
+			while (directory.hasRemaining()) {
+				channel.write(directory);
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.put(MAGIC).putInt(VERSION).putInt(plan.size()).putLong(HEADER_SIZE).putInt((int) sharedLength)
+				.putLong(directoryPosition);
+			header.flip();
+			channel.position(0);
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * @return the number of sprints.
+	 */
+	public int getSprintCount() {
+		return sprintCount;
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return start epoch day of the sprint, without decoding it, {@link EpochDays#MIN_DAY} if not set.
+	 */
+	public long getStartEpochDay(int index) {
+		return directory.getLong(entry(index) + 12);
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return end epoch day of the sprint, without decoding it, {@link EpochDays#MAX_DAY} if not set.
+	 */
+	public long getEndEpochDay(int index) {
+		return directory.getLong(entry(index) + 20);
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return the sprint, decoded on the first call.
+	 */
+	public Sprint getSprint(int index) {
+		entry(index);
+		return sprints.computeIfAbsent(index, this::decode);
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return true if the sprint is already decoded.
+	 */
+	public boolean isLoaded(int index) {
+		return sprints.containsKey(index);
+	}
+
+	/**
+	 * @return all sprints, each decoded when the list element is read.
+	 */
+	public List<Sprint> getSprints() {
+		return new AbstractList<Sprint>() {
+
+			@Override
+			public Sprint get(int index) {
+				return getSprint(index);
+			}
+
+			@Override
+			public int size() {
+				return sprintCount;
+			}
+		};
+	}
+
+	/**
+	 * @param fromEpochDay First day of the period.
+	 * @param toEpochDay Last day of the period.
+	 * @return the sprints overlapping the period, only those are decoded.
+	 */
+	public List<Sprint> getSprints(long fromEpochDay, long toEpochDay) {
+		List<Sprint> result = new ArrayList<>();
+		for (int i = 0; i < sprintCount; i++) {
+			if (getStartEpochDay(i) <= toEpochDay && getEndEpochDay(i) >= fromEpochDay) {
+				result.add(getSprint(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the entities shared by the sprints (teams, persons, activities, releases) and the entities they reference, decoded on the first call.
+	 */
+	public List<PlanEntity> getSharedEntities() {
+		List<Object> objects = sharedObjects();
+		List<PlanEntity> entities = new ArrayList<>();
+		for (Object object : objects) {
+			if (object instanceof PlanEntity) {
+				entities.add((PlanEntity) object);
+			}
+		}
+		return entities;
+	}
+
+	/**
+	 * Closes the file, the decoded sprints stay usable.
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return position of its directory entry.
+	 */
+	private int entry(int index) {
+		if (index < 0 || index >= sprintCount) {
+			throw new IndexOutOfBoundsException("Sprint " + index + " of " + sprintCount);
+		}
+		return index * ENTRY_SIZE;
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return the decoded sprint.
+	 */
+	private Sprint decode(int index) {
+		int entry = entry(index);
+		Object sprint = new SnapshotReader(map(directory.getLong(entry), directory.getInt(entry + 8)), sharedObjects()).read();
+		if (!(sprint instanceof Sprint)) {
+			throw new IllegalStateException("Plan store is corrupt: block " + index + " is not a sprint");
+		}
+		return (Sprint) sprint;
+	}
+
+	/**
+	 * @return the object table of the shared block, decoded on the first call.
+	 */
+	private List<Object> sharedObjects() {
+		List<Object> objects = this.shared;
+		if (objects == null) {
+			synchronized (this) {
+				objects = this.shared;
+				if (objects == null) {
+					SnapshotReader reader = new SnapshotReader(map(sharedPosition, sharedLength));
+					reader.read();
+					objects = new ArrayList<>(reader.getObjects());
+					this.shared = objects;
+				}
+			}
+		}
+		return objects;
+	}
+
+	/**
+	 * @param position Position of the block.
+	 * @param length Length of the block.
+	 * @return the mapped block.
+	 */
+	private MappedByteBuffer map(long position, int length) {
+		try {
+			if (position < 0 || length < 0 || position + length > channel.size()) {
+				throw new IllegalStateException("Plan store is corrupt: block out of the file");
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		} catch (IOException e) {
+			throw new IllegalStateException("Plan store block cannot be read", e);
+		}
+	}
+
+	/**
+	 * @param plan The planned sprints.
+	 * @return the entities referenced by the records of the sprints, in order of first reference.
+	 */
+	private static List<PlanEntity> sharedEntities(List<Sprint> plan) {
+		Map<PlanEntity, Boolean> entities = new IdentityHashMap<>();
+		List<PlanEntity> result = new ArrayList<>();
+		Consumer<PlanEntity> add = entity -> {
+			if (entity != null && entities.put(entity, Boolean.TRUE) == null) {
+				result.add(entity);
+			}
+		};
+		for (Sprint sprint : plan) {
+			for (PlanEntity release : nonNull(sprint.getReleasesToIntegration())) {
+				add.accept(release);
+			}
+			for (SprintTeamAvailability availability : nonNull(sprint.getAvailableVelocities())) {
+				add.accept(availability.getTeam());
+			}
+			for (SprintTeamActivityPlan activityPlan : nonNull(sprint.getAssignedVelocities())) {
+				add.accept(activityPlan.getTeam());
+				add.accept(activityPlan.getActivity());
+			}
+			for (SprintPersonCapacity capacity : nonNull(sprint.getSprintPersonCapacities())) {
+				add.accept(capacity.getPerson());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param <T> Type of the elements.
+	 * @param list The list, can be null.
+	 * @return the list, empty if null.
+	 */
+	private static <T> List<T> nonNull(List<T> list) {
+		return list == null ? Collections.<T> emptyList() : list;
+	}
+}
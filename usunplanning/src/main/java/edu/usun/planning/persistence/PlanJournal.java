@@ -0,0 +1,690 @@
+package edu.usun.planning.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Durable planning session: the sprints and team members of a plan, kept in a directory as a snapshot
+ * and an append-only journal of the mutations made since (see {@link JournalMutation}).
+ *
+ * Mutations are applied to the plan in memory and appended to the journal by the calling thread; a flusher thread
+ * writes the pending records and forces them to disk in batches (group commit), the returned future completes once
+ * the mutation is durable. Records are framed with their length and a CRC32 checksum, a torn record at the end of
+ * a journal segment (crash during a write) ends the replay of that segment.
+ *
+ * Records refer to existing entities by their position in the object table of the plan (see {@link SnapshotWriter}):
+ * the table of the snapshot followed by the entities introduced by the records, in order. Each snapshot stores the
+ * positions of its entities in that table, so positions stay valid across compactions.
+ * Opening a session loads the latest snapshot and replays the journal segments written after it.
+ * Compaction seals the current journal segment and, on a background thread, folds the sealed segments into a new
+ * snapshot read back from disk, independently of the live plan; it is started once a segment exceeds the
+ * compaction threshold, or by {@link #compact()}.
+ *
+ * Mutations are serialized on the session; reads of the plan concurrent with mutations must synchronize on the session.
+ *
+ * @author usun
+ */
+public class PlanJournal implements Closeable {
+
+	/** Default size of a journal segment starting a compaction, in bytes. */
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+	/** Leading bytes of a journal segment. */
+	private static final byte[] MAGIC = { 'U', 'S', 'P', 'J' };
+
+	/** Current version of the journal layout. */
+	private static final int VERSION = 1;
+
+	/** Size of the header of a segment: magic and version. */
+	private static final int HEADER_SIZE = 8;
+
+	/** Size of the frame of a record: length and checksum. */
+	private static final int FRAME_SIZE = 8;
+
+	/** Names of snapshot files, by generation. */
+	private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+	/** Names of journal segment files, by generation. */
+	private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.log");
+
+	/** The session directory. */
+	private final Path directory;
+
+	/** Sprints of the plan. */
+	private final List<Sprint> sprints;
+
+	/** Team members of the plan. */
+	private final List<TeamMember> members;
+
+	/** Size of a journal segment starting a compaction. */
+	private final long compactionThreshold;
+
+	/** Buffer of the record being encoded. */
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+	/** Encoder of records, holding the object table of the plan. */
+	private final SnapshotWriter writer;
+
+	/** Records and rotations waiting for the flusher. */
+	private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+	/** Thread writing the records. */
+	private final Thread flusher;
+
+	/** Thread folding the journal into snapshots. */
+	private final ExecutorService compactor;
+
+	/** Current journal segment, used by the flusher only. */
+	private FileChannel segment;
+
+	/** Generation of the current journal segment. */
+	private long generation;
+
+	/** Size of the current journal segment. */
+	private long segmentSize;
+
+	/** Running or last compaction. */
+	private CompletableFuture<Void> compaction;
+
+	/** True once closed. */
+	private boolean closed;
+
+	/** Failure of the journal, no further mutations are accepted. */
+	private RuntimeException failure;
+
+	/**
+	 * @param directory The session directory.
+	 * @param loaded The plan loaded from the directory.
+	 * @param compactionThreshold Size of a journal segment starting a compaction.
+	 * @throws IOException if the journal segment cannot be created.
+	 */
+	private PlanJournal(Path directory, Loaded loaded, long compactionThreshold) throws IOException {
+		super();
+		this.directory = directory;
+		this.sprints = loaded.sprints;
+		this.members = loaded.members;
+		this.compactionThreshold = compactionThreshold;
+		this.writer = new SnapshotWriter(record, loaded.objects, false);
+		this.generation = loaded.lastGeneration + 1;
+		this.segment = openSegment(directory, generation);
+		this.segmentSize = HEADER_SIZE;
+		this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "plan-journal-compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.flusher = new Thread(this::flushLoop, "plan-journal-flusher");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	/**
+	 * Creates a session in a directory with the initial plan. The session works on the given plan:
+	 * mutations of its entities are recorded against the snapshot written.
+	 * @param directory The session directory, without a session.
+	 * @param sprints Sprints of the plan.
+	 * @param members Team members of the plan, joining members are added to the list.
+	 * @return the session, to be closed.
+	 */
+	public static PlanJournal create(File directory, List<Sprint> sprints, List<TeamMember> members) {
+		Path path = directory.toPath();
+		try {
+			Files.createDirectories(path);
+			if (!files(path, SNAPSHOT).isEmpty() || !files(path, SEGMENT).isEmpty()) {
+				throw new IllegalStateException("Directory " + directory + " already holds a planning session");
+			}
+			Loaded created = new Loaded();
+			created.sprints = sprints;
+			created.members = members;
+			created.objects = writeSnapshot(path, 0, sprints, members, null);
+			created.lastGeneration = -1;
+			return new PlanJournal(path, created, DEFAULT_COMPACTION_THRESHOLD);
+		} catch (IOException e) {
+			throw new IllegalStateException("Planning session cannot be created in " + directory, e);
+		}
+	}
+
+	/**
+	 * @param directory The session directory.
+	 * @return the session with the default compaction threshold, to be closed.
+	 */
+	public static PlanJournal open(File directory) {
+		return open(directory, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	/**
+	 * Opens a session: loads the latest snapshot and replays the journal written after it.
+	 * @param directory The session directory.
+	 * @param compactionThreshold Size of a journal segment starting a compaction, in bytes.
+	 * @return the session, to be closed.
+	 */
+	public static PlanJournal open(File directory, long compactionThreshold) {
+		if (compactionThreshold <= 0) {
+			throw new IllegalArgumentException("Compaction threshold must be positive");
+		}
+		try {
+			Path path = directory.toPath();
+			Loaded loaded = load(path, Long.MAX_VALUE);
+			for (long existing : files(path, SEGMENT).keySet()) {
+				loaded.lastGeneration = Math.max(loaded.lastGeneration, existing);
+			}
+			return new PlanJournal(path, loaded, compactionThreshold);
+		} catch (IOException e) {
+			throw new IllegalStateException("Planning session cannot be opened from " + directory, e);
+		}
+	}
+
+	/**
+	 * @return the sprints of the plan
+	 */
+	public List<Sprint> getSprints() {
+		return sprints;
+	}
+
+	/**
+	 * @return the team members of the plan
+	 */
+	public List<TeamMember> getMembers() {
+		return members;
+	}
+
+	/**
+	 * @param person The person.
+	 * @param override Personal capacity override to add.
+	 * @return completion once durable.
+	 */
+	public CompletableFuture<Void> capacityOverrideAdded(Person person, CapacityOverride override) {
+		return append(JournalMutation.CAPACITY_OVERRIDE_ADDED, person, override);
+	}
+
+	/**
+	 * @param calendar Work calendar, not shared.
+	 * @param holiday Public holiday to add.
+	 * @return completion once durable.
+	 */
+	public CompletableFuture<Void> publicHolidayAdded(WorkCalendar calendar, CapacityOverride holiday) {
+		return append(JournalMutation.PUBLIC_HOLIDAY_ADDED, calendar, holiday);
+	}
+
+	/**
+	 * @param plan Activity plan of a sprint.
+	 * @param storyPoints New story points.
+	 * @return completion once durable.
+	 */
+	public CompletableFuture<Void> storyPointsChanged(SprintTeamActivityPlan plan, int storyPoints) {
+		return append(JournalMutation.STORY_POINTS_CHANGED, plan, Long.valueOf(storyPoints));
+	}
+
+	/**
+	 * @param plan Activity plan of a sprint.
+	 * @param sprint Sprint to move the plan to.
+	 * @param team Team to assign the activity to.
+	 * @return completion once durable.
+	 */
+	public CompletableFuture<Void> activityReassigned(SprintTeamActivityPlan plan, Sprint sprint, Team team) {
+		return append(JournalMutation.ACTIVITY_REASSIGNED, plan, sprint, team);
+	}
+
+	/**
+	 * @param member The joining team member.
+	 * @return completion once durable.
+	 */
+	public CompletableFuture<Void> memberJoined(TeamMember member) {
+		return append(JournalMutation.MEMBER_JOINED, member);
+	}
+
+	/**
+	 * @param member The leaving team member.
+	 * @param endDate Last day of the member in the team.
+	 * @return completion once durable.
+	 */
+	public CompletableFuture<Void> memberLeft(TeamMember member, Calendar endDate) {
+		return append(JournalMutation.MEMBER_LEFT, member, endDate);
+	}
+
+	/**
+	 * Seals the current journal segment and folds the journal into a new snapshot in the background.
+	 * @return completion of the compaction, the running one if any.
+	 */
+	public synchronized CompletableFuture<Void> compact() {
+		checkOpen();
+		if (compaction != null && !compaction.isDone()) {
+			return compaction;
+		}
+		Pending rotation = new Pending(null);
+		pending.add(rotation);
+		notifyAll();
+		compaction = rotation.rotated.thenAcceptAsync(sealed -> {
+			try {
+				fold(directory, sealed);
+			} catch (IOException e) {
+				throw new CompletionException(new IllegalStateException("Planning journal cannot be compacted", e));
+			}
+		}, compactor);
+		return compaction;
+	}
+
+	/**
+	 * Waits for the pending records and the running compaction, then closes the journal.
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+		try {
+			flusher.join();
+			compactor.shutdown();
+			compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Planning journal close interrupted", e);
+		} finally {
+			segment.close();
+		}
+	}
+
+	/**
+	 * Encodes a mutation, applies it to the plan and queues its record.
+	 * A mutation that cannot be applied is not recorded: the entities it introduced are dropped from the object table.
+	 * @param mutation The mutation.
+	 * @param args Arguments of the mutation.
+	 * @return completion once durable.
+	 */
+	private synchronized CompletableFuture<Void> append(JournalMutation mutation, Object... args) {
+		checkOpen();
+		int objectCount = writer.getObjectCount();
+		byte[] frame;
+		try {
+			record.reset();
+			record.write(new byte[FRAME_SIZE]);
+			writer.resetStrings();
+			writer.write(Long.valueOf(mutation.getTag()));
+			for (Object arg : args) {
+				writer.write(arg);
+			}
+			frame = record.toByteArray();
+		} catch (IOException | RuntimeException e) {
+			// the object table of the writer no longer matches the journal
+			failure = new IllegalStateException("Planning journal is inconsistent after a failed append", e);
+			throw failure;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(frame, FRAME_SIZE, frame.length - FRAME_SIZE);
+		ByteBuffer.wrap(frame).putInt(frame.length - FRAME_SIZE).putInt((int) crc.getValue());
+		try {
+			mutation.apply(members, args);
+		} catch (RuntimeException e) {
+			writer.truncateObjects(objectCount);
+			throw e;
+		}
+		Pending entry = new Pending(ByteBuffer.wrap(frame));
+		pending.add(entry);
+		notifyAll();
+		return entry.written;
+	}
+
+	/**
+	 * @throws IllegalStateException if the journal is closed or failed.
+	 */
+	private void checkOpen() {
+		if (failure != null) {
+			throw failure;
+		}
+		if (closed) {
+			throw new IllegalStateException("Planning journal is closed");
+		}
+	}
+
+	/**
+	 * Writes the pending records in batches until closed.
+	 */
+	private void flushLoop() {
+		List<Pending> batch = new ArrayList<>();
+		while (true) {
+			synchronized (this) {
+				while (pending.isEmpty() && !closed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				if (pending.isEmpty()) {
+					return;
+				}
+				batch.addAll(pending);
+				pending.clear();
+			}
+			flush(batch);
+			batch.clear();
+			boolean compact;
+			synchronized (this) {
+				compact = segmentSize >= compactionThreshold && !closed && failure == null
+					&& (compaction == null || compaction.isDone());
+			}
+			if (compact) {
+				try {
+					compact();
+				} catch (IllegalStateException e) {
+					// closed or failed meanwhile
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes and forces a batch of records, rotating the segment at rotations.
+	 * @param batch Records and rotations, in order.
+	 */
+	private void flush(List<Pending> batch) {
+		List<Pending> written = new ArrayList<>();
+		try {
+			for (Pending entry : batch) {
+				if (entry.record != null) {
+					while (entry.record.hasRemaining()) {
+						segment.write(entry.record);
+					}
+					segmentSize += entry.record.limit();
+					written.add(entry);
+				} else {
+					segment.force(false);
+					complete(written);
+					segment.close();
+					segment = openSegment(directory, generation + 1);
+					entry.rotated.complete(generation + 1);
+					generation++;
+					segmentSize = HEADER_SIZE;
+				}
+			}
+			segment.force(false);
+			complete(written);
+		} catch (IOException | RuntimeException e) {
+			IllegalStateException error = new IllegalStateException("Planning journal cannot be written", e);
+			synchronized (this) {
+				failure = error;
+			}
+			for (Pending entry : batch) {
+				if (entry.record != null) {
+					entry.written.completeExceptionally(error);
+				} else {
+					entry.rotated.completeExceptionally(error);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param written Records forced to disk, cleared.
+	 */
+	private static void complete(List<Pending> written) {
+		for (Pending entry : written) {
+			entry.written.complete(null);
+		}
+		written.clear();
+	}
+
+	/**
+	 * @param directory The session directory.
+	 * @param generation Generation of the segment.
+	 * @return the new segment, with its header written.
+	 * @throws IOException if the segment cannot be created.
+	 */
+	private static FileChannel openSegment(Path directory, long generation) throws IOException {
+		FileChannel channel = FileChannel.open(directory.resolve(name("journal", generation, ".log")),
+			StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(VERSION);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		channel.force(true);
+		return channel;
+	}
+
+	/**
+	 * Folds the sealed journal segments into a snapshot and deletes the files it supersedes.
+	 * @param directory The session directory.
+	 * @param generation Generation of the new snapshot: the segments before it are sealed.
+	 * @throws IOException if the files cannot be read or written.
+	 */
+	static void fold(Path directory, long generation) throws IOException {
+		Loaded loaded = load(directory, generation);
+		writeSnapshot(directory, generation, loaded.sprints, loaded.members, loaded.objects);
+		for (Map.Entry<Long, Path> snapshot : files(directory, SNAPSHOT).headMap(generation).entrySet()) {
+			Files.deleteIfExists(snapshot.getValue());
+		}
+		for (Map.Entry<Long, Path> sealed : files(directory, SEGMENT).headMap(generation).entrySet()) {
+			Files.deleteIfExists(sealed.getValue());
+		}
+	}
+
+	/**
+	 * Loads the latest snapshot before a generation and replays the journal segments after it.
+	 * @param directory The session directory.
+	 * @param limit Generation of the first segment not to replay.
+	 * @return the plan and its object table.
+	 * @throws IOException if the files cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	static Loaded load(Path directory, long limit) throws IOException {
+		Map.Entry<Long, Path> latest = files(directory, SNAPSHOT).floorEntry(limit);
+		if (latest == null) {
+			throw new IllegalStateException("No plan snapshot in " + directory);
+		}
+		SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(Files.readAllBytes(latest.getValue())));
+		Loaded loaded = new Loaded();
+		loaded.sprints = new ArrayList<>((List<Sprint>) reader.read());
+		loaded.members = new ArrayList<>((List<TeamMember>) reader.read());
+		List<Object> positions = (List<Object>) reader.read();
+		List<Object> table = reader.getObjects();
+
+		// Exactly the object table of the writer the records were appended with: entities of the snapshot
+		// it never wrote (e.g. holidays copied by interning) stay out of the positions the records refer to
+		List<Object> objects = new ArrayList<>(positions.size());
+		for (Object position : positions) {
+			int p = ((Long) position).intValue();
+			objects.add(p < 0 ? null : table.get(p));
+		}
+
+		SnapshotReader replay = new SnapshotReader(objects);
+		loaded.lastGeneration = latest.getKey() - 1;
+		for (Map.Entry<Long, Path> segment : files(directory, SEGMENT).subMap(latest.getKey(), limit).entrySet()) {
+			replay(segment.getValue(), replay, loaded.members);
+			loaded.lastGeneration = segment.getKey();
+		}
+		loaded.objects = new ArrayList<>(replay.getObjects());
+		return loaded;
+	}
+
+	/**
+	 * Replays the records of a segment up to its end or its first torn record.
+	 * @param file The segment.
+	 * @param reader Reader holding the object table of the plan.
+	 * @param members Team members of the plan.
+	 * @throws IOException if the segment cannot be read.
+	 */
+	private static void replay(Path file, SnapshotReader reader, List<TeamMember> members) throws IOException {
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		for (byte b : MAGIC) {
+			if (!buffer.hasRemaining() || buffer.get() != b) {
+				throw new IllegalStateException("Not a planning journal: " + file);
+			}
+		}
+		if (buffer.remaining() < HEADER_SIZE - MAGIC.length || buffer.getInt() > VERSION) {
+			throw new IllegalStateException("Planning journal " + file + " is of a newer version");
+		}
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= FRAME_SIZE) {
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				break;
+			}
+			crc.reset();
+			crc.update(bytes, buffer.position(), length);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			ByteBuffer record = ByteBuffer.wrap(bytes, buffer.position(), length);
+			buffer.position(buffer.position() + length);
+			reader.reset(record);
+			JournalMutation.replay(reader, members);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the plan with the positions of its entities in the object table, replacing the file atomically.
+	 * @param directory The session directory.
+	 * @param generation Generation of the snapshot.
+	 * @param sprints Sprints of the plan.
+	 * @param members Team members of the plan.
+	 * @param objects Object table of the plan, records refer to its positions; null if the records will refer to
+	 * the positions of the snapshot itself (a new session).
+	 * @return the object table of the snapshot.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private static List<Object> writeSnapshot(Path directory, long generation, List<Sprint> sprints, List<TeamMember> members,
+		List<Object> objects) throws IOException {
+		Path target = directory.resolve(name("snapshot", generation, ".bin"));
+		Path temporary = directory.resolve(name("snapshot", generation, ".tmp"));
+		List<Object> table;
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream out = Channels.newOutputStream(channel);
+			SnapshotWriter snapshot = new SnapshotWriter(out);
+			snapshot.write(sprints);
+			snapshot.write(members);
+			Map<Object, Integer> written = new IdentityHashMap<>();
+			table = snapshot.getObjects();
+			for (int i = 0; i < table.size(); i++) {
+				written.put(table.get(i), i);
+			}
+			List<Long> positions = new ArrayList<>(objects == null ? table.size() : objects.size());
+			if (objects == null) {
+				for (int i = 0; i < table.size(); i++) {
+					positions.add((long) i);
+				}
+			} else {
+				for (Object object : objects) {
+					Integer position = object == null ? null : written.get(object);
+					positions.add(position == null ? -1L : position.longValue());
+				}
+			}
+			snapshot.write(positions);
+			channel.force(true);
+		}
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return table;
+	}
+
+	/**
+	 * @param directory The session directory.
+	 * @param pattern Pattern of the file names, capturing the generation.
+	 * @return the files by generation.
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	private static TreeMap<Long, Path> files(Path directory, Pattern pattern) throws IOException {
+		TreeMap<Long, Path> files = new TreeMap<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+			for (Path entry : entries) {
+				Matcher matcher = pattern.matcher(entry.getFileName().toString());
+				if (matcher.matches()) {
+					files.put(Long.parseLong(matcher.group(1)), entry);
+				}
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * @param prefix Prefix of the file name.
+	 * @param generation Generation of the file.
+	 * @param suffix Suffix of the file name.
+	 * @return the file name, sorting by generation.
+	 */
+	private static String name(String prefix, long generation, String suffix) {
+		return String.format("%s-%016d%s", prefix, generation, suffix);
+	}
+
+	/**
+	 * Plan loaded from a session directory.
+	 */
+	static final class Loaded {
+
+		/** Sprints of the plan. */
+		List<Sprint> sprints;
+
+		/** Team members of the plan. */
+		List<TeamMember> members;
+
+		/** Object table of the plan. */
+		List<Object> objects;
+
+		/** Generation of the last replayed segment. */
+		long lastGeneration;
+	}
+
+	/**
+	 * Record or segment rotation waiting for the flusher.
+	 */
+	private static final class Pending {
+
+		/** Framed record, null for a rotation. */
+		final ByteBuffer record;
+
+		/** Completion of a record once durable. */
+		final CompletableFuture<Void> written = new CompletableFuture<>();
+
+		/** Completion of a rotation with the generation of the new segment. */
+		final CompletableFuture<Long> rotated = new CompletableFuture<>();
+
+		/**
+		 * @param record Framed record, null for a rotation.
+		 */
+		Pending(ByteBuffer record) {
+			this.record = record;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package edu.usun.planning.persistence;
+
+/**
+ * Constants of the binary snapshot format.
+ *
+ * A snapshot starts with the {@link #MAGIC} bytes and the format {@link #VERSION} as a varint, followed by
+ * the root value as its wire type and the value. Values are encoded by wire type:
+ * <ul>
+ * <li>{@link #VARINT}: zigzag varint.</li>
+ * <li>{@link #STRING}: varint 0 for null, 1 for a new string followed by its UTF-8 length and bytes
+ * (added to the string table), n + 2 for the string n of the table.</li>
+ * <li>{@link #DECIMAL}: zigzag varint of the scale shifted left by one, the low bit set if the unscaled value
+ * does not fit into a long, then the unscaled value as a zigzag varint, or as its length and two's-complement bytes.</li>
+ * <li>{@link #DATE}: epoch day as a zigzag varint.</li>
+ * <li>{@link #REFERENCE}: varint 0 for null, 1 for a new object followed by its type tag, its fields and {@link #END}
+ * (added to the object table before its fields, so that cycles refer back to it), n + 2 for the object n of the table.</li>
+ * <li>{@link #LIST}: varint size, wire type of the elements and the elements.</li>
+ * </ul>
+ * A field is a varint key, the field number shifted left by three with the wire type in the low bits, followed by its value.
+ * Null fields are not written. Type tags and field numbers are never reused, readers skip unknown fields by their wire type,
+ * so snapshots stay readable across versions (see {@link EntityType}).
+ *
+ * @author usun
+ */
+final class SnapshotFormat {
+
+	/** Leading bytes of a snapshot. */
+	static final byte[] MAGIC = { 'U', 'S', 'P', 'S' };
+
+	/** Current version of the format. */
+	static final int VERSION = 1;
+
+	/** End of the fields of an object. */
+	static final int END = 0;
+
+	/** Wire type of integers. */
+	static final int VARINT = 0;
+
+	/** Wire type of strings and enumeration names. */
+	static final int STRING = 1;
+
+	/** Wire type of decimals. */
+	static final int DECIMAL = 2;
+
+	/** Wire type of dates. */
+	static final int DATE = 3;
+
+	/** Wire type of entities. */
+	static final int REFERENCE = 4;
+
+	/** Wire type of lists. */
+	static final int LIST = 5;
+
+	/** Number of bits of the wire type in a field key. */
+	static final int WIRE_BITS = 3;
+
+	/** Mask of the wire type in a field key. */
+	static final int WIRE_MASK = (1 << WIRE_BITS) - 1;
+
+	/**
+	 * Constants only.
+	 */
+	private SnapshotFormat() {
+		super();
+	}
+}
@@ -0,0 +1,444 @@
+package edu.usun.planning.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import edu.usun.planning.PlanEntity;
+import edu.usun.planning.calendar.EpochDays;
+
+/**
+ * Reader of binary snapshots written by {@link SnapshotWriter}.
+ *
+ * The reader decodes from a byte buffer, which can be a heap buffer or a memory-mapped file.
+ * Entities are registered in the object table before their fields are read, so back-references
+ * and cycles resolve to the same instances. Fields and entity types unknown to this version are skipped,
+ * references to skipped entities read as null; snapshots of a newer format version are rejected.
+ * Fields missing from the snapshot keep the defaults of the entity constructor.
+ *
+ * Roots are read in the order they were written and share the tables of the reader. The reader is not thread-safe.
+ *
+ * @author usun
+ */
+public class SnapshotReader {
+
+	/** Source buffer. */
+	private ByteBuffer buffer;
+
+	/** Read objects by position, null for skipped ones. */
+	private final List<Object> objects = new ArrayList<>();
+
+	/** True if the entity being decoded was shared when written. */
+	private boolean shared;
+
+	/** Read strings by position. */
+	private final List<String> strings = new ArrayList<>();
+
+	/** Scratch array for strings of direct buffers. */
+	private byte[] scratch = new byte[256];
+
+	/**
+	 * Reads the header of the snapshot.
+	 * @param buffer Source buffer, read from its position.
+	 * @throws IllegalStateException if the buffer is not a snapshot or its version is not supported.
+	 */
+	public SnapshotReader(ByteBuffer buffer) {
+		this(buffer, Collections.emptyList());
+	}
+
+	/**
+	 * Reads the header of a snapshot referring to objects known to the reader (see {@link SnapshotWriter#SnapshotWriter(java.io.OutputStream, List)}).
+	 * @param buffer Source buffer, read from its position.
+	 * @param references Objects referenced by the snapshot, in the order given to the writer.
+	 * @throws IllegalStateException if the buffer is not a snapshot or its version is not supported.
+	 */
+	public SnapshotReader(ByteBuffer buffer, List<?> references) {
+		super();
+		this.buffer = buffer;
+		this.objects.addAll(references);
+		try {
+			for (byte b : SnapshotFormat.MAGIC) {
+				if (buffer.get() != b) {
+					throw new IllegalStateException("Not a plan snapshot");
+				}
+			}
+			long version = varint();
+			if (version > SnapshotFormat.VERSION) {
+				throw new IllegalStateException("Snapshot format version " + version + " is newer than the supported version "
+					+ SnapshotFormat.VERSION);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalStateException("Not a plan snapshot", e);
+		}
+	}
+
+	/**
+	 * Reader of values without a header, see {@link #reset(ByteBuffer)}.
+	 * @param references Objects referenced by the values, in the order given to the writer.
+	 */
+	SnapshotReader(List<?> references) {
+		super();
+		this.objects.addAll(references);
+	}
+
+	/**
+	 * @param in Source stream, read to its end.
+	 * @return the first root of the snapshot.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	public static Object read(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] chunk = new byte[1 << 16];
+		for (int n = in.read(chunk); n >= 0; n = in.read(chunk)) {
+			bytes.write(chunk, 0, n);
+		}
+		return fromBytes(bytes.toByteArray());
+	}
+
+	/**
+	 * @param bytes The snapshot.
+	 * @return the first root of the snapshot.
+	 */
+	public static Object fromBytes(byte[] bytes) {
+		return new SnapshotReader(ByteBuffer.wrap(bytes)).read();
+	}
+
+	/**
+	 * @return true if there is another root to read.
+	 */
+	public boolean hasNext() {
+		return buffer.hasRemaining();
+	}
+
+	/**
+	 * Reads the next root value.
+	 * @return the root: entity, list, string, decimal, date or long.
+	 * @throws IllegalStateException if the snapshot is truncated or corrupt.
+	 */
+	public Object read() {
+		try {
+			return value(wire(varint()));
+		} catch (BufferUnderflowException e) {
+			throw new IllegalStateException("Snapshot is truncated", e);
+		}
+	}
+
+	/**
+	 * Continues reading from another buffer with an empty string table, keeping the object table.
+	 * @param buffer Source buffer, read from its position.
+	 */
+	void reset(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.strings.clear();
+	}
+
+	/**
+	 * @return the objects read so far, by position in the object table.
+	 */
+	List<Object> getObjects() {
+		return Collections.unmodifiableList(objects);
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @return the string.
+	 */
+	String string(int wire) {
+		expect(wire, SnapshotFormat.STRING);
+		return stringValue();
+	}
+
+	/**
+	 * @param <E> Type of the enumeration.
+	 * @param wire Wire type of the value.
+	 * @param type Type of the enumeration.
+	 * @return the constant of the name, null if unknown.
+	 */
+	<E extends Enum<E>> E enumeration(int wire, Class<E> type) {
+		return constant(type, string(wire));
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @return the decimal.
+	 */
+	BigDecimal decimal(int wire) {
+		expect(wire, SnapshotFormat.DECIMAL);
+		return decimalValue();
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @return the date.
+	 */
+	Calendar date(int wire) {
+		expect(wire, SnapshotFormat.DATE);
+		return EpochDays.toCalendar(signed());
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @return the integer.
+	 */
+	int integer(int wire) {
+		expect(wire, SnapshotFormat.VARINT);
+		return (int) signed();
+	}
+
+	/**
+	 * @param <T> Type of the entity.
+	 * @param wire Wire type of the value.
+	 * @param type Type of the entity.
+	 * @return the entity.
+	 */
+	<T> T reference(int wire, Class<T> type) {
+		expect(wire, SnapshotFormat.REFERENCE);
+		return cast(type, referenceValue());
+	}
+
+	/**
+	 * @param <T> Type of the elements.
+	 * @param wire Wire type of the value.
+	 * @param type Type of the elements: entity or enumeration.
+	 * @return the list.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	<T> List<T> list(int wire, Class<T> type) {
+		expect(wire, SnapshotFormat.LIST);
+		int size = size();
+		int elementWire = wire(varint());
+		List<T> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Object element = value(elementWire);
+			if (type.isEnum() && element instanceof String) {
+				element = constant((Class) type, (String) element);
+			}
+			list.add(cast(type, element));
+		}
+		return list;
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @return the value.
+	 */
+	private Object value(int wire) {
+		switch (wire) {
+		case SnapshotFormat.VARINT:
+			return signed();
+		case SnapshotFormat.STRING:
+			return stringValue();
+		case SnapshotFormat.DECIMAL:
+			return decimalValue();
+		case SnapshotFormat.DATE:
+			return EpochDays.toCalendar(signed());
+		case SnapshotFormat.LIST:
+			return list(wire, Object.class);
+		default:
+			return referenceValue();
+		}
+	}
+
+	/**
+	 * @return the string, can be null.
+	 */
+	private String stringValue() {
+		long index = varint();
+		if (index == 0) {
+			return null;
+		}
+		if (index > 1) {
+			if (index - 2 >= strings.size()) {
+				throw new IllegalStateException("Snapshot is corrupt: unknown string " + (index - 2));
+			}
+			return strings.get((int) (index - 2));
+		}
+		int length = size();
+		String value;
+		if (buffer.hasArray()) {
+			value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		} else {
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			buffer.get(scratch, 0, length);
+			value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+		strings.add(value);
+		return value;
+	}
+
+	/**
+	 * @return the decimal.
+	 */
+	private BigDecimal decimalValue() {
+		long header = signed();
+		int scale = (int) (header >> 1);
+		if ((header & 1) == 0) {
+			return BigDecimal.valueOf(signed(), scale);
+		}
+		byte[] bytes = new byte[size()];
+		buffer.get(bytes);
+		return new BigDecimal(new BigInteger(bytes), scale);
+	}
+
+	/**
+	 * Reads a reference, decoding a new entity with its fields.
+	 * @return the entity, null for null or skipped entities.
+	 */
+	private Object referenceValue() {
+		long index = varint();
+		if (index == 0) {
+			return null;
+		}
+		if (index > 1) {
+			if (index - 2 >= objects.size()) {
+				throw new IllegalStateException("Snapshot is corrupt: unknown object " + (index - 2));
+			}
+			return objects.get((int) (index - 2));
+		}
+		long tag = varint();
+		EntityType type = tag > Integer.MAX_VALUE ? null : EntityType.of((int) tag);
+		PlanEntity entity = type == null ? null : type.newInstance();
+		int position = objects.size();
+		objects.add(entity);
+		boolean outerShared = shared;
+		shared = false;
+		for (long key = varint(); key != SnapshotFormat.END; key = varint()) {
+			int wire = wire(key & SnapshotFormat.WIRE_MASK);
+			long field = key >>> SnapshotFormat.WIRE_BITS;
+			if (entity == null) {
+				skip(wire);
+			} else if (field == EntityType.NAME) {
+				entity.setName(string(wire));
+			} else if (field > Integer.MAX_VALUE || !type.read(this, entity, (int) field, wire)) {
+				skip(wire);
+			}
+		}
+		if (shared) {
+			// later back-references resolve to the shared instance as well
+			entity = type.share(entity);
+			objects.set(position, entity);
+		}
+		shared = outerShared;
+		return entity;
+	}
+
+	/**
+	 * Marks the entity being decoded as shared when written, it is replaced by its shared instance once decoded.
+	 */
+	void markShared() {
+		shared = true;
+	}
+
+	/**
+	 * Skips a value, registering the strings and objects it contains.
+	 * @param wire Wire type of the value.
+	 */
+	private void skip(int wire) {
+		switch (wire) {
+		case SnapshotFormat.VARINT:
+		case SnapshotFormat.DATE:
+			varint();
+			break;
+		default:
+			value(wire);
+		}
+	}
+
+	/**
+	 * @param <T> Expected type.
+	 * @param type Expected type.
+	 * @param value The value, can be null.
+	 * @return the value.
+	 */
+	private static <T> T cast(Class<T> type, Object value) {
+		if (value != null && !type.isInstance(value)) {
+			throw new IllegalStateException("Snapshot is corrupt: " + value.getClass().getName()
+				+ " found instead of " + type.getName());
+		}
+		return type.cast(value);
+	}
+
+	/**
+	 * @param <E> Type of the enumeration.
+	 * @param type Type of the enumeration.
+	 * @param name Name of the constant, can be null.
+	 * @return the constant, null if unknown.
+	 */
+	private static <E extends Enum<E>> E constant(Class<E> type, String name) {
+		if (name == null) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(type, name);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @param expected Wire type of the field.
+	 */
+	private static void expect(int wire, int expected) {
+		if (wire != expected) {
+			throw new IllegalStateException("Snapshot is corrupt: wire type " + wire + " found instead of " + expected);
+		}
+	}
+
+	/**
+	 * @param wire Wire type read from the snapshot.
+	 * @return the wire type.
+	 */
+	private static int wire(long wire) {
+		if (wire < SnapshotFormat.VARINT || wire > SnapshotFormat.LIST) {
+			throw new IllegalStateException("Snapshot is corrupt: unknown wire type " + wire);
+		}
+		return (int) wire;
+	}
+
+	/**
+	 * @return size of a list or byte array, each element takes at least one byte.
+	 */
+	private int size() {
+		long size = varint();
+		if (size > buffer.remaining()) {
+			throw new IllegalStateException("Snapshot is corrupt: size " + size);
+		}
+		return (int) size;
+	}
+
+	/**
+	 * @return signed value, zigzag encoded.
+	 */
+	private long signed() {
+		long value = varint();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * @return unsigned value.
+	 */
+	private long varint() {
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalStateException("Snapshot is corrupt: malformed varint");
+	}
+}
@@ -0,0 +1,459 @@
+package edu.usun.planning.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.usun.planning.PlanEntity;
+import edu.usun.planning.calendar.EpochDays;
+
+/**
+ * Writer of binary snapshots of the plan graph (see {@link SnapshotFormat} for the encoding).
+ *
+ * Every entity is written once, later references to it (shared teams, streams, releases, cycles such as
+ * activity &rarr; stream &rarr; activities) are back-references to its position in the object table.
+ * Names and references are written once as well, later occurrences refer to the string table.
+ * Dates are written as epoch days (time of day and time zone are not kept), decimals as varint unscaled value and scale.
+ * The writer buffers its output, {@link #write(Object)} flushes the buffer but does not close the stream.
+ *
+ * Objects written by the same writer share its tables, so several roots can be written one after the other and
+ * read back with one {@link SnapshotReader}. The writer is not thread-safe.
+ *
+ * @author usun
+ */
+public class SnapshotWriter {
+
+	/** Size of the output buffer. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Target stream. */
+	private final OutputStream out;
+
+	/** Output buffer. */
+	private byte[] buffer = new byte[BUFFER_SIZE];
+
+	/** Position in the output buffer. */
+	private int position;
+
+	/** Positions of the written objects. */
+	private final Map<Object, Integer> objects = new IdentityHashMap<>();
+
+	/** Size of the object table, including references given to the constructor. */
+	private int objectCount;
+
+	/** Positions of the written strings. */
+	private final Map<String, Integer> strings = new HashMap<>();
+
+	/**
+	 * Writes the header of the snapshot.
+	 * @param out Target stream.
+	 * @throws IOException if the header cannot be written.
+	 */
+	public SnapshotWriter(OutputStream out) throws IOException {
+		this(out, Collections.emptyList());
+	}
+
+	/**
+	 * Writes the header of a snapshot referring to objects known to the reader, e.g. entities shared by several snapshots.
+	 * @param out Target stream.
+	 * @param references Objects written as back-references, in the order given to the {@link SnapshotReader}.
+	 * @throws IOException if the header cannot be written.
+	 */
+	public SnapshotWriter(OutputStream out, List<?> references) throws IOException {
+		this(out, references, true);
+	}
+
+	/**
+	 * @param out Target stream.
+	 * @param references Objects written as back-references, in the order given to the {@link SnapshotReader}.
+	 * @param header False to leave out the header, for values embedded in another format.
+	 * @throws IOException if the header cannot be written.
+	 */
+	SnapshotWriter(OutputStream out, List<?> references, boolean header) throws IOException {
+		super();
+		this.out = out;
+		for (Object reference : references) {
+			if (reference != null) {
+				objects.putIfAbsent(reference, objectCount);
+			}
+			objectCount++;
+		}
+		if (header) {
+			ensure(SnapshotFormat.MAGIC.length);
+			System.arraycopy(SnapshotFormat.MAGIC, 0, buffer, position, SnapshotFormat.MAGIC.length);
+			position += SnapshotFormat.MAGIC.length;
+			varint(SnapshotFormat.VERSION);
+		}
+	}
+
+	/**
+	 * @param root Entity or list of entities.
+	 * @return the snapshot of the root.
+	 */
+	public static byte[] toBytes(Object root) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			new SnapshotWriter(bytes).write(root);
+		} catch (IOException e) {
+			throw new IllegalStateException("Snapshot cannot be written", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a root value and flushes the stream.
+	 * @param root Entity, list of entities or values, string, decimal, date or integer, can be null.
+	 * @throws IOException if the snapshot cannot be written.
+	 * @throws IllegalArgumentException if the value or a referenced entity has no snapshot encoding.
+	 */
+	public void write(Object root) throws IOException {
+		int wire = wireType(root);
+		varint(wire);
+		value(wire, root);
+		flush();
+	}
+
+	/**
+	 * Writes the buffered bytes to the stream.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	public void flush() throws IOException {
+		out.write(buffer, 0, position);
+		position = 0;
+		out.flush();
+	}
+
+	/**
+	 * Clears the string table, so that the next values do not refer to strings written before.
+	 */
+	void resetStrings() {
+		strings.clear();
+	}
+
+	/**
+	 * @return the objects written or referenced so far, by position in the object table.
+	 */
+	List<Object> getObjects() {
+		Object[] table = new Object[objectCount];
+		for (Map.Entry<Object, Integer> entry : objects.entrySet()) {
+			table[entry.getValue()] = entry.getKey();
+		}
+		return Arrays.asList(table);
+	}
+
+	/**
+	 * @return the size of the object table, including references given to the constructor.
+	 */
+	int getObjectCount() {
+		return objectCount;
+	}
+
+	/**
+	 * Forgets the objects written since the object table had the given size, e.g. when the values written
+	 * since are discarded.
+	 * @param count Size of the object table to return to.
+	 */
+	void truncateObjects(int count) {
+		if (count < objectCount) {
+			objects.values().removeIf(position -> position >= count);
+			objectCount = count;
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The string, not written if null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void string(int field, String value) throws IOException {
+		if (value != null) {
+			key(field, SnapshotFormat.STRING);
+			stringValue(value);
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The enumeration constant, written by name, not written if null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void enumeration(int field, Enum<?> value) throws IOException {
+		if (value != null) {
+			key(field, SnapshotFormat.STRING);
+			stringValue(value.name());
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The decimal, not written if null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void decimal(int field, BigDecimal value) throws IOException {
+		if (value != null) {
+			key(field, SnapshotFormat.DECIMAL);
+			decimalValue(value);
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The date, not written if null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void date(int field, Calendar value) throws IOException {
+		if (value != null) {
+			key(field, SnapshotFormat.DATE);
+			signed(EpochDays.toEpochDay(value));
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The integer, not written if 0.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void integer(int field, long value) throws IOException {
+		if (value != 0) {
+			key(field, SnapshotFormat.VARINT);
+			signed(value);
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The entity, not written if null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void reference(int field, PlanEntity value) throws IOException {
+		if (value != null) {
+			key(field, SnapshotFormat.REFERENCE);
+			referenceValue(value);
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param value The list, not written if null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	void list(int field, List<?> value) throws IOException {
+		if (value != null) {
+			key(field, SnapshotFormat.LIST);
+			listValue(value);
+		}
+	}
+
+	/**
+	 * @param value The value.
+	 * @return wire type of the value.
+	 */
+	private static int wireType(Object value) {
+		if (value == null || value instanceof PlanEntity) {
+			return SnapshotFormat.REFERENCE;
+		}
+		if (value instanceof String || value instanceof Enum) {
+			return SnapshotFormat.STRING;
+		}
+		if (value instanceof BigDecimal) {
+			return SnapshotFormat.DECIMAL;
+		}
+		if (value instanceof Calendar) {
+			return SnapshotFormat.DATE;
+		}
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return SnapshotFormat.VARINT;
+		}
+		if (value instanceof List) {
+			return SnapshotFormat.LIST;
+		}
+		throw new IllegalArgumentException("Value of " + value.getClass().getName() + " has no snapshot encoding");
+	}
+
+	/**
+	 * @param wire Wire type of the value.
+	 * @param value The value.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void value(int wire, Object value) throws IOException {
+		switch (wire) {
+		case SnapshotFormat.VARINT:
+			signed(((Number) value).longValue());
+			break;
+		case SnapshotFormat.STRING:
+			stringValue(value instanceof Enum ? ((Enum<?>) value).name() : (String) value);
+			break;
+		case SnapshotFormat.DECIMAL:
+			decimalValue((BigDecimal) value);
+			break;
+		case SnapshotFormat.DATE:
+			signed(EpochDays.toEpochDay((Calendar) value));
+			break;
+		case SnapshotFormat.LIST:
+			listValue((List<?>) value);
+			break;
+		default:
+			referenceValue((PlanEntity) value);
+		}
+	}
+
+	/**
+	 * @param value The string, can be null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void stringValue(String value) throws IOException {
+		if (value == null) {
+			varint(0);
+			return;
+		}
+		Integer index = strings.get(value);
+		if (index != null) {
+			varint(index.longValue() + 2);
+			return;
+		}
+		strings.put(value, strings.size());
+		varint(1);
+		int length = value.length();
+		boolean ascii = true;
+		for (int i = 0; i < length && ascii; i++) {
+			ascii = value.charAt(i) < 0x80;
+		}
+		if (ascii) {
+			varint(length);
+			ensure(length);
+			for (int i = 0; i < length; i++) {
+				buffer[position++] = (byte) value.charAt(i);
+			}
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			varint(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			position += bytes.length;
+		}
+	}
+
+	/**
+	 * @param value The decimal.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void decimalValue(BigDecimal value) throws IOException {
+		BigInteger unscaled = value.unscaledValue();
+		long scale = (long) value.scale() << 1;
+		if (unscaled.bitLength() < Long.SIZE) {
+			signed(scale);
+			signed(unscaled.longValue());
+		} else {
+			signed(scale | 1);
+			byte[] bytes = unscaled.toByteArray();
+			varint(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			position += bytes.length;
+		}
+	}
+
+	/**
+	 * @param value The entity, can be null.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void referenceValue(PlanEntity value) throws IOException {
+		if (value == null) {
+			varint(0);
+			return;
+		}
+		Integer index = objects.get(value);
+		if (index != null) {
+			varint(index.longValue() + 2);
+			return;
+		}
+		EntityType type = EntityType.of(value.getClass());
+		objects.put(value, objectCount++);
+		varint(1);
+		varint(type.getTag());
+		string(EntityType.NAME, value.getName());
+		type.write(this, value);
+		varint(SnapshotFormat.END);
+	}
+
+	/**
+	 * @param value The list.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void listValue(List<?> value) throws IOException {
+		int wire = SnapshotFormat.REFERENCE;
+		for (Object element : value) {
+			if (element != null) {
+				wire = wireType(element);
+				break;
+			}
+		}
+		if (wire != SnapshotFormat.REFERENCE && wire != SnapshotFormat.STRING && value.contains(null)) {
+			throw new IllegalArgumentException("List of values with a null element has no snapshot encoding");
+		}
+		varint(value.size());
+		varint(wire);
+		for (Object element : value) {
+			if (element != null && wireType(element) != wire) {
+				throw new IllegalArgumentException("List of mixed values has no snapshot encoding");
+			}
+			value(wire, element);
+		}
+	}
+
+	/**
+	 * @param field Field number.
+	 * @param wire Wire type of the value.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void key(int field, int wire) throws IOException {
+		varint(((long) field << SnapshotFormat.WIRE_BITS) | wire);
+	}
+
+	/**
+	 * @param value Signed value, zigzag encoded.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void signed(long value) throws IOException {
+		varint((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * @param value Unsigned value.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	private void varint(long value) throws IOException {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	/**
+	 * Makes room for bytes in the buffer, flushing it or growing it for large values.
+	 * @param length Number of bytes.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private void ensure(int length) throws IOException {
+		if (position + length <= buffer.length) {
+			return;
+		}
+		out.write(buffer, 0, position);
+		position = 0;
+		if (length > buffer.length) {
+			buffer = new byte[length];
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
 import edu.usun.planning.PlanEntity;
+import edu.usun.planning.calendar.EpochDays;
 
 /**
  * Release drop information (e.g. corresponds to JIRA release entity, 
@@ -142,6 +143,20 @@ public class Release extends PlanEntity {
 	public void setDeliveryToCustomer(Calendar deliveryToCustomer) {
 		this.deliveryToCustomer = deliveryToCustomer;
 	}
+
+	/**
+	 * @return the deliveryToIntegration as epoch-day, {@link EpochDays#MAX_DAY} if not set
+	 */
+	public long getDeliveryToIntegrationEpochDay() {
+		return EpochDays.toEpochDay(this.deliveryToIntegration, EpochDays.MAX_DAY);
+	}
+
+	/**
+	 * @return the deliveryToCustomer as epoch-day, {@link EpochDays#MAX_DAY} if not set
+	 */
+	public long getDeliveryToCustomerEpochDay() {
+		return EpochDays.toEpochDay(this.deliveryToCustomer, EpochDays.MAX_DAY);
+	}
 	
 	/**
 	 * @see java.lang.Object#toString()
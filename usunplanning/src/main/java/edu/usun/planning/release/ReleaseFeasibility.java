@@ -0,0 +1,117 @@
+package edu.usun.planning.release;
+
+import edu.usun.planning.calendar.EpochDays;
+
+/**
+ * Feasibility of a release in the current plan: the release completes at the end of the last sprint
+ * with a plan row for any of its activities, and is feasible when all its activities are fully planned,
+ * none of their rows is in an overcommitted sprint team velocity and it completes by both delivery dates.
+ * 
+ * @author usun
+ */
+public class ReleaseFeasibility {
+
+	/** The release. */
+	private final Release release;
+
+	/** Completion day, {@link EpochDays#MIN_DAY} if no row is planned. */
+	private final long completionEpochDay;
+
+	/** Whether all activities of the release are planned up to their remaining estimate. */
+	private final boolean fullyPlanned;
+
+	/** Number of plan rows of the release in sprint team velocities with more story points than velocity. */
+	private final int overcommittedRows;
+
+	/**
+	 * @param release The release.
+	 * @param completionEpochDay Completion day, {@link EpochDays#MIN_DAY} if no row is planned.
+	 * @param fullyPlanned Whether all activities of the release are planned up to their remaining estimate.
+	 * @param overcommittedRows Number of plan rows of the release in overcommitted sprint team velocities.
+	 */
+	public ReleaseFeasibility(Release release, long completionEpochDay, boolean fullyPlanned, int overcommittedRows) {
+		super();
+		this.release = release;
+		this.completionEpochDay = completionEpochDay;
+		this.fullyPlanned = fullyPlanned;
+		this.overcommittedRows = overcommittedRows;
+	}
+
+	/**
+	 * @return the release
+	 */
+	public Release getRelease() {
+		return release;
+	}
+
+	/**
+	 * @return the completion day, {@link EpochDays#MIN_DAY} if no row is planned
+	 */
+	public long getCompletionEpochDay() {
+		return completionEpochDay;
+	}
+
+	/**
+	 * @return whether all activities of the release are planned up to their remaining estimate
+	 */
+	public boolean isFullyPlanned() {
+		return fullyPlanned;
+	}
+
+	/**
+	 * @return the number of plan rows of the release in overcommitted sprint team velocities
+	 */
+	public int getOvercommittedRows() {
+		return overcommittedRows;
+	}
+
+	/**
+	 * @return days between the completion and the delivery to integration, negative if late,
+	 * {@link Long#MAX_VALUE} if the date is not set.
+	 */
+	public long getIntegrationMarginDays() {
+		return margin(release.getDeliveryToIntegrationEpochDay());
+	}
+
+	/**
+	 * @return days between the completion and the delivery to customer, negative if late,
+	 * {@link Long#MAX_VALUE} if the date is not set.
+	 */
+	public long getCustomerMarginDays() {
+		return margin(release.getDeliveryToCustomerEpochDay());
+	}
+
+	/**
+	 * @return whether the release is fully planned, not overcommitted and completes by both delivery dates.
+	 */
+	public boolean isFeasible() {
+		return fullyPlanned && overcommittedRows == 0 && getIntegrationMarginDays() >= 0 && getCustomerMarginDays() >= 0;
+	}
+
+	/**
+	 * @param due The delivery day.
+	 * @return days between the completion and the delivery day.
+	 */
+	private long margin(long due) {
+		if (due == EpochDays.MAX_DAY || completionEpochDay == EpochDays.MIN_DAY) {
+			return Long.MAX_VALUE;
+		}
+		return due - completionEpochDay;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("ReleaseFeasibility{")
+			.append("release=").append(this.getRelease() == null ? "N/A" : this.getRelease().getName()).append(',')
+			.append("feasible=").append(this.isFeasible()).append(',')
+			.append("fullyPlanned=").append(this.isFullyPlanned()).append(',')
+			.append("overcommittedRows=").append(this.getOvercommittedRows()).append(',')
+			.append("integrationMarginDays=").append(this.getIntegrationMarginDays()).append(',')
+			.append("customerMarginDays=").append(this.getCustomerMarginDays())
+			.append('}').toString();
+	}
+}
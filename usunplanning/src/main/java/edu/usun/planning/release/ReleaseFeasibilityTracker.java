@@ -0,0 +1,439 @@
+package edu.usun.planning.release;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Feasibility of the releases kept up to date as the plan is edited.
+ *
+ * The tracker keeps, per release, the end days of the sprints of its plan rows as a sorted multiset
+ * (the completion is the last key), the number of its activities not planned up to their remaining estimate
+ * and the number of its rows in overcommitted sprint team velocities (whole story points above the velocity
+ * rounded down, a team without availability in the sprint has none); per sprint team velocity,
+ * the assigned story points and the rows.
+ * A change is reported with one of the *Changed / *Removed methods, which re-reads the changed entity and applies
+ * the difference in O(log n), plus the rows of the velocity when its overcommitment flips.
+ * {@link #getFeasibility(Release)} then answers without scanning the sprints.
+ *
+ * Changes must be reported after the entity is changed. The tracker is not thread-safe.
+ *
+ * @author usun
+ */
+public class ReleaseFeasibilityTracker {
+
+	/** Tracked plan rows. */
+	private final Map<SprintTeamActivityPlan, Row> rows = new IdentityHashMap<>();
+
+	/** Tracked activities. */
+	private final Map<Activity, ActivityState> activities = new IdentityHashMap<>();
+
+	/** Tracked releases. */
+	private final Map<Release, ReleaseState> releases = new IdentityHashMap<>();
+
+	/** Sprint team velocities by sprint and team. */
+	private final Map<Sprint, Map<Team, Cell>> cells = new IdentityHashMap<>();
+
+	/**
+	 * @param sprints Sprints of the plan with their available velocities and assigned rows.
+	 * @param backlog Activities to deliver, including the ones without any row yet.
+	 */
+	public ReleaseFeasibilityTracker(List<Sprint> sprints, Collection<? extends Activity> backlog) {
+		super();
+		if (backlog != null) {
+			for (Activity activity : backlog) {
+				activity(activity);
+			}
+		}
+		for (Sprint sprint : sprints) {
+			if (sprint.getAvailableVelocities() != null) {
+				for (SprintTeamAvailability availability : sprint.getAvailableVelocities()) {
+					cell(sprint, availability.getTeam()).capacity = capacity(availability);
+				}
+			}
+			if (sprint.getAssignedVelocities() != null) {
+				for (SprintTeamActivityPlan plan : sprint.getAssignedVelocities()) {
+					add(plan, plan.getSprint() == null ? sprint : plan.getSprint());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param release The release.
+	 * @return feasibility of the release, null if no tracked activity belongs to it.
+	 */
+	public ReleaseFeasibility getFeasibility(Release release) {
+		ReleaseState state = releases.get(release);
+		if (state == null) {
+			return null;
+		}
+		long completion = state.ends.isEmpty() ? EpochDays.MIN_DAY : state.ends.lastKey();
+		return new ReleaseFeasibility(release, completion, state.shortActivities == 0, state.overcommittedRows);
+	}
+
+	/**
+	 * @return feasibility of all the tracked releases, in no particular order.
+	 */
+	public List<ReleaseFeasibility> getFeasibilities() {
+		List<ReleaseFeasibility> result = new ArrayList<>(releases.size());
+		for (Release release : releases.keySet()) {
+			result.add(getFeasibility(release));
+		}
+		return result;
+	}
+
+	/**
+	 * A plan row was added, or its sprint, team, activity or story points changed.
+	 * @param plan The plan row, with its sprint set.
+	 */
+	public void rowChanged(SprintTeamActivityPlan plan) {
+		Row row = rows.get(plan);
+		Sprint sprint = plan.getSprint() != null ? plan.getSprint() : row == null ? null : row.cell.sprint;
+		if (sprint == null) {
+			throw new IllegalArgumentException("Plan row " + plan.getName() + " is not assigned to a sprint");
+		}
+		if (row != null) {
+			remove(row);
+		}
+		add(plan, sprint);
+	}
+
+	/**
+	 * @param plan Plan row removed from its sprint.
+	 */
+	public void rowRemoved(SprintTeamActivityPlan plan) {
+		Row row = rows.get(plan);
+		if (row != null) {
+			remove(row);
+		}
+	}
+
+	/**
+	 * The velocity of a team in a sprint changed, or the availability was added.
+	 * @param sprint The sprint.
+	 * @param availability The availability.
+	 */
+	public void velocityChanged(Sprint sprint, SprintTeamAvailability availability) {
+		Cell cell = cell(sprint, availability.getTeam());
+		cell.capacity = capacity(availability);
+		refresh(cell);
+	}
+
+	/**
+	 * The remaining estimate or the release of an activity changed, or the activity was added to the backlog.
+	 * @param activity The activity.
+	 */
+	public void activityChanged(Activity activity) {
+		ActivityState state = activities.get(activity);
+		if (state == null) {
+			activity(activity);
+			return;
+		}
+		List<Row> planned = new ArrayList<>(state.rows);
+		for (Row row : planned) {
+			remove(row);
+		}
+		detach(state);
+		activities.remove(activity);
+		activity(activity);
+		for (Row row : planned) {
+			add(row.plan, row.cell.sprint);
+		}
+	}
+
+	/**
+	 * @param activity Activity removed from the backlog, with its rows.
+	 */
+	public void activityRemoved(Activity activity) {
+		ActivityState state = activities.get(activity);
+		if (state == null) {
+			return;
+		}
+		for (Row row : new ArrayList<>(state.rows)) {
+			remove(row);
+		}
+		detach(state);
+		activities.remove(activity);
+	}
+
+	/**
+	 * @param plan The plan row.
+	 * @param sprint Sprint of the row.
+	 */
+	private void add(SprintTeamActivityPlan plan, Sprint sprint) {
+		ActivityState activity = plan.getActivity() == null ? null : activity(plan.getActivity());
+		Row row = new Row(plan, cell(sprint, plan.getTeam()), activity, plan.getStoryPoints(), sprint.getEndEpochDay());
+		rows.put(plan, row);
+		row.cell.rows.add(row);
+		row.cell.assigned += row.points;
+		if (activity != null) {
+			activity.rows.add(row);
+			activity.planned += row.points;
+			ReleaseState release = activity.release;
+			if (release != null) {
+				release.ends.merge(row.endEpochDay, 1, Integer::sum);
+				if (row.cell.overcommitted) {
+					release.overcommittedRows++;
+				}
+			}
+			updateShort(activity);
+		}
+		refresh(row.cell);
+	}
+
+	/**
+	 * @param row The tracked row.
+	 */
+	private void remove(Row row) {
+		rows.remove(row.plan);
+		row.cell.rows.remove(row);
+		row.cell.assigned -= row.points;
+		ActivityState activity = row.activity;
+		if (activity != null) {
+			activity.rows.remove(row);
+			activity.planned -= row.points;
+			ReleaseState release = activity.release;
+			if (release != null) {
+				release.ends.computeIfPresent(row.endEpochDay, (day, count) -> count == 1 ? null : count - 1);
+				if (row.cell.overcommitted) {
+					release.overcommittedRows--;
+				}
+			}
+			updateShort(activity);
+		}
+		refresh(row.cell);
+	}
+
+	/**
+	 * Updates the overcommitment of the velocity and of the releases of its rows.
+	 * @param cell The velocity.
+	 */
+	private static void refresh(Cell cell) {
+		boolean overcommitted = cell.assigned > cell.capacity;
+		if (overcommitted == cell.overcommitted) {
+			return;
+		}
+		cell.overcommitted = overcommitted;
+		for (Row row : cell.rows) {
+			if (row.activity != null && row.activity.release != null) {
+				row.activity.release.overcommittedRows += overcommitted ? 1 : -1;
+			}
+		}
+	}
+
+	/**
+	 * @param activity The activity.
+	 */
+	private static void updateShort(ActivityState activity) {
+		boolean isShort = activity.planned < activity.estimate;
+		if (isShort != activity.isShort) {
+			activity.isShort = isShort;
+			if (activity.release != null) {
+				activity.release.shortActivities += isShort ? 1 : -1;
+			}
+		}
+	}
+
+	/**
+	 * Removes the activity, without rows, from its release.
+	 * @param state The activity.
+	 */
+	private void detach(ActivityState state) {
+		ReleaseState release = state.release;
+		if (release != null) {
+			if (state.isShort) {
+				release.shortActivities--;
+			}
+			if (--release.activities == 0) {
+				releases.remove(release.release);
+			}
+		}
+	}
+
+	/**
+	 * @param activity The activity.
+	 * @return tracked activity, registered if new.
+	 */
+	private ActivityState activity(Activity activity) {
+		ActivityState state = activities.get(activity);
+		if (state == null) {
+			state = new ActivityState(activity, estimate(activity));
+			Release release = activity.getRelease();
+			if (release != null) {
+				state.release = releases.computeIfAbsent(release, ReleaseState::new);
+				state.release.activities++;
+			}
+			activities.put(activity, state);
+			updateShort(state);
+		}
+		return state;
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param team The team.
+	 * @return tracked velocity, with no capacity if new.
+	 */
+	private Cell cell(Sprint sprint, Team team) {
+		return cells.computeIfAbsent(sprint, key -> new IdentityHashMap<>()).computeIfAbsent(team, key -> new Cell(sprint));
+	}
+
+	/**
+	 * @param availability The availability.
+	 * @return velocity in whole story points, rounded down.
+	 */
+	private static long capacity(SprintTeamAvailability availability) {
+		BigDecimal velocity = availability.getVelocity();
+		return velocity == null ? 0 : velocity.setScale(0, RoundingMode.FLOOR).longValue();
+	}
+
+	/**
+	 * @param activity The activity.
+	 * @return remaining estimate of a feature in whole story points rounded up, 0 for other activities.
+	 */
+	private static long estimate(Activity activity) {
+		BigDecimal estimate = activity instanceof Feature ? ((Feature) activity).getRemaningEstimate() : null;
+		return estimate == null || estimate.signum() <= 0 ? 0 : estimate.setScale(0, RoundingMode.CEILING).longValueExact();
+	}
+
+	/**
+	 * Velocity of a team in a sprint with the rows assigned to it.
+	 */
+	private static final class Cell {
+
+		/** The sprint. */
+		final Sprint sprint;
+
+		/** Velocity in whole story points. */
+		long capacity;
+
+		/** Story points assigned. */
+		long assigned;
+
+		/** Whether more story points are assigned than the velocity. */
+		boolean overcommitted;
+
+		/** Rows assigned. */
+		final Set<Row> rows = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		/**
+		 * @param sprint The sprint.
+		 */
+		Cell(Sprint sprint) {
+			this.sprint = sprint;
+		}
+	}
+
+	/**
+	 * Plan row as last seen by the tracker.
+	 */
+	private static final class Row {
+
+		/** The plan row. */
+		final SprintTeamActivityPlan plan;
+
+		/** Velocity of the row. */
+		final Cell cell;
+
+		/** Activity of the row, null if none. */
+		final ActivityState activity;
+
+		/** Story points of the row. */
+		final long points;
+
+		/** Last day of the sprint of the row. */
+		final long endEpochDay;
+
+		/**
+		 * @param plan The plan row.
+		 * @param cell Velocity of the row.
+		 * @param activity Activity of the row, null if none.
+		 * @param points Story points of the row.
+		 * @param endEpochDay Last day of the sprint of the row.
+		 */
+		Row(SprintTeamActivityPlan plan, Cell cell, ActivityState activity, long points, long endEpochDay) {
+			this.plan = plan;
+			this.cell = cell;
+			this.activity = activity;
+			this.points = points;
+			this.endEpochDay = endEpochDay;
+		}
+	}
+
+	/**
+	 * Activity as last seen by the tracker.
+	 */
+	private static final class ActivityState {
+
+		/** The activity. */
+		final Activity activity;
+
+		/** Remaining estimate in whole story points. */
+		final long estimate;
+
+		/** Release of the activity, null if none. */
+		ReleaseState release;
+
+		/** Story points planned. */
+		long planned;
+
+		/** Whether fewer story points are planned than estimated. */
+		boolean isShort;
+
+		/** Rows of the activity. */
+		final Set<Row> rows = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		/**
+		 * @param activity The activity.
+		 * @param estimate Remaining estimate in whole story points.
+		 */
+		ActivityState(Activity activity, long estimate) {
+			this.activity = activity;
+			this.estimate = estimate;
+		}
+	}
+
+	/**
+	 * Aggregates of a release.
+	 */
+	private static final class ReleaseState {
+
+		/** The release. */
+		final Release release;
+
+		/** Number of rows by last day of their sprint. */
+		final TreeMap<Long, Integer> ends = new TreeMap<>();
+
+		/** Number of tracked activities. */
+		int activities;
+
+		/** Number of activities planned below their estimate. */
+		int shortActivities;
+
+		/** Number of rows in overcommitted velocities. */
+		int overcommittedRows;
+
+		/**
+		 * @param release The release.
+		 */
+		ReleaseState(Release release) {
+			this.release = release;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package edu.usun.planning.scenario;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.team.Team;
+
+/**
+ * Immutable {@link SprintTeamActivityPlan}. The team and the activity are shared references.
+ * 
+ * @author usun
+ */
+public final class ActivityPlanSnapshot {
+
+	/** Name of the plan row. */
+	private final String name;
+
+	/** The team. */
+	private final Team team;
+
+	/** The activity. */
+	private final Activity activity;
+
+	/** Story points assigned. */
+	private final int storyPoints;
+
+	/**
+	 * @param name Name of the plan row.
+	 * @param team The team.
+	 * @param activity The activity.
+	 * @param storyPoints Story points assigned.
+	 */
+	public ActivityPlanSnapshot(String name, Team team, Activity activity, int storyPoints) {
+		super();
+		this.name = name;
+		this.team = team;
+		this.activity = activity;
+		this.storyPoints = storyPoints;
+	}
+
+	/**
+	 * @param plan The plan row.
+	 * @return snapshot of the plan row.
+	 */
+	public static ActivityPlanSnapshot of(SprintTeamActivityPlan plan) {
+		return new ActivityPlanSnapshot(plan.getName(), plan.getTeam(), plan.getActivity(), plan.getStoryPoints());
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the team
+	 */
+	public Team getTeam() {
+		return team;
+	}
+
+	/**
+	 * @return the activity
+	 */
+	public Activity getActivity() {
+		return activity;
+	}
+
+	/**
+	 * @return the storyPoints
+	 */
+	public int getStoryPoints() {
+		return storyPoints;
+	}
+
+	/**
+	 * @param newStoryPoints Story points assigned.
+	 * @return snapshot with the story points.
+	 */
+	public ActivityPlanSnapshot withStoryPoints(int newStoryPoints) {
+		return new ActivityPlanSnapshot(name, team, activity, newStoryPoints);
+	}
+
+	/**
+	 * @param newTeam The team.
+	 * @return snapshot with the team.
+	 */
+	public ActivityPlanSnapshot withTeam(Team newTeam) {
+		return new ActivityPlanSnapshot(name, newTeam, activity, storyPoints);
+	}
+
+	/**
+	 * @param sprint Sprint of the plan row.
+	 * @return new mutable plan row.
+	 */
+	public SprintTeamActivityPlan toPlan(Sprint sprint) {
+		SprintTeamActivityPlan plan = new SprintTeamActivityPlan();
+		plan.setName(name);
+		plan.setSprint(sprint);
+		plan.setTeam(team);
+		plan.setActivity(activity);
+		plan.setStoryPoints(storyPoints);
+		return plan;
+	}
+}
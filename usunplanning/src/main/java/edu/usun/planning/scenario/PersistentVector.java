@@ -0,0 +1,253 @@
+package edu.usun.planning.scenario;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable vector sharing its structure with the vectors derived from it.
+ *
+ * Elements sit in the leaves of a trie with 32 children per node, so {@link #get(int)} walks
+ * log32(n) nodes and {@link #set(int, Object)} / {@link #append(Object)} copy only the nodes on the path
+ * to the changed leaf, the rest of the trie is shared with the original vector.
+ * {@link #remove(int)} rebuilds the vector and is meant for short vectors.
+ *
+ * @param <E> Type of the elements.
+ * @author usun
+ */
+public final class PersistentVector<E> implements Iterable<E> {
+
+	/** Bits of the index per trie level. */
+	private static final int BITS = 5;
+
+	/** Mask of the index bits of a trie level. */
+	private static final int MASK = (1 << BITS) - 1;
+
+	/** The empty vector. */
+	private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, 0, new Object[0]);
+
+	/** Number of elements. */
+	private final int size;
+
+	/** Index shift of the root level, 0 when the root is a leaf. */
+	private final int shift;
+
+	/** Root node. */
+	private final Object[] root;
+
+	/**
+	 * @param size Number of elements.
+	 * @param shift Index shift of the root level.
+	 * @param root Root node.
+	 */
+	private PersistentVector(int size, int shift, Object[] root) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+	}
+
+	/**
+	 * @param <E> Type of the elements.
+	 * @return the empty vector.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentVector<E> empty() {
+		return (PersistentVector<E>) EMPTY;
+	}
+
+	/**
+	 * @param <E> Type of the elements.
+	 * @param elements The elements, can be null.
+	 * @return vector of the elements, empty for null.
+	 */
+	public static <E> PersistentVector<E> of(Collection<? extends E> elements) {
+		PersistentVector<E> vector = empty();
+		if (elements != null) {
+			for (E element : elements) {
+				vector = vector.append(element);
+			}
+		}
+		return vector;
+	}
+
+	/**
+	 * @return number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether the vector has no element.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param index Position of the element.
+	 * @return the element.
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		return (E) leaf(index)[index & MASK];
+	}
+
+	/**
+	 * @param index Position of the element.
+	 * @param element The element.
+	 * @return vector with the element replaced, this vector if it is the same element.
+	 */
+	public PersistentVector<E> set(int index, E element) {
+		if (get(index) == element) {
+			return this;
+		}
+		return new PersistentVector<>(size, shift, set(root, shift, index, element));
+	}
+
+	/**
+	 * @param element The element.
+	 * @return vector with the element added at the end.
+	 */
+	public PersistentVector<E> append(E element) {
+		if (size == 1 << (shift + BITS)) {
+			return new PersistentVector<>(size + 1, shift + BITS, new Object[] {root, path(shift, element)});
+		}
+		return new PersistentVector<>(size + 1, shift, append(root, shift, size, element));
+	}
+
+	/**
+	 * @param index Position of the element.
+	 * @return vector without the element, rebuilt in O(n).
+	 */
+	public PersistentVector<E> remove(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of the vector of " + size);
+		}
+		PersistentVector<E> vector = empty();
+		for (int i = 0; i < size; i++) {
+			if (i != index) {
+				vector = vector.append(get(i));
+			}
+		}
+		return vector;
+	}
+
+	/**
+	 * @return read-only list view of the vector.
+	 */
+	public List<E> asList() {
+		return new AbstractList<E>() {
+
+			@Override
+			public E get(int index) {
+				return PersistentVector.this.get(index);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+
+			/** Position of the next element. */
+			private int index;
+
+			/** Leaf of the next element. */
+			private Object[] leaf;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public E next() {
+				if (index >= size) {
+					throw new NoSuchElementException();
+				}
+				if ((index & MASK) == 0 || leaf == null) {
+					leaf = leaf(index);
+				}
+				return (E) leaf[index++ & MASK];
+			}
+		};
+	}
+
+	/**
+	 * @param index Position of an element.
+	 * @return leaf of the element.
+	 */
+	private Object[] leaf(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of the vector of " + size);
+		}
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(index >>> level) & MASK];
+		}
+		return node;
+	}
+
+	/**
+	 * @param node The node.
+	 * @param level Index shift of the node level.
+	 * @param index Position of the element.
+	 * @param element The element.
+	 * @return copy of the node with the element replaced.
+	 */
+	private static Object[] set(Object[] node, int level, int index, Object element) {
+		Object[] copy = node.clone();
+		int slot = (index >>> level) & MASK;
+		copy[slot] = level == 0 ? element : set((Object[]) node[slot], level - BITS, index, element);
+		return copy;
+	}
+
+	/**
+	 * @param node The node, with room for the element.
+	 * @param level Index shift of the node level.
+	 * @param index Position of the element, the size of the vector.
+	 * @param element The element.
+	 * @return copy of the node with the element added.
+	 */
+	private static Object[] append(Object[] node, int level, int index, Object element) {
+		int slot = (index >>> level) & MASK;
+		Object[] copy = Arrays.copyOf(node, Math.max(node.length, slot + 1));
+		if (level == 0) {
+			copy[slot] = element;
+		} else {
+			copy[slot] = slot < node.length ? append((Object[]) node[slot], level - BITS, index, element)
+				: path(level - BITS, element);
+		}
+		return copy;
+	}
+
+	/**
+	 * @param level Index shift of the top node level.
+	 * @param element The element.
+	 * @return new branch down to a leaf with the element.
+	 */
+	private static Object[] path(int level, Object element) {
+		return level == 0 ? new Object[] {element} : new Object[] {path(level - BITS, element)};
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return asList().toString();
+	}
+}
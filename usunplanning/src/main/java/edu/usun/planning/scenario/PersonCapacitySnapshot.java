@@ -0,0 +1,175 @@
+package edu.usun.planning.scenario;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.usun.planning.sprint.CapacityBreakdownElement;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.team.Person;
+
+/**
+ * Immutable {@link SprintPersonCapacity}. The person is a shared reference.
+ * 
+ * @author usun
+ */
+public final class PersonCapacitySnapshot {
+
+	/** Name of the capacity plan. */
+	private final String name;
+
+	/** The person. */
+	private final Person person;
+
+	/** Capacity breakdown, null if not set. */
+	private final PersistentVector<Element> breakdown;
+
+	/**
+	 * @param name Name of the capacity plan.
+	 * @param person The person.
+	 * @param breakdown Capacity breakdown, null if not set.
+	 */
+	public PersonCapacitySnapshot(String name, Person person, PersistentVector<Element> breakdown) {
+		super();
+		this.name = name;
+		this.person = person;
+		this.breakdown = breakdown;
+	}
+
+	/**
+	 * @param capacity The capacity plan.
+	 * @return snapshot of the capacity plan.
+	 */
+	public static PersonCapacitySnapshot of(SprintPersonCapacity capacity) {
+		PersistentVector<Element> breakdown = null;
+		if (capacity.getBreakdown() != null) {
+			breakdown = PersistentVector.empty();
+			for (CapacityBreakdownElement element : capacity.getBreakdown()) {
+				breakdown = breakdown.append(new Element(element.getName(), element.getPercentage(),
+					element.getCapacityManDays(), element.getVelocity()));
+			}
+		}
+		return new PersonCapacitySnapshot(capacity.getName(), capacity.getPerson(), breakdown);
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the person
+	 */
+	public Person getPerson() {
+		return person;
+	}
+
+	/**
+	 * @return the capacity breakdown, null if not set
+	 */
+	public PersistentVector<Element> getBreakdown() {
+		return breakdown;
+	}
+
+	/**
+	 * @param newBreakdown Capacity breakdown.
+	 * @return snapshot with the breakdown.
+	 */
+	public PersonCapacitySnapshot withBreakdown(PersistentVector<Element> newBreakdown) {
+		return new PersonCapacitySnapshot(name, person, newBreakdown);
+	}
+
+	/**
+	 * @param sprint Sprint of the capacity plan.
+	 * @return new mutable capacity plan.
+	 */
+	public SprintPersonCapacity toCapacity(Sprint sprint) {
+		SprintPersonCapacity capacity = new SprintPersonCapacity();
+		capacity.setName(name);
+		capacity.setSprint(sprint);
+		capacity.setPerson(person);
+		if (breakdown != null) {
+			List<CapacityBreakdownElement> elements = new ArrayList<>(breakdown.size());
+			for (Element element : breakdown) {
+				elements.add(element.toElement());
+			}
+			capacity.setBreakdown(elements);
+		}
+		return capacity;
+	}
+
+	/**
+	 * Immutable {@link CapacityBreakdownElement}.
+	 */
+	public static final class Element {
+
+		/** Name of the element. */
+		private final String name;
+
+		/** Percentage of the total capacity. */
+		private final BigDecimal percentage;
+
+		/** Capacity in man-days. */
+		private final BigDecimal capacityManDays;
+
+		/** Velocity in story points. */
+		private final BigDecimal velocity;
+
+		/**
+		 * @param name Name of the element.
+		 * @param percentage Percentage of the total capacity.
+		 * @param capacityManDays Capacity in man-days.
+		 * @param velocity Velocity in story points.
+		 */
+		public Element(String name, BigDecimal percentage, BigDecimal capacityManDays, BigDecimal velocity) {
+			super();
+			this.name = name;
+			this.percentage = percentage;
+			this.capacityManDays = capacityManDays;
+			this.velocity = velocity;
+		}
+
+		/**
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the percentage
+		 */
+		public BigDecimal getPercentage() {
+			return percentage;
+		}
+
+		/**
+		 * @return the capacityManDays
+		 */
+		public BigDecimal getCapacityManDays() {
+			return capacityManDays;
+		}
+
+		/**
+		 * @return the velocity
+		 */
+		public BigDecimal getVelocity() {
+			return velocity;
+		}
+
+		/**
+		 * @return new mutable breakdown element.
+		 */
+		public CapacityBreakdownElement toElement() {
+			CapacityBreakdownElement element = new CapacityBreakdownElement();
+			element.setName(name);
+			element.setPercentage(percentage);
+			element.setCapacityManDays(capacityManDays);
+			element.setVelocity(velocity);
+			return element;
+		}
+	}
+}
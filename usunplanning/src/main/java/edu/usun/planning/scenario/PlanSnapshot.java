@@ -0,0 +1,158 @@
+package edu.usun.planning.scenario;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.usun.planning.sprint.Sprint;
+
+/**
+ * Immutable, structurally shared plan for what-if scenarios: a named persistent vector of sprint snapshots.
+ *
+ * A scenario is branched with {@link #branch(String)} in O(1) and changed with the with* methods,
+ * each returning a new plan which copies only the changed rows, their sprint snapshot and the vector path
+ * to it (O(log n) nodes); everything else is shared with the plan it was derived from, so many alternative
+ * scenarios of the same plan fit in memory at once. Teams, activities, releases and persons are shared references,
+ * scenarios only vary the plan.
+ *
+ * {@link #of(String, List)} and {@link #toSprints()} convert from and to the mutable entities in O(plan size).
+ * 
+ * @author usun
+ */
+public final class PlanSnapshot {
+
+	/** Name of the scenario. */
+	private final String name;
+
+	/** The sprints. */
+	private final PersistentVector<SprintSnapshot> sprints;
+
+	/**
+	 * @param name Name of the scenario.
+	 * @param sprints The sprints.
+	 */
+	public PlanSnapshot(String name, PersistentVector<SprintSnapshot> sprints) {
+		super();
+		this.name = name;
+		this.sprints = sprints;
+	}
+
+	/**
+	 * @param name Name of the scenario.
+	 * @param sprints The sprints.
+	 * @return snapshot of the sprints.
+	 */
+	public static PlanSnapshot of(String name, List<Sprint> sprints) {
+		PersistentVector<SprintSnapshot> snapshots = PersistentVector.empty();
+		for (Sprint sprint : sprints) {
+			snapshots = snapshots.append(SprintSnapshot.of(sprint));
+		}
+		return new PlanSnapshot(name, snapshots);
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the sprints
+	 */
+	public PersistentVector<SprintSnapshot> getSprints() {
+		return sprints;
+	}
+
+	/**
+	 * @return number of sprints.
+	 */
+	public int size() {
+		return sprints.size();
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @return the sprint.
+	 */
+	public SprintSnapshot getSprint(int index) {
+		return sprints.get(index);
+	}
+
+	/**
+	 * @param scenarioName Name of the new scenario.
+	 * @return new scenario sharing the whole plan.
+	 */
+	public PlanSnapshot branch(String scenarioName) {
+		return new PlanSnapshot(scenarioName, sprints);
+	}
+
+	/**
+	 * @param index Position of the sprint.
+	 * @param sprint The sprint.
+	 * @return plan with the sprint replaced.
+	 */
+	public PlanSnapshot withSprint(int index, SprintSnapshot sprint) {
+		return new PlanSnapshot(name, sprints.set(index, sprint));
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @return plan with the sprint added at the end.
+	 */
+	public PlanSnapshot withSprintAppended(SprintSnapshot sprint) {
+		return new PlanSnapshot(name, sprints.append(sprint));
+	}
+
+	/**
+	 * @param sprint Position of the sprint.
+	 * @param availability Position of the availability in the sprint.
+	 * @param velocity The velocity.
+	 * @return plan with the velocity of the availability.
+	 */
+	public PlanSnapshot withVelocity(int sprint, int availability, BigDecimal velocity) {
+		return withSprint(sprint, sprints.get(sprint).withVelocity(availability, velocity));
+	}
+
+	/**
+	 * @param sprint Position of the sprint.
+	 * @param plan The plan row.
+	 * @return plan with the row added to the sprint.
+	 */
+	public PlanSnapshot withAssignedRow(int sprint, ActivityPlanSnapshot plan) {
+		return withSprint(sprint, sprints.get(sprint).withAssignedRow(plan));
+	}
+
+	/**
+	 * @param sprint Position of the sprint.
+	 * @param row Position of the plan row in the sprint.
+	 * @param storyPoints Story points of the row.
+	 * @return plan with the story points of the row.
+	 */
+	public PlanSnapshot withStoryPoints(int sprint, int row, int storyPoints) {
+		return withSprint(sprint, sprints.get(sprint).withStoryPoints(row, storyPoints));
+	}
+
+	/**
+	 * @return new mutable sprints.
+	 */
+	public List<Sprint> toSprints() {
+		List<Sprint> result = new ArrayList<>(sprints.size());
+		for (SprintSnapshot sprint : sprints) {
+			result.add(sprint.toSprint());
+		}
+		return result;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuffer()
+			.append("PlanSnapshot{")
+			.append("name=").append(this.getName()).append(',')
+			.append("sprints=").append(this.size())
+			.append('}').toString();
+	}
+}
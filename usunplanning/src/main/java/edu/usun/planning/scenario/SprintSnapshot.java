@@ -0,0 +1,263 @@
+package edu.usun.planning.scenario;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+
+/**
+ * Immutable {@link Sprint}: dates as epoch-days and the four lists as persistent vectors of immutable rows.
+ * A change returns a new snapshot sharing the unchanged vectors (and the unchanged nodes of the changed one).
+ * Releases are shared references. A null list of the sprint is kept as a null vector.
+ * 
+ * @author usun
+ */
+public final class SprintSnapshot {
+
+	/** Name of the sprint. */
+	private final String name;
+
+	/** First day of the sprint, {@link EpochDays#MIN_DAY} if not set. */
+	private final long startEpochDay;
+
+	/** Last day of the sprint, {@link EpochDays#MAX_DAY} if not set. */
+	private final long endEpochDay;
+
+	/** Releases due to integration during the sprint, can be null. */
+	private final PersistentVector<Release> releasesToIntegration;
+
+	/** Available team velocities, can be null. */
+	private final PersistentVector<TeamAvailabilitySnapshot> availableVelocities;
+
+	/** Plan rows, can be null. */
+	private final PersistentVector<ActivityPlanSnapshot> assignedVelocities;
+
+	/** Capacity plans per person, can be null. */
+	private final PersistentVector<PersonCapacitySnapshot> personCapacities;
+
+	/**
+	 * @param name Name of the sprint.
+	 * @param startEpochDay First day of the sprint.
+	 * @param endEpochDay Last day of the sprint.
+	 * @param releasesToIntegration Releases due to integration during the sprint, can be null.
+	 * @param availableVelocities Available team velocities, can be null.
+	 * @param assignedVelocities Plan rows, can be null.
+	 * @param personCapacities Capacity plans per person, can be null.
+	 */
+	public SprintSnapshot(String name, long startEpochDay, long endEpochDay,
+		PersistentVector<Release> releasesToIntegration,
+		PersistentVector<TeamAvailabilitySnapshot> availableVelocities,
+		PersistentVector<ActivityPlanSnapshot> assignedVelocities,
+		PersistentVector<PersonCapacitySnapshot> personCapacities) {
+		super();
+		this.name = name;
+		this.startEpochDay = startEpochDay;
+		this.endEpochDay = endEpochDay;
+		this.releasesToIntegration = releasesToIntegration;
+		this.availableVelocities = availableVelocities;
+		this.assignedVelocities = assignedVelocities;
+		this.personCapacities = personCapacities;
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @return snapshot of the sprint and its lists.
+	 */
+	public static SprintSnapshot of(Sprint sprint) {
+		PersistentVector<TeamAvailabilitySnapshot> available = null;
+		if (sprint.getAvailableVelocities() != null) {
+			available = PersistentVector.empty();
+			for (SprintTeamAvailability availability : sprint.getAvailableVelocities()) {
+				available = available.append(TeamAvailabilitySnapshot.of(availability));
+			}
+		}
+		PersistentVector<ActivityPlanSnapshot> assigned = null;
+		if (sprint.getAssignedVelocities() != null) {
+			assigned = PersistentVector.empty();
+			for (SprintTeamActivityPlan plan : sprint.getAssignedVelocities()) {
+				assigned = assigned.append(ActivityPlanSnapshot.of(plan));
+			}
+		}
+		PersistentVector<PersonCapacitySnapshot> capacities = null;
+		if (sprint.getSprintPersonCapacities() != null) {
+			capacities = PersistentVector.empty();
+			for (SprintPersonCapacity capacity : sprint.getSprintPersonCapacities()) {
+				capacities = capacities.append(PersonCapacitySnapshot.of(capacity));
+			}
+		}
+		return new SprintSnapshot(sprint.getName(), sprint.getStartEpochDay(), sprint.getEndEpochDay(),
+			sprint.getReleasesToIntegration() == null ? null : PersistentVector.of(sprint.getReleasesToIntegration()),
+			available, assigned, capacities);
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the first day of the sprint, {@link EpochDays#MIN_DAY} if not set
+	 */
+	public long getStartEpochDay() {
+		return startEpochDay;
+	}
+
+	/**
+	 * @return the last day of the sprint, {@link EpochDays#MAX_DAY} if not set
+	 */
+	public long getEndEpochDay() {
+		return endEpochDay;
+	}
+
+	/**
+	 * @return the releases due to integration, can be null
+	 */
+	public PersistentVector<Release> getReleasesToIntegration() {
+		return releasesToIntegration;
+	}
+
+	/**
+	 * @return the available velocities, can be null
+	 */
+	public PersistentVector<TeamAvailabilitySnapshot> getAvailableVelocities() {
+		return availableVelocities;
+	}
+
+	/**
+	 * @return the plan rows, can be null
+	 */
+	public PersistentVector<ActivityPlanSnapshot> getAssignedVelocities() {
+		return assignedVelocities;
+	}
+
+	/**
+	 * @return the capacity plans per person, can be null
+	 */
+	public PersistentVector<PersonCapacitySnapshot> getPersonCapacities() {
+		return personCapacities;
+	}
+
+	/**
+	 * @param newStartEpochDay First day of the sprint.
+	 * @param newEndEpochDay Last day of the sprint.
+	 * @return snapshot with the dates.
+	 */
+	public SprintSnapshot withDates(long newStartEpochDay, long newEndEpochDay) {
+		return new SprintSnapshot(name, newStartEpochDay, newEndEpochDay,
+			releasesToIntegration, availableVelocities, assignedVelocities, personCapacities);
+	}
+
+	/**
+	 * @param releases Releases due to integration during the sprint.
+	 * @return snapshot with the releases.
+	 */
+	public SprintSnapshot withReleasesToIntegration(PersistentVector<Release> releases) {
+		return new SprintSnapshot(name, startEpochDay, endEpochDay,
+			releases, availableVelocities, assignedVelocities, personCapacities);
+	}
+
+	/**
+	 * @param available Available team velocities.
+	 * @return snapshot with the velocities.
+	 */
+	public SprintSnapshot withAvailableVelocities(PersistentVector<TeamAvailabilitySnapshot> available) {
+		return new SprintSnapshot(name, startEpochDay, endEpochDay,
+			releasesToIntegration, available, assignedVelocities, personCapacities);
+	}
+
+	/**
+	 * @param assigned Plan rows.
+	 * @return snapshot with the plan rows.
+	 */
+	public SprintSnapshot withAssignedVelocities(PersistentVector<ActivityPlanSnapshot> assigned) {
+		return new SprintSnapshot(name, startEpochDay, endEpochDay,
+			releasesToIntegration, availableVelocities, assigned, personCapacities);
+	}
+
+	/**
+	 * @param capacities Capacity plans per person.
+	 * @return snapshot with the capacity plans.
+	 */
+	public SprintSnapshot withPersonCapacities(PersistentVector<PersonCapacitySnapshot> capacities) {
+		return new SprintSnapshot(name, startEpochDay, endEpochDay,
+			releasesToIntegration, availableVelocities, assignedVelocities, capacities);
+	}
+
+	/**
+	 * @param index Position of the availability.
+	 * @param velocity The velocity.
+	 * @return snapshot with the velocity of the availability.
+	 */
+	public SprintSnapshot withVelocity(int index, BigDecimal velocity) {
+		return withAvailableVelocities(availableVelocities.set(index, availableVelocities.get(index).withVelocity(velocity)));
+	}
+
+	/**
+	 * @param plan The plan row.
+	 * @return snapshot with the plan row added.
+	 */
+	public SprintSnapshot withAssignedRow(ActivityPlanSnapshot plan) {
+		PersistentVector<ActivityPlanSnapshot> assigned = assignedVelocities == null ? PersistentVector.empty() : assignedVelocities;
+		return withAssignedVelocities(assigned.append(plan));
+	}
+
+	/**
+	 * @param index Position of the plan row.
+	 * @param storyPoints Story points of the row.
+	 * @return snapshot with the story points of the plan row.
+	 */
+	public SprintSnapshot withStoryPoints(int index, int storyPoints) {
+		return withAssignedVelocities(assignedVelocities.set(index, assignedVelocities.get(index).withStoryPoints(storyPoints)));
+	}
+
+	/**
+	 * @param index Position of the plan row.
+	 * @return snapshot without the plan row.
+	 */
+	public SprintSnapshot withoutAssignedRow(int index) {
+		return withAssignedVelocities(assignedVelocities.remove(index));
+	}
+
+	/**
+	 * @return new mutable sprint with new mutable rows.
+	 */
+	public Sprint toSprint() {
+		Sprint sprint = new Sprint();
+		sprint.setName(name);
+		sprint.setStartDate(startEpochDay == EpochDays.MIN_DAY ? null : EpochDays.toCalendar(startEpochDay));
+		sprint.setEndDate(endEpochDay == EpochDays.MAX_DAY ? null : EpochDays.toCalendar(endEpochDay));
+		if (releasesToIntegration != null) {
+			sprint.setReleasesToIntegration(new ArrayList<>(releasesToIntegration.asList()));
+		}
+		if (availableVelocities != null) {
+			List<SprintTeamAvailability> available = new ArrayList<>(availableVelocities.size());
+			for (TeamAvailabilitySnapshot availability : availableVelocities) {
+				available.add(availability.toAvailability(sprint));
+			}
+			sprint.setAvailableVelocities(available);
+		}
+		if (assignedVelocities != null) {
+			List<SprintTeamActivityPlan> assigned = new ArrayList<>(assignedVelocities.size());
+			for (ActivityPlanSnapshot plan : assignedVelocities) {
+				assigned.add(plan.toPlan(sprint));
+			}
+			sprint.setAssignedVelocities(assigned);
+		}
+		if (personCapacities != null) {
+			List<SprintPersonCapacity> capacities = new ArrayList<>(personCapacities.size());
+			for (PersonCapacitySnapshot capacity : personCapacities) {
+				capacities.add(capacity.toCapacity(sprint));
+			}
+			sprint.setSprintPersonCapacities(capacities);
+		}
+		return sprint;
+	}
+}
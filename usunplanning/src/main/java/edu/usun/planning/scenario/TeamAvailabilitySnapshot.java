@@ -0,0 +1,86 @@
+package edu.usun.planning.scenario;
+
+import java.math.BigDecimal;
+
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Immutable {@link SprintTeamAvailability}. The team is a shared reference.
+ * 
+ * @author usun
+ */
+public final class TeamAvailabilitySnapshot {
+
+	/** Name of the availability. */
+	private final String name;
+
+	/** The team. */
+	private final Team team;
+
+	/** Velocity of the team. */
+	private final BigDecimal velocity;
+
+	/**
+	 * @param name Name of the availability.
+	 * @param team The team.
+	 * @param velocity Velocity of the team.
+	 */
+	public TeamAvailabilitySnapshot(String name, Team team, BigDecimal velocity) {
+		super();
+		this.name = name;
+		this.team = team;
+		this.velocity = velocity;
+	}
+
+	/**
+	 * @param availability The availability.
+	 * @return snapshot of the availability.
+	 */
+	public static TeamAvailabilitySnapshot of(SprintTeamAvailability availability) {
+		return new TeamAvailabilitySnapshot(availability.getName(), availability.getTeam(), availability.getVelocity());
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the team
+	 */
+	public Team getTeam() {
+		return team;
+	}
+
+	/**
+	 * @return the velocity
+	 */
+	public BigDecimal getVelocity() {
+		return velocity;
+	}
+
+	/**
+	 * @param newVelocity The velocity.
+	 * @return snapshot with the velocity.
+	 */
+	public TeamAvailabilitySnapshot withVelocity(BigDecimal newVelocity) {
+		return new TeamAvailabilitySnapshot(name, team, newVelocity);
+	}
+
+	/**
+	 * @param sprint Sprint of the availability.
+	 * @return new mutable availability.
+	 */
+	public SprintTeamAvailability toAvailability(Sprint sprint) {
+		SprintTeamAvailability availability = new SprintTeamAvailability();
+		availability.setName(name);
+		availability.setSprint(sprint);
+		availability.setTeam(team);
+		availability.setVelocity(velocity);
+		return availability;
+	}
+}
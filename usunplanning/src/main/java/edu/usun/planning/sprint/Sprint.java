@@ -4,6 +4,7 @@ import java.util.Calendar;
 import java.util.List;
 
 import edu.usun.planning.PlanEntity;
+import edu.usun.planning.calendar.EpochDays;
 import edu.usun.planning.release.Release;
 
 /**
@@ -77,6 +78,22 @@ public class Sprint extends PlanEntity {
 	}
 
 
+	/**
+	 * @return the startDate as epoch-day, {@link EpochDays#MIN_DAY} if not set
+	 */
+	public long getStartEpochDay() {
+		return EpochDays.toEpochDay(this.startDate, EpochDays.MIN_DAY);
+	}
+
+
+	/**
+	 * @return the endDate as epoch-day, {@link EpochDays#MAX_DAY} if not set
+	 */
+	public long getEndEpochDay() {
+		return EpochDays.toEpochDay(this.endDate, EpochDays.MAX_DAY);
+	}
+
+
 	/**
 	 * @return the releasesToIntegration
 	 */
@@ -0,0 +1,199 @@
+package edu.usun.planning.sprint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import edu.usun.planning.FixedPoint;
+import edu.usun.planning.calendar.CapacityUtils;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Bulk capacity computation for the whole organisation: fills {@link SprintPersonCapacity} (with its
+ * {@link CapacityBreakdownElement} breakdown) for every person and {@link SprintTeamAvailability} for every team
+ * in every sprint of the horizon in one call.
+ *
+ * Capacity of every team member in every sprint is an independent cell, the cells are computed
+ * in parallel on a fork/join pool. Calendar indexes and capacity tables are built up-front,
+ * so that the parallel phase only reads shared structures. Aggregation per person and team is sequential.
+ *
+ * Breakdown of a person capacity: overhead elements (e.g. SCRUM 10%) take their percentage of the capacity,
+ * the rest goes to the {@link SprintPersonCapacity#FUNCTIONAL_CAPACITY} element with the velocity of the person.
+ * Velocity of a team member is the base velocity scaled by the member capacity in the sprint
+ * relative to a full sprint of the week days of the member work calendar at the member capacity factor.
+ *
+ * @author usun
+ */
+public class SprintCapacityCalculator {
+
+	/** Overhead breakdown elements: name and percentage (e.g. 10 for 10%). */
+	private final List<CapacityBreakdownElement> overheads;
+
+	/** Pool for the parallel phase. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Calculator without overheads using the common pool.
+	 */
+	public SprintCapacityCalculator() {
+		this(null, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param overheads Overhead breakdown elements (name and percentage of the capacity, e.g. 10 for 10%), can be null.
+	 * @param pool Pool for the parallel phase.
+	 */
+	public SprintCapacityCalculator(List<CapacityBreakdownElement> overheads, ForkJoinPool pool) {
+		super();
+		this.overheads = overheads == null ? new ArrayList<>() : new ArrayList<>(overheads);
+		this.pool = pool;
+	}
+
+	/**
+	 * Computes capacities of all team members in all sprints and replaces
+	 * {@link Sprint#getSprintPersonCapacities()} and {@link Sprint#getAvailableVelocities()} of the sprints.
+	 * Persons and teams are listed in the order of their first team member.
+	 * Team members without a person are ignored, team members without a team only count for the person.
+	 * @param members Team members of the organisation.
+	 * @param sprints Sprints of the horizon, with start and end dates set.
+	 */
+	public void calculate(Collection<TeamMember> members, List<Sprint> sprints) {
+		track(members, sprints);
+	}
+
+	/**
+	 * The same as {@link #calculate(Collection, List)}, keeping the computed cells
+	 * for incremental recomputation of later changes.
+	 * @param members Team members of the organisation.
+	 * @param sprints Sprints of the horizon, with start and end dates set.
+	 * @return tracker of the computed capacities.
+	 */
+	public SprintCapacityTracker track(Collection<TeamMember> members, List<Sprint> sprints) {
+		return new SprintCapacityTracker(this, members, sprints);
+	}
+
+	/**
+	 * Computes capacity and velocity of the sprint x team member cells in parallel.
+	 * @param members The team members.
+	 * @param sprints The sprints.
+	 * @param capacity Fixed-point capacities to fill, cell s * members + m.
+	 * @param velocity Fixed-point velocities to fill, cell s * members + m.
+	 */
+	void computeCells(TeamMember[] members, Sprint[] sprints, long[] capacity, long[] velocity) {
+		prepare(members, sprints);
+		int m = members.length;
+		pool.submit(() -> IntStream.range(0, capacity.length).parallel().forEach(cell -> {
+			Sprint sprint = sprints[cell / m];
+			TeamMember member = members[cell % m];
+			capacity[cell] = capacity(member, sprint);
+			velocity[cell] = velocity(member, sprint, capacity[cell]);
+		})).join();
+	}
+
+	/**
+	 * Builds lookup indexes and capacity tables of the horizon sequentially,
+	 * so that the parallel phase does not race on building them.
+	 * @param members The team members.
+	 * @param sprints The sprints.
+	 */
+	private static void prepare(TeamMember[] members, Sprint[] sprints) {
+		long from = Long.MAX_VALUE;
+		long to = Long.MIN_VALUE;
+		for (Sprint sprint : sprints) {
+			from = Math.min(from, sprint.getStartEpochDay());
+			to = Math.max(to, sprint.getEndEpochDay());
+		}
+		Map<Object, Boolean> prepared = new IdentityHashMap<>();
+		for (TeamMember member : members) {
+			WorkCalendar workCalendar = member.getWorkCalendar();
+			if (workCalendar != null && prepared.put(workCalendar, Boolean.TRUE) == null) {
+				workCalendar.getCapacity(from, to);
+			}
+			Person person = member.getPerson();
+			if (prepared.put(person, Boolean.TRUE) == null) {
+				person.getPersonalCapacityOverridesIndex();
+				person.getPersonalCapacityOverrideRangesIndex();
+			}
+		}
+	}
+
+	/**
+	 * @param member The team member.
+	 * @param sprint The sprint.
+	 * @return fixed-point capacity of the team member in the sprint.
+	 */
+	static long capacity(TeamMember member, Sprint sprint) {
+		return CapacityUtils.getCapacity(member, sprint.getStartEpochDay(), sprint.getEndEpochDay());
+	}
+
+	/**
+	 * @param member The team member.
+	 * @param sprint The sprint.
+	 * @param capacity Fixed-point capacity of the team member in the sprint.
+	 * @return fixed-point velocity of the team member in the sprint.
+	 */
+	static long velocity(TeamMember member, Sprint sprint, long capacity) {
+		long baseVelocity = FixedPoint.of(member.getBaseVelocityPerSprint(), 0);
+		long fullCapacity = CapacityUtils.getFullCapacity(member, sprint.getStartEpochDay(), sprint.getEndEpochDay());
+		if (baseVelocity == 0 || fullCapacity == 0) {
+			return 0;
+		}
+		return FixedPoint.divideRounded(baseVelocity * capacity, fullCapacity);
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param person The person.
+	 * @param capacity Fixed-point capacity of the person in the sprint.
+	 * @param velocity Fixed-point velocity of the person in the sprint.
+	 * @return capacity plan of the person with the breakdown.
+	 */
+	SprintPersonCapacity personCapacity(Sprint sprint, Person person, long capacity, long velocity) {
+		List<CapacityBreakdownElement> breakdown = new ArrayList<>(overheads.size() + 1);
+		for (CapacityBreakdownElement overhead : overheads) {
+			CapacityBreakdownElement element = new CapacityBreakdownElement();
+			element.setName(overhead.getName());
+			breakdown.add(element);
+		}
+		CapacityBreakdownElement functional = new CapacityBreakdownElement();
+		functional.setName(SprintPersonCapacity.FUNCTIONAL_CAPACITY);
+		breakdown.add(functional);
+		fillBreakdown(breakdown, capacity, velocity);
+
+		SprintPersonCapacity personCapacity = new SprintPersonCapacity();
+		personCapacity.setName(person.getName());
+		personCapacity.setSprint(sprint);
+		personCapacity.setPerson(person);
+		personCapacity.setBreakdown(breakdown);
+		return personCapacity;
+	}
+
+	/**
+	 * Sets values of the breakdown elements created by {@link #personCapacity(Sprint, Person, long, long)}.
+	 * @param breakdown Overhead elements followed by the functional element.
+	 * @param capacity Fixed-point capacity of the person in the sprint.
+	 * @param velocity Fixed-point velocity of the person in the sprint.
+	 */
+	void fillBreakdown(List<CapacityBreakdownElement> breakdown, long capacity, long velocity) {
+		long functionalCapacity = capacity;
+		long functionalPercentage = FixedPoint.of(100);
+		for (int i = 0; i < overheads.size(); i++) {
+			long percentage = FixedPoint.of(overheads.get(i).getPercentage(), 0);
+			long overheadCapacity = FixedPoint.divideRounded(capacity * percentage, FixedPoint.of(100));
+			functionalCapacity -= overheadCapacity;
+			functionalPercentage -= percentage;
+			breakdown.get(i).setPercentage(FixedPoint.toBigDecimal(percentage));
+			breakdown.get(i).setCapacityManDays(FixedPoint.toBigDecimal(overheadCapacity));
+		}
+		CapacityBreakdownElement functional = breakdown.get(overheads.size());
+		functional.setPercentage(FixedPoint.toBigDecimal(functionalPercentage));
+		functional.setCapacityManDays(FixedPoint.toBigDecimal(functionalCapacity));
+		functional.setVelocity(FixedPoint.toBigDecimal(velocity));
+	}
+}
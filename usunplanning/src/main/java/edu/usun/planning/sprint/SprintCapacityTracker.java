@@ -0,0 +1,508 @@
+package edu.usun.planning.sprint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import edu.usun.planning.FixedPoint;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.CapacityOverrideRange;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Capacities computed by {@link SprintCapacityCalculator#track(Collection, List)}, kept per sprint x team member cell
+ * together with the dependencies of the cells on persons, work calendars and team members.
+ *
+ * A change is reported with one of the *Changed methods, which only marks the affected cells dirty
+ * (restricted to the sprints overlapping the changed days where they are known),
+ * {@link #recompute()} then recomputes just the dirty cells and propagates the deltas
+ * into {@link SprintPersonCapacity} breakdowns and {@link SprintTeamAvailability#getVelocity()}.
+ * A single capacity override change costs a binary search over the sprints and one cell recomputation.
+ *
+ * Changes must be reported after the entity is changed. The person and work calendar methods also drop
+ * the lookup indexes of the entity (see {@link Person#capacityOverridesChanged()} and
+ * {@link WorkCalendar#holidaysChanged()}), so in-place changes of override lists and calendars need no setter call.
+ * The tracker is not thread-safe.
+ *
+ * @author usun
+ */
+public class SprintCapacityTracker {
+
+	/** The calculator. */
+	private final SprintCapacityCalculator calculator;
+
+	/** Sprints of the horizon. */
+	private final Sprint[] sprints;
+
+	/** Sprint positions sorted by start day. */
+	private final int[] sprintsByStart;
+
+	/** Start days of the sprints, sorted, aligned with sprintsByStart. */
+	private final long[] sortedStarts;
+
+	/** Length of the longest sprint in days. */
+	private final long maxSprintLength;
+
+	/** Tracked team members. */
+	private final TeamMember[] members;
+
+	/** Positions of the team members. */
+	private final Map<TeamMember, Integer> memberIndex = new IdentityHashMap<>();
+
+	/** Team member positions by person. */
+	private final Map<Person, List<Integer>> membersByPerson = new IdentityHashMap<>();
+
+	/** Team member positions by work calendar (members without a calendar are not listed). */
+	private final Map<WorkCalendar, List<Integer>> membersByCalendar = new IdentityHashMap<>();
+
+	/** Persons in the order of their position. */
+	private final List<Person> persons = new ArrayList<>();
+
+	/** Positions of the persons. */
+	private final Map<Person, Integer> personIndex = new IdentityHashMap<>();
+
+	/** Teams in the order of their position. */
+	private final List<Team> teams = new ArrayList<>();
+
+	/** Positions of the teams. */
+	private final Map<Team, Integer> teamIndex = new IdentityHashMap<>();
+
+	/** Person position of each team member. */
+	private final int[] personOf;
+
+	/** Team position of each team member, -1 if no team. */
+	private final int[] teamOf;
+
+	/** Fixed-point capacity per cell s * members + m. */
+	private final long[] capacity;
+
+	/** Fixed-point velocity per cell s * members + m. */
+	private final long[] velocity;
+
+	/** Fixed-point capacity per sprint and person. */
+	private long[][] personCapacity;
+
+	/** Fixed-point velocity per sprint and person. */
+	private long[][] personVelocity;
+
+	/** Fixed-point velocity per sprint and team. */
+	private long[][] teamVelocity;
+
+	/** Person capacity entities per sprint and person. */
+	private SprintPersonCapacity[][] personCapacities;
+
+	/** Team availability entities per sprint and team. */
+	private SprintTeamAvailability[][] teamAvailabilities;
+
+	/** Cells to recompute. */
+	private final BitSet dirty = new BitSet();
+
+	/**
+	 * Computes all cells and fills the sprints, see {@link SprintCapacityCalculator#calculate(Collection, List)}.
+	 * @param calculator The calculator.
+	 * @param members Team members of the organisation.
+	 * @param sprints Sprints of the horizon, with start and end dates set.
+	 */
+	SprintCapacityTracker(SprintCapacityCalculator calculator, Collection<TeamMember> members, List<Sprint> sprints) {
+		super();
+		this.calculator = calculator;
+		this.members = members.stream().filter(m -> m != null && m.getPerson() != null).toArray(TeamMember[]::new);
+		this.sprints = sprints.toArray(new Sprint[0]);
+		long maxLength = 0;
+		for (Sprint sprint : this.sprints) {
+			if (sprint.getStartDate() == null || sprint.getEndDate() == null) {
+				throw new IllegalArgumentException("Sprint " + sprint.getName() + " has no start or end date");
+			}
+			maxLength = Math.max(maxLength, sprint.getEndEpochDay() - sprint.getStartEpochDay() + 1);
+		}
+		this.maxSprintLength = maxLength;
+		this.sprintsByStart = new int[this.sprints.length];
+		this.sortedStarts = new long[this.sprints.length];
+		long[] keys = new long[this.sprints.length];
+		for (int s = 0; s < keys.length; s++) {
+			keys[s] = this.sprints[s].getStartEpochDay();
+		}
+		Integer[] order = new Integer[keys.length];
+		for (int s = 0; s < order.length; s++) {
+			order[s] = s;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+		for (int i = 0; i < order.length; i++) {
+			this.sprintsByStart[i] = order[i];
+			this.sortedStarts[i] = keys[order[i]];
+		}
+
+		int m = this.members.length;
+		this.personOf = new int[m];
+		this.teamOf = new int[m];
+		this.capacity = new long[this.sprints.length * m];
+		this.velocity = new long[this.sprints.length * m];
+		this.personCapacity = new long[this.sprints.length][];
+		this.personVelocity = new long[this.sprints.length][];
+		this.teamVelocity = new long[this.sprints.length][];
+		this.personCapacities = new SprintPersonCapacity[this.sprints.length][];
+		this.teamAvailabilities = new SprintTeamAvailability[this.sprints.length][];
+		for (int i = 0; i < m; i++) {
+			this.memberIndex.put(this.members[i], i);
+			link(i);
+		}
+		if (m > 0) {
+			calculator.computeCells(this.members, this.sprints, this.capacity, this.velocity);
+		}
+
+		for (int s = 0; s < this.sprints.length; s++) {
+			Sprint sprint = this.sprints[s];
+			this.personCapacity[s] = new long[this.persons.size()];
+			this.personVelocity[s] = new long[this.persons.size()];
+			this.teamVelocity[s] = new long[this.teams.size()];
+			for (int i = 0; i < m; i++) {
+				add(s, i, this.capacity[s * m + i], this.velocity[s * m + i]);
+			}
+			this.personCapacities[s] = new SprintPersonCapacity[this.persons.size()];
+			List<SprintPersonCapacity> personCapacityList = new ArrayList<>(this.persons.size());
+			for (int p = 0; p < this.persons.size(); p++) {
+				this.personCapacities[s][p] = calculator.personCapacity(sprint, this.persons.get(p),
+					this.personCapacity[s][p], this.personVelocity[s][p]);
+				personCapacityList.add(this.personCapacities[s][p]);
+			}
+			this.teamAvailabilities[s] = new SprintTeamAvailability[this.teams.size()];
+			List<SprintTeamAvailability> availabilities = new ArrayList<>(this.teams.size());
+			for (int t = 0; t < this.teams.size(); t++) {
+				this.teamAvailabilities[s][t] = teamAvailability(sprint, this.teams.get(t), this.teamVelocity[s][t]);
+				availabilities.add(this.teamAvailabilities[s][t]);
+			}
+			sprint.setSprintPersonCapacities(personCapacityList);
+			sprint.setAvailableVelocities(availabilities);
+		}
+	}
+
+	/**
+	 * Marks all cells of the person dirty, e.g. after its override lists were replaced.
+	 * @param person The person.
+	 */
+	public void personChanged(Person person) {
+		personChanged(person, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Marks cells of the person in the sprints overlapping the range of days dirty
+	 * and drops the override indexes of the person, see {@link Person#capacityOverridesChanged()}.
+	 * @param person The person.
+	 * @param fromEpochDay First changed day.
+	 * @param toEpochDay Last changed day (inclusive).
+	 */
+	public void personChanged(Person person, long fromEpochDay, long toEpochDay) {
+		person.capacityOverridesChanged();
+		markDirty(this.membersByPerson.get(person), fromEpochDay, toEpochDay);
+	}
+
+	/**
+	 * Marks cells of the person in the sprint containing the day of the override dirty.
+	 * To be called for added, removed or changed overrides (with the old date as well if the date changed).
+	 * @param person The person.
+	 * @param capacityOverride The changed override.
+	 */
+	public void overrideChanged(Person person, CapacityOverride capacityOverride) {
+		long epochDay = capacityOverride.getEpochDay();
+		personChanged(person, epochDay, epochDay);
+	}
+
+	/**
+	 * Marks cells of the person in the sprints overlapping the override range dirty.
+	 * @param person The person.
+	 * @param range The changed override range.
+	 */
+	public void overrideRangeChanged(Person person, CapacityOverrideRange range) {
+		personChanged(person, range.getStartEpochDay(), range.getEndEpochDay());
+	}
+
+	/**
+	 * Marks all cells of team members using the calendar dirty.
+	 * @param workCalendar The work calendar.
+	 */
+	public void workCalendarChanged(WorkCalendar workCalendar) {
+		workCalendarChanged(workCalendar, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Marks cells of team members using the calendar in the sprints overlapping the range of days dirty
+	 * and drops the cached days of a private calendar, see {@link WorkCalendar#holidaysChanged()}.
+	 * @param workCalendar The work calendar.
+	 * @param fromEpochDay First changed day.
+	 * @param toEpochDay Last changed day (inclusive).
+	 */
+	public void workCalendarChanged(WorkCalendar workCalendar, long fromEpochDay, long toEpochDay) {
+		if (!workCalendar.isShared()) {
+			workCalendar.holidaysChanged();
+		}
+		markDirty(this.membersByCalendar.get(workCalendar), fromEpochDay, toEpochDay);
+	}
+
+	/**
+	 * Marks all cells of the team member dirty and updates its dependencies:
+	 * to be called after any team member field changed, including its person, team or work calendar
+	 * (e.g. forked by {@link TeamMember#getWorkCalendarForUpdate()}).
+	 * @param member The team member.
+	 */
+	public void teamMemberChanged(TeamMember member) {
+		Integer i = this.memberIndex.get(member);
+		if (i == null) {
+			throw new IllegalArgumentException("Team member " + member.getName() + " is not tracked");
+		}
+		if (member.getPerson() == null) {
+			throw new IllegalArgumentException("Team member " + member.getName() + " has no person");
+		}
+		// Take the current contribution out, the cells are added back on recompute
+		int m = this.members.length;
+		for (int s = 0; s < this.sprints.length; s++) {
+			int cell = s * m + i;
+			add(s, i, -this.capacity[cell], -this.velocity[cell]);
+			this.capacity[cell] = 0;
+			this.velocity[cell] = 0;
+			this.dirty.set(cell);
+		}
+		for (int s = 0; s < this.sprints.length; s++) {
+			publish(s, this.personOf[i], this.teamOf[i]);
+		}
+		unlink(i);
+		int persons = this.persons.size();
+		int teams = this.teams.size();
+		link(i);
+		if (this.persons.size() > persons || this.teams.size() > teams) {
+			grow();
+		}
+	}
+
+	/**
+	 * Recomputes the dirty cells and updates the person capacities and team availabilities affected.
+	 * @return number of recomputed cells.
+	 */
+	public int recompute() {
+		int m = this.members.length;
+		int count = 0;
+		for (int cell = this.dirty.nextSetBit(0); cell >= 0; cell = this.dirty.nextSetBit(cell + 1)) {
+			int s = cell / m;
+			int i = cell % m;
+			long newCapacity = SprintCapacityCalculator.capacity(this.members[i], this.sprints[s]);
+			long newVelocity = SprintCapacityCalculator.velocity(this.members[i], this.sprints[s], newCapacity);
+			add(s, i, newCapacity - this.capacity[cell], newVelocity - this.velocity[cell]);
+			this.capacity[cell] = newCapacity;
+			this.velocity[cell] = newVelocity;
+			publish(s, this.personOf[i], this.teamOf[i]);
+			count++;
+		}
+		this.dirty.clear();
+		return count;
+	}
+
+	/**
+	 * @return number of cells waiting for {@link #recompute()}.
+	 */
+	public int getDirtyCount() {
+		return this.dirty.cardinality();
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param member The team member.
+	 * @return fixed-point capacity of the team member in the sprint as of the last recomputation.
+	 */
+	public long getCapacity(Sprint sprint, TeamMember member) {
+		return this.capacity[cell(sprint, member)];
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param member The team member.
+	 * @return fixed-point velocity of the team member in the sprint as of the last recomputation.
+	 */
+	public long getVelocity(Sprint sprint, TeamMember member) {
+		return this.velocity[cell(sprint, member)];
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param member The team member.
+	 * @return position of the cell.
+	 */
+	private int cell(Sprint sprint, TeamMember member) {
+		Integer i = this.memberIndex.get(member);
+		for (int s = 0; i != null && s < this.sprints.length; s++) {
+			if (this.sprints[s] == sprint) {
+				return s * this.members.length + i;
+			}
+		}
+		throw new IllegalArgumentException("Sprint or team member is not tracked");
+	}
+
+	/**
+	 * Marks cells of the team members in the sprints overlapping the range of days dirty.
+	 * @param memberPositions Positions of the team members, can be null.
+	 * @param fromEpochDay First changed day.
+	 * @param toEpochDay Last changed day (inclusive).
+	 */
+	private void markDirty(List<Integer> memberPositions, long fromEpochDay, long toEpochDay) {
+		if (memberPositions == null || memberPositions.isEmpty()) {
+			return;
+		}
+		// Sprints starting after the range are skipped by binary search,
+		// sprints starting earlier than the longest sprint before the range cannot overlap it
+		int pos = upperBound(toEpochDay);
+		long earliestStart = fromEpochDay - this.maxSprintLength < fromEpochDay ? fromEpochDay - this.maxSprintLength : Long.MIN_VALUE;
+		for (pos--; pos >= 0 && this.sortedStarts[pos] > earliestStart; pos--) {
+			int s = this.sprintsByStart[pos];
+			if (this.sprints[s].getEndEpochDay() >= fromEpochDay) {
+				for (int i : memberPositions) {
+					this.dirty.set(s * this.members.length + i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param epochDay The day.
+	 * @return number of sprints starting on or before the day.
+	 */
+	private int upperBound(long epochDay) {
+		int lo = 0;
+		int hi = this.sortedStarts.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (this.sortedStarts[mid] <= epochDay) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Adds a delta of a team member cell to the person and team totals.
+	 * @param s Sprint position.
+	 * @param i Team member position.
+	 * @param capacityDelta Fixed-point capacity delta.
+	 * @param velocityDelta Fixed-point velocity delta.
+	 */
+	private void add(int s, int i, long capacityDelta, long velocityDelta) {
+		this.personCapacity[s][this.personOf[i]] += capacityDelta;
+		this.personVelocity[s][this.personOf[i]] += velocityDelta;
+		if (this.teamOf[i] >= 0) {
+			this.teamVelocity[s][this.teamOf[i]] += velocityDelta;
+		}
+	}
+
+	/**
+	 * Writes the totals of the person and team in the sprint into their entities.
+	 * @param s Sprint position.
+	 * @param p Person position.
+	 * @param t Team position, -1 if none.
+	 */
+	private void publish(int s, int p, int t) {
+		this.calculator.fillBreakdown(this.personCapacities[s][p].getBreakdown(),
+			this.personCapacity[s][p], this.personVelocity[s][p]);
+		if (t >= 0) {
+			this.teamAvailabilities[s][t].setVelocity(FixedPoint.toBigDecimal(this.teamVelocity[s][t]));
+		}
+	}
+
+	/**
+	 * Registers dependencies of the team member, new persons and teams get the next positions.
+	 * @param i Team member position.
+	 */
+	private void link(int i) {
+		TeamMember member = this.members[i];
+		this.personOf[i] = position(member.getPerson(), this.personIndex, this.persons);
+		this.teamOf[i] = member.getTeam() == null ? -1 : position(member.getTeam(), this.teamIndex, this.teams);
+		this.membersByPerson.computeIfAbsent(member.getPerson(), k -> new ArrayList<>()).add(i);
+		if (member.getWorkCalendar() != null) {
+			this.membersByCalendar.computeIfAbsent(member.getWorkCalendar(), k -> new ArrayList<>()).add(i);
+		}
+	}
+
+	/**
+	 * Removes the team member from the dependency lists.
+	 * @param i Team member position.
+	 */
+	private void unlink(int i) {
+		Integer position = i;
+		this.membersByPerson.values().forEach(list -> list.remove(position));
+		this.membersByCalendar.values().forEach(list -> list.remove(position));
+	}
+
+	/**
+	 * Extends totals and entities with persons and teams added since they were built.
+	 */
+	private void grow() {
+		for (int s = 0; s < this.sprints.length; s++) {
+			Sprint sprint = this.sprints[s];
+			int oldPersons = this.personCapacity[s].length;
+			this.personCapacity[s] = Arrays.copyOf(this.personCapacity[s], this.persons.size());
+			this.personVelocity[s] = Arrays.copyOf(this.personVelocity[s], this.persons.size());
+			this.personCapacities[s] = Arrays.copyOf(this.personCapacities[s], this.persons.size());
+			for (int p = oldPersons; p < this.persons.size(); p++) {
+				this.personCapacities[s][p] = this.calculator.personCapacity(sprint, this.persons.get(p), 0, 0);
+				addTo(sprint.getSprintPersonCapacities(), this.personCapacities[s][p], sprint::setSprintPersonCapacities);
+			}
+			int oldTeams = this.teamVelocity[s].length;
+			this.teamVelocity[s] = Arrays.copyOf(this.teamVelocity[s], this.teams.size());
+			this.teamAvailabilities[s] = Arrays.copyOf(this.teamAvailabilities[s], this.teams.size());
+			for (int t = oldTeams; t < this.teams.size(); t++) {
+				this.teamAvailabilities[s][t] = teamAvailability(sprint, this.teams.get(t), 0);
+				addTo(sprint.getAvailableVelocities(), this.teamAvailabilities[s][t], sprint::setAvailableVelocities);
+			}
+		}
+	}
+
+	/**
+	 * @param list The list to add to, can be null.
+	 * @param element The element to add.
+	 * @param setter Setter of a new list if the list is null.
+	 */
+	private static <T> void addTo(List<T> list, T element, Consumer<List<T>> setter) {
+		if (list == null) {
+			list = new ArrayList<>();
+			setter.accept(list);
+		}
+		list.add(element);
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param team The team.
+	 * @param velocity Fixed-point velocity.
+	 * @return availability of the team.
+	 */
+	private static SprintTeamAvailability teamAvailability(Sprint sprint, Team team, long velocity) {
+		SprintTeamAvailability availability = new SprintTeamAvailability();
+		availability.setName(team.getName());
+		availability.setSprint(sprint);
+		availability.setTeam(team);
+		availability.setVelocity(FixedPoint.toBigDecimal(velocity));
+		return availability;
+	}
+
+	/**
+	 * @param key The entity.
+	 * @param index Positions of the entities.
+	 * @param list Entities in the order of their positions.
+	 * @return position of the entity, added to the list if not there yet.
+	 */
+	private static <T> int position(T key, Map<T, Integer> index, List<T> list) {
+		Integer pos = index.get(key);
+		if (pos == null) {
+			pos = list.size();
+			index.put(key, pos);
+			list.add(key);
+		}
+		return pos;
+	}
+}
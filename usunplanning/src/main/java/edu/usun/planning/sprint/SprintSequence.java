@@ -0,0 +1,238 @@
+package edu.usun.planning.sprint;
+
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.calendar.WorkCalendar;
+
+/**
+ * Lazy sequence of future sprints driven by a cadence: sprint i starts cadence * i days after the first sprint
+ * and ends the day before the next one starts. With a work calendar, a sprint starting on a day-off
+ * (weekend, public holiday) starts on the next working day instead, its end stays on the cadence.
+ *
+ * Sprints are materialised only when consumed from the {@link #spliterator()} or {@link #stream()}:
+ * the sequence itself holds no sprints, so a long horizon streams in bounded memory.
+ * Sprint dates are computed from the position, so the spliterator splits in halves for parallel streams.
+ * An optional initializer fills each materialised sprint, e.g. its availability lists with
+ * {@link SprintCapacityCalculator#calculate(java.util.Collection, java.util.List)};
+ * for parallel streams it has to be thread-safe.
+ *
+ * @author usun
+ */
+public class SprintSequence implements Iterable<Sprint> {
+
+	/** Cadence start: first day of the first sprint (days since 1970-01-01). */
+	private final long firstEpochDay;
+
+	/** Sprint length in days. */
+	private final int cadenceDays;
+
+	/** Number of sprints. */
+	private final long count;
+
+	/** Work calendar to move sprint starts off days-off, can be null. */
+	private final WorkCalendar workCalendar;
+
+	/** Sprint name prefix, followed by the sprint number. */
+	private final String namePrefix;
+
+	/** Number of the first sprint. */
+	private final long firstNumber;
+
+	/** Initializer of materialised sprints, can be null. */
+	private final Consumer<Sprint> initializer;
+
+	/**
+	 * @param firstStart First day of the first sprint. Time of the day is ignored.
+	 * @param cadenceDays Sprint length in days, e.g. 14.
+	 * @param count Number of sprints.
+	 * @param workCalendar Work calendar to move sprint starts off days-off, can be null.
+	 */
+	public SprintSequence(Calendar firstStart, int cadenceDays, long count, WorkCalendar workCalendar) {
+		this(EpochDays.toEpochDay(firstStart), cadenceDays, count, workCalendar, "Sprint ", 1, null);
+	}
+
+	/**
+	 * @param firstEpochDay First day of the first sprint (days since 1970-01-01).
+	 * @param cadenceDays Sprint length in days, e.g. 14.
+	 * @param count Number of sprints.
+	 * @param workCalendar Work calendar to move sprint starts off days-off, can be null.
+	 * @param namePrefix Sprint name prefix, followed by the sprint number.
+	 * @param firstNumber Number of the first sprint.
+	 * @param initializer Initializer of materialised sprints, can be null.
+	 */
+	public SprintSequence(long firstEpochDay, int cadenceDays, long count, WorkCalendar workCalendar,
+		String namePrefix, long firstNumber, Consumer<Sprint> initializer) {
+		super();
+		if (cadenceDays <= 0) {
+			throw new IllegalArgumentException("Sprint cadence must be positive");
+		}
+		if (count < 0) {
+			throw new IllegalArgumentException("Number of sprints cannot be negative");
+		}
+		this.firstEpochDay = firstEpochDay;
+		this.cadenceDays = cadenceDays;
+		this.count = count;
+		this.workCalendar = workCalendar;
+		this.namePrefix = namePrefix;
+		this.firstNumber = firstNumber;
+		this.initializer = initializer;
+	}
+
+	/**
+	 * @param sprintInitializer Initializer of materialised sprints, e.g. filling availability lists.
+	 * @return the same sequence with the initializer.
+	 */
+	public SprintSequence withInitializer(Consumer<Sprint> sprintInitializer) {
+		return new SprintSequence(firstEpochDay, cadenceDays, count, workCalendar, namePrefix, firstNumber, sprintInitializer);
+	}
+
+	/**
+	 * @return number of sprints.
+	 */
+	public long size() {
+		return count;
+	}
+
+	/**
+	 * Materialises a sprint of the sequence.
+	 * @param index Position of the sprint, 0-based.
+	 * @return new sprint.
+	 */
+	public Sprint getSprint(long index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Sprint " + index + " is out of the sequence of " + count);
+		}
+		long cadenceStart = firstEpochDay + index * cadenceDays;
+		long end = cadenceStart + cadenceDays - 1;
+		long start = cadenceStart;
+		while (workCalendar != null && start < end && workCalendar.getDayCapacity(start) == 0) {
+			start++;
+		}
+		Sprint sprint = new Sprint();
+		sprint.setName(namePrefix + (firstNumber + index));
+		sprint.setStartDate(EpochDays.toCalendar(start));
+		sprint.setEndDate(EpochDays.toCalendar(end));
+		if (initializer != null) {
+			initializer.accept(sprint);
+		}
+		return sprint;
+	}
+
+	/**
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Sprint> iterator() {
+		return Spliterators.iterator(spliterator());
+	}
+
+	/**
+	 * @see java.lang.Iterable#spliterator()
+	 */
+	@Override
+	public Spliterator<Sprint> spliterator() {
+		return new SprintSpliterator(this, 0, count);
+	}
+
+	/**
+	 * @return sequential stream of the sprints.
+	 */
+	public Stream<Sprint> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * @return parallel stream of the sprints.
+	 */
+	public Stream<Sprint> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	/**
+	 * Spliterator over a range of positions of the sequence, materialising sprints as they are consumed.
+	 */
+	static final class SprintSpliterator implements Spliterator<Sprint> {
+
+		/** The sequence. */
+		private final SprintSequence sequence;
+
+		/** Position of the next sprint. */
+		private long index;
+
+		/** Position after the last sprint. */
+		private final long fence;
+
+		/**
+		 * @param sequence The sequence.
+		 * @param index Position of the first sprint.
+		 * @param fence Position after the last sprint.
+		 */
+		SprintSpliterator(SprintSequence sequence, long index, long fence) {
+			super();
+			this.sequence = sequence;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		/**
+		 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super Sprint> action) {
+			if (index >= fence) {
+				return false;
+			}
+			action.accept(sequence.getSprint(index++));
+			return true;
+		}
+
+		/**
+		 * @see java.util.Spliterator#forEachRemaining(java.util.function.Consumer)
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super Sprint> action) {
+			long i = index;
+			index = fence;
+			for (; i < fence; i++) {
+				action.accept(sequence.getSprint(i));
+			}
+		}
+
+		/**
+		 * @see java.util.Spliterator#trySplit()
+		 */
+		@Override
+		public Spliterator<Sprint> trySplit() {
+			long mid = index + ((fence - index) >>> 1);
+			if (mid <= index) {
+				return null;
+			}
+			SprintSpliterator prefix = new SprintSpliterator(sequence, index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		/**
+		 * @see java.util.Spliterator#estimateSize()
+		 */
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		/**
+		 * @see java.util.Spliterator#characteristics()
+		 */
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+}
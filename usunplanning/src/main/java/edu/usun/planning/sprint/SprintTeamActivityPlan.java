@@ -36,6 +36,20 @@ public class SprintTeamActivityPlan extends PlanEntity {
 		super();
 	}
 
+	/**
+	 * @return the sprint
+	 */
+	public Sprint getSprint() {
+		return sprint;
+	}
+
+	/**
+	 * @param sprint the sprint to set
+	 */
+	public void setSprint(Sprint sprint) {
+		this.sprint = sprint;
+	}
+
 	/**
 	 * @return the team
 	 */
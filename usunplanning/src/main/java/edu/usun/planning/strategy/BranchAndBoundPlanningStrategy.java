@@ -0,0 +1,544 @@
+package edu.usun.planning.strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+
+/**
+ * Planning strategy minimising total release lateness: the sum over releases of the days between
+ * {@link Release#getDeliveryToIntegration()} and the end of the sprint completing the last feature of the release.
+ *
+ * Capacity is poured into the sprints in the same way as by {@link GreedyPlanningStrategy}, so a plan is fully
+ * determined by the order of the backlog, and completion of a feature only depends on the story points planned
+ * before it. Moving features of a release next to its last feature never delays any release,
+ * so the search is over the order of releases (features keep their backlog order within a release,
+ * features without a release go last). The order is found by branch-and-bound:
+ * <ul>
+ * <li>the incumbent starts as the better of the backlog order and the earliest due date order;</li>
+ * <li>children are explored in the earliest due date order;</li>
+ * <li>lower bound of a partial order: each remaining release completes no earlier than if it was planned next,
+ * and one of them completes only after all of them.</li>
+ * </ul>
+ * The top levels of the search tree are forked on a fork/join pool (work stealing), deeper levels run depth-first.
+ * The search stops at the time budget, or when the planning thread is interrupted, and the best order found so far
+ * is planned, see {@link #isOptimal()}.
+ *
+ * @author usun
+ */
+public class BranchAndBoundPlanningStrategy implements IPlanningStrategy {
+
+	/** Default time budget. */
+	public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+
+	/** Depth of the search tree up to which the nodes are forked as separate tasks. */
+	private static final int FORK_DEPTH = 3;
+
+	/** Number of nodes between deadline checks. */
+	private static final int DEADLINE_CHECK_NODES = 1024;
+
+	/** Features to plan, in priority order. */
+	protected List<Feature> backlog;
+
+	/** Time budget of the search. */
+	protected long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+
+	/** Pool for the search. */
+	protected ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/** Remaining story points of the features not fully planned by the last run. */
+	protected Map<Feature, Long> unplanned = new IdentityHashMap<>();
+
+	/** Total release lateness of the last plan, in days. */
+	protected long lateness;
+
+	/** The last search completed within the time budget. */
+	protected boolean optimal;
+
+	/**
+	 * Default constructor.
+	 */
+	public BranchAndBoundPlanningStrategy() {
+		super();
+	}
+
+	/**
+	 * @param backlog Features to plan, in priority order.
+	 * @param timeBudgetMillis Time budget of the search.
+	 */
+	public BranchAndBoundPlanningStrategy(List<Feature> backlog, long timeBudgetMillis) {
+		super();
+		this.backlog = backlog;
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	/**
+	 * @return the backlog
+	 */
+	public List<Feature> getBacklog() {
+		return backlog;
+	}
+
+	/**
+	 * @param backlog the backlog to set
+	 */
+	public void setBacklog(List<Feature> backlog) {
+		this.backlog = backlog;
+	}
+
+	/**
+	 * @return the timeBudgetMillis
+	 */
+	public long getTimeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+
+	/**
+	 * @param timeBudgetMillis the timeBudgetMillis to set
+	 */
+	public void setTimeBudgetMillis(long timeBudgetMillis) {
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	/**
+	 * @return the pool
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @param pool the pool to set
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return remaining story points of the features not fully planned by the last run, in no particular order.
+	 */
+	public Map<Feature, Long> getUnplanned() {
+		return unplanned;
+	}
+
+	/**
+	 * @return total release lateness of the last plan in days (estimated beyond the planned sprints).
+	 */
+	public long getLateness() {
+		return lateness;
+	}
+
+	/**
+	 * @return true if the last search completed within the time budget, i.e. the plan is optimal.
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanningStrategy#copy()
+	 */
+	@Override
+	public IPlanningStrategy copy() {
+		BranchAndBoundPlanningStrategy copy = new BranchAndBoundPlanningStrategy(this.backlog, this.timeBudgetMillis);
+		copy.setPool(this.pool);
+		return copy;
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanningStrategy#planSprints(java.util.List)
+	 */
+	@Override
+	public void planSprints(List<Sprint> sprints) {
+		// Releases in the order of their first feature, features without a release go last
+		Map<Release, List<Feature>> byRelease = new LinkedHashMap<>();
+		List<Feature> withoutRelease = new ArrayList<>();
+		if (this.backlog != null) {
+			for (Feature feature : this.backlog) {
+				if (feature.getRelease() == null) {
+					withoutRelease.add(feature);
+				} else {
+					byRelease.computeIfAbsent(feature.getRelease(), k -> new ArrayList<>()).add(feature);
+				}
+			}
+		}
+		List<Release> releases = new ArrayList<>(byRelease.keySet());
+		long[] points = new long[releases.size()];
+		long[] due = new long[releases.size()];
+		for (int r = 0; r < points.length; r++) {
+			for (Feature feature : byRelease.get(releases.get(r))) {
+				points[r] += GreedyPlanningStrategy.storyPoints(feature);
+			}
+			due[r] = releases.get(r).getDeliveryToIntegrationEpochDay();
+		}
+
+		Search search = new Search(SprintCapacity.of(sprints), points, due,
+			System.nanoTime() + this.timeBudgetMillis * 1_000_000L);
+		int[] order = search.run(this.pool);
+		this.lateness = search.bestCost.get();
+		this.optimal = !search.timedOut;
+
+		List<Feature> ordered = new ArrayList<>();
+		for (int r : order) {
+			ordered.addAll(byRelease.get(releases.get(r)));
+		}
+		ordered.addAll(withoutRelease);
+		GreedyPlanningStrategy greedy = new GreedyPlanningStrategy(ordered);
+		greedy.planSprints(sprints);
+		this.unplanned = greedy.getUnplanned();
+	}
+
+	/**
+	 * Cumulative capacity of the sprints with completion day lookup.
+	 */
+	static final class SprintCapacity {
+
+		/** cumulative[s] is the capacity of sprints 0..s in story points. */
+		final long[] cumulative;
+
+		/** End days of the sprints. */
+		final long[] ends;
+
+		/** Average capacity of a sprint, for completion beyond the planned sprints. */
+		final long averageCapacity;
+
+		/** Length of the last sprint, for completion beyond the planned sprints. */
+		final long lastLength;
+
+		/**
+		 * @param cumulative Cumulative capacity.
+		 * @param ends End days of the sprints.
+		 * @param lastLength Length of the last sprint.
+		 */
+		SprintCapacity(long[] cumulative, long[] ends, long lastLength) {
+			this.cumulative = cumulative;
+			this.ends = ends;
+			this.lastLength = lastLength;
+			this.averageCapacity = cumulative.length == 0 ? 0 : Math.max(1, cumulative[cumulative.length - 1] / cumulative.length);
+		}
+
+		/**
+		 * @param sprints The sprints, with end dates set.
+		 * @return capacity of the sprints available for planning.
+		 */
+		static SprintCapacity of(List<Sprint> sprints) {
+			long[] capacity = new long[sprints.size()];
+			for (GreedyPlanningStrategy.Bucket bucket : GreedyPlanningStrategy.buckets(sprints)) {
+				capacity[bucket.sprintIndex] += bucket.remaining;
+			}
+			long[] ends = new long[sprints.size()];
+			for (int s = 0; s < capacity.length; s++) {
+				if (s > 0) {
+					capacity[s] += capacity[s - 1];
+				}
+				ends[s] = sprints.get(s).getEndEpochDay();
+			}
+			long lastLength = sprints.isEmpty() ? 0 : Math.max(1, sprints.get(sprints.size() - 1).getEndEpochDay()
+				- sprints.get(sprints.size() - 1).getStartEpochDay() + 1);
+			return new SprintCapacity(capacity, ends, lastLength);
+		}
+
+		/**
+		 * @param points Story points planned up to and including a feature.
+		 * @return end day of the sprint completing the feature, extrapolated beyond the planned sprints
+		 * up to {@link EpochDays#MAX_DAY}.
+		 */
+		long completionDay(long points) {
+			int n = cumulative.length;
+			if (n == 0 || points <= 0) {
+				return Long.MIN_VALUE;
+			}
+			int pos = Arrays.binarySearch(cumulative, points);
+			if (pos < 0) {
+				pos = -pos - 1;
+			} else {
+				// The first sprint reaching the points
+				while (pos > 0 && cumulative[pos - 1] == points) {
+					pos--;
+				}
+			}
+			if (pos < n) {
+				return ends[pos];
+			}
+			long overflow = points - cumulative[n - 1];
+			long extraSprints = (overflow + averageCapacity - 1) / averageCapacity;
+			if (ends[n - 1] >= EpochDays.MAX_DAY || extraSprints > (EpochDays.MAX_DAY - ends[n - 1]) / lastLength) {
+				return EpochDays.MAX_DAY;
+			}
+			return ends[n - 1] + extraSprints * lastLength;
+		}
+	}
+
+	/**
+	 * Branch-and-bound search over the order of releases, shared by the fork/join tasks.
+	 */
+	static final class Search {
+
+		/** Capacity of the sprints. */
+		final SprintCapacity capacity;
+
+		/** Story points per release. */
+		final long[] points;
+
+		/** Due days per release. */
+		final long[] due;
+
+		/** Releases in the earliest due date order. */
+		final int[] byDueDate;
+
+		/** Deadline (System.nanoTime()). */
+		final long deadline;
+
+		/** Cost of the incumbent. */
+		final AtomicLong bestCost = new AtomicLong(Long.MAX_VALUE);
+
+		/** The incumbent order. */
+		int[] bestOrder;
+
+		/** The search was stopped at the deadline or by an interrupt. */
+		volatile boolean timedOut;
+
+		/**
+		 * @param capacity Capacity of the sprints.
+		 * @param points Story points per release.
+		 * @param due Due days per release.
+		 * @param deadline Deadline (System.nanoTime()).
+		 */
+		Search(SprintCapacity capacity, long[] points, long[] due, long deadline) {
+			this.capacity = capacity;
+			this.points = points;
+			this.due = due;
+			this.deadline = deadline;
+			Integer[] order = new Integer[points.length];
+			for (int r = 0; r < order.length; r++) {
+				order[r] = r;
+			}
+			Arrays.sort(order, (a, b) -> Long.compare(due[a], due[b]));
+			this.byDueDate = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+		}
+
+		/**
+		 * Runs the search until it completes, reaches the deadline or the calling thread is interrupted.
+		 * @param pool Pool to run the search on.
+		 * @return the best order of releases found.
+		 */
+		int[] run(ForkJoinPool pool) {
+			int[] backlogOrder = new int[points.length];
+			for (int r = 0; r < backlogOrder.length; r++) {
+				backlogOrder[r] = r;
+			}
+			offer(backlogOrder, cost(backlogOrder));
+			offer(byDueDate.clone(), cost(byDueDate));
+			if (points.length > 1 && bestCost.get() > 0) {
+				long total = Arrays.stream(points).sum();
+				ForkJoinTask<Void> root = pool.submit(new Node(this, new int[points.length], new boolean[points.length], 0, 0, 0, total));
+				try {
+					root.get();
+				} catch (InterruptedException e) {
+					// Stop the search like at the deadline, the incumbent is read once the running nodes return
+					timedOut = true;
+					root.quietlyJoin();
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					// Rethrows the failure of the search unchecked
+					root.join();
+				}
+			}
+			return bestOrder;
+		}
+
+		/**
+		 * Stops the search at the deadline.
+		 * @return true if the search is stopped.
+		 */
+		boolean checkStop() {
+			if (System.nanoTime() - deadline > 0) {
+				timedOut = true;
+			}
+			return timedOut;
+		}
+
+		/**
+		 * @param release The release.
+		 * @param plannedPoints Story points planned up to and including the release.
+		 * @return lateness of the release in days.
+		 */
+		long tardiness(int release, long plannedPoints) {
+			long completion = capacity.completionDay(plannedPoints);
+			return due[release] != EpochDays.MAX_DAY && completion > due[release] ? completion - due[release] : 0;
+		}
+
+		/**
+		 * @param order Complete order of releases.
+		 * @return total lateness of the order.
+		 */
+		long cost(int[] order) {
+			long planned = 0;
+			long cost = 0;
+			for (int r : order) {
+				planned += points[r];
+				cost += tardiness(r, planned);
+			}
+			return cost;
+		}
+
+		/**
+		 * @param order Complete order of releases.
+		 * @param cost Its total lateness.
+		 */
+		synchronized void offer(int[] order, long cost) {
+			if (cost < bestCost.get()) {
+				bestOrder = order;
+				bestCost.set(cost);
+			}
+		}
+
+		/**
+		 * @param used Releases in the partial order.
+		 * @param planned Story points of the partial order.
+		 * @param remaining Story points of the releases not in the partial order.
+		 * @return lower bound of the lateness of the releases not in the partial order.
+		 */
+		long lowerBound(boolean[] used, long planned, long remaining) {
+			long bound = 0;
+			long lastExtra = Long.MAX_VALUE;
+			for (int r = 0; r < points.length; r++) {
+				if (!used[r]) {
+					long next = tardiness(r, planned + points[r]);
+					bound += next;
+					lastExtra = Math.min(lastExtra, tardiness(r, planned + remaining) - next);
+				}
+			}
+			return lastExtra == Long.MAX_VALUE ? bound : bound + lastExtra;
+		}
+	}
+
+	/**
+	 * Node of the search tree: a partial order of releases.
+	 */
+	static final class Node extends RecursiveAction {
+
+		/** For serialization format. */
+		private static final long serialVersionUID = 1L;
+
+		/** The search. */
+		private final transient Search search;
+
+		/** Partial order, the first depth positions are set. */
+		private final int[] order;
+
+		/** Releases in the partial order. */
+		private final boolean[] used;
+
+		/** Length of the partial order. */
+		private final int depth;
+
+		/** Story points of the partial order. */
+		private final long planned;
+
+		/** Lateness of the partial order. */
+		private final long cost;
+
+		/** Story points of the releases not in the partial order. */
+		private final long remaining;
+
+		/** Nodes visited since the last deadline check. */
+		private int nodes;
+
+		/**
+		 * @param search The search.
+		 * @param order Partial order.
+		 * @param used Releases in the partial order.
+		 * @param depth Length of the partial order.
+		 * @param planned Story points of the partial order.
+		 * @param cost Lateness of the partial order.
+		 * @param remaining Story points of the releases not in the partial order.
+		 */
+		Node(Search search, int[] order, boolean[] used, int depth, long planned, long cost, long remaining) {
+			this.search = search;
+			this.order = order;
+			this.used = used;
+			this.depth = depth;
+			this.planned = planned;
+			this.cost = cost;
+			this.remaining = remaining;
+		}
+
+		/**
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			if (depth >= FORK_DEPTH) {
+				dfs(depth, planned, cost, remaining);
+				return;
+			}
+			if (search.checkStop() || cost + search.lowerBound(used, planned, remaining) >= search.bestCost.get()) {
+				return;
+			}
+			List<Node> children = new ArrayList<>();
+			for (int r : search.byDueDate) {
+				if (!used[r]) {
+					int[] childOrder = order.clone();
+					boolean[] childUsed = used.clone();
+					childOrder[depth] = r;
+					childUsed[r] = true;
+					long childPlanned = planned + search.points[r];
+					long childCost = cost + search.tardiness(r, childPlanned);
+					if (depth + 1 == order.length) {
+						search.offer(childOrder, childCost);
+					} else {
+						children.add(new Node(search, childOrder, childUsed, depth + 1, childPlanned, childCost,
+							remaining - search.points[r]));
+					}
+				}
+			}
+			invokeAll(children);
+		}
+
+		/**
+		 * Sequential depth-first search below the forked levels, in place on the order and used arrays.
+		 * @param level Length of the partial order.
+		 * @param levelPlanned Story points of the partial order.
+		 * @param levelCost Lateness of the partial order.
+		 * @param levelRemaining Story points of the releases not in the partial order.
+		 */
+		private void dfs(int level, long levelPlanned, long levelCost, long levelRemaining) {
+			if (++nodes >= DEADLINE_CHECK_NODES) {
+				nodes = 0;
+				search.checkStop();
+			}
+			if (search.timedOut) {
+				return;
+			}
+			if (level == order.length) {
+				search.offer(order.clone(), levelCost);
+				return;
+			}
+			if (levelCost + search.lowerBound(used, levelPlanned, levelRemaining) >= search.bestCost.get()) {
+				return;
+			}
+			for (int r : search.byDueDate) {
+				if (!used[r]) {
+					used[r] = true;
+					order[level] = r;
+					long childPlanned = levelPlanned + search.points[r];
+					dfs(level + 1, childPlanned, levelCost + search.tardiness(r, childPlanned), levelRemaining - search.points[r]);
+					used[r] = false;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package edu.usun.planning.strategy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Default planning strategy: greedy bin-packing of feature estimates into team velocities.
+ *
+ * Features are taken in backlog (priority) order and poured into the earliest sprint with remaining capacity,
+ * the team with the most remaining capacity first, splitting a feature over teams and sprints when it does not fit.
+ * Remaining capacity of every (sprint, team) bucket sits in a priority queue, a bucket is polled,
+ * filled and pushed back only while it has capacity left, so placing n features into m buckets
+ * takes O((n + m) log m) instead of rescanning the sprints for every feature.
+ *
+ * Planning is in whole story points: velocity is rounded down and estimates are rounded up.
+ * Features which do not fit into the horizon are planned partially and reported by {@link #getUnplanned()}.
+ *
+ * @author usun
+ */
+public class GreedyPlanningStrategy implements IPlanningStrategy {
+
+	/** Features to plan, in priority order. */
+	protected List<Feature> backlog;
+
+	/** Remaining story points of the features not fully planned by the last run. */
+	protected Map<Feature, Long> unplanned = new IdentityHashMap<>();
+
+	/**
+	 * Default constructor.
+	 */
+	public GreedyPlanningStrategy() {
+		super();
+	}
+
+	/**
+	 * @param backlog Features to plan, in priority order.
+	 */
+	public GreedyPlanningStrategy(List<Feature> backlog) {
+		super();
+		this.backlog = backlog;
+	}
+
+	/**
+	 * @return the backlog
+	 */
+	public List<Feature> getBacklog() {
+		return backlog;
+	}
+
+	/**
+	 * @param backlog the backlog to set
+	 */
+	public void setBacklog(List<Feature> backlog) {
+		this.backlog = backlog;
+	}
+
+	/**
+	 * @return remaining story points of the features not fully planned by the last run, in no particular order.
+	 */
+	public Map<Feature, Long> getUnplanned() {
+		return unplanned;
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanningStrategy#copy()
+	 */
+	@Override
+	public IPlanningStrategy copy() {
+		return new GreedyPlanningStrategy(this.backlog);
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanningStrategy#planSprints(java.util.List)
+	 */
+	@Override
+	public void planSprints(List<Sprint> sprints) {
+		this.unplanned = new IdentityHashMap<>();
+		PriorityQueue<Bucket> buckets = new PriorityQueue<>(buckets(sprints));
+		if (this.backlog == null) {
+			return;
+		}
+		for (Feature feature : this.backlog) {
+			long remaining = storyPoints(feature);
+			while (remaining > 0 && !buckets.isEmpty()) {
+				Bucket bucket = buckets.poll();
+				long points = Math.min(remaining, bucket.remaining);
+				assign(bucket, feature, points);
+				remaining -= points;
+				bucket.remaining -= points;
+				if (bucket.remaining > 0) {
+					buckets.add(bucket);
+				}
+			}
+			if (remaining > 0) {
+				this.unplanned.put(feature, remaining);
+			}
+		}
+	}
+
+	/**
+	 * @param sprints The sprints.
+	 * @return buckets with remaining capacity of the available velocities, net of the rows already assigned.
+	 */
+	static List<Bucket> buckets(List<Sprint> sprints) {
+		List<Bucket> buckets = new ArrayList<>();
+		for (int s = 0; s < sprints.size(); s++) {
+			Sprint sprint = sprints.get(s);
+			if (sprint.getAvailableVelocities() == null) {
+				continue;
+			}
+			Map<Team, Long> assigned = new IdentityHashMap<>();
+			if (sprint.getAssignedVelocities() != null) {
+				for (SprintTeamActivityPlan plan : sprint.getAssignedVelocities()) {
+					assigned.merge(plan.getTeam(), (long) plan.getStoryPoints(), Long::sum);
+				}
+			}
+			for (SprintTeamAvailability availability : sprint.getAvailableVelocities()) {
+				BigDecimal velocity = availability.getVelocity();
+				long capacity = velocity == null ? 0 : velocity.setScale(0, RoundingMode.FLOOR).longValue();
+				capacity -= assigned.getOrDefault(availability.getTeam(), 0L);
+				if (capacity > 0) {
+					buckets.add(new Bucket(s, sprint, availability.getTeam(), capacity));
+				}
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * @param feature The feature.
+	 * @return remaining estimate of the feature in whole story points, 0 if not set.
+	 */
+	static long storyPoints(Feature feature) {
+		BigDecimal estimate = feature.getRemaningEstimate();
+		return estimate == null || estimate.signum() <= 0 ? 0 : estimate.setScale(0, RoundingMode.CEILING).longValueExact();
+	}
+
+	/**
+	 * Adds the plan row for the feature, or adds the story points to the row of the feature planned just before.
+	 * @param bucket The bucket.
+	 * @param feature The feature.
+	 * @param points Story points to assign.
+	 */
+	static void assign(Bucket bucket, Feature feature, long points) {
+		Sprint sprint = bucket.sprint;
+		if (sprint.getAssignedVelocities() == null) {
+			sprint.setAssignedVelocities(new ArrayList<>());
+		}
+		SprintTeamActivityPlan plan = bucket.last;
+		if (plan == null || plan.getActivity() != feature) {
+			plan = new SprintTeamActivityPlan();
+			plan.setName(feature.getName());
+			plan.setSprint(sprint);
+			plan.setTeam(bucket.team);
+			plan.setActivity(feature);
+			sprint.getAssignedVelocities().add(plan);
+			bucket.last = plan;
+		}
+		plan.setStoryPoints(Math.toIntExact(plan.getStoryPoints() + points));
+	}
+
+	/**
+	 * Remaining capacity of a team in a sprint. Ordered by sprint, then by remaining capacity (descending).
+	 */
+	static final class Bucket implements Comparable<Bucket> {
+
+		/** Position of the sprint in the horizon. */
+		final int sprintIndex;
+
+		/** The sprint. */
+		final Sprint sprint;
+
+		/** The team. */
+		final Team team;
+
+		/** Remaining capacity in story points. */
+		long remaining;
+
+		/** Plan row added last to this bucket. */
+		SprintTeamActivityPlan last;
+
+		/**
+		 * @param sprintIndex Position of the sprint in the horizon.
+		 * @param sprint The sprint.
+		 * @param team The team.
+		 * @param remaining Remaining capacity in story points.
+		 */
+		Bucket(int sprintIndex, Sprint sprint, Team team, long remaining) {
+			this.sprintIndex = sprintIndex;
+			this.sprint = sprint;
+			this.team = team;
+			this.remaining = remaining;
+		}
+
+		/**
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(Bucket other) {
+			int bySprint = Integer.compare(sprintIndex, other.sprintIndex);
+			return bySprint != 0 ? bySprint : Long.compare(other.remaining, remaining);
+		}
+	}
+}
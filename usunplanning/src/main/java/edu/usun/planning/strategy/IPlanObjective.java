@@ -0,0 +1,19 @@
+package edu.usun.planning.strategy;
+
+import java.util.List;
+
+import edu.usun.planning.sprint.Sprint;
+
+/**
+ * Objective to compare plans produced by planning strategies, see {@link PortfolioPlanningStrategy}.
+ * 
+ * @author usun
+ */
+public interface IPlanObjective {
+
+	/**
+	 * @param sprints Planned sprints.
+	 * @return score of the plan, lower is better.
+	 */
+	long score(List<Sprint> sprints);
+}
@@ -0,0 +1,30 @@
+package edu.usun.planning.strategy;
+
+import java.util.List;
+
+import edu.usun.planning.sprint.Sprint;
+
+/**
+ * Planning strategy: assigns activities to the available team velocities of the sprints
+ * by adding {@link edu.usun.planning.sprint.SprintTeamActivityPlan} rows to {@link Sprint#getAssignedVelocities()}.
+ * 
+ * @author usun
+ */
+public interface IPlanningStrategy {
+
+	/**
+	 * Plans the sprints. Available velocities of the sprints should be filled,
+	 * rows already assigned are kept and their story points are not available for planning.
+	 * @param sprints Sprints to plan, in chronological order.
+	 */
+	void planSprints(List<Sprint> sprints);
+
+	/**
+	 * Returns a strategy with the same configuration for a separate run, e.g. a concurrent one
+	 * (see {@link PortfolioPlanningStrategy}). Strategies keeping results of their last run must return a new instance.
+	 * @return the strategy for a separate run, this strategy by default.
+	 */
+	default IPlanningStrategy copy() {
+		return this;
+	}
+}
@@ -0,0 +1,200 @@
+package edu.usun.planning.strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+
+/**
+ * Meta planning strategy racing a portfolio of strategies: a copy of each strategy (see {@link IPlanningStrategy#copy()})
+ * plans its own copy of the sprints on its own thread, the plans are scored with the objective and the best one
+ * (the lowest score, the earlier strategy on ties) is applied to the sprints. Strategies still running at the deadline
+ * are cancelled (interrupted) and ignored, as well as strategies failing with an exception; as they run on copies,
+ * a cancelled run that has not stopped yet does not change the configured strategies or the winner.
+ *
+ * Sprint copies share the available velocities and the rows already assigned, the strategies only read them;
+ * the assigned velocities list itself is copied for each strategy. Strategies must not share state with each other.
+ *
+ * @author usun
+ */
+public class PortfolioPlanningStrategy implements IPlanningStrategy {
+
+	/** Strategies to race. */
+	protected List<IPlanningStrategy> strategies;
+
+	/** Objective to compare the plans. */
+	protected IPlanObjective objective;
+
+	/** Time budget of the race. */
+	protected long timeBudgetMillis;
+
+	/** Copy of the strategy which produced the applied plan in the last run, null if none finished. */
+	protected IPlanningStrategy winner;
+
+	/** Score of the applied plan in the last run. */
+	protected long bestScore;
+
+	/**
+	 * @param strategies Strategies to race.
+	 * @param objective Objective to compare the plans.
+	 * @param timeBudgetMillis Time budget of the race.
+	 */
+	public PortfolioPlanningStrategy(List<IPlanningStrategy> strategies, IPlanObjective objective, long timeBudgetMillis) {
+		super();
+		this.strategies = strategies;
+		this.objective = objective;
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	/**
+	 * @return the strategies
+	 */
+	public List<IPlanningStrategy> getStrategies() {
+		return strategies;
+	}
+
+	/**
+	 * @return the objective
+	 */
+	public IPlanObjective getObjective() {
+		return objective;
+	}
+
+	/**
+	 * @return the timeBudgetMillis
+	 */
+	public long getTimeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+
+	/**
+	 * @return copy of the strategy which produced the applied plan in the last run, with the results of that run,
+	 * null if none finished in time.
+	 */
+	public IPlanningStrategy getWinner() {
+		return winner;
+	}
+
+	/**
+	 * @return score of the applied plan in the last run.
+	 */
+	public long getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanningStrategy#copy()
+	 */
+	@Override
+	public IPlanningStrategy copy() {
+		return new PortfolioPlanningStrategy(this.strategies, this.objective, this.timeBudgetMillis);
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanningStrategy#planSprints(java.util.List)
+	 */
+	@Override
+	public void planSprints(List<Sprint> sprints) {
+		this.winner = null;
+		this.bestScore = Long.MAX_VALUE;
+		if (this.strategies == null || this.strategies.isEmpty()) {
+			return;
+		}
+		List<IPlanningStrategy> runs = new ArrayList<>();
+		List<Callable<List<Sprint>>> tasks = new ArrayList<>();
+		for (IPlanningStrategy strategy : this.strategies) {
+			IPlanningStrategy run = strategy.copy();
+			List<Sprint> copies = copy(sprints);
+			runs.add(run);
+			tasks.add(() -> {
+				run.planSprints(copies);
+				return copies;
+			});
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		List<Sprint> best = null;
+		try {
+			List<Future<List<Sprint>>> results = executor.invokeAll(tasks, this.timeBudgetMillis, TimeUnit.MILLISECONDS);
+			for (int i = 0; i < results.size(); i++) {
+				List<Sprint> plan = result(results.get(i));
+				if (plan != null) {
+					long score = this.objective.score(plan);
+					if (score < this.bestScore) {
+						this.bestScore = score;
+						this.winner = runs.get(i);
+						best = plan;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		if (best != null) {
+			apply(best, sprints);
+		}
+	}
+
+	/**
+	 * @param future Finished or cancelled strategy run.
+	 * @return planned sprints, null if the run was cancelled or failed.
+	 * @throws InterruptedException if interrupted.
+	 */
+	private static List<Sprint> result(Future<List<Sprint>> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (CancellationException | ExecutionException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param sprints The sprints.
+	 * @return copies of the sprints for a strategy to plan.
+	 */
+	static List<Sprint> copy(List<Sprint> sprints) {
+		List<Sprint> copies = new ArrayList<>(sprints.size());
+		for (Sprint sprint : sprints) {
+			try {
+				Sprint copy = (Sprint) sprint.clone();
+				if (sprint.getAssignedVelocities() != null) {
+					copy.setAssignedVelocities(new ArrayList<>(sprint.getAssignedVelocities()));
+				}
+				copies.add(copy);
+			} catch (CloneNotSupportedException e) {
+				throw new IllegalStateException("Sprint cannot be copied", e);
+			}
+		}
+		return copies;
+	}
+
+	/**
+	 * Moves the assigned velocities of the plan into the sprints.
+	 * @param plan Planned copies of the sprints.
+	 * @param sprints The sprints.
+	 */
+	private static void apply(List<Sprint> plan, List<Sprint> sprints) {
+		for (int s = 0; s < sprints.size(); s++) {
+			Sprint sprint = sprints.get(s);
+			List<SprintTeamActivityPlan> assigned = plan.get(s).getAssignedVelocities();
+			if (assigned != null) {
+				for (SprintTeamActivityPlan row : assigned) {
+					if (row.getSprint() == plan.get(s)) {
+						row.setSprint(sprint);
+					}
+				}
+			}
+			sprint.setAssignedVelocities(assigned);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package edu.usun.planning.strategy;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+
+/**
+ * Scores a plan by the total lateness of releases against {@link Release#getDeliveryToCustomer()} in days:
+ * a release is completed at the end of the last sprint with a plan row for any of its features.
+ * Features of the backlog which are not fully planned complete the day after the last sprint.
+ * Releases without a due date are never late.
+ * 
+ * @author usun
+ */
+public class ReleaseLatenessObjective implements IPlanObjective {
+
+	/** Features to be planned. */
+	protected List<Feature> backlog;
+
+	/**
+	 * @param backlog Features to be planned.
+	 */
+	public ReleaseLatenessObjective(List<Feature> backlog) {
+		super();
+		this.backlog = backlog;
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanObjective#score(java.util.List)
+	 */
+	@Override
+	public long score(List<Sprint> sprints) {
+		Map<Activity, Long> plannedPoints = new IdentityHashMap<>();
+		Map<Activity, Long> plannedUntil = new IdentityHashMap<>();
+		long horizonEnd = Long.MIN_VALUE;
+		for (Sprint sprint : sprints) {
+			long end = sprint.getEndEpochDay();
+			horizonEnd = Math.max(horizonEnd, end);
+			if (sprint.getAssignedVelocities() == null) {
+				continue;
+			}
+			for (SprintTeamActivityPlan plan : sprint.getAssignedVelocities()) {
+				if (plan.getActivity() != null) {
+					plannedPoints.merge(plan.getActivity(), (long) plan.getStoryPoints(), Long::sum);
+					plannedUntil.merge(plan.getActivity(), end, Math::max);
+				}
+			}
+		}
+
+		Map<Release, Long> completion = new IdentityHashMap<>();
+		for (Feature feature : this.backlog) {
+			if (feature.getRelease() == null) {
+				continue;
+			}
+			long points = plannedPoints.getOrDefault(feature, 0L);
+			long completed = points < GreedyPlanningStrategy.storyPoints(feature) ? horizonEnd + 1
+				: plannedUntil.getOrDefault(feature, Long.MIN_VALUE);
+			completion.merge(feature.getRelease(), completed, Math::max);
+		}
+		long lateness = 0;
+		for (Map.Entry<Release, Long> entry : completion.entrySet()) {
+			long due = entry.getKey().getDeliveryToCustomerEpochDay();
+			if (due != EpochDays.MAX_DAY && entry.getValue() > due) {
+				lateness += entry.getValue() - due;
+			}
+		}
+		return lateness;
+	}
+}
@@ -0,0 +1,32 @@
+package edu.usun.planning.strategy;
+
+import java.util.List;
+
+import edu.usun.planning.sprint.Sprint;
+
+/**
+ * Scores a plan by the story points of available team velocities left unassigned.
+ * 
+ * @author usun
+ */
+public class UnusedCapacityObjective implements IPlanObjective {
+
+	/**
+	 * Default constructor.
+	 */
+	public UnusedCapacityObjective() {
+		super();
+	}
+
+	/**
+	 * @see edu.usun.planning.strategy.IPlanObjective#score(java.util.List)
+	 */
+	@Override
+	public long score(List<Sprint> sprints) {
+		long unused = 0;
+		for (GreedyPlanningStrategy.Bucket bucket : GreedyPlanningStrategy.buckets(sprints)) {
+			unused += bucket.remaining;
+		}
+		return unused;
+	}
+}
@@ -5,6 +5,9 @@ import java.util.stream.Collectors;
 
 import edu.usun.planning.PlanEntity;
 import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.CapacityOverrideIndex;
+import edu.usun.planning.calendar.CapacityOverrideRange;
+import edu.usun.planning.calendar.CapacityOverrideRanges;
 	
 /**
  * Represents employee or contractor, can be assigned to teams.
@@ -23,6 +26,22 @@ public class Person extends PlanEntity {
 	 * Normally covers the same period of time as workCalendar.
 	 */
 	protected List<CapacityOverride> personalCapacityOverrides;
+	
+	/**
+	 * Lookup index over personal capacity overrides, built on demand.
+	 */
+	protected transient volatile CapacityOverrideIndex personalCapacityOverridesIndex;
+	
+	/**
+	 * Personal vacations, part-time periods and other capacity changes over ranges of days.
+	 * Single day personal capacity overrides take precedence over them.
+	 */
+	protected List<CapacityOverrideRange> personalCapacityOverrideRanges;
+	
+	/**
+	 * Interval index over personal capacity override ranges, built on demand.
+	 */
+	protected transient volatile CapacityOverrideRanges personalCapacityOverrideRangesIndex;
 
 	/**
 	 * Default constructor.
@@ -43,6 +62,59 @@ public class Person extends PlanEntity {
 	 */
 	public void setPersonalCapacityOverrides(List<CapacityOverride> personalCapacityOverrides) {
 		this.personalCapacityOverrides = personalCapacityOverrides;
+		this.personalCapacityOverridesIndex = null;
+	}
+
+	/**
+	 * Returns lookup index over personal capacity overrides. The index is rebuilt when the list is replaced,
+	 * in-place changes of the list or its records require {@link #capacityOverridesChanged()} to be called.
+	 * @return the personalCapacityOverrides index, never null.
+	 */
+	public CapacityOverrideIndex getPersonalCapacityOverridesIndex() {
+		CapacityOverrideIndex index = this.personalCapacityOverridesIndex;
+		if (index == null) {
+			index = CapacityOverrideIndex.of(this.personalCapacityOverrides);
+			this.personalCapacityOverridesIndex = index;
+		}
+		return index;
+	}
+	
+	/**
+	 * @return the personalCapacityOverrideRanges
+	 */
+	public List<CapacityOverrideRange> getPersonalCapacityOverrideRanges() {
+		return personalCapacityOverrideRanges;
+	}
+
+	/**
+	 * @param personalCapacityOverrideRanges the personalCapacityOverrideRanges to set
+	 */
+	public void setPersonalCapacityOverrideRanges(List<CapacityOverrideRange> personalCapacityOverrideRanges) {
+		this.personalCapacityOverrideRanges = personalCapacityOverrideRanges;
+		this.personalCapacityOverrideRangesIndex = null;
+	}
+
+	/**
+	 * Returns interval index over personal capacity override ranges. The index is rebuilt when the list is replaced,
+	 * in-place changes of the list or its ranges require {@link #capacityOverridesChanged()} to be called.
+	 * @return the personalCapacityOverrideRanges index, never null.
+	 */
+	public CapacityOverrideRanges getPersonalCapacityOverrideRangesIndex() {
+		CapacityOverrideRanges index = this.personalCapacityOverrideRangesIndex;
+		if (index == null) {
+			index = CapacityOverrideRanges.of(this.personalCapacityOverrideRanges);
+			this.personalCapacityOverrideRangesIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Drops the lookup indexes after in-place changes of the personal capacity override lists or their records,
+	 * they are rebuilt on the next lookup.
+	 */
+	public void capacityOverridesChanged() {
+		this.personalCapacityOverridesIndex = null;
+		this.personalCapacityOverrideRangesIndex = null;
 	}
 	
 	/**
@@ -62,6 +134,14 @@ public class Person extends PlanEntity {
 				.collect(Collectors.joining(",")).toString());
 		}
 		
+		sb.append("],personalCapacityOverrideRanges=[");
+		if (this.getPersonalCapacityOverrideRanges() != null && !this.getPersonalCapacityOverrideRanges().isEmpty()) {
+			sb.append(this.getPersonalCapacityOverrideRanges()
+				.stream()
+				.map(CapacityOverrideRange::toString)
+				.collect(Collectors.joining(",")).toString());
+		}
+		
 		sb.append(']');
 		return sb.append('}').toString();
 	}
@@ -5,6 +5,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
 import edu.usun.planning.PlanEntity;
+import edu.usun.planning.calendar.EpochDays;
 import edu.usun.planning.calendar.WorkCalendar;
 
 /**
@@ -105,6 +106,18 @@ public class TeamMember extends PlanEntity {
 		this.workCalendar = workCalendar;
 	}
 
+	/**
+	 * Returns work calendar which can be changed for this team member only:
+	 * shared calendar is forked (copy-on-write) and the copy replaces it for this team member.
+	 * @return the workCalendar, null if not set
+	 */
+	public WorkCalendar getWorkCalendarForUpdate() {
+		if (this.workCalendar != null && this.workCalendar.isShared()) {
+			this.workCalendar = this.workCalendar.fork();
+		}
+		return this.workCalendar;
+	}
+
 	/**
 	 * @return the startDate
 	 */
@@ -133,6 +146,20 @@ public class TeamMember extends PlanEntity {
 		this.endDate = endDate;
 	}
 
+	/**
+	 * @return the startDate as epoch-day, {@link EpochDays#MIN_DAY} if not set
+	 */
+	public long getStartEpochDay() {
+		return EpochDays.toEpochDay(this.startDate, EpochDays.MIN_DAY);
+	}
+
+	/**
+	 * @return the endDate as epoch-day, {@link EpochDays#MAX_DAY} if not set
+	 */
+	public long getEndEpochDay() {
+		return EpochDays.toEpochDay(this.endDate, EpochDays.MAX_DAY);
+	}
+
 	/**
 	 * @return the notes
 	 */
@@ -0,0 +1,41 @@
+package edu.usun.planning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+/**
+ * Unit test for edu.usun.planning.FixedPoint.
+ * 
+ * @author usun
+ */
+public class FixedPointTest {
+
+	@Test
+	public void testConversion() {
+		assertEquals(1500L, FixedPoint.of(new BigDecimal("1.5"), 0));
+		assertEquals(42L, FixedPoint.of(null, 42));
+		// Half-even rounding to thousandths
+		assertEquals(12L, FixedPoint.of(new BigDecimal("0.0125"), 0));
+		assertEquals(14L, FixedPoint.of(new BigDecimal("0.0135"), 0));
+		assertEquals(-12L, FixedPoint.of(new BigDecimal("-0.0125"), 0));
+		assertEquals(new BigDecimal("1.500"), FixedPoint.toBigDecimal(1500L));
+	}
+
+	@Test
+	public void testArithmetic() {
+		assertEquals(875L, FixedPoint.multiply(1750L, 500L));
+		assertEquals(333L, FixedPoint.divide(1000L, 3000L));
+		assertEquals(667L, FixedPoint.divide(2000L, 3000L));
+		assertEquals(2L, FixedPoint.divideRounded(5L, 2L));
+		assertEquals(4L, FixedPoint.divideRounded(7L, 2L));
+		assertEquals(-2L, FixedPoint.divideRounded(-5L, 2L));
+		assertEquals(-4L, FixedPoint.divideRounded(7L, -2L));
+		assertEquals(2L, FixedPoint.ceil(1001L));
+		assertEquals(-1L, FixedPoint.ceil(-1999L));
+		assertEquals(1L, FixedPoint.floor(1999L));
+		assertEquals(-2L, FixedPoint.floor(-1001L));
+	}
+}
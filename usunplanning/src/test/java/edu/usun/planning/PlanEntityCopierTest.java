@@ -0,0 +1,125 @@
+package edu.usun.planning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.calendar.WorkCalendarRegistry;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.stream.Stream;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.PlanEntityCopier.
+ *
+ * @author usun
+ */
+public class PlanEntityCopierTest {
+
+	@Test
+	public void testSharedReferencesAndCycles() {
+		Stream stream = new Stream();
+		stream.setName("Payments");
+		Feature feature = new Feature();
+		feature.setName("F1");
+		feature.setRemaningEstimate(new BigDecimal("8"));
+		feature.setStream(stream);
+		Task task = new Task();
+		task.setName("T1");
+		task.setStream(stream);
+		stream.setActivities(new ArrayList<>(Arrays.asList(feature, task)));
+
+		Person person = new Person();
+		person.setName("P1");
+		CapacityOverride override = new CapacityOverride();
+		override.setDate(new GregorianCalendar(2021, 0, 5));
+		override.setCapacityFactor(new BigDecimal("0.5"));
+		person.setPersonalCapacityOverrides(new ArrayList<>(Arrays.asList(override)));
+		assertNotNull(person.getPersonalCapacityOverridesIndex());
+
+		Sprint sprint = new Sprint();
+		sprint.setName("S1");
+		sprint.setStartDate(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 1, 4)));
+		SprintPersonCapacity capacity = new SprintPersonCapacity();
+		capacity.setSprint(sprint);
+		capacity.setPerson(person);
+		sprint.setSprintPersonCapacities(new ArrayList<>(Arrays.asList(capacity)));
+
+		PlanEntityCopier copier = new PlanEntityCopier();
+		Stream streamCopy = copier.copy(stream);
+		Sprint sprintCopy = copier.copy(sprint);
+
+		assertNotSame(stream, streamCopy);
+		assertEquals("Payments", streamCopy.getName());
+		Feature featureCopy = (Feature) streamCopy.getActivities().get(0);
+		assertNotSame(feature, featureCopy);
+		assertSame(streamCopy, featureCopy.getStream());
+		assertSame(streamCopy, streamCopy.getActivities().get(1).getStream());
+		assertEquals(new BigDecimal("8"), featureCopy.getRemaningEstimate());
+		assertSame(featureCopy, copier.getCopy(feature));
+
+		SprintPersonCapacity capacityCopy = sprintCopy.getSprintPersonCapacities().get(0);
+		assertSame(sprintCopy, capacityCopy.getSprint());
+		assertNotSame(sprint.getStartDate(), sprintCopy.getStartDate());
+		assertEquals(sprint.getStartDate(), sprintCopy.getStartDate());
+		Person personCopy = capacityCopy.getPerson();
+		assertNotSame(person, personCopy);
+		assertNotSame(override, personCopy.getPersonalCapacityOverrides().get(0));
+		// Index reset and rebuilt from the copied overrides
+		assertNotSame(person.getPersonalCapacityOverridesIndex(), personCopy.getPersonalCapacityOverridesIndex());
+		assertEquals(1, personCopy.getPersonalCapacityOverridesIndex().size());
+
+		// Changes do not leak
+		featureCopy.setName("F2");
+		personCopy.getPersonalCapacityOverrides().clear();
+		assertEquals("F1", feature.getName());
+		assertEquals(1, person.getPersonalCapacityOverrides().size());
+	}
+
+	@Test
+	public void testSharedCalendarAndLargeGraph() {
+		WorkCalendar calendar = WorkCalendarRegistry.getInstance().intern(new WorkCalendar());
+		Team team = new Team();
+		List<TeamMember> members = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			Person person = new Person();
+			person.setName("P" + i);
+			TeamMember member = new TeamMember();
+			member.setPerson(person);
+			member.setTeam(team);
+			member.setWorkCalendar(i % 2 == 0 ? calendar : new WorkCalendar());
+			members.add(member);
+		}
+		List<TeamMember> copy = PlanEntityCopier.deepCopy(members);
+		assertEquals(100000, copy.size());
+		Team teamCopy = copy.get(0).getTeam();
+		assertNotSame(team, teamCopy);
+		for (int i = 0; i < copy.size(); i++) {
+			assertSame(teamCopy, copy.get(i).getTeam());
+			assertEquals("P" + i, copy.get(i).getPerson().getName());
+		}
+		assertSame(calendar, copy.get(0).getWorkCalendar());
+		assertNotSame(members.get(1).getWorkCalendar(), copy.get(1).getWorkCalendar());
+		assertTrue(!copy.get(1).getWorkCalendar().isShared());
+		assertNull(PlanEntityCopier.deepCopy(null));
+	}
+}
@@ -0,0 +1,139 @@
+package edu.usun.planning.calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.usun.planning.FixedPoint;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.calendar.CapacityUtils.
+ *
+ * @author usun
+ */
+public class CapacityUtilsTest {
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testFindCapacityOverride() {
+		List<CapacityOverride> overrides = new ArrayList<>();
+		CapacityOverride christmas = newOverride(2020, Calendar.DECEMBER, 25, "0");
+		CapacityOverride newYear = newOverride(2021, Calendar.JANUARY, 1, "0");
+		CapacityOverride duplicate = newOverride(2020, Calendar.DECEMBER, 25, "0.5");
+		overrides.add(newYear);
+		overrides.add(null);
+		overrides.add(christmas);
+		overrides.add(duplicate);
+		overrides.add(new CapacityOverride());
+
+		assertSame(christmas, CapacityUtils.findCapacityOverride(new GregorianCalendar(2020, Calendar.DECEMBER, 25), overrides));
+		assertSame(newYear, CapacityUtils.findCapacityOverride(new GregorianCalendar(2021, Calendar.JANUARY, 1, 23, 59), overrides));
+		assertNull(CapacityUtils.findCapacityOverride(new GregorianCalendar(2019, Calendar.DECEMBER, 25), overrides));
+		assertNull(CapacityUtils.findCapacityOverride(null, overrides));
+		assertNull(CapacityUtils.findCapacityOverride(new GregorianCalendar(2020, Calendar.DECEMBER, 25), (List<CapacityOverride>) null));
+	}
+
+	@Test
+	public void testFindCapacityOverrideIndexRefresh() {
+		Person person = new Person();
+		assertNull(CapacityUtils.findCapacityOverride(new GregorianCalendar(2020, Calendar.MAY, 4), person));
+
+		List<CapacityOverride> overrides = new ArrayList<>();
+		person.setPersonalCapacityOverrides(overrides);
+		assertEquals(0, person.getPersonalCapacityOverridesIndex().size());
+
+		CapacityOverride dayOff = newOverride(2020, Calendar.MAY, 4, "0");
+		overrides.add(dayOff);
+		person.capacityOverridesChanged();
+		assertSame(dayOff, CapacityUtils.findCapacityOverride(new GregorianCalendar(2020, Calendar.MAY, 4), person));
+
+		// Moving the day off keeps the size of the list
+		dayOff.setDate(new GregorianCalendar(2020, Calendar.MAY, 5));
+		person.capacityOverridesChanged();
+		assertNull(CapacityUtils.findCapacityOverride(new GregorianCalendar(2020, Calendar.MAY, 4), person));
+		assertSame(dayOff, CapacityUtils.findCapacityOverride(new GregorianCalendar(2020, Calendar.MAY, 5), person));
+	}
+
+	@Test
+	public void testTeamMemberCapacity() {
+		Random random = new Random(42);
+		long first = EpochDays.toEpochDay(2020, 1, 1);
+		List<CapacityOverrideRange> ranges = new ArrayList<>();
+		List<CapacityOverride> overrides = new ArrayList<>();
+		List<CapacityOverride> holidays = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			long start = first + random.nextInt(700);
+			BigDecimal factor = new BigDecimal(random.nextInt(5)).divide(new BigDecimal(4));
+			ranges.add(new CapacityOverrideRange(EpochDays.toCalendar(start), 
+				EpochDays.toCalendar(start + random.nextInt(30)), factor));
+			overrides.add(newOverride(EpochDays.toCalendar(first + random.nextInt(730)), factor));
+			holidays.add(newOverride(EpochDays.toCalendar(first + random.nextInt(730)), BigDecimal.ZERO));
+		}
+		Person person = new Person();
+		person.setPersonalCapacityOverrideRanges(ranges);
+		person.setPersonalCapacityOverrides(overrides);
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setPublicHolidays(holidays);
+		TeamMember member = new TeamMember();
+		member.setPerson(person);
+		member.setWorkCalendar(workCalendar);
+		member.setCapacityFactor(new BigDecimal("0.875"));
+		member.setStartDate(EpochDays.toCalendar(first + 20));
+
+		// Stabbing queries: the last range covering the day wins
+		CapacityOverrideRanges index = person.getPersonalCapacityOverrideRangesIndex();
+		for (long day = first - 1; day < first + 740; day++) {
+			long expected = FixedPoint.ONE;
+			for (CapacityOverrideRange range : ranges) {
+				if (range.getStartEpochDay() <= day && day <= range.getEndEpochDay()) {
+					expected = FixedPoint.of(range.getCapacityFactor(), FixedPoint.ONE);
+				}
+			}
+			assertEquals(expected, index.factorAt(day));
+		}
+
+		DailyCapacityVector vector = DailyCapacityVector.of(member, first, first + 730);
+		for (int i = 0; i < 200; i++) {
+			long from = first + random.nextInt(600);
+			long to = from + random.nextInt(125) - 5;
+			assertEquals(vector.sum(from, to), CapacityUtils.getCapacity(member, from, to));
+		}
+	}
+
+	/**
+	 * @param date The date.
+	 * @param factor The capacity factor.
+	 * @return new capacity override record.
+	 */
+	static CapacityOverride newOverride(Calendar date, BigDecimal factor) {
+		CapacityOverride capacityOverride = new CapacityOverride();
+		capacityOverride.setDate(date);
+		capacityOverride.setCapacityFactor(factor);
+		return capacityOverride;
+	}
+
+	/**
+	 * @param year The year.
+	 * @param month The month (Calendar constant).
+	 * @param day The day of the month.
+	 * @param factor The capacity factor.
+	 * @return new capacity override record.
+	 */
+	static CapacityOverride newOverride(int year, int month, int day, String factor) {
+		CapacityOverride capacityOverride = new CapacityOverride();
+		capacityOverride.setDate(new GregorianCalendar(year, month, day));
+		capacityOverride.setCapacityFactor(new BigDecimal(factor));
+		return capacityOverride;
+	}
+}
@@ -0,0 +1,59 @@
+package edu.usun.planning.calendar;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.calendar.DailyCapacityVector.
+ *
+ * @author usun
+ */
+public class DailyCapacityVectorTest {
+
+	@Test
+	public void testTeamMemberCapacity() {
+		// 2020-12-21 (Monday) to 2021-01-03 (Sunday)
+		Calendar from = new GregorianCalendar(2020, Calendar.DECEMBER, 21);
+		Calendar to = new GregorianCalendar(2021, Calendar.JANUARY, 3);
+
+		List<CapacityOverride> holidays = new ArrayList<>();
+		holidays.add(CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 25, "0"));
+		holidays.add(CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 24, "0.5"));
+		holidays.add(CapacityUtilsTest.newOverride(2021, Calendar.JANUARY, 1, "0"));
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setPublicHolidays(holidays);
+
+		List<CapacityOverride> overrides = new ArrayList<>();
+		overrides.add(CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 28, "0"));
+		overrides.add(CapacityUtilsTest.newOverride(2021, Calendar.JANUARY, 1, "1"));
+		Person person = new Person();
+		person.setPersonalCapacityOverrides(overrides);
+
+		TeamMember member = new TeamMember();
+		member.setPerson(person);
+		member.setWorkCalendar(workCalendar);
+		DailyCapacityVector vector = DailyCapacityVector.of(member, from, to);
+
+		assertEquals(14, vector.length());
+		// 10 week days - 2.5 days of public holidays - 1 day off + 1 day worked on a holiday
+		assertEquals(7500L, vector.total());
+		assertEquals(500L, vector.get(EpochDays.toEpochDay(new GregorianCalendar(2020, Calendar.DECEMBER, 24))));
+		assertEquals(0L, vector.get(vector.getToEpochDay() + 1));
+
+		member.setCapacityFactor(new BigDecimal("0.5"));
+		member.setEndDate(new GregorianCalendar(2020, Calendar.DECEMBER, 27));
+		vector = DailyCapacityVector.of(member, from, to);
+		assertEquals(1750L, vector.total());
+		assertEquals(1000L, vector.sum(vector.getFromEpochDay() - 10, vector.getFromEpochDay() + 1));
+	}
+}
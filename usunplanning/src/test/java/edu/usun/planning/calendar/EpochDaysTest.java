@@ -0,0 +1,43 @@
+package edu.usun.planning.calendar;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+/**
+ * Unit test for edu.usun.planning.calendar.EpochDays.
+ *
+ * @author usun
+ */
+public class EpochDaysTest {
+
+	@Test
+	public void testConversions() {
+		LocalDate date = LocalDate.of(1899, 12, 31);
+		while (date.getYear() < 2101) {
+			Calendar cal = new GregorianCalendar(date.getYear(), date.getMonthValue() - 1, date.getDayOfMonth(), 13, 45);
+			long epochDay = date.toEpochDay();
+			assertEquals(epochDay, EpochDays.toEpochDay(cal));
+			assertEquals(date.getYear(), EpochDays.yearOf(epochDay));
+			assertEquals(date.getMonthValue(), EpochDays.monthOf(epochDay));
+			assertEquals(date.getDayOfMonth(), EpochDays.dayOfMonth(epochDay));
+			assertEquals(date.getDayOfWeek().getValue(), EpochDays.dayOfWeek(epochDay));
+			assertEquals(date.lengthOfYear(), EpochDays.lengthOfYear(date.getYear()));
+			date = date.plusDays(1);
+		}
+	}
+
+	@Test
+	public void testToCalendar() {
+		Calendar cal = EpochDays.toCalendar(EpochDays.toEpochDay(2020, 2, 29));
+		assertEquals(2020, cal.get(Calendar.YEAR));
+		assertEquals(Calendar.FEBRUARY, cal.get(Calendar.MONTH));
+		assertEquals(29, cal.get(Calendar.DAY_OF_MONTH));
+		assertEquals(0, cal.get(Calendar.HOUR_OF_DAY));
+		assertEquals(EpochDays.MAX_DAY, EpochDays.toEpochDay(null, EpochDays.MAX_DAY));
+	}
+}
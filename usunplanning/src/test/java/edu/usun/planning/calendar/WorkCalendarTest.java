@@ -0,0 +1,260 @@
+package edu.usun.planning.calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.FixedPoint;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.calendar.WorkCalendar.
+ *
+ * @author usun
+ */
+public class WorkCalendarTest {
+
+	@Test
+	public void testGetCapacity() {
+		List<CapacityOverride> holidays = new ArrayList<>();
+		for (int year = 2019; year <= 2022; year++) {
+			holidays.add(CapacityUtilsTest.newOverride(year, Calendar.JANUARY, 1, "0"));
+			holidays.add(CapacityUtilsTest.newOverride(year, Calendar.DECEMBER, 24, "0.5"));
+			holidays.add(CapacityUtilsTest.newOverride(year, Calendar.DECEMBER, 25, "0"));
+		}
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setPublicHolidays(holidays);
+
+		long from = EpochDays.toEpochDay(new GregorianCalendar(2019, Calendar.MARCH, 3));
+		long to = EpochDays.toEpochDay(new GregorianCalendar(2022, Calendar.FEBRUARY, 11));
+		for (long start = from; start < to; start += 37) {
+			for (long end = start - 1; end <= to; end += 53) {
+				long expected = 0;
+				int expectedWorkingDays = 0;
+				for (long day = start; day <= end; day++) {
+					long capacity = workCalendar.getDayCapacity(day);
+					expected += capacity;
+					expectedWorkingDays += capacity > 0 ? 1 : 0;
+				}
+				assertEquals(expected, workCalendar.getCapacity(start, end));
+				assertEquals(expectedWorkingDays, workCalendar.getWorkingDays(start, end));
+			}
+		}
+
+		assertEquals(500L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2020, 12, 24)));
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2020, 12, 26)));
+		assertEquals(1000L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2020, 12, 28)));
+
+		// 2020-12-21 to 2021-01-03: 10 week days - 2.5 days of public holidays
+		assertEquals(new BigDecimal("7.500"), workCalendar.getCapacity(new GregorianCalendar(2020, Calendar.DECEMBER, 21),
+			new GregorianCalendar(2021, Calendar.JANUARY, 3)));
+
+		assertEquals(8, workCalendar.getWorkingDays(new GregorianCalendar(2020, Calendar.DECEMBER, 21),
+			new GregorianCalendar(2021, Calendar.JANUARY, 3)));
+
+		holidays.add(CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 31, "0"));
+		workCalendar.holidaysChanged();
+		assertEquals(new BigDecimal("6.500"), workCalendar.getCapacity(new GregorianCalendar(2020, Calendar.DECEMBER, 21),
+			new GregorianCalendar(2021, Calendar.JANUARY, 3)));
+	}
+
+	@Test
+	public void testInternAndFork() {
+		List<TeamMember> members = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			List<CapacityOverride> holidays = new ArrayList<>();
+			holidays.add(CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 25, i == 2 ? "0.00" : "0"));
+			WorkCalendar workCalendar = new WorkCalendar();
+			workCalendar.setName("London");
+			workCalendar.setPublicHolidays(holidays);
+			TeamMember member = new TeamMember();
+			member.setWorkCalendar(workCalendar);
+			members.add(member);
+		}
+		WorkCalendarRegistry registry = WorkCalendarRegistry.getInstance();
+		registry.clear();
+		registry.internAll(members);
+
+		assertEquals(1, registry.size());
+		WorkCalendar shared = members.get(0).getWorkCalendar();
+		assertTrue(shared.isShared());
+		assertSame(shared, members.get(1).getWorkCalendar());
+		assertSame(shared, members.get(2).getWorkCalendar());
+
+		WorkCalendar forked = members.get(0).getWorkCalendarForUpdate();
+		assertNotSame(shared, forked);
+		assertFalse(forked.isShared());
+		forked.getPublicHolidays().get(0).setCapacityFactor(BigDecimal.ONE);
+		forked.holidaysChanged();
+		long christmas = EpochDays.toEpochDay(2020, 12, 25);
+		assertEquals(1000L, forked.getDayCapacity(christmas));
+		assertEquals(0L, shared.getDayCapacity(christmas));
+		assertSame(shared, members.get(1).getWorkCalendar());
+		registry.clear();
+	}
+
+	@Test
+	public void testInternByRules() {
+		WorkCalendar dubai = new WorkCalendar();
+		dubai.setName("Dubai");
+		FixedDateHoliday nationalDay = new FixedDateHoliday("National Day", 12, 2);
+		dubai.setHolidayRules(new ArrayList<>(Arrays.asList(new WeekendRule(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY), nationalDay)));
+		WorkCalendar same = new WorkCalendar();
+		same.setName("Dubai");
+		FixedDateHoliday sameDay = new FixedDateHoliday("National Day", 12, 2);
+		sameDay.setCapacityFactor(new BigDecimal("0.00"));
+		same.setHolidayRules(Arrays.asList(new WeekendRule(DayOfWeek.SATURDAY, DayOfWeek.FRIDAY), sameDay));
+		WorkCalendar other = new WorkCalendar();
+		other.setName("Dubai");
+		other.setHolidayRules(Arrays.asList(new WeekendRule(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY),
+			new FixedDateHoliday("National Day", 12, 3)));
+
+		WorkCalendarRegistry registry = WorkCalendarRegistry.getInstance();
+		registry.clear();
+		WorkCalendar shared = registry.intern(dubai);
+		assertSame(shared, registry.intern(same));
+		assertNotSame(shared, registry.intern(other));
+
+		// The registry keeps its own copy of the rules
+		nationalDay.setDayOfMonth(3);
+		assertSame(shared, registry.intern(same));
+		registry.clear();
+	}
+
+	@Test
+	public void testSharedCalendarCannotChange() {
+		CapacityOverride christmas = CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 25, "0");
+		List<CapacityOverride> holidays = new ArrayList<>();
+		holidays.add(christmas);
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setName("London");
+		workCalendar.setPublicHolidays(holidays);
+		workCalendar.markShared();
+
+		christmas.setCapacityFactor(BigDecimal.ONE);
+		holidays.clear();
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2020, 12, 25)));
+		try {
+			workCalendar.setName("Paris");
+			fail("Shared calendar renamed");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			workCalendar.getPublicHolidays().clear();
+			fail("Shared calendar holidays changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			workCalendar.holidaysChanged();
+			fail("Shared calendar caches dropped");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals("London", workCalendar.getName());
+	}
+
+	@Test
+	public void testSharedCalendarRecordsCannotChange() {
+		List<CapacityOverride> holidays = new ArrayList<>();
+		holidays.add(CapacityUtilsTest.newOverride(2020, Calendar.DECEMBER, 25, "0"));
+		List<HolidayRule> rules = new ArrayList<>();
+		rules.add(new FixedDateHoliday("New Year's Day", 1, 1));
+		rules.add(new WeekendRule());
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setName("London");
+		workCalendar.setPublicHolidays(holidays);
+		workCalendar.setHolidayRules(rules);
+		workCalendar.markShared();
+
+		CapacityOverride christmas = workCalendar.getPublicHolidays().get(0);
+		try {
+			christmas.setDate(new GregorianCalendar(2020, Calendar.DECEMBER, 24));
+			fail("Shared calendar holiday moved");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			christmas.setCapacityFactor(BigDecimal.ONE);
+			fail("Shared calendar holiday changed");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		christmas.getDate().add(Calendar.DATE, -1);
+		FixedDateHoliday newYear = (FixedDateHoliday) workCalendar.getHolidayRules().get(0);
+		try {
+			newYear.setDayOfMonth(2);
+			fail("Shared calendar rule changed");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		WeekendRule weekend = (WeekendRule) workCalendar.getHolidayRules().get(1);
+		try {
+			weekend.getDaysOfWeek().clear();
+			fail("Shared calendar weekend changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2020, 12, 25)));
+		assertEquals(FixedPoint.ONE, workCalendar.getDayCapacity(EpochDays.toEpochDay(2020, 12, 24)));
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2021, 1, 1)));
+
+		CapacityOverride copy = christmas.copy();
+		copy.setCapacityFactor(BigDecimal.ONE);
+		((FixedDateHoliday) newYear.copy()).setDayOfMonth(2);
+	}
+
+	@Test
+	public void testHolidayRules() {
+		List<HolidayRule> rules = new ArrayList<>();
+		rules.add(new FixedDateHoliday("New Year's Day", 1, 1));
+		rules.add(new EasterHoliday("Good Friday", -2));
+		rules.add(new EasterHoliday("Easter Monday", 1));
+		rules.add(new NthWeekdayHoliday("Early May bank holiday", 5, DayOfWeek.MONDAY, 1));
+		rules.add(new NthWeekdayHoliday("Spring bank holiday", 5, DayOfWeek.MONDAY, -1));
+		rules.add(new NthWeekdayHoliday("Summer bank holiday", 8, DayOfWeek.MONDAY, -1));
+		rules.add(new FixedDateHoliday("Christmas Day", 12, 25));
+		FixedDateHoliday christmasEve = new FixedDateHoliday("Christmas Eve", 12, 24);
+		christmasEve.setCapacityFactor(new BigDecimal("0.5"));
+		rules.add(christmasEve);
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setHolidayRules(rules);
+
+		long first = EpochDays.firstDayOfYear(2021);
+		long last = EpochDays.toEpochDay(2021, 12, 31);
+		assertEquals(EasterHoliday.easterSunday(2021) - 2, EpochDays.toEpochDay(2021, 4, 2));
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2021, 5, 3)));
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2021, 5, 31)));
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2021, 8, 30)));
+		// 261 week days - 6 holidays - half day, Christmas Day is on Saturday
+		assertEquals(254500L, workCalendar.getCapacity(first, last));
+
+		// Substitute day as an explicit public holiday
+		List<CapacityOverride> holidays = new ArrayList<>();
+		holidays.add(CapacityUtilsTest.newOverride(2021, Calendar.DECEMBER, 27, "0"));
+		workCalendar.setPublicHolidays(holidays);
+		assertEquals(253500L, workCalendar.getCapacity(first, last));
+
+		// Sunday to Thursday working week
+		rules.add(new WeekendRule(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY));
+		workCalendar.setHolidayRules(rules);
+		assertEquals(1000L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2021, 12, 26)));
+		assertEquals(0L, workCalendar.getDayCapacity(EpochDays.toEpochDay(2021, 12, 24)));
+		assertEquals(EpochDays.toEpochDay(2024, 3, 31), EasterHoliday.easterSunday(2024));
+		assertEquals(EpochDays.toEpochDay(2019, 4, 21), EasterHoliday.easterSunday(2019));
+	}
+}
@@ -0,0 +1,163 @@
+package edu.usun.planning.forecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.forecast.MonteCarloForecaster.
+ *
+ * @author usun
+ */
+public class MonteCarloForecasterTest {
+
+	@Test
+	public void testWithoutVariance() {
+		List<Sprint> sprints = newSprints(5, "10");
+		Release a = newRelease("A", sprints.get(1).getEndEpochDay());
+		Release b = newRelease("B", sprints.get(4).getEndEpochDay());
+		Release c = newRelease("C", sprints.get(4).getEndEpochDay());
+		List<Feature> backlog = new ArrayList<>();
+		backlog.add(newFeature("A1", "25", a));
+		backlog.add(newFeature("A2", "15", a));
+		backlog.add(newFeature("X", "60", null));
+		// 40 points after the 100 of the horizon: two more sprints at 20 points
+		backlog.add(newFeature("B", "40", b));
+		// 400 points after the horizon: beyond five more sprints
+		backlog.add(newFeature("C", "360", c));
+
+		MonteCarloForecaster forecaster = new MonteCarloForecaster();
+		forecaster.setTrials(1000);
+		forecaster.setVelocitySigma(0);
+		forecaster.setEstimateSigma(0);
+		List<ReleaseForecast> forecasts = forecaster.forecast(sprints, backlog);
+		assertEquals(3, forecasts.size());
+
+		ReleaseForecast forecastA = forecasts.get(0);
+		assertSame(a, forecastA.getRelease());
+		assertEquals(sprints.get(1).getEndEpochDay(), forecastA.getP50EpochDay());
+		assertEquals(sprints.get(1).getEndEpochDay(), forecastA.getP95EpochDay());
+		assertEquals(1.0, forecastA.getOnTimeProbability(), 0);
+
+		ReleaseForecast forecastB = forecasts.get(1);
+		assertEquals(sprints.get(4).getEndEpochDay() + 2 * 14, forecastB.getP85EpochDay());
+		assertEquals(EpochDays.toCalendar(sprints.get(4).getEndEpochDay() + 2 * 14), forecastB.getP85());
+		assertEquals(0.0, forecastB.getOnTimeProbability(), 0);
+
+		ReleaseForecast forecastC = forecasts.get(2);
+		assertEquals(EpochDays.MAX_DAY, forecastC.getP50EpochDay());
+		assertNull(forecastC.getP50());
+	}
+
+	@Test
+	public void testMillionTrials() {
+		List<Sprint> sprints = newSprints(30, "20");
+		List<Release> releases = new ArrayList<>();
+		List<Feature> backlog = new ArrayList<>();
+		for (int r = 0; r < 10; r++) {
+			Release release = newRelease("R" + r, sprints.get(3 * r + 2).getEndEpochDay());
+			releases.add(release);
+			for (int i = 0; i < 10; i++) {
+				backlog.add(newFeature("F" + r + "." + i, "12", release));
+			}
+		}
+
+		MonteCarloForecaster forecaster = new MonteCarloForecaster();
+		forecaster.setTrials(1000000);
+		long started = System.nanoTime();
+		List<ReleaseForecast> forecasts = forecaster.forecast(sprints, backlog);
+		assertTrue(System.nanoTime() - started < 30_000_000_000L);
+		assertEquals(10, forecasts.size());
+		for (int r = 0; r < 10; r++) {
+			ReleaseForecast forecast = forecasts.get(r);
+			assertSame(releases.get(r), forecast.getRelease());
+			assertTrue(forecast.getP50EpochDay() <= forecast.getP85EpochDay());
+			assertTrue(forecast.getP85EpochDay() <= forecast.getP95EpochDay());
+			// 120 points per release at 40 points per sprint: on time in about half of the futures
+			assertTrue(forecast.getOnTimeProbability() > 0.2 && forecast.getOnTimeProbability() < 0.8);
+		}
+
+		// Same seed, same forecast
+		forecaster.setTrials(10000);
+		List<ReleaseForecast> first = forecaster.forecast(sprints, backlog);
+		List<ReleaseForecast> second = forecaster.forecast(sprints, backlog);
+		for (int r = 0; r < 10; r++) {
+			assertEquals(first.get(r).getP85EpochDay(), second.get(r).getP85EpochDay());
+			assertEquals(first.get(r).getOnTimeProbability(), second.get(r).getOnTimeProbability(), 0);
+		}
+	}
+
+	/**
+	 * @param count Number of sprints.
+	 * @param velocity Velocity of each of the two teams.
+	 * @return two weeks sprints from 2021-01-04.
+	 */
+	private static List<Sprint> newSprints(int count, String velocity) {
+		Team team1 = new Team();
+		Team team2 = new Team();
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < count; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setName("S" + s);
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			sprint.setAvailableVelocities(Arrays.asList(newAvailability(team1, velocity), newAvailability(team2, velocity)));
+			sprints.add(sprint);
+		}
+		return sprints;
+	}
+
+	/**
+	 * @param team The team.
+	 * @param velocity The velocity.
+	 * @return new availability.
+	 */
+	private static SprintTeamAvailability newAvailability(Team team, String velocity) {
+		SprintTeamAvailability availability = new SprintTeamAvailability();
+		availability.setTeam(team);
+		availability.setVelocity(new BigDecimal(velocity));
+		return availability;
+	}
+
+	/**
+	 * @param name The release name.
+	 * @param due Delivery to customer.
+	 * @return new release.
+	 */
+	private static Release newRelease(String name, long due) {
+		Release release = new Release();
+		release.setName(name);
+		release.setDeliveryToCustomer(EpochDays.toCalendar(due));
+		return release;
+	}
+
+	/**
+	 * @param name The feature name.
+	 * @param estimate The remaining estimate.
+	 * @param release The release.
+	 * @return new feature.
+	 */
+	private static Feature newFeature(String name, String estimate, Release release) {
+		Feature feature = new Feature();
+		feature.setName(name);
+		feature.setRemaningEstimate(new BigDecimal(estimate));
+		feature.setRelease(release);
+		return feature;
+	}
+}
@@ -0,0 +1,148 @@
+package edu.usun.planning.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.GregorianCalendar;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Role;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.input.ExcelPlanImporter.
+ *
+ * @author usun
+ */
+public class ExcelPlanImporterTest {
+
+	@Test
+	public void testImportWorkbook() throws Exception {
+		File file = File.createTempFile("roster", ".xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.createDataFormat().getFormat("m/d/yy"));
+			workbook.createSheet("Notes").createRow(0).createCell(0).setCellValue("Ignored");
+
+			Sheet persons = workbook.createSheet("Persons");
+			persons.createRow(0).createCell(0).setCellValue("Name");
+			for (int i = 1; i <= 1000; i++) {
+				persons.createRow(i).createCell(0).setCellValue("P" + i);
+			}
+
+			Sheet members = workbook.createSheet("TeamMembers");
+			row(members, 0, "Team", "Person", "Role", "Base velocity", "Start date", "Comment");
+			row(members, 1, "Alpha", "P1", "Dev engineer", null, null, "x");
+			members.getRow(1).createCell(3).setCellValue(11);
+			members.getRow(1).createCell(4).setCellValue(new GregorianCalendar(2021, 0, 4));
+			members.getRow(1).getCell(4).setCellStyle(dateStyle);
+			row(members, 2, "Alpha", "Newcomer", null, null, "2021-02-01");
+			row(members, 4, "Beta", "P2", "ARCHITECT");
+
+			Sheet holidays = workbook.createSheet("Holidays");
+			row(holidays, 0, "Date", "Person", "Capacity factor", "Name");
+			row(holidays, 1, "2021-01-01", null, null, "New Year");
+			row(holidays, 2, "2021-01-05", "P1", null, "Vacation");
+			holidays.getRow(2).createCell(2).setCellValue(0.5);
+
+			Sheet features = workbook.createSheet("Features");
+			row(features, 0, "Name", "Stream", "Release", "Remaining estimate");
+			row(features, 1, "F1", "Payments", "1.0");
+			features.getRow(1).createCell(3).setCellValue(13.5);
+			row(features, 2, "F2", "Payments", "1.0", "8");
+
+			Sheet tasks = workbook.createSheet("Tasks");
+			row(tasks, 0, "Name", "Stream");
+			row(tasks, 1, "UAT support", "Payments");
+
+			try (OutputStream out = new FileOutputStream(file)) {
+				workbook.write(out);
+			}
+		}
+
+		try {
+			PlanImport result = new ExcelPlanImporter().importWorkbook(file);
+			assertEquals(1001, result.getPersons().size());
+			assertEquals(2, result.getTeams().size());
+			assertEquals(3, result.getTeamMembers().size());
+
+			TeamMember member = result.getTeamMembers().get(0);
+			Person p1 = member.getPerson();
+			assertEquals("P1", p1.getName());
+			assertEquals("Alpha", member.getTeam().getName());
+			assertEquals(Role.DEV_ENGINEER, member.getRole());
+			assertEquals(new BigDecimal("11"), member.getBaseVelocityPerSprint());
+			assertEquals(EpochDays.toEpochDay(2021, 1, 4), member.getStartEpochDay());
+			assertSame(member.getTeam(), result.getTeamMembers().get(1).getTeam());
+			assertEquals(EpochDays.toEpochDay(2021, 2, 1), result.getTeamMembers().get(1).getStartEpochDay());
+			assertEquals(Role.ARCHITECT, result.getTeamMembers().get(2).getRole());
+
+			assertEquals(1, result.getPublicHolidays().size());
+			assertEquals(BigDecimal.ZERO, result.getPublicHolidays().get(0).getCapacityFactor());
+			assertEquals(1, p1.getPersonalCapacityOverrides().size());
+			assertEquals(new BigDecimal("0.5"), p1.getPersonalCapacityOverrides().get(0).getCapacityFactor());
+			assertEquals(EpochDays.toEpochDay(2021, 1, 5), p1.getPersonalCapacityOverrides().get(0).getEpochDay());
+
+			assertEquals(2, result.getFeatures().size());
+			Feature f1 = result.getFeatures().get(0);
+			assertEquals(new BigDecimal("13.5"), f1.getRemaningEstimate());
+			assertEquals("1.0", f1.getRelease().getName());
+			assertSame(f1.getStream(), result.getTasks().get(0).getStream());
+			assertSame(f1.getRelease(), result.getFeatures().get(1).getRelease());
+			assertEquals(3, f1.getStream().getActivities().size());
+			assertNull(result.getTasks().get(0).getRelease());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testInvalidValue() throws Exception {
+		File file = File.createTempFile("roster", ".xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet members = workbook.createSheet("TeamMembers");
+			row(members, 0, "Person", "Role");
+			row(members, 1, "P1", "Juggler");
+			try (OutputStream out = new FileOutputStream(file)) {
+				workbook.write(out);
+			}
+		}
+		try {
+			new ExcelPlanImporter().importWorkbook(file);
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Sheet TeamMembers row 2: Invalid role Juggler"));
+			return;
+		} finally {
+			file.delete();
+		}
+		throw new AssertionError("Invalid role accepted");
+	}
+
+	/**
+	 * @param sheet The sheet.
+	 * @param r Position of the row.
+	 * @param values Text values, null for no cell.
+	 */
+	private static void row(Sheet sheet, int r, String... values) {
+		Row row = sheet.createRow(r);
+		for (int c = 0; c < values.length; c++) {
+			if (values[c] != null) {
+				row.createCell(c).setCellValue(values[c]);
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package edu.usun.planning.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.stream.Stream;
+
+/**
+ * Unit test for edu.usun.planning.input.TrackerExportImporter.
+ *
+ * @author usun
+ */
+public class TrackerExportImporterTest {
+
+	@Test
+	public void testCsvUpsert() {
+		Feature existing = new Feature();
+		existing.setTrackingReference("PAY-1");
+		existing.setName("Old name");
+		TrackerExportImporter importer = new TrackerExportImporter(Arrays.asList(existing),
+			Collections.emptyList(), Collections.emptyList());
+
+		String csv = "Issue key,Summary,Issue Type,Epic Link,Story Points,Fix Version/s,Project key,Component/s\r\n"
+			+ "PAY-1,\"Payments, \"\"new\"\" flow\",Epic,,13,R1,PAY,Core\r\n"
+			+ "PAY-2,\"Multi\nline\",Story,PAY-1,5.5,R1,PAY,Core\r\n"
+			+ ",No key,Story,,,,,\r\n"
+			+ "PAY-3,Fix build,Sub-task,PAY-2,,R2,,Tools\r\n";
+		assertEquals(3, importer.importCsv(new StringReader(csv)));
+
+		assertSame(existing, importer.getActivities().get("PAY-1"));
+		assertEquals("Payments, \"new\" flow", existing.getName());
+		assertEquals(new BigDecimal("13"), existing.getRemaningEstimate());
+		assertEquals("PAY", existing.getRelease().getJiraProject());
+
+		Feature story = (Feature) importer.getActivities().get("PAY-2");
+		assertEquals("Multi\nline", story.getName());
+		assertEquals("PAY-1", story.getFeatureReference());
+		assertEquals(new BigDecimal("5.5"), story.getRemaningEstimate());
+		assertSame(existing.getRelease(), story.getRelease());
+		assertSame(existing.getStream(), story.getStream());
+		assertEquals(2, story.getStream().getActivities().size());
+
+		assertTrue(importer.getActivities().get("PAY-3") instanceof Task);
+		assertEquals(2, importer.getCreated());
+		assertEquals(1, importer.getUpdated());
+		assertEquals(1, importer.getSkipped());
+		assertEquals(2, importer.getReleases().size());
+	}
+
+	@Test
+	public void testJsonUpsertMovesStream() {
+		TrackerExportImporter importer = new TrackerExportImporter();
+		importer.importCsv(new StringReader("Tracking reference,Name,Remaining estimate,Stream\nPAY-1,Payments,8,Core\n"));
+		Feature feature = (Feature) importer.getActivities().get("PAY-1");
+		Stream core = feature.getStream();
+
+		String json = "{\"expand\":\"names\",\"total\":2,\"issues\":[\n"
+			+ "{\"key\":\"PAY-1\",\"fields\":{\"summary\":\"Payments \\u00e9\",\"status\":{\"name\":\"Open\"},"
+			+ "\"issuetype\":{\"name\":\"Epic\"},\"components\":[{\"id\":\"7\",\"name\":\"Mobile\"}],"
+			+ "\"fixVersions\":[{\"name\":\"R1\"},{\"name\":\"R2\"}],\"project\":{\"key\":\"PAY\",\"name\":\"Payments\"},"
+			+ "\"Story Points\":3}},\n"
+			+ "{\"key\":\"PAY-2\",\"fields\":{\"summary\":\"Child\",\"parent\":{\"key\":\"PAY-1\",\"fields\":{\"summary\":\"x\"}},"
+			+ "\"issuetype\":{\"name\":\"Story\"},\"Story Points\":null,\"timeestimate\":28800}}\n"
+			+ "]}";
+		assertEquals(2, importer.importJson(new StringReader(json)));
+
+		assertSame(feature, importer.getActivities().get("PAY-1"));
+		assertEquals("Payments \u00e9", feature.getName());
+		assertEquals(new BigDecimal("3"), feature.getRemaningEstimate());
+		assertEquals("R1", feature.getRelease().getName());
+		assertEquals("PAY", feature.getRelease().getJiraProject());
+		assertEquals("Mobile", feature.getStream().getName());
+		assertTrue(core.getActivities().isEmpty());
+
+		Feature child = (Feature) importer.getActivities().get("PAY-2");
+		assertEquals("Child", child.getName());
+		assertEquals("PAY-1", child.getFeatureReference());
+		assertNull(child.getRemaningEstimate());
+
+		Stream mobile = feature.getStream();
+		importer.importCsv(new StringReader("key,Stream\nPAY-1,Core\nPAY-1,Mobile\nPAY-1,Core\n"));
+		assertSame(core, feature.getStream());
+		assertEquals(Arrays.asList(feature), core.getActivities());
+		assertTrue(mobile.getActivities().isEmpty());
+	}
+
+	@Test
+	public void testLinkingFailureStopsParser() throws InterruptedException {
+		Stream core = new Stream();
+		core.setName("Core");
+		// fails once the parser has filled the queue
+		core.setActivities(new AbstractList<Activity>() {
+
+			@Override
+			public Activity get(int index) {
+				throw new IndexOutOfBoundsException();
+			}
+
+			@Override
+			public int size() {
+				return 0;
+			}
+
+			@Override
+			public void add(int index, Activity element) {
+				try {
+					Thread.sleep(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				throw new UnsupportedOperationException();
+			}
+		});
+		TrackerExportImporter importer = new TrackerExportImporter(Collections.<Activity>emptyList(),
+			Collections.emptyList(), Arrays.asList(core));
+		StringBuilder csv = new StringBuilder("Issue key,Component/s\n");
+		for (int i = 0; i < 100000; i++) {
+			csv.append("PAY-").append(i).append(",Core\n");
+		}
+		try {
+			importer.importCsv(new StringReader(csv.toString()));
+			fail("Unmodifiable stream changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		for (Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet()) {
+			for (StackTraceElement frame : thread.getValue()) {
+				if (thread.getKey() != Thread.currentThread()
+					&& frame.getClassName().startsWith(TrackerExportImporter.class.getName())) {
+					thread.getKey().join(5000);
+					assertFalse(thread.getKey().isAlive());
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidEstimate() {
+		new TrackerExportImporter().importCsv(new StringReader("key,Story Points\nPAY-1,many\n"));
+	}
+}
@@ -0,0 +1,151 @@
+package edu.usun.planning.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.CapacityBreakdownElement;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.output.ExcelPlanningOutput.
+ *
+ * @author usun
+ */
+public class ExcelPlanningOutputTest {
+
+	@Test
+	public void testWriteSprintsPlan() throws Exception {
+		Team alpha = newTeam("Alpha");
+		Team beta = newTeam("Beta");
+		Release release = new Release("1.0", "usunplanning", null, null, null, null);
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < 2; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setName("Sprint 1");
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			sprint.setAvailableVelocities(Arrays.asList(newAvailability(alpha, "20"), newAvailability(beta, "15.5")));
+			sprint.setAssignedVelocities(Arrays.asList(newPlan(alpha, "F1", release, 12), newPlan(alpha, "F2", null, 8),
+				newPlan(beta, "F3", release, 15)));
+			List<SprintPersonCapacity> capacities = new ArrayList<>();
+			// Beyond the row window
+			for (int p = 0; p < 500; p++) {
+				Person person = new Person();
+				person.setName("P" + p);
+				SprintPersonCapacity capacity = new SprintPersonCapacity();
+				capacity.setPerson(person);
+				capacity.setBreakdown(Arrays.asList(newElement("SCRUM", "10", "0.9", null),
+					newElement(SprintPersonCapacity.FUNCTIONAL_CAPACITY, null, "8.1", "16.2")));
+				capacities.add(capacity);
+			}
+			sprint.setSprintPersonCapacities(capacities);
+			sprints.add(sprint);
+		}
+
+		File file = File.createTempFile("sprints", ".xlsx");
+		try {
+			new ExcelPlanningOutput(file, 50).writeSprintsPlan(sprints);
+			try (XSSFWorkbook workbook = new XSSFWorkbook(file)) {
+				assertEquals(6, workbook.getNumberOfSheets());
+				assertEquals("Sprint 1", workbook.getSheetName(0));
+				assertEquals("Sprint 1 Alpha", workbook.getSheetName(1));
+				assertEquals("Sprint 1 Beta", workbook.getSheetName(2));
+				assertEquals("Sprint 1 (2)", workbook.getSheetName(3));
+				assertEquals("Sprint 1 Alpha (2)", workbook.getSheetName(4));
+
+				Sheet sprint = workbook.getSheetAt(0);
+				assertEquals(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 1, 4)).getTime(),
+					sprint.getRow(1).getCell(1).getDateCellValue());
+				assertEquals("Beta", sprint.getRow(5).getCell(0).getStringCellValue());
+				assertEquals(15.5, sprint.getRow(5).getCell(1).getNumericCellValue(), 0);
+				assertEquals(7 + 1000, sprint.getLastRowNum());
+				assertEquals("P499", sprint.getRow(1007).getCell(0).getStringCellValue());
+				assertEquals(16.2, sprint.getRow(1007).getCell(4).getNumericCellValue(), 0);
+
+				Sheet team = workbook.getSheetAt(1);
+				assertEquals(20, (int) team.getRow(1).getCell(3).getNumericCellValue());
+				assertEquals("F2", team.getRow(5).getCell(0).getStringCellValue());
+				assertEquals("1.0", team.getRow(4).getCell(1).getStringCellValue());
+				// Styles are shared: default, header and one per format
+				assertTrue(workbook.getNumCellStyles() <= 8);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * @param name The team name.
+	 * @return new team.
+	 */
+	private static Team newTeam(String name) {
+		Team team = new Team();
+		team.setName(name);
+		return team;
+	}
+
+	/**
+	 * @param team The team.
+	 * @param velocity The velocity.
+	 * @return new availability.
+	 */
+	private static SprintTeamAvailability newAvailability(Team team, String velocity) {
+		SprintTeamAvailability availability = new SprintTeamAvailability();
+		availability.setTeam(team);
+		availability.setVelocity(new BigDecimal(velocity));
+		return availability;
+	}
+
+	/**
+	 * @param team The team.
+	 * @param name The feature name.
+	 * @param release The release.
+	 * @param storyPoints The story points.
+	 * @return new plan row.
+	 */
+	private static SprintTeamActivityPlan newPlan(Team team, String name, Release release, int storyPoints) {
+		Feature feature = new Feature();
+		feature.setName(name);
+		feature.setRelease(release);
+		SprintTeamActivityPlan plan = new SprintTeamActivityPlan();
+		plan.setTeam(team);
+		plan.setActivity(feature);
+		plan.setStoryPoints(storyPoints);
+		return plan;
+	}
+
+	/**
+	 * @param name The element name.
+	 * @param percentage The percentage.
+	 * @param manDays The capacity in man-days.
+	 * @param velocity The velocity.
+	 * @return new breakdown element.
+	 */
+	private static CapacityBreakdownElement newElement(String name, String percentage, String manDays, String velocity) {
+		CapacityBreakdownElement element = new CapacityBreakdownElement();
+		element.setName(name);
+		element.setPercentage(percentage == null ? null : new BigDecimal(percentage));
+		element.setCapacityManDays(new BigDecimal(manDays));
+		element.setVelocity(velocity == null ? null : new BigDecimal(velocity));
+		return element;
+	}
+}
@@ -0,0 +1,126 @@
+package edu.usun.planning.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.sprint.CapacityBreakdownElement;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.stream.Stream;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.persistence.MappedPlanStore.
+ *
+ * @author usun
+ */
+public class MappedPlanStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSprintsAreDecodedOnDemandAndShareEntities() throws IOException {
+		Team team = new Team();
+		team.setName("Alpha");
+		Person person = new Person();
+		person.setName("Ann");
+		Stream stream = new Stream();
+		stream.setName("Payments");
+		Feature feature = new Feature();
+		feature.setName("F1");
+		feature.setStream(stream);
+		stream.setActivities(new ArrayList<>(Arrays.<Activity> asList(feature)));
+
+		List<Sprint> plan = new ArrayList<>();
+		long start = EpochDays.toEpochDay(2020, 1, 6);
+		for (int i = 0; i < 52; i++) {
+			Sprint sprint = new Sprint();
+			sprint.setName("S" + i);
+			sprint.setStartDate(EpochDays.toCalendar(start + 14 * i));
+			sprint.setEndDate(EpochDays.toCalendar(start + 14 * i + 11));
+			SprintTeamAvailability availability = new SprintTeamAvailability();
+			availability.setSprint(sprint);
+			availability.setTeam(team);
+			availability.setVelocity(BigDecimal.valueOf(20 + i));
+			sprint.setAvailableVelocities(new ArrayList<>(Arrays.asList(availability)));
+			SprintTeamActivityPlan activityPlan = new SprintTeamActivityPlan();
+			activityPlan.setSprint(sprint);
+			activityPlan.setTeam(team);
+			activityPlan.setActivity(feature);
+			activityPlan.setStoryPoints(i);
+			sprint.setAssignedVelocities(new ArrayList<>(Arrays.asList(activityPlan)));
+			SprintPersonCapacity capacity = new SprintPersonCapacity();
+			capacity.setSprint(sprint);
+			capacity.setPerson(person);
+			CapacityBreakdownElement element = new CapacityBreakdownElement();
+			element.setName("Development");
+			element.setVelocity(BigDecimal.valueOf(i, 1));
+			capacity.setBreakdown(new ArrayList<>(Arrays.asList(element)));
+			sprint.setSprintPersonCapacities(new ArrayList<>(Arrays.asList(capacity)));
+			plan.add(sprint);
+		}
+
+		File file = folder.newFile("plan.store");
+		MappedPlanStore.write(file, plan);
+
+		try (MappedPlanStore store = MappedPlanStore.open(file)) {
+			assertEquals(52, store.getSprintCount());
+			assertEquals(start + 14 * 51, store.getStartEpochDay(51));
+			assertEquals(start + 14 * 51 + 11, store.getEndEpochDay(51));
+			assertFalse(store.isLoaded(0));
+
+			List<Sprint> range = store.getSprints(start + 14 * 10, start + 14 * 11);
+			assertEquals(2, range.size());
+			assertEquals("S10", range.get(0).getName());
+			assertTrue(store.isLoaded(10));
+			assertTrue(store.isLoaded(11));
+			assertFalse(store.isLoaded(12));
+
+			Sprint first = store.getSprint(10);
+			Sprint second = store.getSprint(11);
+			assertSame(range.get(0), first);
+			assertSame(first, first.getAvailableVelocities().get(0).getSprint());
+			assertEquals(new BigDecimal(30), first.getAvailableVelocities().get(0).getVelocity());
+			assertEquals(11, second.getAssignedVelocities().get(0).getStoryPoints());
+			assertEquals(new BigDecimal("1.1"), second.getSprintPersonCapacities().get(0).getBreakdown().get(0).getVelocity());
+			assertSame(first.getAvailableVelocities().get(0).getTeam(), second.getAssignedVelocities().get(0).getTeam());
+			assertSame(first.getSprintPersonCapacities().get(0).getPerson(), second.getSprintPersonCapacities().get(0).getPerson());
+			Activity activity = second.getAssignedVelocities().get(0).getActivity();
+			assertSame(activity, activity.getStream().getActivities().get(0));
+			assertNotSame(feature, activity);
+			assertTrue(store.getSharedEntities().contains(activity));
+
+			assertEquals("S51", store.getSprints().get(51).getName());
+			assertEquals(52, store.getSprints().size());
+
+			// replacing the file leaves the open store on the previous one
+			MappedPlanStore.write(file, plan.subList(0, 2));
+			assertEquals("S40", store.getSprint(40).getName());
+		}
+		try (MappedPlanStore store = MappedPlanStore.open(file)) {
+			assertEquals(2, store.getSprintCount());
+		}
+		assertEquals(1, folder.getRoot().list().length);
+	}
+}
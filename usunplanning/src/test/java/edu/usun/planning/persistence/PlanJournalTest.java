@@ -0,0 +1,261 @@
+package edu.usun.planning.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.calendar.WorkCalendarRegistry;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.persistence.PlanJournal.
+ *
+ * @author usun
+ */
+public class PlanJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReplayAfterRestartAndCompaction() throws IOException {
+		File directory = new File(folder.getRoot(), "session");
+		try (PlanJournal journal = PlanJournal.create(directory, plan(), members())) {
+			List<Sprint> sprints = journal.getSprints();
+			SprintTeamActivityPlan row = sprints.get(0).getAssignedVelocities().get(0);
+			Team beta = new Team();
+			beta.setName("Beta");
+			journal.storyPointsChanged(row, 13);
+			journal.activityReassigned(row, sprints.get(1), beta);
+			TeamMember ann = journal.getMembers().get(0);
+			journal.capacityOverrideAdded(ann.getPerson(), override(2021, 1, 6, "0.5"));
+			journal.publicHolidayAdded(ann.getWorkCalendar(), override(2021, 1, 1, "0"));
+			TeamMember bob = member("Bob", beta);
+			journal.memberJoined(bob);
+			journal.memberLeft(bob, EpochDays.toCalendar(EpochDays.toEpochDay(2021, 3, 31))).join();
+		}
+
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertReplayed(journal);
+			journal.compact().join();
+			SprintTeamActivityPlan row = journal.getSprints().get(1).getAssignedVelocities().get(0);
+			journal.storyPointsChanged(row, 21).join();
+		}
+		assertEquals(1, directory.list((dir, name) -> name.startsWith("snapshot-")).length);
+
+		// torn record at the end of the last segment
+		File[] segments = directory.listFiles((dir, name) -> name.startsWith("journal-"));
+		Arrays.sort(segments);
+		Files.write(segments[segments.length - 1].toPath(), new byte[] { 0, 0, 0, 100, 1, 2 }, StandardOpenOption.APPEND);
+
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertReplayed(journal);
+			assertEquals(21, journal.getSprints().get(1).getAssignedVelocities().get(0).getStoryPoints());
+			TeamMember bob = journal.getMembers().get(1);
+			journal.memberLeft(bob, EpochDays.toCalendar(EpochDays.toEpochDay(2021, 4, 30))).join();
+		}
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertEquals(EpochDays.toEpochDay(2021, 4, 30), EpochDays.toEpochDay(journal.getMembers().get(1).getEndDate()));
+		}
+	}
+
+	@Test
+	public void testCompactionStartsAtThreshold() throws IOException {
+		File directory = new File(folder.getRoot(), "session");
+		PlanJournal.create(directory, plan(), members()).close();
+		try (PlanJournal journal = PlanJournal.open(directory, 1)) {
+			SprintTeamActivityPlan row = journal.getSprints().get(0).getAssignedVelocities().get(0);
+			for (int i = 1; i <= 50; i++) {
+				journal.storyPointsChanged(row, i);
+			}
+			journal.storyPointsChanged(row, 99).join();
+		}
+		assertFalse(new File(directory, "snapshot-0000000000000000.bin").exists());
+		assertEquals(1, directory.list((dir, name) -> name.startsWith("snapshot-")).length);
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertEquals(99, journal.getSprints().get(0).getAssignedVelocities().get(0).getStoryPoints());
+		}
+	}
+
+	@Test
+	public void testCreateKeepsGivenPlan() throws IOException {
+		File directory = new File(folder.getRoot(), "session");
+		List<Sprint> sprints = plan();
+		List<TeamMember> members = members();
+		try (PlanJournal journal = PlanJournal.create(directory, sprints, members)) {
+			assertSame(sprints, journal.getSprints());
+			journal.storyPointsChanged(sprints.get(0).getAssignedVelocities().get(0), 5);
+			journal.capacityOverrideAdded(members.get(0).getPerson(), override(2021, 1, 6, "0.5")).join();
+		}
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertEquals(1, journal.getSprints().get(0).getAssignedVelocities().size());
+			assertEquals(5, journal.getSprints().get(0).getAssignedVelocities().get(0).getStoryPoints());
+			assertEquals(1, journal.getMembers().size());
+			assertEquals(1, journal.getMembers().get(0).getPerson().getPersonalCapacityOverrides().size());
+		}
+	}
+
+	@Test
+	public void testFailedMutationIsNotRecorded() throws IOException {
+		File directory = new File(folder.getRoot(), "session");
+		PlanJournal.create(directory, plan(), members()).close();
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			Team alpha = journal.getMembers().get(0).getTeam();
+			TeamMember bob = member("Bob", alpha);
+			WorkCalendar calendar = new WorkCalendar();
+			calendar.setName("Shared");
+			bob.setWorkCalendar(WorkCalendarRegistry.getInstance().intern(calendar));
+			journal.memberJoined(bob);
+			try {
+				journal.publicHolidayAdded(bob.getWorkCalendar(), override(2021, 1, 1, "0"));
+				fail("Shared calendar changed");
+			} catch (RuntimeException e) {
+				// expected, nothing recorded
+			}
+			TeamMember carl = member("Carl", alpha);
+			journal.memberJoined(carl);
+			journal.capacityOverrideAdded(carl.getPerson(), override(2021, 1, 6, "0.5")).join();
+		}
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertEquals(3, journal.getMembers().size());
+			TeamMember carl = journal.getMembers().get(2);
+			assertEquals("Carl", carl.getPerson().getName());
+			assertEquals(1, carl.getPerson().getPersonalCapacityOverrides().size());
+			assertTrue(journal.getMembers().get(1).getWorkCalendar().getPublicHolidays() == null);
+		}
+	}
+
+	@Test
+	public void testCompactionKeepsSharedCalendarPositions() throws IOException {
+		File directory = new File(folder.getRoot(), "session");
+		List<TeamMember> members = members();
+		WorkCalendar calendar = new WorkCalendar();
+		calendar.setName("Shared with holidays");
+		calendar.setPublicHolidays(new ArrayList<>(Arrays.asList(override(2021, 1, 1, "0"))));
+		members.get(0).setWorkCalendar(WorkCalendarRegistry.getInstance().intern(calendar));
+		try (PlanJournal journal = PlanJournal.create(directory, plan(), members)) {
+			journal.compact().join();
+			TeamMember bob = member("Bob", members.get(0).getTeam());
+			journal.memberJoined(bob);
+			journal.capacityOverrideAdded(bob.getPerson(), override(2021, 1, 6, "0.5")).join();
+		}
+		try (PlanJournal journal = PlanJournal.open(directory)) {
+			assertEquals(2, journal.getMembers().size());
+			assertTrue(journal.getMembers().get(0).getWorkCalendar().isShared());
+			assertEquals(1, journal.getMembers().get(0).getWorkCalendar().getPublicHolidays().size());
+			TeamMember bob = journal.getMembers().get(1);
+			assertEquals("Bob", bob.getPerson().getName());
+			assertEquals(1, bob.getPerson().getPersonalCapacityOverrides().size());
+		}
+	}
+
+	/**
+	 * @param journal The reopened session.
+	 */
+	private static void assertReplayed(PlanJournal journal) {
+		List<Sprint> sprints = journal.getSprints();
+		assertTrue(sprints.get(0).getAssignedVelocities().isEmpty());
+		SprintTeamActivityPlan row = sprints.get(1).getAssignedVelocities().get(0);
+		assertSame(sprints.get(1), row.getSprint());
+		assertEquals("Beta", row.getTeam().getName());
+		assertEquals("F1", row.getActivity().getName());
+
+		TeamMember ann = journal.getMembers().get(0);
+		assertEquals(new BigDecimal("0.5"), ann.getPerson().getPersonalCapacityOverrides().get(0).getCapacityFactor());
+		assertEquals(1, ann.getWorkCalendar().getPublicHolidays().size());
+		assertEquals(0, ann.getWorkCalendar().getCapacity(EpochDays.toEpochDay(2021, 1, 1), EpochDays.toEpochDay(2021, 1, 1)));
+
+		TeamMember bob = journal.getMembers().get(1);
+		assertEquals("Bob", bob.getPerson().getName());
+		assertSame(row.getTeam(), bob.getTeam());
+	}
+
+	/**
+	 * @return two sprints, the first with a feature assigned to team Alpha.
+	 */
+	private static List<Sprint> plan() {
+		Team alpha = new Team();
+		alpha.setName("Alpha");
+		Feature feature = new Feature();
+		feature.setName("F1");
+		List<Sprint> sprints = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Sprint sprint = new Sprint();
+			sprint.setName("S" + i);
+			sprint.setStartDate(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 1, 4) + 14 * i));
+			sprint.setAssignedVelocities(new ArrayList<>());
+			sprints.add(sprint);
+		}
+		SprintTeamActivityPlan row = new SprintTeamActivityPlan();
+		row.setSprint(sprints.get(0));
+		row.setTeam(alpha);
+		row.setActivity(feature);
+		row.setStoryPoints(8);
+		sprints.get(0).getAssignedVelocities().add(row);
+		return sprints;
+	}
+
+	/**
+	 * @return one team member with a private work calendar.
+	 */
+	private static List<TeamMember> members() {
+		Team alpha = new Team();
+		alpha.setName("Alpha");
+		TeamMember ann = member("Ann", alpha);
+		WorkCalendar calendar = new WorkCalendar();
+		calendar.setName("CZ");
+		ann.setWorkCalendar(calendar);
+		return new ArrayList<>(Arrays.asList(ann));
+	}
+
+	/**
+	 * @param name Name of the person.
+	 * @param team The team.
+	 * @return new team member.
+	 */
+	private static TeamMember member(String name, Team team) {
+		Person person = new Person();
+		person.setName(name);
+		TeamMember member = new TeamMember();
+		member.setPerson(person);
+		member.setTeam(team);
+		return member;
+	}
+
+	/**
+	 * @param year Year.
+	 * @param month Month, 1-based.
+	 * @param day Day of month.
+	 * @param factor Capacity factor.
+	 * @return new capacity override.
+	 */
+	private static CapacityOverride override(int year, int month, int day, String factor) {
+		CapacityOverride override = new CapacityOverride();
+		override.setDate(EpochDays.toCalendar(EpochDays.toEpochDay(year, month, day)));
+		override.setCapacityFactor(new BigDecimal(factor));
+		return override;
+	}
+}
@@ -0,0 +1,257 @@
+package edu.usun.planning.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Activity;
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.activity.Task;
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.EasterHoliday;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.calendar.FixedDateHoliday;
+import edu.usun.planning.calendar.HolidayRule;
+import edu.usun.planning.calendar.NthWeekdayHoliday;
+import edu.usun.planning.calendar.WeekendRule;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.calendar.WorkCalendarRegistry;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.CapacityBreakdownElement;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintPersonCapacity;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.stream.Stream;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Role;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.persistence.SnapshotWriter and SnapshotReader.
+ *
+ * @author usun
+ */
+public class SnapshotWriterTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRoundTripPreservesValuesSharingAndCycles() throws IOException {
+		Release release = new Release();
+		release.setName("R1");
+		release.setJiraProject("PAY");
+		release.setDeliveryToCustomer(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 6, 30)));
+		Stream stream = new Stream();
+		stream.setName("Payments");
+		Feature feature = new Feature();
+		feature.setName("Instant transfers \u00e9");
+		feature.setTrackingReference("PAY-1");
+		feature.setRemaningEstimate(new BigDecimal("13.500"));
+		feature.setStream(stream);
+		feature.setRelease(release);
+		Task task = new Task();
+		task.setName("UAT support");
+		task.setStream(stream);
+		stream.setActivities(new ArrayList<>(Arrays.<Activity> asList(feature, task)));
+
+		Team team = new Team();
+		team.setName("Alpha");
+		Person person = new Person();
+		person.setName("Ann");
+		CapacityOverride override = new CapacityOverride();
+		override.setDate(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 1, 5)));
+		override.setCapacityFactor(new BigDecimal("0.5"));
+		person.setPersonalCapacityOverrides(new ArrayList<>(Arrays.asList(override)));
+		WorkCalendar calendar = new WorkCalendar();
+		calendar.setName("CZ");
+		calendar.setHolidayRules(new ArrayList<>(Arrays.<HolidayRule> asList(new WeekendRule(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY),
+			new FixedDateHoliday("New year", 1, 1), new EasterHoliday("Easter Monday", 1),
+			new NthWeekdayHoliday("Thanksgiving", 11, DayOfWeek.THURSDAY, 4))));
+		TeamMember member = new TeamMember();
+		member.setPerson(person);
+		member.setTeam(team);
+		member.setRole(Role.TECH_LEAD);
+		member.setBaseVelocityPerSprint(new BigDecimal("12345678901234567890.12"));
+		member.setWorkCalendar(calendar);
+
+		Sprint sprint = new Sprint();
+		sprint.setName("S1");
+		sprint.setStartDate(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 1, 4)));
+		sprint.setEndDate(EpochDays.toCalendar(EpochDays.toEpochDay(2021, 1, 15)));
+		sprint.setReleasesToIntegration(new ArrayList<>(Arrays.asList(release)));
+		SprintTeamAvailability availability = new SprintTeamAvailability();
+		availability.setSprint(sprint);
+		availability.setTeam(team);
+		availability.setVelocity(new BigDecimal("-2.25"));
+		sprint.setAvailableVelocities(new ArrayList<>(Arrays.asList(availability)));
+		SprintTeamActivityPlan plan = new SprintTeamActivityPlan();
+		plan.setSprint(sprint);
+		plan.setTeam(team);
+		plan.setActivity(feature);
+		plan.setStoryPoints(8);
+		sprint.setAssignedVelocities(new ArrayList<>(Arrays.asList(plan)));
+		SprintPersonCapacity capacity = new SprintPersonCapacity();
+		capacity.setSprint(sprint);
+		capacity.setPerson(person);
+		CapacityBreakdownElement element = new CapacityBreakdownElement();
+		element.setName("Meetings");
+		element.setPercentage(new BigDecimal("10"));
+		capacity.setBreakdown(new ArrayList<>(Arrays.asList(element)));
+		sprint.setSprintPersonCapacities(new ArrayList<>(Arrays.asList(capacity)));
+
+		byte[] bytes = SnapshotWriter.toBytes(Arrays.asList(stream, member, sprint));
+		List<Object> roots = (List<Object>) SnapshotReader.read(new ByteArrayInputStream(bytes));
+
+		Stream streamCopy = (Stream) roots.get(0);
+		Feature featureCopy = (Feature) streamCopy.getActivities().get(0);
+		assertEquals("Instant transfers \u00e9", featureCopy.getName());
+		assertEquals("PAY-1", featureCopy.getTrackingReference());
+		assertEquals(new BigDecimal("13.500"), featureCopy.getRemaningEstimate());
+		assertSame(streamCopy, featureCopy.getStream());
+		assertSame(streamCopy, streamCopy.getActivities().get(1).getStream());
+		assertTrue(streamCopy.getActivities().get(1) instanceof Task);
+		assertEquals("PAY", featureCopy.getRelease().getJiraProject());
+		assertEquals(EpochDays.toEpochDay(2021, 6, 30), featureCopy.getRelease().getDeliveryToCustomerEpochDay());
+
+		TeamMember memberCopy = (TeamMember) roots.get(1);
+		assertEquals(Role.TECH_LEAD, memberCopy.getRole());
+		assertEquals(new BigDecimal("12345678901234567890.12"), memberCopy.getBaseVelocityPerSprint());
+		assertEquals(new BigDecimal("0.5"), memberCopy.getPerson().getPersonalCapacityOverrides().get(0).getCapacityFactor());
+		List<HolidayRule> rules = memberCopy.getWorkCalendar().getHolidayRules();
+		assertEquals(Arrays.asList(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY), ((WeekendRule) rules.get(0)).getDaysOfWeek());
+		assertEquals(1, ((FixedDateHoliday) rules.get(1)).getDayOfMonth());
+		assertEquals(1, ((EasterHoliday) rules.get(2)).getOffsetDays());
+		assertEquals(DayOfWeek.THURSDAY, ((NthWeekdayHoliday) rules.get(3)).getDayOfWeek());
+		assertEquals(4, ((NthWeekdayHoliday) rules.get(3)).getOrdinal());
+		long from = EpochDays.toEpochDay(2021, 1, 1);
+		long to = EpochDays.toEpochDay(2021, 12, 31);
+		assertEquals(calendar.getCapacity(from, to), memberCopy.getWorkCalendar().getCapacity(from, to));
+
+		Sprint sprintCopy = (Sprint) roots.get(2);
+		assertEquals(EpochDays.toEpochDay(2021, 1, 4), sprintCopy.getStartEpochDay());
+		assertEquals(EpochDays.toEpochDay(2021, 1, 15), sprintCopy.getEndEpochDay());
+		assertSame(featureCopy.getRelease(), sprintCopy.getReleasesToIntegration().get(0));
+		assertSame(memberCopy.getTeam(), sprintCopy.getAvailableVelocities().get(0).getTeam());
+		assertSame(sprintCopy, sprintCopy.getAvailableVelocities().get(0).getSprint());
+		assertEquals(new BigDecimal("-2.25"), sprintCopy.getAvailableVelocities().get(0).getVelocity());
+		assertSame(featureCopy, sprintCopy.getAssignedVelocities().get(0).getActivity());
+		assertEquals(8, sprintCopy.getAssignedVelocities().get(0).getStoryPoints());
+		assertSame(memberCopy.getPerson(), sprintCopy.getSprintPersonCapacities().get(0).getPerson());
+		assertEquals("Meetings", sprintCopy.getSprintPersonCapacities().get(0).getBreakdown().get(0).getName());
+		assertNull(sprintCopy.getSprintPersonCapacities().get(0).getBreakdown().get(0).getVelocity());
+
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+			out.writeObject(new ArrayList<>(Arrays.asList(stream, member, sprint)));
+		}
+		assertTrue(bytes.length * 4 < serialized.size());
+	}
+
+	@Test
+	public void testSeveralRootsShareTables() throws IOException {
+		Team team = new Team();
+		team.setName("Alpha");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SnapshotWriter writer = new SnapshotWriter(bytes);
+		writer.write(team);
+		writer.write(Arrays.asList("Alpha", "Beta"));
+		writer.write(team);
+
+		SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(bytes.toByteArray()));
+		Team first = (Team) reader.read();
+		assertEquals(Arrays.asList("Alpha", "Beta"), reader.read());
+		assertSame(first, reader.read());
+		assertTrue(!reader.hasNext());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSharedCalendarStaysShared() {
+		WorkCalendar calendar = new WorkCalendar();
+		calendar.setName("CZ shared");
+		calendar.setHolidayRules(new ArrayList<>(Arrays.<HolidayRule> asList(new EasterHoliday())));
+		WorkCalendar shared = WorkCalendarRegistry.getInstance().intern(calendar);
+		WorkCalendar own = new WorkCalendar();
+		own.setName("CZ shared");
+		List<TeamMember> members = new ArrayList<>();
+		for (WorkCalendar workCalendar : Arrays.asList(shared, shared, own)) {
+			TeamMember member = new TeamMember();
+			member.setWorkCalendar(workCalendar);
+			members.add(member);
+		}
+
+		List<TeamMember> copy = (List<TeamMember>) SnapshotReader.fromBytes(SnapshotWriter.toBytes(members));
+		assertTrue(copy.get(0).getWorkCalendar().isShared());
+		assertSame(shared, copy.get(0).getWorkCalendar());
+		assertSame(shared, copy.get(1).getWorkCalendar());
+		assertFalse(copy.get(2).getWorkCalendar().isShared());
+	}
+
+	@Test
+	public void testUnknownFieldsAndTypesAreSkipped() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(SnapshotFormat.MAGIC, 0, SnapshotFormat.MAGIC.length);
+		bytes.write(SnapshotFormat.VERSION);
+		bytes.write(SnapshotFormat.LIST);
+		bytes.write(2);
+		bytes.write(SnapshotFormat.REFERENCE);
+		// team with an unknown field holding an entity of an unknown type
+		bytes.write(1);
+		bytes.write(7);
+		bytes.write(EntityType.NAME << SnapshotFormat.WIRE_BITS | SnapshotFormat.STRING);
+		bytes.write(1);
+		bytes.write(5);
+		bytes.write("Alpha".getBytes(StandardCharsets.US_ASCII), 0, 5);
+		bytes.write(9 << SnapshotFormat.WIRE_BITS | SnapshotFormat.REFERENCE);
+		bytes.write(1);
+		bytes.write(100);
+		bytes.write(EntityType.NAME << SnapshotFormat.WIRE_BITS | SnapshotFormat.STRING);
+		bytes.write(1);
+		bytes.write(4);
+		bytes.write("Beta".getBytes(StandardCharsets.US_ASCII), 0, 4);
+		bytes.write(SnapshotFormat.END);
+		bytes.write(SnapshotFormat.END);
+		// back-reference to the skipped entity
+		bytes.write(3);
+
+		List<?> roots = (List<?>) SnapshotReader.fromBytes(bytes.toByteArray());
+		assertEquals("Alpha", ((Team) roots.get(0)).getName());
+		assertNull(roots.get(1));
+	}
+
+	@Test
+	public void testNewerVersionIsRejected() {
+		byte[] bytes = SnapshotWriter.toBytes(new Team());
+		bytes[SnapshotFormat.MAGIC.length] = SnapshotFormat.VERSION + 1;
+		try {
+			SnapshotReader.fromBytes(bytes);
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("newer"));
+		}
+		try {
+			SnapshotReader.fromBytes(Arrays.copyOf(SnapshotWriter.toBytes(new Team()), 8));
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("truncated"));
+		}
+	}
+}
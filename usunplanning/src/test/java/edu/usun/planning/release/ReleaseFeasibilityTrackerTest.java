@@ -0,0 +1,137 @@
+package edu.usun.planning.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.release.ReleaseFeasibilityTracker.
+ *
+ * @author usun
+ */
+public class ReleaseFeasibilityTrackerTest {
+
+	@Test
+	public void testEdits() {
+		Team team = new Team();
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < 4; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setName("S" + s);
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			SprintTeamAvailability availability = new SprintTeamAvailability();
+			availability.setTeam(team);
+			availability.setVelocity(new BigDecimal("10.5"));
+			sprint.setAvailableVelocities(Arrays.asList(availability));
+			sprint.setAssignedVelocities(new ArrayList<>());
+			sprints.add(sprint);
+		}
+		long end1 = sprints.get(1).getEndEpochDay();
+		Release release = new Release("R", "usunplanning", null, null,
+			EpochDays.toCalendar(end1), EpochDays.toCalendar(end1 + 7));
+		Feature a = newFeature("A", "10", release);
+		Feature b = newFeature("B", "8", release);
+		newPlan(sprints.get(0), team, a, 10);
+		SprintTeamActivityPlan b1 = newPlan(sprints.get(1), team, b, 8);
+
+		ReleaseFeasibilityTracker tracker = new ReleaseFeasibilityTracker(sprints, Arrays.asList(a, b));
+		ReleaseFeasibility feasibility = tracker.getFeasibility(release);
+		assertTrue(feasibility.isFeasible());
+		assertEquals(end1, feasibility.getCompletionEpochDay());
+		assertEquals(0, feasibility.getIntegrationMarginDays());
+		assertEquals(7, feasibility.getCustomerMarginDays());
+		assertNull(tracker.getFeasibility(new Release()));
+
+		// Estimate grows: not fully planned
+		b.setRemaningEstimate(new BigDecimal("9.2"));
+		tracker.activityChanged(b);
+		assertFalse(tracker.getFeasibility(release).isFullyPlanned());
+
+		// Planned in the same sprint above the velocity: overcommitted
+		b1.setStoryPoints(11);
+		tracker.rowChanged(b1);
+		feasibility = tracker.getFeasibility(release);
+		assertTrue(feasibility.isFullyPlanned());
+		assertEquals(1, feasibility.getOvercommittedRows());
+		assertFalse(feasibility.isFeasible());
+
+		// Capacity grows
+		sprints.get(1).getAvailableVelocities().get(0).setVelocity(new BigDecimal("11"));
+		tracker.velocityChanged(sprints.get(1), sprints.get(1).getAvailableVelocities().get(0));
+		assertTrue(tracker.getFeasibility(release).isFeasible());
+
+		// Part of B moved to a later sprint: late by a sprint
+		b1.setStoryPoints(5);
+		tracker.rowChanged(b1);
+		SprintTeamActivityPlan b2 = newPlan(sprints.get(2), team, b, 5);
+		tracker.rowChanged(b2);
+		feasibility = tracker.getFeasibility(release);
+		assertEquals(sprints.get(2).getEndEpochDay(), feasibility.getCompletionEpochDay());
+		assertEquals(-14, feasibility.getIntegrationMarginDays());
+		assertEquals(-7, feasibility.getCustomerMarginDays());
+		assertFalse(feasibility.isFeasible());
+
+		// And back
+		sprints.get(2).getAssignedVelocities().remove(b2);
+		tracker.rowRemoved(b2);
+		b1.setStoryPoints(10);
+		tracker.rowChanged(b1);
+		assertTrue(tracker.getFeasibility(release).isFeasible());
+
+		// Feature moved out of the release
+		a.setRelease(null);
+		tracker.activityChanged(a);
+		assertEquals(end1, tracker.getFeasibility(release).getCompletionEpochDay());
+		tracker.activityRemoved(b);
+		assertNull(tracker.getFeasibility(release));
+	}
+
+	/**
+	 * @param name The feature name.
+	 * @param estimate The remaining estimate.
+	 * @param release The release.
+	 * @return new feature.
+	 */
+	private static Feature newFeature(String name, String estimate, Release release) {
+		Feature feature = new Feature();
+		feature.setName(name);
+		feature.setRemaningEstimate(new BigDecimal(estimate));
+		feature.setRelease(release);
+		return feature;
+	}
+
+	/**
+	 * @param sprint The sprint.
+	 * @param team The team.
+	 * @param feature The feature.
+	 * @param storyPoints The story points.
+	 * @return new row added to the sprint.
+	 */
+	private static SprintTeamActivityPlan newPlan(Sprint sprint, Team team, Feature feature, int storyPoints) {
+		SprintTeamActivityPlan plan = new SprintTeamActivityPlan();
+		plan.setName(feature.getName());
+		plan.setSprint(sprint);
+		plan.setTeam(team);
+		plan.setActivity(feature);
+		plan.setStoryPoints(storyPoints);
+		sprint.getAssignedVelocities().add(plan);
+		return plan;
+	}
+}
@@ -0,0 +1,61 @@
+package edu.usun.planning.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for edu.usun.planning.scenario.PersistentVector.
+ *
+ * @author usun
+ */
+public class PersistentVectorTest {
+
+	@Test
+	public void testAppendAndSet() {
+		PersistentVector<Integer> empty = PersistentVector.empty();
+		assertTrue(empty.isEmpty());
+		PersistentVector<Integer> vector = empty;
+		List<Integer> expected = new ArrayList<>();
+		// Three levels of the trie
+		for (int i = 0; i < 40000; i++) {
+			vector = vector.append(i);
+			expected.add(i);
+		}
+		assertEquals(40000, vector.size());
+		assertEquals(expected, vector.asList());
+		assertTrue(empty.isEmpty());
+
+		PersistentVector<Integer> changed = vector.set(33000, -1);
+		assertEquals(Integer.valueOf(33000), vector.get(33000));
+		assertEquals(Integer.valueOf(-1), changed.get(33000));
+		assertEquals(Integer.valueOf(39999), changed.get(39999));
+		assertSame(changed, changed.set(33000, changed.get(33000)));
+
+		Iterator<Integer> iterator = changed.iterator();
+		for (int i = 0; i < 40000; i++) {
+			assertEquals(i == 33000 ? -1 : i, iterator.next().intValue());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testRemove() {
+		PersistentVector<String> vector = PersistentVector.of(Arrays.asList("a", "b", "c"));
+		assertEquals("[a, c]", vector.remove(1).toString());
+		assertEquals("[a, b, c]", vector.toString());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		PersistentVector.of(Arrays.asList("a")).get(1);
+	}
+}
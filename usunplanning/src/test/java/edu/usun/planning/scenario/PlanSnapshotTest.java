@@ -0,0 +1,80 @@
+package edu.usun.planning.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.scenario.PlanSnapshot.
+ *
+ * @author usun
+ */
+public class PlanSnapshotTest {
+
+	@Test
+	public void testBranch() {
+		Team team = new Team();
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < 100; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setName("S" + s);
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			SprintTeamAvailability availability = new SprintTeamAvailability();
+			availability.setTeam(team);
+			availability.setVelocity(new BigDecimal("20"));
+			sprint.setAvailableVelocities(Arrays.asList(availability));
+			SprintTeamActivityPlan plan = new SprintTeamActivityPlan();
+			plan.setName("F" + s);
+			plan.setTeam(team);
+			plan.setStoryPoints(15);
+			sprint.setAssignedVelocities(new ArrayList<>(Arrays.asList(plan)));
+			sprints.add(sprint);
+		}
+
+		PlanSnapshot baseline = PlanSnapshot.of("Baseline", sprints);
+		PlanSnapshot scenario = baseline.branch("Overtime")
+			.withVelocity(50, 0, new BigDecimal("25"))
+			.withStoryPoints(50, 0, 20)
+			.withAssignedRow(51, new ActivityPlanSnapshot("G", team, null, 5));
+
+		// Unchanged sprints and vectors are shared
+		assertSame(baseline.getSprint(49), scenario.getSprint(49));
+		assertSame(baseline.getSprint(50).getReleasesToIntegration(), scenario.getSprint(50).getReleasesToIntegration());
+		assertNotSame(baseline.getSprint(50), scenario.getSprint(50));
+		assertSame(baseline.getSprint(51).getAvailableVelocities(), scenario.getSprint(51).getAvailableVelocities());
+
+		assertEquals(new BigDecimal("20"), baseline.getSprint(50).getAvailableVelocities().get(0).getVelocity());
+		assertEquals(15, baseline.getSprint(50).getAssignedVelocities().get(0).getStoryPoints());
+		assertEquals(1, baseline.getSprint(51).getAssignedVelocities().size());
+
+		List<Sprint> materialised = scenario.toSprints();
+		assertEquals(100, materialised.size());
+		Sprint sprint = materialised.get(50);
+		assertEquals("S50", sprint.getName());
+		assertEquals(sprints.get(50).getEndEpochDay(), sprint.getEndEpochDay());
+		assertEquals(new BigDecimal("25"), sprint.getAvailableVelocities().get(0).getVelocity());
+		assertSame(sprint, sprint.getAvailableVelocities().get(0).getSprint());
+		assertEquals(20, sprint.getAssignedVelocities().get(0).getStoryPoints());
+		assertSame(team, sprint.getAssignedVelocities().get(0).getTeam());
+		assertEquals(2, materialised.get(51).getAssignedVelocities().size());
+		assertNull(sprint.getSprintPersonCapacities());
+		// Source entities untouched
+		assertEquals(15, sprints.get(50).getAssignedVelocities().get(0).getStoryPoints());
+	}
+}
@@ -0,0 +1,215 @@
+package edu.usun.planning.sprint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.WeekendRule;
+import edu.usun.planning.calendar.WorkCalendar;
+import edu.usun.planning.team.Person;
+import edu.usun.planning.team.Team;
+import edu.usun.planning.team.TeamMember;
+
+/**
+ * Unit test for edu.usun.planning.sprint.SprintCapacityCalculator.
+ *
+ * @author usun
+ */
+public class SprintCapacityCalculatorTest {
+
+	@Test
+	public void testCalculate() {
+		Team red = newTeam("Red");
+		Team blue = newTeam("Blue");
+
+		Person alice = new Person();
+		alice.setName("Alice");
+		CapacityOverride halfDay = new CapacityOverride();
+		halfDay.setDate(new GregorianCalendar(2020, Calendar.DECEMBER, 24));
+		halfDay.setCapacityFactor(new BigDecimal("0.5"));
+		alice.setPersonalCapacityOverrides(new ArrayList<>(Arrays.asList(halfDay)));
+		Person bob = new Person();
+		bob.setName("Bob");
+
+		List<TeamMember> members = new ArrayList<>();
+		members.add(newMember(alice, red, "1", "10"));
+		members.add(newMember(bob, red, "0.5", "5"));
+		members.add(newMember(bob, blue, "0.5", "5"));
+
+		List<Sprint> sprints = new ArrayList<>();
+		sprints.add(newSprint("S1", new GregorianCalendar(2020, Calendar.DECEMBER, 21), new GregorianCalendar(2021, Calendar.JANUARY, 3)));
+		sprints.add(newSprint("S2", new GregorianCalendar(2021, Calendar.JANUARY, 4), new GregorianCalendar(2021, Calendar.JANUARY, 17)));
+
+		CapacityBreakdownElement scrum = new CapacityBreakdownElement();
+		scrum.setName("SCRUM");
+		scrum.setPercentage(new BigDecimal("10"));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new SprintCapacityCalculator(Arrays.asList(scrum), pool).calculate(members, sprints);
+		} finally {
+			pool.shutdown();
+		}
+
+		Sprint first = sprints.get(0);
+		assertEquals(2, first.getSprintPersonCapacities().size());
+		SprintPersonCapacity aliceCapacity = first.getSprintPersonCapacities().get(0);
+		assertSame(alice, aliceCapacity.getPerson());
+		assertSame(first, aliceCapacity.getSprint());
+		// 10 week days - half day off: 9.5d, 10% of it for SCRUM
+		List<CapacityBreakdownElement> breakdown = aliceCapacity.getBreakdown();
+		assertEquals("SCRUM", breakdown.get(0).getName());
+		assertEquals(new BigDecimal("0.950"), breakdown.get(0).getCapacityManDays());
+		assertNull(breakdown.get(0).getVelocity());
+		assertEquals(SprintPersonCapacity.FUNCTIONAL_CAPACITY, breakdown.get(1).getName());
+		assertEquals(new BigDecimal("90.000"), breakdown.get(1).getPercentage());
+		assertEquals(new BigDecimal("8.550"), breakdown.get(1).getCapacityManDays());
+		assertEquals(new BigDecimal("9.500"), breakdown.get(1).getVelocity());
+
+		// Bob is half time in both teams
+		SprintPersonCapacity bobCapacity = first.getSprintPersonCapacities().get(1);
+		assertEquals(new BigDecimal("9.000"), bobCapacity.getBreakdown().get(1).getCapacityManDays());
+		assertEquals(new BigDecimal("10.000"), bobCapacity.getBreakdown().get(1).getVelocity());
+
+		assertEquals(2, first.getAvailableVelocities().size());
+		assertSame(red, first.getAvailableVelocities().get(0).getTeam());
+		assertEquals(new BigDecimal("14.500"), first.getAvailableVelocities().get(0).getVelocity());
+		assertSame(blue, first.getAvailableVelocities().get(1).getTeam());
+		assertEquals(new BigDecimal("5.000"), first.getAvailableVelocities().get(1).getVelocity());
+		assertEquals(new BigDecimal("15.000"), sprints.get(1).getAvailableVelocities().get(0).getVelocity());
+	}
+
+	@Test
+	public void testTrack() {
+		Team red = newTeam("Red");
+		Person alice = new Person();
+		alice.setName("Alice");
+		alice.setPersonalCapacityOverrides(new ArrayList<>());
+		TeamMember member = newMember(alice, red, "1", "10");
+		List<TeamMember> members = new ArrayList<>(Arrays.asList(member));
+
+		List<Sprint> sprints = new ArrayList<>();
+		sprints.add(newSprint("S2", new GregorianCalendar(2021, Calendar.JANUARY, 4), new GregorianCalendar(2021, Calendar.JANUARY, 17)));
+		sprints.add(newSprint("S1", new GregorianCalendar(2020, Calendar.DECEMBER, 21), new GregorianCalendar(2021, Calendar.JANUARY, 3)));
+		SprintCapacityTracker tracker = new SprintCapacityCalculator().track(members, sprints);
+		assertEquals(new BigDecimal("10.000"), sprints.get(0).getAvailableVelocities().get(0).getVelocity());
+
+		// A day off only affects the sprint containing it
+		CapacityOverride dayOff = new CapacityOverride();
+		dayOff.setDate(new GregorianCalendar(2021, Calendar.JANUARY, 5));
+		dayOff.setCapacityFactor(BigDecimal.ZERO);
+		alice.getPersonalCapacityOverrides().add(dayOff);
+		tracker.overrideChanged(alice, dayOff);
+		assertEquals(1, tracker.getDirtyCount());
+		assertEquals(1, tracker.recompute());
+		assertEquals(9000L, tracker.getCapacity(sprints.get(0), member));
+		assertEquals(new BigDecimal("9.000"), sprints.get(0).getAvailableVelocities().get(0).getVelocity());
+		assertEquals(new BigDecimal("9.000"), sprints.get(0).getSprintPersonCapacities().get(0).getBreakdown().get(0).getCapacityManDays());
+		assertEquals(new BigDecimal("10.000"), sprints.get(1).getAvailableVelocities().get(0).getVelocity());
+
+		// Moving the member to a new team
+		Team blue = newTeam("Blue");
+		member.setTeam(blue);
+		member.setBaseVelocityPerSprint(new BigDecimal("20"));
+		tracker.teamMemberChanged(member);
+		assertEquals(2, tracker.recompute());
+		assertEquals(new BigDecimal("0.000"), sprints.get(0).getAvailableVelocities().get(0).getVelocity());
+		assertSame(blue, sprints.get(0).getAvailableVelocities().get(1).getTeam());
+		assertEquals(new BigDecimal("18.000"), sprints.get(0).getAvailableVelocities().get(1).getVelocity());
+		assertEquals(new BigDecimal("20.000"), sprints.get(1).getAvailableVelocities().get(1).getVelocity());
+		assertEquals(0, tracker.recompute());
+	}
+
+	@Test
+	public void testTrackCalendarChangedInPlace() {
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setPublicHolidays(new ArrayList<>());
+		Person alice = new Person();
+		alice.setName("Alice");
+		TeamMember member = newMember(alice, newTeam("Red"), "1", "10");
+		member.setWorkCalendar(workCalendar);
+
+		List<Sprint> sprints = new ArrayList<>();
+		sprints.add(newSprint("S1", new GregorianCalendar(2021, Calendar.JANUARY, 4), new GregorianCalendar(2021, Calendar.JANUARY, 17)));
+		SprintCapacityTracker tracker = new SprintCapacityCalculator().track(Arrays.asList(member), sprints);
+		assertEquals(10000L, tracker.getCapacity(sprints.get(0), member));
+
+		CapacityOverride holiday = new CapacityOverride();
+		holiday.setDate(new GregorianCalendar(2021, Calendar.JANUARY, 6));
+		holiday.setCapacityFactor(BigDecimal.ZERO);
+		workCalendar.getPublicHolidays().add(holiday);
+		tracker.workCalendarChanged(workCalendar, holiday.getEpochDay(), holiday.getEpochDay());
+		assertEquals(1, tracker.recompute());
+		assertEquals(9000L, tracker.getCapacity(sprints.get(0), member));
+	}
+
+	@Test
+	public void testVelocityOfShortWeek() {
+		// Four-day week: a sprint of 8 working days is a full sprint
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setHolidayRules(Arrays.asList(new WeekendRule(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY)));
+		Person alice = new Person();
+		alice.setName("Alice");
+		TeamMember member = newMember(alice, newTeam("Red"), "0.5", "10");
+		member.setWorkCalendar(workCalendar);
+
+		List<Sprint> sprints = new ArrayList<>();
+		sprints.add(newSprint("S1", new GregorianCalendar(2021, Calendar.JANUARY, 4), new GregorianCalendar(2021, Calendar.JANUARY, 17)));
+		new SprintCapacityCalculator().calculate(Arrays.asList(member), sprints);
+
+		List<CapacityBreakdownElement> breakdown = sprints.get(0).getSprintPersonCapacities().get(0).getBreakdown();
+		assertEquals(new BigDecimal("4.000"), breakdown.get(0).getCapacityManDays());
+		assertEquals(new BigDecimal("10.000"), breakdown.get(0).getVelocity());
+	}
+
+	/**
+	 * @param name The team name.
+	 * @return new team.
+	 */
+	private static Team newTeam(String name) {
+		Team team = new Team();
+		team.setName(name);
+		return team;
+	}
+
+	/**
+	 * @param person The person.
+	 * @param team The team.
+	 * @param capacityFactor The capacity factor.
+	 * @param baseVelocity The base velocity per sprint.
+	 * @return new team member.
+	 */
+	private static TeamMember newMember(Person person, Team team, String capacityFactor, String baseVelocity) {
+		TeamMember member = new TeamMember();
+		member.setPerson(person);
+		member.setTeam(team);
+		member.setCapacityFactor(new BigDecimal(capacityFactor));
+		member.setBaseVelocityPerSprint(new BigDecimal(baseVelocity));
+		return member;
+	}
+
+	/**
+	 * @param name The sprint name.
+	 * @param startDate The start date.
+	 * @param endDate The end date.
+	 * @return new sprint.
+	 */
+	private static Sprint newSprint(String name, Calendar startDate, Calendar endDate) {
+		Sprint sprint = new Sprint();
+		sprint.setName(name);
+		sprint.setStartDate(startDate);
+		sprint.setEndDate(endDate);
+		return sprint;
+	}
+}
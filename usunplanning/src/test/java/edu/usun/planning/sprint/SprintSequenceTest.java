@@ -0,0 +1,71 @@
+package edu.usun.planning.sprint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import edu.usun.planning.calendar.CapacityOverride;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.calendar.WorkCalendar;
+
+/**
+ * Unit test for edu.usun.planning.sprint.SprintSequence.
+ *
+ * @author usun
+ */
+public class SprintSequenceTest {
+
+	@Test
+	public void testSprintDates() {
+		CapacityOverride holiday = new CapacityOverride();
+		holiday.setDate(new GregorianCalendar(2020, Calendar.DECEMBER, 28));
+		holiday.setCapacityFactor(BigDecimal.ZERO);
+		WorkCalendar workCalendar = new WorkCalendar();
+		workCalendar.setPublicHolidays(new ArrayList<>(Arrays.asList(holiday)));
+
+		SprintSequence sequence = new SprintSequence(new GregorianCalendar(2020, Calendar.DECEMBER, 14), 14, 26, workCalendar);
+		assertEquals(26, sequence.size());
+		Sprint first = sequence.getSprint(0);
+		assertEquals("Sprint 1", first.getName());
+		assertEquals(EpochDays.toEpochDay(2020, 12, 14), first.getStartEpochDay());
+		assertEquals(EpochDays.toEpochDay(2020, 12, 27), first.getEndEpochDay());
+		// Starts after the public holiday, ends on the cadence
+		Sprint second = sequence.getSprint(1);
+		assertEquals(EpochDays.toEpochDay(2020, 12, 29), second.getStartEpochDay());
+		assertEquals(EpochDays.toEpochDay(2021, 1, 10), second.getEndEpochDay());
+		assertEquals(EpochDays.toEpochDay(2021, 1, 11), sequence.getSprint(2).getStartEpochDay());
+	}
+
+	@Test
+	public void testLazySpliterator() {
+		AtomicInteger materialised = new AtomicInteger();
+		SprintSequence sequence = new SprintSequence(EpochDays.toEpochDay(2021, 1, 4), 14, 1000, null, "S", 1,
+			sprint -> materialised.incrementAndGet());
+
+		Spliterator<Sprint> spliterator = sequence.spliterator();
+		assertEquals(1000, spliterator.estimateSize());
+		Spliterator<Sprint> prefix = spliterator.trySplit();
+		assertEquals(500, prefix.estimateSize());
+		assertEquals(500, spliterator.estimateSize());
+		assertEquals(0, materialised.get());
+		spliterator.tryAdvance(sprint -> assertEquals("S501", sprint.getName()));
+		assertEquals(1, materialised.get());
+
+		Spliterator<Sprint> single = new SprintSequence(new GregorianCalendar(2021, Calendar.JANUARY, 4), 14, 1, null).spliterator();
+		assertNull(single.trySplit());
+
+		materialised.set(0);
+		assertEquals(1000, sequence.parallelStream().filter(sprint -> sprint.getEndEpochDay() > sprint.getStartEpochDay()).count());
+		assertEquals(1000, materialised.get());
+		assertEquals(3, sequence.stream().limit(3).count());
+	}
+}
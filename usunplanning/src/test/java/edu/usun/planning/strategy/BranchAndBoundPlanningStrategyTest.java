@@ -0,0 +1,152 @@
+package edu.usun.planning.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.strategy.BranchAndBoundPlanningStrategy.
+ *
+ * @author usun
+ */
+public class BranchAndBoundPlanningStrategyTest {
+
+	@Test
+	public void testMinimiseLateness() {
+		Team team = new Team();
+		List<Sprint> sprints = newSprints(team, 5, "10");
+		// A is due after the first sprint, B and C after the second one:
+		// the earliest due date order is 7 sprints late in total, B and C first only 4 sprints
+		Release a = newRelease("A", sprints.get(0));
+		Release b = newRelease("B", sprints.get(1));
+		Release c = newRelease("C", sprints.get(1));
+		List<Feature> backlog = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			backlog.add(newFeature("A" + i, "10", a));
+		}
+		backlog.add(newFeature("B", "10", b));
+		backlog.add(newFeature("C", "10", c));
+
+		BranchAndBoundPlanningStrategy strategy = new BranchAndBoundPlanningStrategy(backlog, 10000);
+		strategy.planSprints(sprints);
+		assertTrue(strategy.isOptimal());
+		assertEquals(4 * 14, strategy.getLateness());
+		assertTrue(strategy.getUnplanned().isEmpty());
+		// B and C have the same due date, either of them can go first
+		Release first = sprints.get(0).getAssignedVelocities().get(0).getActivity().getRelease();
+		Release second = sprints.get(1).getAssignedVelocities().get(0).getActivity().getRelease();
+		assertEquals(new HashSet<>(Arrays.asList(b, c)), new HashSet<>(Arrays.asList(first, second)));
+		assertSame(backlog.get(2), sprints.get(4).getAssignedVelocities().get(0).getActivity());
+	}
+
+	@Test
+	public void testTimeBudget() {
+		Team team = new Team();
+		List<Feature> backlog = newBacklog(newSprints(team, 50, "20"));
+		BranchAndBoundPlanningStrategy strategy = new BranchAndBoundPlanningStrategy(backlog, 200);
+		List<Sprint> sprints = newSprints(team, 50, "20");
+		long started = System.nanoTime();
+		strategy.planSprints(sprints);
+		// Best plan found within the budget, at least as good as the backlog order
+		assertTrue(System.nanoTime() - started < 5_000_000_000L);
+		assertFalse(strategy.isOptimal());
+		assertTrue(strategy.getUnplanned().isEmpty());
+		List<Sprint> greedySprints = newSprints(team, 50, "20");
+		new GreedyPlanningStrategy(backlog).planSprints(greedySprints);
+		ReleaseLatenessObjective objective = new ReleaseLatenessObjective(backlog);
+		assertTrue(objective.score(sprints) <= objective.score(greedySprints));
+	}
+
+	@Test
+	public void testOpenEndedSprints() {
+		Team team = new Team();
+		List<Feature> backlog = newBacklog(newSprints(team, 50, "20"));
+		List<Sprint> sprints = newSprints(team, 50, "20");
+		for (Sprint sprint : sprints) {
+			sprint.setEndDate(null);
+		}
+		BranchAndBoundPlanningStrategy strategy = new BranchAndBoundPlanningStrategy(backlog, 200);
+		strategy.planSprints(sprints);
+		// Every release completes in a sprint without end, i.e. at the end of time
+		assertTrue(strategy.getLateness() > 0);
+		assertTrue(strategy.getUnplanned().isEmpty());
+		assertTrue(new ReleaseLatenessObjective(backlog).score(sprints) > 0);
+	}
+
+	/**
+	 * @param team The team.
+	 * @param count Number of sprints.
+	 * @param velocity Velocity of the team.
+	 * @return two weeks sprints from 2021-01-04.
+	 */
+	private static List<Sprint> newSprints(Team team, int count, String velocity) {
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < count; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setName("S" + s);
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			SprintTeamAvailability availability = new SprintTeamAvailability();
+			availability.setTeam(team);
+			availability.setVelocity(new BigDecimal(velocity));
+			sprint.setAvailableVelocities(Arrays.asList(availability));
+			sprints.add(sprint);
+		}
+		return sprints;
+	}
+
+	/**
+	 * @param sprints Sprints the releases are due in.
+	 * @return 40 releases of 5 features each, due within the first 5 sprints: too many to search within a short budget.
+	 */
+	private static List<Feature> newBacklog(List<Sprint> sprints) {
+		Random random = new Random(7);
+		List<Feature> backlog = new ArrayList<>();
+		for (int r = 0; r < 40; r++) {
+			Release release = newRelease("R" + r, sprints.get(random.nextInt(5)));
+			for (int i = 0; i < 5; i++) {
+				backlog.add(newFeature("F" + r + "." + i, String.valueOf(1 + random.nextInt(8)), release));
+			}
+		}
+		return backlog;
+	}
+
+	/**
+	 * @param name The release name.
+	 * @param sprint Sprint delivering to integration and to the customer.
+	 * @return new release.
+	 */
+	private static Release newRelease(String name, Sprint sprint) {
+		return new Release(name, "usunplanning", null, null, sprint.getEndDate(), sprint.getEndDate());
+	}
+
+	/**
+	 * @param name The feature name.
+	 * @param estimate The remaining estimate.
+	 * @param release The release.
+	 * @return new feature.
+	 */
+	private static Feature newFeature(String name, String estimate, Release release) {
+		Feature feature = GreedyPlanningStrategyTest.newFeature(name, estimate);
+		feature.setRelease(release);
+		return feature;
+	}
+}
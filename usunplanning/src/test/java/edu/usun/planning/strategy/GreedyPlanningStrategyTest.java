@@ -0,0 +1,149 @@
+package edu.usun.planning.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.strategy.GreedyPlanningStrategy.
+ *
+ * @author usun
+ */
+public class GreedyPlanningStrategyTest {
+
+	@Test
+	public void testPlanSprints() {
+		Team red = new Team();
+		red.setName("Red");
+		Team blue = new Team();
+		blue.setName("Blue");
+		Sprint first = newSprint("S1", red, "10.7", blue, "5");
+		Sprint second = newSprint("S2", red, "10", blue, "5");
+		SprintTeamActivityPlan existing = new SprintTeamActivityPlan();
+		existing.setTeam(red);
+		existing.setStoryPoints(2);
+		first.setAssignedVelocities(new ArrayList<>(Arrays.asList(existing)));
+
+		Feature a = newFeature("A", "7");
+		Feature b = newFeature("B", "9.2");
+		Feature c = newFeature("C", "30");
+		GreedyPlanningStrategy strategy = new GreedyPlanningStrategy(Arrays.asList(a, b, c));
+		strategy.planSprints(Arrays.asList(first, second));
+
+		// S1: red has 8 points left after the existing row, blue 5
+		List<SprintTeamActivityPlan> plans = first.getAssignedVelocities();
+		assertEquals(4, plans.size());
+		assertPlan(plans.get(1), first, red, a, 7);
+		assertPlan(plans.get(2), first, blue, b, 5);
+		assertPlan(plans.get(3), first, red, b, 1);
+		plans = second.getAssignedVelocities();
+		assertEquals(3, plans.size());
+		assertPlan(plans.get(0), second, red, b, 4);
+		assertPlan(plans.get(1), second, red, c, 6);
+		assertPlan(plans.get(2), second, blue, c, 5);
+		assertEquals(1, strategy.getUnplanned().size());
+		assertEquals(Long.valueOf(19), strategy.getUnplanned().get(c));
+	}
+
+	@Test
+	public void testLargeBacklog() {
+		List<Sprint> sprints = new ArrayList<>();
+		List<Team> teams = new ArrayList<>();
+		for (int t = 0; t < 50; t++) {
+			Team team = new Team();
+			team.setName("T" + t);
+			teams.add(team);
+		}
+		for (int s = 0; s < 40; s++) {
+			Sprint sprint = new Sprint();
+			List<SprintTeamAvailability> availabilities = new ArrayList<>();
+			for (Team team : teams) {
+				availabilities.add(newAvailability(team, "100"));
+			}
+			sprint.setAvailableVelocities(availabilities);
+			sprints.add(sprint);
+		}
+		List<Feature> backlog = new ArrayList<>();
+		for (int i = 0; i < 50000; i++) {
+			backlog.add(newFeature("F" + i, String.valueOf(1 + i % 9)));
+		}
+		GreedyPlanningStrategy strategy = new GreedyPlanningStrategy(backlog);
+		strategy.planSprints(sprints);
+
+		long planned = 0;
+		for (Sprint sprint : sprints) {
+			for (SprintTeamActivityPlan plan : sprint.getAssignedVelocities()) {
+				planned += plan.getStoryPoints();
+			}
+		}
+		// 40 sprints x 50 teams x 100 points are fully used
+		assertEquals(200000, planned);
+		assertTrue(strategy.getUnplanned().size() > 0);
+	}
+
+	/**
+	 * @param plan The plan row to check.
+	 * @param sprint Expected sprint.
+	 * @param team Expected team.
+	 * @param feature Expected feature.
+	 * @param storyPoints Expected story points.
+	 */
+	private static void assertPlan(SprintTeamActivityPlan plan, Sprint sprint, Team team, Feature feature, int storyPoints) {
+		assertSame(sprint, plan.getSprint());
+		assertSame(team, plan.getTeam());
+		assertSame(feature, plan.getActivity());
+		assertEquals(storyPoints, plan.getStoryPoints());
+	}
+
+	/**
+	 * @param name The sprint name.
+	 * @param team1 The first team.
+	 * @param velocity1 Velocity of the first team.
+	 * @param team2 The second team.
+	 * @param velocity2 Velocity of the second team.
+	 * @return new sprint.
+	 */
+	private static Sprint newSprint(String name, Team team1, String velocity1, Team team2, String velocity2) {
+		Sprint sprint = new Sprint();
+		sprint.setName(name);
+		sprint.setAvailableVelocities(Arrays.asList(newAvailability(team1, velocity1), newAvailability(team2, velocity2)));
+		return sprint;
+	}
+
+	/**
+	 * @param team The team.
+	 * @param velocity The velocity.
+	 * @return new availability.
+	 */
+	private static SprintTeamAvailability newAvailability(Team team, String velocity) {
+		SprintTeamAvailability availability = new SprintTeamAvailability();
+		availability.setTeam(team);
+		availability.setVelocity(new BigDecimal(velocity));
+		return availability;
+	}
+
+	/**
+	 * @param name The feature name.
+	 * @param estimate The remaining estimate.
+	 * @return new feature.
+	 */
+	static Feature newFeature(String name, String estimate) {
+		Feature feature = new Feature();
+		feature.setName(name);
+		feature.setRemaningEstimate(new BigDecimal(estimate));
+		return feature;
+	}
+}
@@ -0,0 +1,143 @@
+package edu.usun.planning.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edu.usun.planning.activity.Feature;
+import edu.usun.planning.calendar.EpochDays;
+import edu.usun.planning.release.Release;
+import edu.usun.planning.sprint.Sprint;
+import edu.usun.planning.sprint.SprintTeamActivityPlan;
+import edu.usun.planning.sprint.SprintTeamAvailability;
+import edu.usun.planning.team.Team;
+
+/**
+ * Unit test for edu.usun.planning.strategy.PortfolioPlanningStrategy.
+ *
+ * @author usun
+ */
+public class PortfolioPlanningStrategyTest {
+
+	@Test
+	public void testBestPlanWins() {
+		Team team = new Team();
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < 5; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			SprintTeamAvailability availability = new SprintTeamAvailability();
+			availability.setTeam(team);
+			availability.setVelocity(new BigDecimal("10"));
+			sprint.setAvailableVelocities(Arrays.asList(availability));
+			sprints.add(sprint);
+		}
+		Release a = new Release("A", null, null, null, sprints.get(0).getEndDate(), sprints.get(0).getEndDate());
+		Release b = new Release("B", null, null, null, sprints.get(1).getEndDate(), sprints.get(1).getEndDate());
+		List<Feature> backlog = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			backlog.add(newFeature("A" + i, a));
+		}
+		backlog.add(newFeature("B", b));
+
+		IPlanningStrategy greedy = new GreedyPlanningStrategy(backlog);
+		IPlanningStrategy branchAndBound = new BranchAndBoundPlanningStrategy(backlog, 200);
+		IPlanningStrategy stuck = sprintsToPlan -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				Thread.yield();
+			}
+		};
+		PortfolioPlanningStrategy portfolio = new PortfolioPlanningStrategy(
+			Arrays.asList(stuck, greedy, branchAndBound), new ReleaseLatenessObjective(backlog), 1500);
+		portfolio.planSprints(sprints);
+
+		// Greedy: A and B both 2 sprints late; branch-and-bound: B on time, A 3 sprints late
+		assertTrue(portfolio.getWinner() instanceof BranchAndBoundPlanningStrategy);
+		BranchAndBoundPlanningStrategy winner = (BranchAndBoundPlanningStrategy) portfolio.getWinner();
+		assertNotSame(branchAndBound, winner);
+		assertTrue(winner.isOptimal());
+		assertEquals(3 * 14, winner.getLateness());
+		assertEquals(3 * 14, portfolio.getBestScore());
+		SprintTeamActivityPlan first = sprints.get(0).getAssignedVelocities().get(0);
+		assertSame(backlog.get(3), first.getActivity());
+		assertSame(sprints.get(0), first.getSprint());
+		assertEquals(0, new UnusedCapacityObjective().score(sprints.subList(0, 4)));
+		assertEquals(10, new UnusedCapacityObjective().score(sprints));
+
+		// A nested portfolio runs on its own instance
+		PortfolioPlanningStrategy copy = (PortfolioPlanningStrategy) portfolio.copy();
+		assertNotSame(portfolio, copy);
+		assertSame(portfolio.getStrategies(), copy.getStrategies());
+		assertNull(copy.getWinner());
+	}
+
+	@Test
+	public void testCancelledRunStops() {
+		Team team = new Team();
+		List<Sprint> sprints = new ArrayList<>();
+		for (int s = 0; s < 30; s++) {
+			long start = EpochDays.toEpochDay(2021, 1, 4) + 14 * s;
+			Sprint sprint = new Sprint();
+			sprint.setStartDate(EpochDays.toCalendar(start));
+			sprint.setEndDate(EpochDays.toCalendar(start + 13));
+			SprintTeamAvailability availability = new SprintTeamAvailability();
+			availability.setTeam(team);
+			availability.setVelocity(new BigDecimal("20"));
+			sprint.setAvailableVelocities(Arrays.asList(availability));
+			sprints.add(sprint);
+		}
+		// 40 releases due within the first 5 sprints: far too large to search within the budget
+		Random random = new Random(7);
+		List<Feature> backlog = new ArrayList<>();
+		for (int r = 0; r < 40; r++) {
+			Calendar due = sprints.get(random.nextInt(5)).getEndDate();
+			Release release = new Release("R" + r, null, null, null, due, due);
+			for (int i = 0; i < 5; i++) {
+				Feature feature = GreedyPlanningStrategyTest.newFeature("F" + r + "." + i, String.valueOf(1 + random.nextInt(8)));
+				feature.setRelease(release);
+				backlog.add(feature);
+			}
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			BranchAndBoundPlanningStrategy branchAndBound = new BranchAndBoundPlanningStrategy(backlog, 60000);
+			branchAndBound.setPool(pool);
+			PortfolioPlanningStrategy portfolio = new PortfolioPlanningStrategy(
+				Arrays.asList(branchAndBound, new GreedyPlanningStrategy(backlog)), new ReleaseLatenessObjective(backlog), 1000);
+			portfolio.planSprints(sprints);
+
+			assertTrue(portfolio.getWinner() instanceof GreedyPlanningStrategy);
+			// the interrupted search stops instead of running for its own budget
+			assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param name The feature name.
+	 * @param release The release.
+	 * @return new feature with 10 story points.
+	 */
+	private static Feature newFeature(String name, Release release) {
+		Feature feature = GreedyPlanningStrategyTest.newFeature(name, "10");
+		feature.setRelease(release);
+		return feature;
+	}
+}